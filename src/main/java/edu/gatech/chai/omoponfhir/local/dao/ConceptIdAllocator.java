@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package edu.gatech.chai.omoponfhir.local.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Supplier;
+
+/**
+ * Hands out concept ids for the concepts we create locally.
+ *
+ * The next free id is kept in the ConceptIdSequence table of the local mapping
+ * database. Ids are reserved from it in blocks with one atomic update and then
+ * handed out from memory. The ids left in a block when the server stops are not
+ * used.
+ *
+ * Server instances get different ids only if they share the same writable
+ * local mapping database file. The allocator cannot be created when
+ * localMappingDbUrl is a class path resource, such as the default
+ * jdbc:sqlite::resource:omoponfhir.db, because each server then has its own
+ * sequence and would hand out the same ids into the shared concept table.
+ *
+ * The sequence starts after the largest concept id in the OMOP concept table,
+ * or at the start of our id space if that is larger. The largest id is only
+ * looked up when the sequence is created.
+ */
+public class ConceptIdAllocator extends BaseFhirOmopMap {
+	private static final String CREATE_SQL = "CREATE TABLE IF NOT EXISTS ConceptIdSequence "
+			+ "(name TEXT PRIMARY KEY, next_id INTEGER NOT NULL)";
+	private static final String SEED_SQL = "INSERT OR IGNORE INTO ConceptIdSequence (name, next_id) values (?,?)";
+	private static final String RESERVE_SQL = "UPDATE ConceptIdSequence SET next_id = next_id + ? where name=?";
+	private static final String SELECT_SQL = "SELECT next_id FROM ConceptIdSequence where name=?";
+
+	private final String name;
+	private final long idSpaceStart;
+	private final int blockSize;
+	private final Supplier<Long> largestIdSupplier;
+
+	private boolean initialized = false;
+	private long nextId = 0;
+	private long blockEnd = 0;
+
+	public ConceptIdAllocator(String name, long idSpaceStart, int blockSize, Supplier<Long> largestIdSupplier) {
+		LocalDbConnectionManager connectionManager = LocalDbConnectionManager.getInstance();
+		if (connectionManager.isClasspathResource()) {
+			throw new IllegalStateException("Concept ids cannot be reserved in " + connectionManager.getUrl()
+					+ ". Set localMappingDbUrl to a writable database file shared by all servers.");
+		}
+
+		this.name = name;
+		this.idSpaceStart = idSpaceStart;
+		this.blockSize = Math.max(1, blockSize);
+		this.largestIdSupplier = largestIdSupplier;
+	}
+
+	/**
+	 * Returns the next concept id, or null if no id could be reserved.
+	 */
+	public synchronized Long nextId() {
+		if (nextId >= blockEnd && !reserveBlock()) {
+			return null;
+		}
+
+		return nextId++;
+	}
+
+	private boolean reserveBlock() {
+		try (Connection conn = this.connect()) {
+			if (!initialized) {
+				createSequence(conn);
+				initialized = true;
+			}
+
+			// The update takes the write lock first, so no other instance can reserve
+			// the same block between the update and the select.
+			conn.setAutoCommit(false);
+			long reservedEnd;
+			try (PreparedStatement pstmt = conn.prepareStatement(RESERVE_SQL)) {
+				pstmt.setLong(1, blockSize);
+				pstmt.setString(2, name);
+				if (pstmt.executeUpdate() != 1) {
+					logger.error("Concept id sequence " + name + " does not exist");
+					return false;
+				}
+			}
+			try (PreparedStatement pstmt = conn.prepareStatement(SELECT_SQL)) {
+				pstmt.setString(1, name);
+				ResultSet rs = pstmt.executeQuery();
+				if (!rs.next()) {
+					return false;
+				}
+				reservedEnd = rs.getLong("next_id");
+			}
+			conn.commit();
+
+			nextId = reservedEnd - blockSize;
+			blockEnd = reservedEnd;
+			logger.debug("Concept ids " + nextId + " to " + (blockEnd - 1) + " are reserved");
+
+			return true;
+		} catch (SQLException e) {
+			logger.error(e.getMessage());
+			e.printStackTrace();
+		}
+
+		return false;
+	}
+
+	private void createSequence(Connection conn) throws SQLException {
+		try (Statement stmt = conn.createStatement()) {
+			stmt.execute(CREATE_SQL);
+		}
+
+		try (PreparedStatement pstmt = conn.prepareStatement(SELECT_SQL)) {
+			pstmt.setString(1, name);
+			ResultSet rs = pstmt.executeQuery();
+			if (rs.next()) {
+				return;
+			}
+		}
+
+		long start = idSpaceStart;
+		Long largestId = largestIdSupplier.get();
+		if (largestId != null && largestId >= start) {
+			start = largestId + 1L;
+		}
+
+		// Another instance may have created it in the meantime. Theirs wins.
+		try (PreparedStatement pstmt = conn.prepareStatement(SEED_SQL)) {
+			pstmt.setString(1, name);
+			pstmt.setLong(2, start);
+			pstmt.executeUpdate();
+		}
+		logger.info("Concept id sequence " + name + " starts at " + start);
+	}
+}
@@ -1,13 +1,14 @@
 package edu.gatech.chai.omoponfhir.local.dao;
 
 import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.List;
 
 import ca.uhn.fhir.model.dstu2.composite.CodingDt;
 import edu.gatech.chai.omoponfhir.local.model.FhirOmopCodeMapEntry;
 
 public interface FhirOmopCodeMap {
-	public Connection connect();
+	public Connection connect() throws SQLException;
 	
 	public int save(FhirOmopCodeMapEntry codeMapEntry);
 	public void update(FhirOmopCodeMapEntry codeMapEntry);
@@ -16,12 +16,13 @@
 package edu.gatech.chai.omoponfhir.local.dao;
 
 import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.List;
 
 import edu.gatech.chai.omoponfhir.local.model.FhirOmopVocabularyMapEntry;
 
 public interface FhirOmopVocabularyMap {
-	public Connection connect();
+	public Connection connect() throws SQLException;
 	
 	public int save(FhirOmopVocabularyMapEntry conceptMapEntry);
 	public void update(FhirOmopVocabularyMapEntry conceptMapEntry);
@@ -21,6 +21,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,6 +31,18 @@ import edu.gatech.chai.omoponfhir.local.model.FhirOmopVocabularyMapEntry;
 public class FhirOmopVocabularyMapImpl extends BaseFhirOmopMap implements FhirOmopVocabularyMap {
 	final static Logger logger = LoggerFactory.getLogger(FhirOmopVocabularyMapImpl.class);
 
+	// Incremented whenever the table is modified through this DAO, so that the
+	// in-memory copies of the table know when to read it again.
+	private static final AtomicLong version = new AtomicLong();
+
+	public static long getVersion() {
+		return version.get();
+	}
+
+	public static void invalidateCache() {
+		version.incrementAndGet();
+	}
+
 	@Override
 	public int save(FhirOmopVocabularyMapEntry conceptMapEntry) {
 		String sql = "INSERT INTO FhirOmopVocabularyMap (omop_vocabulary_id, fhir_url_system, other_system) values (?,?,?)";
@@ -46,6 +59,8 @@ public class FhirOmopVocabularyMapImpl extends BaseFhirOmopMap implements FhirOm
 		} catch (SQLException e) {
 			logger.error(e.getMessage());
 			e.printStackTrace();
+		} finally {
+			invalidateCache();
 		}
 
 		return 0;
@@ -64,6 +79,8 @@ public class FhirOmopVocabularyMapImpl extends BaseFhirOmopMap implements FhirOm
 					+ conceptMapEntry.getFhirUrlSystemName() + ", " + conceptMapEntry.getOtherSystemName() + ")");
 		} catch (SQLException e) {
 			System.out.println(e.getMessage());
+		} finally {
+			invalidateCache();
 		}
 	}
 
@@ -77,11 +94,27 @@ public class FhirOmopVocabularyMapImpl extends BaseFhirOmopMap implements FhirOm
 			logger.info("filter data ("+omopConceptCodeName+") deleted");
 		} catch (SQLException e) {
 			System.out.println(e.getMessage());
-		}		
+		} finally {
+			invalidateCache();
+		}
 	}
 
 	@Override
 	public List<FhirOmopVocabularyMapEntry> get() {
+		try {
+			return load();
+		} catch (SQLException e) {
+			System.out.println(e.getMessage());
+		}
+
+		return new ArrayList<FhirOmopVocabularyMapEntry>();
+	}
+
+	/**
+	 * Reads all entries of the table. Unlike {@link #get()}, a failed read is
+	 * thrown, so that an in-memory copy of the table is not left empty.
+	 */
+	public List<FhirOmopVocabularyMapEntry> load() throws SQLException {
 		List<FhirOmopVocabularyMapEntry> conceptMapEntryList = new ArrayList<FhirOmopVocabularyMapEntry>();
 		
 		String sql = "SELECT * FROM FhirOmopVocabularyMap";
@@ -96,9 +129,7 @@ public class FhirOmopVocabularyMapImpl extends BaseFhirOmopMap implements FhirOm
 				conceptMapEntryList.add(conceptMapEntry);
 			}
 			logger.info(conceptMapEntryList.size()+" Concept Map entries obtained");
-		} catch (SQLException e) {
-			System.out.println(e.getMessage());
-		}		
+		}
 
 		return conceptMapEntryList;
 	}
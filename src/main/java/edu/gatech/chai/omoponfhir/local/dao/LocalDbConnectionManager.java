@@ -0,0 +1,450 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package edu.gatech.chai.omoponfhir.local.dao;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.context.ContextLoaderListener;
+import org.springframework.web.context.WebApplicationContext;
+
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.ConfigUtil;
+
+/**
+ * Bounded pool of long-lived connections to the local SQLite mapping database.
+ *
+ * Connections handed out by {@link #getConnection()} are returned to the pool
+ * when closed. Each pooled connection keeps its most recently used
+ * PreparedStatements cached by SQL string, so the DAOs can keep using
+ * try-with-resources on both the connection and the statement without paying
+ * the driver setup cost on every lookup.
+ *
+ * The following servlet init parameters are read when the pool is created:
+ * localMappingDbUrl (default jdbc:sqlite::resource:omoponfhir.db),
+ * localMappingDbPoolSize (default 4), localMappingDbJournalMode (default WAL),
+ * localMappingDbBusyTimeout in milliseconds (default 5000) and
+ * localMappingDbStatementCacheSize per connection (default 64).
+ */
+public class LocalDbConnectionManager {
+	final static Logger logger = LoggerFactory.getLogger(LocalDbConnectionManager.class);
+
+	private static final String DEFAULT_URL = "jdbc:sqlite::resource:omoponfhir.db";
+	private static final int DEFAULT_POOL_SIZE = 4;
+	private static final String DEFAULT_JOURNAL_MODE = "WAL";
+	private static final int DEFAULT_BUSY_TIMEOUT = 5000;
+	private static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+
+	private static LocalDbConnectionManager instance = null;
+
+	private final String url;
+	private final int poolSize;
+	private final String journalMode;
+	private final int busyTimeout;
+	private final int statementCacheSize;
+
+	private final LinkedBlockingQueue<PooledConnection> idleConnections = new LinkedBlockingQueue<PooledConnection>();
+	private int openedConnections = 0;
+	private boolean closed = false;
+
+	private LocalDbConnectionManager() {
+		url = getInitParameter("localMappingDbUrl", DEFAULT_URL);
+		poolSize = getIntInitParameter("localMappingDbPoolSize", DEFAULT_POOL_SIZE);
+		journalMode = getInitParameter("localMappingDbJournalMode", DEFAULT_JOURNAL_MODE);
+		busyTimeout = getIntInitParameter("localMappingDbBusyTimeout", DEFAULT_BUSY_TIMEOUT);
+		statementCacheSize = getIntInitParameter("localMappingDbStatementCacheSize", DEFAULT_STATEMENT_CACHE_SIZE);
+
+		try {
+			Class.forName("org.sqlite.JDBC");
+		} catch (ClassNotFoundException e) {
+			logger.error(e.getMessage());
+			e.printStackTrace();
+		}
+
+		logger.info("Local mapping database pool (" + url + ") size=" + poolSize + ", journal_mode=" + journalMode);
+	}
+
+	public static synchronized LocalDbConnectionManager getInstance() {
+		if (instance == null) {
+			instance = new LocalDbConnectionManager();
+		}
+
+		return instance;
+	}
+
+	/**
+	 * Shuts down the pool if it was created. A later {@link #getInstance()}
+	 * creates a new pool.
+	 */
+	public static synchronized void shutdownInstance() {
+		if (instance != null) {
+			instance.shutdown();
+			instance = null;
+		}
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	/**
+	 * True if the database is a resource in the class path. Every server then has
+	 * its own copy, and what is written to it is not seen by other servers.
+	 */
+	public boolean isClasspathResource() {
+		return url.startsWith("jdbc:sqlite::resource:");
+	}
+
+	private static String getInitParameter(String name, String defaultValue) {
+		WebApplicationContext context = ContextLoaderListener.getCurrentWebApplicationContext();
+		if (context == null || context.getServletContext() == null) {
+			return defaultValue;
+		}
+
+		String value = context.getServletContext().getInitParameter(name);
+		if (value == null || value.trim().isEmpty()) {
+			return defaultValue;
+		}
+
+		return value.trim();
+	}
+
+	private static int getIntInitParameter(String name, int defaultValue) {
+		return ConfigUtil.getPositiveInt(name, getInitParameter(name, null), defaultValue);
+	}
+
+	/**
+	 * Borrows a connection from the pool. The connection must be closed to be
+	 * returned to the pool. Throws SQLException if no connection is returned to
+	 * the pool within localMappingDbBusyTimeout, or if the pool is shut down.
+	 */
+	public Connection getConnection() throws SQLException {
+		synchronized (this) {
+			if (closed) {
+				throw new SQLException("The local mapping database pool is shut down");
+			}
+		}
+
+		PooledConnection pooledConnection = idleConnections.poll();
+		if (pooledConnection == null) {
+			pooledConnection = openConnectionIfAllowed();
+		}
+		if (pooledConnection == null) {
+			try {
+				pooledConnection = idleConnections.poll(busyTimeout, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new SQLException("Interrupted while waiting for a connection to the local mapping database", e);
+			}
+		}
+
+		if (pooledConnection == null) {
+			throw new SQLException("No connection to the local mapping database was free within " + busyTimeout + "ms");
+		}
+
+		return pooledConnection.borrow();
+	}
+
+	private PooledConnection openConnectionIfAllowed() throws SQLException {
+		synchronized (this) {
+			if (closed || openedConnections >= poolSize) {
+				return null;
+			}
+			openedConnections++;
+		}
+
+		try {
+			Connection physical = DriverManager.getConnection(url);
+			try (Statement stmt = physical.createStatement()) {
+				stmt.execute("PRAGMA busy_timeout=" + busyTimeout);
+				stmt.execute("PRAGMA journal_mode=" + journalMode);
+			}
+			logger.debug("Connected to database");
+
+			return new PooledConnection(physical);
+		} catch (SQLException e) {
+			synchronized (this) {
+				openedConnections--;
+			}
+			throw e;
+		}
+	}
+
+	private void release(PooledConnection pooledConnection) {
+		synchronized (this) {
+			if (closed) {
+				pooledConnection.closePhysical();
+				openedConnections--;
+				return;
+			}
+		}
+
+		try {
+			Connection physical = pooledConnection.physical;
+			if (physical.isClosed()) {
+				synchronized (this) {
+					openedConnections--;
+				}
+				return;
+			}
+
+			if (!physical.getAutoCommit()) {
+				// Whatever the borrower did not commit is discarded.
+				physical.rollback();
+				physical.setAutoCommit(true);
+			}
+		} catch (SQLException e) {
+			logger.error(e.getMessage());
+			pooledConnection.closePhysical();
+			synchronized (this) {
+				openedConnections--;
+			}
+			return;
+		}
+
+		synchronized (this) {
+			// Checked again in case the pool was shut down while this was rolled back.
+			if (closed) {
+				pooledConnection.closePhysical();
+				openedConnections--;
+				return;
+			}
+			idleConnections.offer(pooledConnection);
+		}
+	}
+
+	/**
+	 * Closes all idle connections and stops handing out new ones. Connections
+	 * currently borrowed are closed when they are returned.
+	 */
+	public synchronized void shutdown() {
+		closed = true;
+
+		PooledConnection pooledConnection;
+		while ((pooledConnection = idleConnections.poll()) != null) {
+			pooledConnection.closePhysical();
+			openedConnections--;
+		}
+	}
+
+	private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	private class PooledConnection {
+		private final Connection physical;
+		// Least recently used statements are closed once there are more than statementCacheSize.
+		private final Map<String, PreparedStatement> statementCache = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+				if (size() <= statementCacheSize) {
+					return false;
+				}
+
+				PreparedStatement stmt = eldest.getValue();
+				if (borrowedStatements.remove(stmt)) {
+					// Still in use. Closed when the borrower is done with it.
+					extraStatements.add(stmt);
+				} else {
+					closeStatement(stmt);
+				}
+				return true;
+			}
+		};
+		// Cached statements currently handed out. They are not handed out again until closed.
+		private final Set<PreparedStatement> borrowedStatements = new HashSet<PreparedStatement>();
+		// Statements prepared because the cached one was handed out, or evicted from the
+		// cache while handed out. Closed with the borrow.
+		private final Set<PreparedStatement> extraStatements = new HashSet<PreparedStatement>();
+		// Last result of each cached statement. The driver does not return it from getResultSet.
+		private final Map<PreparedStatement, ResultSet> resultSets = new HashMap<PreparedStatement, ResultSet>();
+
+		PooledConnection(Connection physical) {
+			this.physical = physical;
+		}
+
+		Connection borrow() {
+			final boolean[] returned = { false };
+			return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+					new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+						switch (method.getName()) {
+						case "close":
+							if (!returned[0]) {
+								returned[0] = true;
+								resetStatements();
+								release(this);
+							}
+							return null;
+						case "isClosed":
+							return returned[0] || physical.isClosed();
+						case "equals":
+							return proxy == args[0];
+						case "hashCode":
+							return System.identityHashCode(proxy);
+						case "toString":
+							return "Pooled " + physical.toString();
+						default:
+							break;
+						}
+
+						if (returned[0]) {
+							throw new SQLException("Connection is closed");
+						}
+						if ("prepareStatement".equals(method.getName()) && args != null && args.length == 1) {
+							return cachedStatement((String) args[0], returned);
+						}
+						return invoke(physical, method, args);
+					});
+		}
+
+		/**
+		 * Returns the cached statement for the SQL if it is not handed out already.
+		 * Otherwise, a new statement is prepared, which is closed with its proxy.
+		 */
+		private PreparedStatement cachedStatement(String sql, final boolean[] returned) throws SQLException {
+			PreparedStatement stmt = statementCache.get(sql);
+			boolean cached = true;
+			if (stmt == null || stmt.isClosed()) {
+				stmt = physical.prepareStatement(sql);
+				statementCache.put(sql, stmt);
+			} else if (borrowedStatements.contains(stmt)) {
+				stmt = physical.prepareStatement(sql);
+				cached = false;
+			}
+			if (cached) {
+				borrowedStatements.add(stmt);
+			} else {
+				extraStatements.add(stmt);
+			}
+
+			final PreparedStatement target = stmt;
+			final boolean keep = cached;
+			final boolean[] closed = { false };
+			return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+					new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+						switch (method.getName()) {
+						case "close":
+							if (!closed[0]) {
+								closed[0] = true;
+								if (extraStatements.remove(target)) {
+									closeStatement(target);
+								} else if (keep && !returned[0]) {
+									// Keep the statement for the next borrower. Just reset it.
+									resetStatement(target);
+									borrowedStatements.remove(target);
+								}
+							}
+							return null;
+						case "isClosed":
+							return closed[0] || returned[0] || target.isClosed();
+						case "equals":
+							return proxy == args[0];
+						case "hashCode":
+							return System.identityHashCode(proxy);
+						case "toString":
+							return target.toString();
+						default:
+							break;
+						}
+
+						if (closed[0] || returned[0]) {
+							throw new SQLException("Statement is closed");
+						}
+						Object result = invoke(target, method, args);
+						if (keep && result instanceof ResultSet) {
+							resultSets.put(target, (ResultSet) result);
+						}
+						return result;
+					});
+		}
+
+		/**
+		 * Resets the cached statements that the borrower did not close, so that the
+		 * next borrower can use them, and closes the extra statements.
+		 */
+		private void resetStatements() {
+			for (PreparedStatement stmt : extraStatements) {
+				closeStatement(stmt);
+			}
+			extraStatements.clear();
+
+			for (PreparedStatement stmt : borrowedStatements) {
+				try {
+					resetStatement(stmt);
+				} catch (SQLException e) {
+					logger.debug(e.getMessage());
+				}
+			}
+			borrowedStatements.clear();
+		}
+
+		private void resetStatement(PreparedStatement stmt) throws SQLException {
+			ResultSet rs = resultSets.remove(stmt);
+			if (rs != null) {
+				rs.close();
+			}
+			stmt.clearParameters();
+		}
+
+		private void closeStatement(PreparedStatement stmt) {
+			resultSets.remove(stmt);
+			try {
+				stmt.close();
+			} catch (SQLException e) {
+				logger.debug(e.getMessage());
+			}
+		}
+
+		void closePhysical() {
+			for (PreparedStatement stmt : statementCache.values()) {
+				closeStatement(stmt);
+			}
+			for (PreparedStatement stmt : extraStatements) {
+				closeStatement(stmt);
+			}
+			statementCache.clear();
+			borrowedStatements.clear();
+			extraStatements.clear();
+			resultSets.clear();
+
+			try {
+				physical.close();
+			} catch (SQLException e) {
+				logger.debug(e.getMessage());
+			}
+		}
+	}
+}
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package edu.gatech.chai.omoponfhir.local.dao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Checkpoints of the local code mapping file loads. For each file being loaded
+ * it keeps the checksum of the file and the last line whose rows are written,
+ * so a load stopped midway resumes after that line. A checkpoint of a file
+ * whose content changed is ignored.
+ */
+public class MappingLoadJournal extends BaseFhirOmopMap {
+	private static final String CREATE_SQL = "CREATE TABLE IF NOT EXISTS MappingLoadCheckpoint "
+			+ "(file_path TEXT PRIMARY KEY, checksum TEXT NOT NULL, last_line INTEGER NOT NULL, updated INTEGER)";
+
+	private boolean initialized = false;
+
+	private synchronized void initialize(Connection conn) throws SQLException {
+		if (!initialized) {
+			try (Statement stmt = conn.createStatement()) {
+				stmt.execute(CREATE_SQL);
+			}
+			initialized = true;
+		}
+	}
+
+	/**
+	 * Returns the last written line of the file, or 0 if the load of this content
+	 * has not started.
+	 */
+	public long getLastLine(String filePath, String checksum) {
+		String sql = "SELECT checksum, last_line FROM MappingLoadCheckpoint where file_path=?";
+
+		try (Connection conn = this.connect()) {
+			initialize(conn);
+
+			try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+				pstmt.setString(1, filePath);
+				ResultSet rs = pstmt.executeQuery();
+				if (rs.next()) {
+					if (checksum.equals(rs.getString("checksum"))) {
+						return rs.getLong("last_line");
+					}
+					logger.info(filePath + " has changed since its last checkpoint. It is loaded from the start.");
+				}
+			}
+		} catch (SQLException e) {
+			logger.error(e.getMessage());
+			e.printStackTrace();
+		}
+
+		return 0L;
+	}
+
+	public void saveCheckpoint(String filePath, String checksum, long lastLine) {
+		String sql = "INSERT OR REPLACE INTO MappingLoadCheckpoint (file_path, checksum, last_line, updated) "
+				+ "values (?,?,?,?)";
+
+		try (Connection conn = this.connect()) {
+			initialize(conn);
+
+			try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+				pstmt.setString(1, filePath);
+				pstmt.setString(2, checksum);
+				pstmt.setLong(3, lastLine);
+				pstmt.setLong(4, System.currentTimeMillis());
+				pstmt.executeUpdate();
+			}
+		} catch (SQLException e) {
+			logger.error(e.getMessage());
+			e.printStackTrace();
+		}
+	}
+
+	public void delete(String filePath) {
+		String sql = "DELETE FROM MappingLoadCheckpoint where file_path=?";
+
+		try (Connection conn = this.connect()) {
+			initialize(conn);
+
+			try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+				pstmt.setString(1, filePath);
+				pstmt.executeUpdate();
+			}
+		} catch (SQLException e) {
+			logger.error(e.getMessage());
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * SHA-256 of the file content in hex.
+	 */
+	public static String checksum(String filePath) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+
+		byte[] buffer = new byte[65536];
+		try (InputStream in = Files.newInputStream(Paths.get(filePath))) {
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				digest.update(buffer, 0, read);
+			}
+		}
+
+		StringBuilder hex = new StringBuilder();
+		for (byte b : digest.digest()) {
+			hex.append(String.format("%02x", b));
+		}
+
+		return hex.toString();
+	}
+}
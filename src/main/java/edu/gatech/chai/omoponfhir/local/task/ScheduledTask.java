@@ -3,42 +3,95 @@ package edu.gatech.chai.omoponfhir.local.task;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import com.opencsv.CSVParser;
 
+import edu.gatech.chai.omoponfhir.local.dao.ConceptIdAllocator;
 import edu.gatech.chai.omoponfhir.local.dao.FhirOmopVocabularyMapImpl;
+import edu.gatech.chai.omoponfhir.local.dao.LocalDbConnectionManager;
+import edu.gatech.chai.omoponfhir.local.dao.MappingLoadJournal;
 import edu.gatech.chai.omoponfhir.local.model.FhirOmopVocabularyMapEntry;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.ConfigUtil;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.CodeableConceptUtil;
 import edu.gatech.chai.omopv5.dba.service.ConceptRelationshipService;
 import edu.gatech.chai.omopv5.dba.service.ConceptService;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
 import edu.gatech.chai.omopv5.dba.service.RelationshipService;
+import edu.gatech.chai.omopv5.dba.service.TransactionService;
 import edu.gatech.chai.omopv5.dba.service.VocabularyService;
+import edu.gatech.chai.omopv5.model.entity.BaseEntity;
 import edu.gatech.chai.omopv5.model.entity.Concept;
 import edu.gatech.chai.omopv5.model.entity.ConceptRelationship;
 import edu.gatech.chai.omopv5.model.entity.ConceptRelationshipPK;
 import edu.gatech.chai.omopv5.model.entity.Relationship;
 import edu.gatech.chai.omopv5.model.entity.Vocabulary;
 
+/**
+ * Loads the local code mapping CSV files found in LOCAL_CODEMAPPING_FILE_PATH.
+ *
+ * The rows of a file are loaded in chunks of LOCAL_CODEMAPPING_CHUNK_SIZE rows
+ * (default 1000). A reader thread parses the next chunks while the current one
+ * is written. For each chunk, the target and source concepts are looked up with
+ * one query each, and the new concepts and concept relationships are written
+ * in bulk. The ids of the new concepts come from a {@link ConceptIdAllocator}
+ * that reserves LOCAL_CODEMAPPING_ID_BLOCK_SIZE ids (default 1000) at a time.
+ *
+ * After each chunk is written, its last line is saved in the
+ * {@link MappingLoadJournal}. A file is deleted once all of its rows are
+ * loaded. If a chunk fails, the file is kept and the next run resumes after
+ * the last saved line.
+ *
+ * The files are loaded when the directory changes. A WatchService reports the
+ * new and modified files, and the load starts once no change is reported for
+ * LOCAL_CODEMAPPING_DEBOUNCE milliseconds (default 3000). The directory is
+ * also scanned every LOCAL_CODEMAPPING_POLL_INTERVAL milliseconds (default
+ * 600000) in case a change was missed, or every minute if it cannot be watched.
+ */
 @Component
-public class ScheduledTask {
+public class ScheduledTask implements DisposableBean {
 	private static final Logger logger = LoggerFactory.getLogger(ScheduledTask.class);
 	private static final long CONCEPT_MY_SPACE = 2000000000L;
+	private static final int DEFAULT_CHUNK_SIZE = 1000;
+	private static final int CHUNK_QUEUE_SIZE = 4;
+	private static final int DEFAULT_ID_BLOCK_SIZE = 1000;
+	private static final int DEFAULT_DEBOUNCE = 3000;
+	private static final int DEFAULT_POLL_INTERVAL = 600000;
+	private static final int UNWATCHED_POLL_INTERVAL = 60000;
+	private static final List<MappingRow> END_OF_FILE = Collections.emptyList();
+	private static final List<MappingRow> READ_FAILED = new ArrayList<MappingRow>(0);
+
 	@Autowired
 	private ConceptService conceptService;
 	@Autowired
@@ -47,296 +100,673 @@ public class ScheduledTask {
 	private VocabularyService vocabularyService;
 	@Autowired
 	private RelationshipService relationshipService;
-
-	private Long conceptIdStart;
+	@Autowired
+	private TransactionService transactionService;
+
+	private ConceptIdAllocator conceptIdAllocator = null;
+	private boolean conceptIdAllocatorFailed = false;
+	private MappingLoadJournal mappingLoadJournal;
+	private int chunkSize;
+
+	private int debounce;
+	private int pollInterval;
+	private WatchService watchService = null;
+	private Map<WatchKey, Path> watchedDirectories = new HashMap<WatchKey, Path>();
+	private boolean watchFailed = false;
+	private boolean changed = false;
+	private long lastChangeTime = 0L;
+	private long lastScanTime = 0L;
 
 	protected FhirOmopVocabularyMapImpl fhirOmopVocabularyMap;
 
 	public ScheduledTask() {
-		conceptIdStart = ScheduledTask.CONCEPT_MY_SPACE;
 		fhirOmopVocabularyMap = new FhirOmopVocabularyMapImpl();
+		mappingLoadJournal = new MappingLoadJournal();
+		chunkSize = getIntEnv("LOCAL_CODEMAPPING_CHUNK_SIZE", DEFAULT_CHUNK_SIZE);
+		debounce = getIntEnv("LOCAL_CODEMAPPING_DEBOUNCE", DEFAULT_DEBOUNCE);
+		pollInterval = getIntEnv("LOCAL_CODEMAPPING_POLL_INTERVAL", DEFAULT_POLL_INTERVAL);
+
+	}
+
+	/**
+	 * Closes the local mapping database connections when the application context
+	 * is shut down.
+	 */
+	@Override
+	public void destroy() {
+		LocalDbConnectionManager.shutdownInstance();
+	}
+
+	/**
+	 * Creates the concept id allocator on the first trigger, when the servlet init
+	 * parameters can be read. Returns false if concept ids cannot be reserved. The
+	 * mapping files are then never loaded, so that no two servers hand out the
+	 * same concept ids.
+	 */
+	private boolean createConceptIdAllocator() {
+		if (conceptIdAllocator != null) {
+			return true;
+		}
+
+		try {
+			// conceptService is injected by now, but the largest id is looked up only
+			// when the sequence is created.
+			conceptIdAllocator = new ConceptIdAllocator("concept", ScheduledTask.CONCEPT_MY_SPACE,
+					getIntEnv("LOCAL_CODEMAPPING_ID_BLOCK_SIZE", DEFAULT_ID_BLOCK_SIZE),
+					() -> conceptService.getLargestId());
+		} catch (IllegalStateException e) {
+			logger.error("Local code mapping files are not loaded. " + e.getMessage());
+			return false;
+		}
+
+		return true;
+	}
+
+	private static int getIntEnv(String name, int defaultValue) {
+		return ConfigUtil.getPositiveInt(name, System.getenv(name), defaultValue);
+	}
+
+	/**
+	 * A data row of a mapping file with its line number in the file.
+	 */
+	private static class MappingRow {
+		final long lineNumber;
+		final String[] fields;
+
+		MappingRow(long lineNumber, String[] fields) {
+			this.lineNumber = lineNumber;
+			this.fields = fields;
+		}
+	}
+
+	/**
+	 * Reads the lines of a mapping file skipping the comments and empty lines.
+	 */
+	private static class MappingFileReader {
+		private final BufferedReader reader;
+		private long lineNumber = 0;
+
+		MappingFileReader(BufferedReader reader) {
+			this.reader = reader;
+		}
+
+		String nextLine() throws IOException {
+			String line = reader.readLine();
+			while (line != null) {
+				lineNumber++;
+				String line_ = line.trim();
+				if (!line_.isEmpty() && !line_.startsWith("#") && !(line_.length() > 1 && line_.charAt(1) == '#')) {
+					return line;
+				}
+				line = reader.readLine();
+			}
+
+			return null;
+		}
+
+		long getLineNumber() {
+			return lineNumber;
+		}
+	}
+
+	/**
+	 * What the first 3 lines of a mapping file tell about the rows.
+	 */
+	private static class MappingFile {
+		String fileName;
+		String[] omopSrc;
+		String omopTargetVocab;
+		String fhirSourceCodeSystem;
+		int sourceCodeSystemIndex = -1;
+		int sourceCodeIndex = -1;
+		int sourceCodeDescIndex = -1;
+		int targetCodeIndex = -1;
+		String checksum;
+		long resumeAfterLine = 0;
+		Vocabulary myVocab;
+		String relationshipId;
+		Date validEndDate;
+
+		// Source concepts and relationships created by this load.
+		Set<Long> createdConceptIds = new HashSet<Long>();
+		Set<String> createdRelationships = new HashSet<String>();
+	}
+
+	private static String getLocalMappingFilePath() {
+		String localMappingFilePath = System.getenv("LOCAL_CODEMAPPING_FILE_PATH");
+		if (localMappingFilePath == null || localMappingFilePath.trim().isEmpty()
+				|| "none".equalsIgnoreCase(localMappingFilePath)) {
+			return null;
+		}
+
+		return localMappingFilePath;
+	}
+
+	/**
+	 * Checks the reported changes of the mapping directory. This does not touch
+	 * the directory. The files are loaded once the changes settle, or when the
+	 * fallback scan is due.
+	 */
+	@Scheduled(fixedDelay = 1000)
+	public void localCodeMappingTrigger() {
+		String localMappingFilePath = getLocalMappingFilePath();
+		if (localMappingFilePath == null || conceptIdAllocatorFailed) {
+			return;
+		}
+		if (!createConceptIdAllocator()) {
+			conceptIdAllocatorFailed = true;
+			return;
+		}
+
+		if (watchService == null && !watchFailed) {
+			startWatching(Paths.get(localMappingFilePath));
+		}
+		pollWatchEvents();
+
+		long now = System.currentTimeMillis();
+		int interval = watchService == null ? UNWATCHED_POLL_INTERVAL : pollInterval;
+		if ((changed && now - lastChangeTime >= debounce) || now - lastScanTime >= interval) {
+			changed = false;
+			lastScanTime = now;
+			// Try to watch again if the directory could not be watched.
+			watchFailed = false;
+			localCodeMappingTask();
+		}
+	}
+
+	private void startWatching(Path root) {
+		try {
+			watchService = FileSystems.getDefault().newWatchService();
+			registerDirectories(root);
+			logger.info("Watching " + root + " for local code mapping files");
+		} catch (IOException e) {
+			logger.warn("Failed to watch " + root + ". It is scanned every " + UNWATCHED_POLL_INTERVAL
+					+ " milliseconds. " + e.getMessage());
+			closeWatchService();
+			watchFailed = true;
+		}
+	}
+
+	private void registerDirectories(Path root) throws IOException {
+		try (Stream<Path> walk = Files.walk(root)) {
+			for (Path directory : walk.filter(Files::isDirectory).collect(Collectors.toList())) {
+				WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+						StandardWatchEventKinds.ENTRY_MODIFY);
+				watchedDirectories.put(key, directory);
+			}
+		}
+	}
+
+	private void pollWatchEvents() {
+		if (watchService == null) {
+			return;
+		}
+
+		WatchKey key = watchService.poll();
+		while (key != null) {
+			Path directory = watchedDirectories.get(key);
+			for (WatchEvent<?> event : key.pollEvents()) {
+				changed = true;
+				lastChangeTime = System.currentTimeMillis();
+
+				// Watch the new sub directories too.
+				if (directory != null && event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+					Path created = directory.resolve((Path) event.context());
+					if (Files.isDirectory(created)) {
+						try {
+							registerDirectories(created);
+						} catch (IOException e) {
+							logger.warn("Failed to watch " + created + ". " + e.getMessage());
+						}
+					}
+				}
+			}
+
+			if (!key.reset()) {
+				watchedDirectories.remove(key);
+				if (watchedDirectories.isEmpty()) {
+					// The mapping directory itself is gone. Start over in the next scan.
+					closeWatchService();
+				}
+			}
+			key = watchService == null ? null : watchService.poll();
+		}
+	}
+
+	private void closeWatchService() {
+		if (watchService != null) {
+			try {
+				watchService.close();
+			} catch (IOException e) {
+				logger.debug(e.getMessage());
+			}
+		}
+		watchService = null;
+		watchedDirectories.clear();
 	}
 
-	@Scheduled(fixedDelay = 60000)
 	public void localCodeMappingTask() {
 		// We may need to load local mapping data. Get a path where the mapping CSV
 		// file(s) are located and load them if files exist. The files will then be
-		// deleted.
-		CSVParser parser = new CSVParser();
-		String localMappingFilePath = System.getenv("LOCAL_CODEMAPPING_FILE_PATH");
+		// deleted. A file that failed midway is kept to be resumed in the next run.
+		String localMappingFilePath = getLocalMappingFilePath();
 
-		if (localMappingFilePath != null && !localMappingFilePath.trim().isEmpty()
-				&& !"none".equalsIgnoreCase(localMappingFilePath)) {
+		if (localMappingFilePath != null && createConceptIdAllocator()) {
 			logger.debug("LocalMappingFilePath is set to " + localMappingFilePath);
 
 			// get the list of files in this path.
-			BufferedReader reader = null;
 			try (Stream<Path> walk = Files.walk(Paths.get(localMappingFilePath))) {
 				List<String> result = walk.filter(Files::isRegularFile).map(x -> x.toString())
 						.collect(Collectors.toList());
 
+				long now = System.currentTimeMillis();
 				for (String aFile : result) {
-					reader = new BufferedReader(new FileReader(aFile));
-					String line = reader.readLine();
-					int i = 0;
-
-					String omopSourceVocab = null;
-					String omopTargetVocab = null;
-					String fhirSourceCodeSystem = null;
-					String fhirTargetCodeSystem = null;
-
-					int sourceCodeSystemIndex = -1;
-					int sourceCodeIndex = -1;
-					int sourceCodeDescIndex = -1;
-					int targetCodeIndex = -1;
-
-					while (line != null) {
-						String line_ = line.trim();
-						if (line_.startsWith("#") || line_.charAt(1) == '#' || line_.isEmpty()) {
-							// This is comment line skip...
-							line = reader.readLine();
-							continue;
-						}
+					// A file modified just now may still be being written. Load it later.
+					if (!Files.exists(Paths.get(aFile))
+							|| now - Files.getLastModifiedTime(Paths.get(aFile)).toMillis() < debounce) {
+						changed = true;
+						lastChangeTime = now;
+						continue;
+					}
+
+					boolean done = false;
+					try {
+						done = loadMappingFile(aFile);
+					} catch (IOException e) {
+						e.printStackTrace();
+					}
+					if (done) {
+						Files.deleteIfExists(Paths.get(aFile));
+						mappingLoadJournal.delete(aFile);
+					}
+
+					// New source concepts may have been added. Drop the cached lookups.
+					CodeableConceptUtil.getConceptCodeCache().clear();
+				}
 
-						i++;
-						if (i <= 2) {
-							// First line. Must identify coding translation.
-							String[] mappingCodes = parser.parseLine(line_);
-							if (mappingCodes.length != 2) {
-								// Incorrectly formed file. delete this file and move to next one.
-								logger.error("Line #" + i + " must be two values. But, there are " + mappingCodes.length
-										+ " values. values=" + line_ + ". File, " + aFile
-										+ ", is skipped and deleted.");
-								reader.close();
-								Files.deleteIfExists(Paths.get(aFile));
-								break;
-							}
-
-							if (i == 1) {
-								omopSourceVocab = mappingCodes[0];
-								omopTargetVocab = mappingCodes[1];
-
-								if (vocabularyService.findById(omopTargetVocab) == null) {
-									logger.error("Line #" + i + " must have standard coding for target. See if "
-											+ omopTargetVocab + " exists in OMOP Concept table. File, " + aFile
-											+ "is skipped and deleted.");
-									reader.close();
-									Files.deleteIfExists(Paths.get(aFile));
-									break;
-								}
-
-								// Done for line 1.
-							} else {
-								fhirSourceCodeSystem = mappingCodes[0];
-								fhirTargetCodeSystem = mappingCodes[1];
-
-								// Done for line 2.
-							}
-							line = reader.readLine();
-							continue;
-						}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
 
-						if (omopSourceVocab == null || omopTargetVocab == null || fhirSourceCodeSystem == null
-								|| fhirTargetCodeSystem == null) {
-							// Incorrectly formed file.
-							logger.error(
-									"OMOP Vocabulary, OMOP Concept Type and FHIR Code System must be defined in the first 2 lines. File, "
-											+ aFile + ", is skipped and deleted.");
-							reader.close();
-							Files.deleteIfExists(Paths.get(aFile));
-							break;
-						}
+		}
+	}
 
-						if (i == 3) {
-							// This is a header. Get right index for our needs
-							String[] mappingCodes = parser.parseLine(line_);
-							for (int index = 0; index < mappingCodes.length; index++) {
-								if ("SOURCE_CODESYSTEM".equals(mappingCodes[index])) {
-									sourceCodeSystemIndex = index;
-									continue;
-								}
-								if ("SOURCE_CODE".equals(mappingCodes[index])) {
-									sourceCodeIndex = index;
-									continue;
-								}
-								if ("SOURCE_DESC".equals(mappingCodes[index])) {
-									sourceCodeDescIndex = index;
-									continue;
-								}
-								if ("TARGET_CODE".equals(mappingCodes[index])) {
-									targetCodeIndex = index;
-									continue;
-								}
-							}
-
-							if (sourceCodeSystemIndex == -1 || sourceCodeIndex == -1 || targetCodeIndex == -1) {
-								// These MUST be set.
-								logger.error("localCodeMapping failed to set index(es). sourceCodeSystemIndex="
-										+ sourceCodeSystemIndex + ", sourceCodeIndex=" + sourceCodeIndex
-										+ ", and targetCodeIndex=" + targetCodeIndex + ". This file, " + aFile
-										+ ", is skipped and deleted");
-								reader.close();
-								Files.deleteIfExists(Paths.get(aFile));
-								break;
-							}
-
-							// We got indexes. Done for line 3.
-							line = reader.readLine();
-							continue;
-						}
+	/**
+	 * Loads a mapping file. Returns false if the file should be kept to be
+	 * resumed later. A file that is not correctly formed is done.
+	 */
+	private boolean loadMappingFile(String aFile) throws IOException {
+		String checksum = MappingLoadJournal.checksum(aFile);
+		try (BufferedReader bufferedReader = new BufferedReader(new FileReader(aFile))) {
+			MappingFileReader reader = new MappingFileReader(bufferedReader);
+			MappingFile mapping = readMappingHeader(reader, aFile);
+			if (mapping == null) {
+				return true;
+			}
 
-						// Now, we are at the actual code translation rows.
-						String[] omopSrc = omopSourceVocab.split("\\^");
-						System.out.println(omopSrc[0]+"\n"+omopSrc[1]+"\n\n\n\n\n\n\n\n\n\n\n");
-						Vocabulary myVocab = vocabularyService.findById(omopSrc[0]);
-						if (myVocab == null) {
-							// We need to add this to our local code mapping database.
-							myVocab = createNewEntry(omopSrc, fhirSourceCodeSystem);
-							if (myVocab == null) {
-								logger.error("localCodeMapping failed to create a new entry for " + omopSrc[0]
-										+ ". This file, " + aFile + ", is skipped and deleted");
-								reader.close();
-								Files.deleteIfExists(Paths.get(aFile));
-								break;
-							}
-						}
+			mapping.checksum = checksum;
+			mapping.resumeAfterLine = mappingLoadJournal.getLastLine(aFile, checksum);
+			if (mapping.resumeAfterLine > 0) {
+				logger.info("Resuming " + aFile + " after line #" + mapping.resumeAfterLine);
+			}
 
-						// Now CSV lines. parse one line at a time.
-						String[] fields = parser.parseLine(line);
-
-						List<ParameterWrapper> paramList;
-						ParameterWrapper param = new ParameterWrapper();
-
-						// From target code, collect necessary information such as domain id and concept
-						// class id.
-						String targetCode = fields[targetCodeIndex];
-						param.setParameterType("String");
-						param.setParameters(Arrays.asList("vocabulary.id", "conceptCode"));
-						param.setOperators(Arrays.asList("=", "="));
-						param.setValues(Arrays.asList(omopTargetVocab, targetCode));
-						param.setRelationship("and");
-						paramList = Arrays.asList(param);
-						List<Concept> retParam = conceptService.searchWithParams(0, 0, paramList, null);
-						if (retParam.size() == 0) {
-							// We should have this target code in the concept table.
-							logger.error("localCodeMapping task failed to locate the target code system, "
-									+ omopTargetVocab + "/" + targetCode + ". Skipping line #" + i);
-							line = reader.readLine();
-							continue;
-						}
-						Concept targetConcept = retParam.get(0);
-
-						// Create concept and concept relationship
-						String sourceCodeName = fields[sourceCodeSystemIndex];
-						if (!fhirSourceCodeSystem.equals(sourceCodeName) && !omopSrc[0].equals(sourceCodeName)) {
-							logger.error("The Source Code System, " + sourceCodeName + ", name should be either "
-									+ fhirSourceCodeSystem + " or " + omopSrc[0] + ". Skipping line #" + i);
-							line = reader.readLine();
-							continue;
-						}
+			// Parse the rows in a separate thread while the chunks are written.
+			BlockingQueue<List<MappingRow>> chunks = new ArrayBlockingQueue<List<MappingRow>>(CHUNK_QUEUE_SIZE);
+			Thread readerThread = new Thread(() -> readChunks(reader, mapping, chunks), "local-code-mapping-reader");
+			readerThread.setDaemon(true);
+			readerThread.start();
+
+			long rows = 0;
+			boolean done = false;
+			try {
+				List<MappingRow> chunk = chunks.take();
+				while (chunk != END_OF_FILE && chunk != READ_FAILED) {
+					if (!loadChunk(chunk, mapping)) {
+						break;
+					}
+					mappingLoadJournal.saveCheckpoint(aFile, checksum, chunk.get(chunk.size() - 1).lineNumber);
+					rows += chunk.size();
+					chunk = chunks.take();
+				}
+				done = chunk == END_OF_FILE;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				readerThread.interrupt();
+				try {
+					readerThread.join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
 
-						// Check the source code. If we don't have this, add it to concept table.
-						String sourceCode = fields[sourceCodeIndex];
-
-						param.setParameterType("String");
-						param.setParameters(Arrays.asList("vocabulary.id", "conceptCode"));
-						param.setOperators(Arrays.asList("=", "="));
-						param.setValues(Arrays.asList(omopSrc[0], sourceCode));
-						param.setRelationship("and");
-
-						retParam = conceptService.searchWithParams(0, 0, paramList, null);
-
-						Concept sourceConcept;
-						if (retParam.size() <= 0) {
-							sourceConcept = new Concept();
-							sourceConcept.setId(getTheLargestConceptId());
-
-							String conceptName;
-							if (sourceCodeDescIndex >= 0 && fields[sourceCodeDescIndex] != null
-									&& !fields[sourceCodeDescIndex].trim().isEmpty()) {
-								conceptName = fields[sourceCodeDescIndex];
-							} else {
-								conceptName = omopSrc[0];
-							}
-
-							sourceConcept.setConceptName(conceptName);
-							sourceConcept.setDomainId(targetConcept.getDomainId());
-							sourceConcept.setVocabularyId(myVocab.getId());
-							sourceConcept.setConceptClassId(targetConcept.getConceptClassId());
-							sourceConcept.setConceptCode(sourceCode);
-							sourceConcept.setValidStartDate(targetConcept.getValidStartDate());
-							sourceConcept.setValidEndDate(targetConcept.getValidEndDate());
-
-							sourceConcept = conceptService.create(sourceConcept);
-							if (sourceConcept == null) {
-								logger.error("The Source Code, " + sourceCodeName + "|" + sourceCode
-										+ ", could not be created. Skipping line #" + i);
-								line = reader.readLine();
-								continue;
-							}
-						} else {
-							sourceConcept = retParam.get(0);
-						}
+			logger.info("Loaded " + rows + " rows from " + aFile + ". " + mapping.createdConceptIds.size()
+					+ " concepts and " + mapping.createdRelationships.size() + " relationships are created.");
+			if (!done) {
+				logger.error(aFile + " is not completely loaded. It is kept to be resumed in the next run.");
+			}
 
-						// Now create relationship if this relationship does not exist.
-						String relationshipId = omopSrc[0] + " - " + omopTargetVocab + " eq";
-						String relationshipName = omopSrc[0] + " to " + omopTargetVocab + " equivalent";
-						String revRelationshipId = omopTargetVocab + " - " + omopSrc[0] + " eq";
+			return done;
+		}
+	}
 
-						Relationship relationship = relationshipService.findById(relationshipId);
-						if (relationship == null) {
-							relationship = createOmopRelationshipConcept(relationshipId, relationshipName,
-									revRelationshipId);
-						}
+	/**
+	 * Reads the first 3 lines of a mapping file. Returns null if the file is not
+	 * correctly formed.
+	 */
+	private MappingFile readMappingHeader(MappingFileReader reader, String aFile) throws IOException {
+		CSVParser parser = new CSVParser();
+		MappingFile mapping = new MappingFile();
+		mapping.fileName = aFile;
+
+		String omopSourceVocab = null;
+		for (int i = 1; i <= 2; i++) {
+			String line = reader.nextLine();
+			if (line == null) {
+				break;
+			}
 
-						// see if this relationship exists. If not create one.
-						ConceptRelationshipPK conceptRelationshipPk = new ConceptRelationshipPK(sourceConcept.getId(),
-								targetConcept.getId(), relationshipId);
-						ConceptRelationship conceptRelationship = conceptRelationshipService
-								.findById(conceptRelationshipPk);
-						if (conceptRelationship != null) {
-							line = reader.readLine();
-							continue;
-						}
+			// First 2 lines. Must identify coding translation.
+			String line_ = line.trim();
+			String[] mappingCodes = parser.parseLine(line_);
+			if (mappingCodes.length != 2) {
+				// Incorrectly formed file. delete this file and move to next one.
+				logger.error("Line #" + i + " must be two values. But, there are " + mappingCodes.length
+						+ " values. values=" + line_ + ". File, " + aFile + ", is skipped and deleted.");
+				return null;
+			}
 
-						// Create concept_relationship entry
-						conceptRelationship = new ConceptRelationship();
-						conceptRelationship.setId(conceptRelationshipPk);
-						conceptRelationship.setValidStartDate(new Date(0L));
-						SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
-						try {
-							Date date = format.parse("2099-12-31");
-							conceptRelationship.setValidEndDate(date);
-						} catch (ParseException e) {
-							e.printStackTrace();
-						}
+			if (i == 1) {
+				omopSourceVocab = mappingCodes[0];
+				mapping.omopTargetVocab = mappingCodes[1];
 
-						conceptRelationshipService.create(conceptRelationship);
+				if (vocabularyService.findById(mapping.omopTargetVocab) == null) {
+					logger.error("Line #" + i + " must have standard coding for target. See if "
+							+ mapping.omopTargetVocab + " exists in OMOP Concept table. File, " + aFile
+							+ "is skipped and deleted.");
+					return null;
+				}
+			} else {
+				mapping.fhirSourceCodeSystem = mappingCodes[0];
+			}
+		}
 
-						// read next line
-						line = reader.readLine();
+		if (omopSourceVocab == null || mapping.omopTargetVocab == null || mapping.fhirSourceCodeSystem == null) {
+			// Incorrectly formed file.
+			logger.error(
+					"OMOP Vocabulary, OMOP Concept Type and FHIR Code System must be defined in the first 2 lines. File, "
+							+ aFile + ", is skipped and deleted.");
+			return null;
+		}
 
-					} // while
-					reader.close();
-					Files.deleteIfExists(Paths.get(aFile));
+		// This is a header. Get right index for our needs
+		String line = reader.nextLine();
+		String[] mappingCodes = line == null ? new String[0] : parser.parseLine(line.trim());
+		for (int index = 0; index < mappingCodes.length; index++) {
+			if ("SOURCE_CODESYSTEM".equals(mappingCodes[index])) {
+				mapping.sourceCodeSystemIndex = index;
+			} else if ("SOURCE_CODE".equals(mappingCodes[index])) {
+				mapping.sourceCodeIndex = index;
+			} else if ("SOURCE_DESC".equals(mappingCodes[index])) {
+				mapping.sourceCodeDescIndex = index;
+			} else if ("TARGET_CODE".equals(mappingCodes[index])) {
+				mapping.targetCodeIndex = index;
+			}
+		}
+
+		if (mapping.sourceCodeSystemIndex == -1 || mapping.sourceCodeIndex == -1 || mapping.targetCodeIndex == -1) {
+			// These MUST be set.
+			logger.error("localCodeMapping failed to set index(es). sourceCodeSystemIndex="
+					+ mapping.sourceCodeSystemIndex + ", sourceCodeIndex=" + mapping.sourceCodeIndex
+					+ ", and targetCodeIndex=" + mapping.targetCodeIndex + ". This file, " + aFile
+					+ ", is skipped and deleted");
+			return null;
+		}
+
+		// The source vocabulary and the relationship are the same for all the rows.
+		mapping.omopSrc = omopSourceVocab.split("\\^");
+		mapping.myVocab = vocabularyService.findById(mapping.omopSrc[0]);
+		if (mapping.myVocab == null) {
+			// We need to add this to our local code mapping database.
+			mapping.myVocab = createNewEntry(mapping.omopSrc, mapping.fhirSourceCodeSystem);
+			if (mapping.myVocab == null) {
+				logger.error("localCodeMapping failed to create a new entry for " + mapping.omopSrc[0]
+						+ ". This file, " + aFile + ", is skipped and deleted");
+				return null;
+			}
+		}
+
+		mapping.relationshipId = mapping.omopSrc[0] + " - " + mapping.omopTargetVocab + " eq";
+		String relationshipName = mapping.omopSrc[0] + " to " + mapping.omopTargetVocab + " equivalent";
+		String revRelationshipId = mapping.omopTargetVocab + " - " + mapping.omopSrc[0] + " eq";
+		Relationship relationship = relationshipService.findById(mapping.relationshipId);
+		if (relationship == null) {
+			createOmopRelationshipConcept(mapping.relationshipId, relationshipName, revRelationshipId);
+		}
+
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+		try {
+			mapping.validEndDate = format.parse("2099-12-31");
+		} catch (ParseException e) {
+			e.printStackTrace();
+		}
+
+		return mapping;
+	}
+
+	/**
+	 * Parses the rows of the file into chunks. The last chunk is followed by
+	 * END_OF_FILE, or by READ_FAILED if the file could not be read to the end.
+	 * The rows already loaded before a restart are skipped.
+	 */
+	private void readChunks(MappingFileReader reader, MappingFile mapping, BlockingQueue<List<MappingRow>> chunks) {
+		CSVParser parser = new CSVParser();
+		List<MappingRow> chunk = new ArrayList<MappingRow>(chunkSize);
+		List<MappingRow> last = END_OF_FILE;
+		try {
+			String line = reader.nextLine();
+			while (line != null) {
+				if (reader.getLineNumber() <= mapping.resumeAfterLine) {
+					line = reader.nextLine();
+					continue;
 				}
 
-			} catch (IOException e) {
-				e.printStackTrace();
+				try {
+					chunk.add(new MappingRow(reader.getLineNumber(), parser.parseLine(line)));
+				} catch (IOException e) {
+					logger.error("Failed to parse line #" + reader.getLineNumber() + " of " + mapping.fileName + ": "
+							+ e.getMessage());
+				}
+
+				if (chunk.size() >= chunkSize) {
+					chunks.put(chunk);
+					chunk = new ArrayList<MappingRow>(chunkSize);
+				}
+				line = reader.nextLine();
+			}
+
+			if (!chunk.isEmpty()) {
+				chunks.put(chunk);
+			}
+		} catch (IOException e) {
+			logger.error("Failed to read " + mapping.fileName + " after line #" + reader.getLineNumber() + ": "
+					+ e.getMessage());
+			last = READ_FAILED;
+		} catch (InterruptedException e) {
+			// The loader stopped.
+			return;
+		}
+
+		try {
+			chunks.put(last);
+		} catch (InterruptedException e) {
+			// The loader stopped.
+		}
+	}
+
+	/**
+	 * Loads a chunk of rows. The concepts of the chunk are looked up at once and
+	 * the new concepts and relationships are written in two bulk writes. Returns
+	 * false if they could not be written.
+	 */
+	private boolean loadChunk(List<MappingRow> chunk, MappingFile mapping) {
+		int maxIndex = Math.max(Math.max(mapping.sourceCodeSystemIndex, mapping.sourceCodeIndex),
+				mapping.targetCodeIndex);
+
+		Set<String> targetCodes = new LinkedHashSet<String>();
+		Set<String> sourceCodes = new LinkedHashSet<String>();
+		List<MappingRow> rows = new ArrayList<MappingRow>(chunk.size());
+		for (MappingRow row : chunk) {
+			if (row.fields.length <= maxIndex) {
+				logger.error("Line #" + row.lineNumber + " has only " + row.fields.length + " values. Skipping line #"
+						+ row.lineNumber);
+				continue;
+			}
+			targetCodes.add(row.fields[mapping.targetCodeIndex]);
+			sourceCodes.add(row.fields[mapping.sourceCodeIndex]);
+			rows.add(row);
+		}
+
+		Map<String, Concept> targetConcepts = findConcepts(mapping.omopTargetVocab, targetCodes);
+		Map<String, Concept> sourceConcepts = findConcepts(mapping.omopSrc[0], sourceCodes);
+
+		List<BaseEntity> newConcepts = new ArrayList<BaseEntity>();
+		List<BaseEntity> newRelationships = new ArrayList<BaseEntity>();
+		Set<Long> newConceptIds = new HashSet<Long>();
+		Set<String> newRelationshipKeys = new HashSet<String>();
+		for (MappingRow row : rows) {
+			String[] fields = row.fields;
+
+			// From target code, collect necessary information such as domain id and concept
+			// class id.
+			String targetCode = fields[mapping.targetCodeIndex];
+			Concept targetConcept = targetConcepts.get(targetCode);
+			if (targetConcept == null) {
+				// We should have this target code in the concept table.
+				logger.error("localCodeMapping task failed to locate the target code system, "
+						+ mapping.omopTargetVocab + "/" + targetCode + ". Skipping line #" + row.lineNumber);
+				continue;
+			}
+
+			// Create concept and concept relationship
+			String sourceCodeName = fields[mapping.sourceCodeSystemIndex];
+			if (!mapping.fhirSourceCodeSystem.equals(sourceCodeName) && !mapping.omopSrc[0].equals(sourceCodeName)) {
+				logger.error("The Source Code System, " + sourceCodeName + ", name should be either "
+						+ mapping.fhirSourceCodeSystem + " or " + mapping.omopSrc[0] + ". Skipping line #"
+						+ row.lineNumber);
+				continue;
+			}
+
+			// Check the source code. If we don't have this, add it to concept table.
+			String sourceCode = fields[mapping.sourceCodeIndex];
+			Concept sourceConcept = sourceConcepts.get(sourceCode);
+			if (sourceConcept == null) {
+				Long conceptId = conceptIdAllocator.nextId();
+				if (conceptId == null) {
+					logger.error("No concept id is available for " + sourceCodeName + "|" + sourceCode
+							+ ". Skipping line #" + row.lineNumber);
+					continue;
+				}
+				sourceConcept = new Concept();
+				sourceConcept.setId(conceptId);
+
+				String conceptName;
+				if (mapping.sourceCodeDescIndex >= 0 && mapping.sourceCodeDescIndex < fields.length
+						&& fields[mapping.sourceCodeDescIndex] != null
+						&& !fields[mapping.sourceCodeDescIndex].trim().isEmpty()) {
+					conceptName = fields[mapping.sourceCodeDescIndex];
+				} else {
+					conceptName = mapping.omopSrc[0];
+				}
+
+				sourceConcept.setConceptName(conceptName);
+				sourceConcept.setDomainId(targetConcept.getDomainId());
+				sourceConcept.setVocabularyId(mapping.myVocab.getId());
+				sourceConcept.setConceptClassId(targetConcept.getConceptClassId());
+				sourceConcept.setConceptCode(sourceCode);
+				sourceConcept.setValidStartDate(targetConcept.getValidStartDate());
+				sourceConcept.setValidEndDate(targetConcept.getValidEndDate());
+
+				sourceConcepts.put(sourceCode, sourceConcept);
+				newConcepts.add(sourceConcept);
+				newConceptIds.add(sourceConcept.getId());
+			}
+
+			// Now create relationship if this relationship does not exist. The concepts
+			// created by this load only have the relationships we created.
+			String relationshipKey = sourceConcept.getId() + "^" + targetConcept.getId();
+			if (newRelationshipKeys.contains(relationshipKey)
+					|| mapping.createdRelationships.contains(relationshipKey)) {
+				continue;
+			}
+			ConceptRelationshipPK conceptRelationshipPk = new ConceptRelationshipPK(sourceConcept.getId(),
+					targetConcept.getId(), mapping.relationshipId);
+			if (!newConceptIds.contains(sourceConcept.getId())
+					&& !mapping.createdConceptIds.contains(sourceConcept.getId())
+					&& conceptRelationshipService.findById(conceptRelationshipPk) != null) {
+				continue;
 			}
 
+			// Create concept_relationship entry
+			ConceptRelationship conceptRelationship = new ConceptRelationship();
+			conceptRelationship.setId(conceptRelationshipPk);
+			conceptRelationship.setValidStartDate(new Date(0L));
+			conceptRelationship.setValidEndDate(mapping.validEndDate);
+
+			newRelationships.add(conceptRelationship);
+			newRelationshipKeys.add(relationshipKey);
+		}
+
+		// Concepts first. The relationships refer to them.
+		if (!newConcepts.isEmpty() && !writeEntities(newConcepts, "Concept")) {
+			logger.error("Failed to create " + newConcepts.size() + " concepts of lines #" + chunk.get(0).lineNumber
+					+ " to #" + chunk.get(chunk.size() - 1).lineNumber + " in " + mapping.fileName);
+			return false;
+		}
+		mapping.createdConceptIds.addAll(newConceptIds);
+
+		if (!newRelationships.isEmpty() && !writeEntities(newRelationships, "ConceptRelationship")) {
+			logger.error("Failed to create " + newRelationships.size() + " concept relationships of lines #"
+					+ chunk.get(0).lineNumber + " to #" + chunk.get(chunk.size() - 1).lineNumber + " in "
+					+ mapping.fileName);
+			return false;
 		}
+		mapping.createdRelationships.addAll(newRelationshipKeys);
+
+		return true;
 	}
 
-	private Long getTheLargestConceptId() {
-		Long largestId = conceptService.getLargestId();
-		if (largestId != null) {
-			if (largestId >= conceptIdStart) {
-				conceptIdStart = largestId + 1L;
+	private boolean writeEntities(List<BaseEntity> entities, String key) {
+		Map<String, List<BaseEntity>> entityToCreate = new HashMap<String, List<BaseEntity>>();
+		entityToCreate.put(key, entities);
+
+		return transactionService.writeTransaction(entityToCreate) >= 0;
+	}
+
+	/**
+	 * Looks up the concepts of the codes in the vocabulary with one query. Returns
+	 * the concepts by code.
+	 */
+	private Map<String, Concept> findConcepts(String vocabularyId, Collection<String> codes) {
+		Map<String, Concept> concepts = new HashMap<String, Concept>();
+		if (codes.isEmpty()) {
+			return concepts;
+		}
+
+		List<ParameterWrapper> paramList = new ArrayList<ParameterWrapper>();
+		paramList.add(new ParameterWrapper("String", Arrays.asList("vocabulary.id"), Arrays.asList("="),
+				Arrays.asList(vocabularyId), "or"));
+		paramList.add(new ParameterWrapper("String", Collections.nCopies(codes.size(), "conceptCode"),
+				Collections.nCopies(codes.size(), "="), new ArrayList<String>(codes), "or"));
+
+		List<Concept> retParam = conceptService.searchWithParams(0, 0, paramList, null);
+		for (Concept concept : retParam) {
+			if (!concepts.containsKey(concept.getConceptCode())) {
+				concepts.put(concept.getConceptCode(), concept);
 			}
 		}
 
-		return conceptIdStart;
+		return concepts;
 	}
 
 	private Vocabulary createNewEntry(String[] omopVacab, String fhirCoding) {
@@ -450,8 +880,14 @@ public class ScheduledTask {
 	}
 
 	private Concept createVocabularyConcept(String name, String vocabId) {
+		Long conceptId = conceptIdAllocator.nextId();
+		if (conceptId == null) {
+			logger.error("Scheduled Task: no concept id is available for " + name);
+			return null;
+		}
+
 		Concept conceptVoc = new Concept();
-		conceptVoc.setId(getTheLargestConceptId());
+		conceptVoc.setId(conceptId);
 		conceptVoc.setConceptName(name);
 		conceptVoc.setDomainId("Metadata");
 		
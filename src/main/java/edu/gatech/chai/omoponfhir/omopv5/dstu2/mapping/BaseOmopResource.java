@@ -15,7 +15,11 @@
  *******************************************************************************/
 package edu.gatech.chai.omoponfhir.omopv5.dstu2.mapping;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -28,14 +32,21 @@ import ca.uhn.fhir.model.dstu2.resource.BaseResource;
 
 import org.hl7.fhir.exceptions.FHIRException;
 import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.instance.model.api.IIdType;
 import org.springframework.web.context.WebApplicationContext;
 
 import ca.uhn.fhir.rest.api.SortSpec;
 import edu.gatech.chai.omoponfhir.local.dao.FhirOmopCodeMapImpl;
 import edu.gatech.chai.omoponfhir.local.dao.FhirOmopVocabularyMapImpl;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.provider.EncounterResourceProvider;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.provider.OrganizationResourceProvider;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.provider.PatientResourceProvider;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.provider.PractitionerResourceProvider;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.CodeableConceptUtil;
-import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.ExtensionUtil;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.ResourceCountRegistry;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.SearchResultCache;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.UnitConceptResolver;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.VocabularyRegistry;
 import edu.gatech.chai.omopv5.dba.service.ConceptService;
 import edu.gatech.chai.omopv5.dba.service.IService;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
@@ -56,6 +67,7 @@ public abstract class BaseOmopResource<v extends BaseResource, t extends BaseEnt
 	private Class<t> myEntityClass;
 	private Class<p> myServiceClass;
 	private String myFhirResourceType;
+	private EntityIdSearch entityIdSearch;
 
 	public static String MAP_EXCEPTION_FILTER = "FILTER";
 	public static String MAP_EXCEPTION_EXCLUDE = "EXCLUDE";
@@ -65,8 +77,14 @@ public abstract class BaseOmopResource<v extends BaseResource, t extends BaseEnt
 		myOmopService = context.getBean(serviceClass);
 		myEntityClass = entityClass;
 		myFhirResourceType = fhirResourceType;
+		entityIdSearch = new EntityIdSearch(context);
 		fhirOmopVocabularyMap = new FhirOmopVocabularyMapImpl();
 		fhirOmopCodeMap = new FhirOmopCodeMapImpl();
+
+		// The first mapper created warms up the shared concept cache and the unit index.
+		ConceptService conceptService = context.getBean(ConceptService.class);
+		CodeableConceptUtil.preloadWellKnownConcepts(conceptService);
+		UnitConceptResolver.load(conceptService);
 		
 		setMyOmopVersion(JPAUtil.omopVersion);
 	}
@@ -97,21 +115,50 @@ public abstract class BaseOmopResource<v extends BaseResource, t extends BaseEnt
 
 	public void removeDbase(Long id) {
 		myOmopService.removeById(id);
+		resourcesChanged();
+	}
+
+	/**
+	 * Drops the cached searches and the count of this resource type. Call this
+	 * after the resources of this type are created, updated or removed.
+	 */
+	public void resourcesChanged() {
+		SearchResultCache.getInstance().invalidate(myFhirResourceType);
+		ResourceCountRegistry.getInstance().invalidate(myFhirResourceType);
 	}
 
 	public Long removeByFhirId(IdDt fhirId) {
 		Long id_long_part = fhirId.getIdPartAsLong();
 		Long myId = IdMapping.getOMOPfromFHIR(id_long_part, getMyFhirResourceType());
 
-		return myOmopService.removeById(myId);
+		Long retv = myOmopService.removeById(myId);
+		resourcesChanged();
+
+		return retv;
 	}
 
+	/**
+	 * Count of all resources of this type, served from the resource count
+	 * registry.
+	 */
 	public Long getSize() {
-		Long size = myOmopService.getSize();
-		
-		// update the counts map.
-		ExtensionUtil.addResourceCount(myFhirResourceType, size);
-		return size;
+		return ResourceCountRegistry.getInstance().getCount(myFhirResourceType, this::countAll);
+	}
+
+	/**
+	 * Counts all resources of this type in the database. Overwrite this if the
+	 * resources are a filtered subset of the table.
+	 */
+	protected Long countAll() {
+		return myOmopService.getSize();
+	}
+
+	/**
+	 * Registers {@link #countAll()} with the resource count registry, which counts
+	 * in the background. Call this at the end of the constructor.
+	 */
+	protected void registerResourceCount() {
+		ResourceCountRegistry.getInstance().register(myFhirResourceType, this::countAll);
 	}
 
 	public Long getSize(List<ParameterWrapper> mapList) {
@@ -121,7 +168,7 @@ public abstract class BaseOmopResource<v extends BaseResource, t extends BaseEnt
 	public Long getSize(String queryString, Map<String, String> parameterSet) {
 		Long size = myOmopService.getSize(queryString, parameterSet);
 		if (parameterSet == null || parameterSet.size() == 0) {
-			ExtensionUtil.addResourceCount(myFhirResourceType, size);
+			ResourceCountRegistry.getInstance().setCount(myFhirResourceType, size);
 		}
 		
 		return size;
@@ -172,31 +219,45 @@ public abstract class BaseOmopResource<v extends BaseResource, t extends BaseEnt
 		// We got the results back from OMOP database. Now, we need to construct
 		// the list of
 		// FHIR Patient resources to be included in the bundle.
+		List<Long> omopIds = new ArrayList<Long>();
+		IncludePlan includePlan = new IncludePlan();
 		for (t entity : entities) {
 			Long omopId = entity.getIdAsLong();
 			Long fhirId = IdMapping.getFHIRfromOMOP(omopId, getMyFhirResourceType());
 			v fhirResource = constructResource(fhirId, entity, includes);
 			if (fhirResource != null) {
 				listResources.add(fhirResource);
-				addRevIncludes(omopId, includes, listResources);
+				omopIds.add(omopId);
+				planIncludes(fhirResource, includes, includePlan);
 			}
 		}
+
+		includePlan.resolve();
+		addRevIncludes(omopIds, includes, listResources);
 	}
 
 	public void searchWithParams(int fromIndex, int toIndex, List<ParameterWrapper> mapList,
 								 List<IBaseResource> listResources, List<String> includes, String sort) {
 		List<t> entities = getMyOmopService().searchWithParams(fromIndex, toIndex, mapList, sort);
 
+		List<Long> omopIds = new ArrayList<Long>();
+		IncludePlan includePlan = new IncludePlan();
 		for (t entity : entities) {
 			Long omopId = entity.getIdAsLong();
 			Long fhirId = IdMapping.getFHIRfromOMOP(omopId, getMyFhirResourceType());
 			v fhirResource = constructResource(fhirId, entity, includes);
 			if (fhirResource != null) {
 				listResources.add(fhirResource);
-				// Do the rev_include and add the resource to the list.
-				addRevIncludes(omopId, includes, listResources);
+				omopIds.add(omopId);
+				planIncludes(fhirResource, includes, includePlan);
 			}
 		}
+
+		// Resolve the _include targets of the whole page at once.
+		includePlan.resolve();
+
+		// Do the rev_include for the whole page and add the resources to the list.
+		addRevIncludes(omopIds, includes, listResources);
 	}
 
 	public void searchWithSql(String sql, Map<String, String> parameters, int fromIndex, int toIndex, String sort, List<IBaseResource> listResources) {
@@ -212,11 +273,226 @@ public abstract class BaseOmopResource<v extends BaseResource, t extends BaseEnt
 		}
 	}
 	
+	/***
+	 * searchAfterId: keyset (seek) paging. Searches up to count entities whose OMOP
+	 * id is greater than lastId, in id order, and returns the OMOP id of the last
+	 * entity found. Returns null when there are no more entities. Use null lastId
+	 * for the first page. Unlike offset paging, the cost of a page does not grow
+	 * with how deep the page is.
+	 * 
+	 * The ids are searched first, so the next lastId does not depend on which of
+	 * the entities could be constructed as resources.
+	 */
+	public Long searchAfterId(Long lastId, int count, List<ParameterWrapper> mapList,
+							  List<IBaseResource> listResources, List<String> includes) {
+		List<ParameterWrapper> keysetMapList = new ArrayList<ParameterWrapper>(mapList);
+		if (lastId != null) {
+			keysetMapList.add(new ParameterWrapper("Long", Arrays.asList("id"), Arrays.asList(">"),
+					Arrays.asList(String.valueOf(lastId)), "or"));
+		}
+
+		long[] ids = searchIds(0, count, keysetMapList, "id ASC");
+		if (ids.length == 0) {
+			return null;
+		}
+
+		List<Long> pageIds = new ArrayList<Long>(ids.length);
+		for (long id : ids) {
+			pageIds.add(id);
+		}
+		searchByIds(pageIds, listResources, includes);
+
+		return ids[ids.length - 1];
+	}
+
+	/***
+	 * addSearchFilters: Override this if the search of this mapper always adds
+	 * parameters to narrow down the OMOP table to the resource.
+	 */
+	protected void addSearchFilters(List<ParameterWrapper> mapList) {
+
+	}
+
+	/***
+	 * searchIds: returns the OMOP ids of the entities that searchWithParams would
+	 * return, in the same order, without constructing the FHIR resources. Only the
+	 * id column is selected when the parameters allow it.
+	 */
+	public long[] searchIds(int fromIndex, int toIndex, List<ParameterWrapper> mapList, String sort) {
+		List<ParameterWrapper> searchMapList = new ArrayList<ParameterWrapper>(mapList);
+		addSearchFilters(searchMapList);
+
+		long[] ids = entityIdSearch.searchIds(myEntityClass, fromIndex, toIndex, searchMapList, sort);
+		if (ids != null) {
+			return ids;
+		}
+
+		List<t> entities;
+		if (searchMapList.isEmpty()) {
+			entities = getMyOmopService().searchWithoutParams(fromIndex, toIndex, sort);
+		} else {
+			entities = getMyOmopService().searchWithParams(fromIndex, toIndex, searchMapList, sort);
+		}
+
+		ids = new long[entities.size()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = entities.get(i).getIdAsLong();
+		}
+
+		return ids;
+	}
+
+	/***
+	 * searchByIds: constructs the resources of the OMOP ids. The resources are
+	 * added in the order of the ids, followed by the included resources.
+	 */
+	public void searchByIds(List<Long> omopIds, List<IBaseResource> listResources, List<String> includes) {
+		if (omopIds.isEmpty()) {
+			return;
+		}
+
+		List<String> values = new ArrayList<String>();
+		for (Long omopId : omopIds) {
+			values.add(String.valueOf(omopId));
+		}
+		List<ParameterWrapper> idMapList = new ArrayList<ParameterWrapper>();
+		idMapList.add(new ParameterWrapper("Long", Collections.nCopies(values.size(), "id"),
+				Collections.nCopies(values.size(), "="), values, "or"));
+
+		List<IBaseResource> resources = new ArrayList<IBaseResource>();
+		searchWithParams(0, 0, idMapList, resources, includes, null);
+
+		Map<Long, IBaseResource> resourceMap = new HashMap<Long, IBaseResource>();
+		List<IBaseResource> otherResources = new ArrayList<IBaseResource>();
+		for (IBaseResource resource : resources) {
+			String resourceType = resource.getIdElement().getResourceType();
+			if (resourceType == null || getMyFhirResourceType().equals(resourceType)) {
+				Long omopId = IdMapping.getOMOPfromFHIR(resource.getIdElement().getIdPartAsLong(),
+						getMyFhirResourceType());
+				if (omopId != null && !resourceMap.containsKey(omopId)) {
+					resourceMap.put(omopId, resource);
+					continue;
+				}
+			}
+			otherResources.add(resource);
+		}
+
+		for (Long omopId : omopIds) {
+			IBaseResource resource = resourceMap.get(omopId);
+			if (resource != null) {
+				listResources.add(resource);
+			}
+		}
+		listResources.addAll(otherResources);
+	}
+
+	/***
+	 * planIncludes: Override this to add the _include targets of the resource to
+	 * the plan. The plan resolves the targets of the whole page at once.
+	 */
+	protected void planIncludes(v fhirResource, List<String> includes, IncludePlan includePlan) {
+
+	}
+
+	/***
+	 * IncludePlan: collects the references of a page that need their targets
+	 * included. resolve() searches each target type once for the distinct ids and
+	 * sets the same resource instance to all references pointing to it.
+	 */
+	public static class IncludePlan {
+		private final Map<String, Map<Long, List<ResourceReferenceDt>>> references = new LinkedHashMap<String, Map<Long, List<ResourceReferenceDt>>>();
+
+		public void add(ResourceReferenceDt reference) {
+			if (reference == null || reference.isEmpty()) {
+				return;
+			}
+
+			IIdType referenceId = reference.getReferenceElement();
+			if (referenceId.getResourceType() == null || !referenceId.isIdPartValidLong()) {
+				return;
+			}
+
+			Map<Long, List<ResourceReferenceDt>> typeReferences = references.get(referenceId.getResourceType());
+			if (typeReferences == null) {
+				typeReferences = new LinkedHashMap<Long, List<ResourceReferenceDt>>();
+				references.put(referenceId.getResourceType(), typeReferences);
+			}
+
+			List<ResourceReferenceDt> idReferences = typeReferences.get(referenceId.getIdPartAsLong());
+			if (idReferences == null) {
+				idReferences = new ArrayList<ResourceReferenceDt>();
+				typeReferences.put(referenceId.getIdPartAsLong(), idReferences);
+			}
+			idReferences.add(reference);
+		}
+
+		public void resolve() {
+			for (Map.Entry<String, Map<Long, List<ResourceReferenceDt>>> typeReferences : references.entrySet()) {
+				String resourceType = typeReferences.getKey();
+				BaseOmopResource<?, ?, ?> mapper = getIncludeMapper(resourceType);
+				if (mapper == null) {
+					continue;
+				}
+
+				List<Long> omopIds = new ArrayList<Long>();
+				for (Long fhirId : typeReferences.getValue().keySet()) {
+					Long omopId = IdMapping.getOMOPfromFHIR(fhirId, resourceType);
+					if (omopId != null) {
+						omopIds.add(omopId);
+					}
+				}
+
+				List<IBaseResource> resources = new ArrayList<IBaseResource>();
+				mapper.searchByIds(omopIds, resources, new ArrayList<String>());
+
+				for (IBaseResource resource : resources) {
+					IIdType resourceId = resource.getIdElement();
+					if (resourceId.getResourceType() != null && !resourceType.equals(resourceId.getResourceType())) {
+						continue;
+					}
+					if (!resourceId.isIdPartValidLong()) {
+						continue;
+					}
+
+					List<ResourceReferenceDt> idReferences = typeReferences.getValue().get(resourceId.getIdPartAsLong());
+					if (idReferences != null) {
+						for (ResourceReferenceDt reference : idReferences) {
+							reference.setResource(resource);
+						}
+					}
+				}
+			}
+
+			references.clear();
+		}
+
+		private static BaseOmopResource<?, ?, ?> getIncludeMapper(String resourceType) {
+			if (PatientResourceProvider.getType().equals(resourceType)) {
+				return OmopPatient.getInstance();
+			} else if (PractitionerResourceProvider.getType().equals(resourceType)) {
+				return OmopPractitioner.getInstance();
+			} else if (OrganizationResourceProvider.getType().equals(resourceType)) {
+				return OmopOrganization.getInstance();
+			} else if (EncounterResourceProvider.getType().equals(resourceType)) {
+				return OmopEncounter.getInstance();
+			}
+
+			return null;
+		}
+	}
+
 	// Override the this method to provide rev_includes.
 	public void addRevIncludes(Long omopId, List<String> includes, List<IBaseResource> listResources) {
 
 	}
 
+	// Override the this method to provide rev_includes for a page at once.
+	public void addRevIncludes(List<Long> omopIds, List<String> includes, List<IBaseResource> listResources) {
+		for (Long omopId : omopIds) {
+			addRevIncludes(omopId, includes, listResources);
+		}
+	}
+
 	// Some common functions that are repetitively used.
 	protected void addParamlistForPatientIDName(String parameter, String value, ParameterWrapper paramWrapper,
 												List<ParameterWrapper> mapList) {
@@ -256,7 +532,7 @@ public abstract class BaseOmopResource<v extends BaseResource, t extends BaseEnt
 					if (system == null || system.isEmpty()) {
 						identifier = system_value;
 					} else {
-						String omopVocabId = fhirOmopVocabularyMap.getOmopVocabularyFromFhirSystemName(system);
+						String omopVocabId = VocabularyRegistry.getOmopVocabularyFromFhirSystemName(system);
 						if (!"None".equals(omopVocabId)) {
 							identifier = omopVocabId + "^" + system_value;
 						} else {
@@ -317,7 +593,7 @@ public abstract class BaseOmopResource<v extends BaseResource, t extends BaseEnt
 				// See if we can handle this coding.
 				try {
 					if (fhirSystemUri != null && !fhirSystemUri.isEmpty()) {
-						omopSystem = fhirOmopVocabularyMap.getOmopVocabularyFromFhirSystemName(fhirSystemUri);
+						omopSystem = VocabularyRegistry.getOmopVocabularyFromFhirSystemName(fhirSystemUri);
 
 						if ("None".equals(omopSystem) == false) {
 							// We can at least handle this. Save it
@@ -347,7 +623,7 @@ public abstract class BaseOmopResource<v extends BaseResource, t extends BaseEnt
 		}
 
 		if (concept == null) {
-			concept = conceptService.findById(0L);
+			concept = CodeableConceptUtil.getOmopConceptById(conceptService, 0L);
 		}
 
 		return concept;
@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package edu.gatech.chai.omoponfhir.omopv5.dstu2.mapping;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.web.context.WebApplicationContext;
+
+import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
+
+/**
+ * Selects only the id column of the entities that match a list of
+ * ParameterWrappers, so that the ids of a search can be read without loading
+ * the entities.
+ *
+ * Only the parameters whose meaning is plain are translated: the types Long,
+ * Integer, Short, String and Date (in milliseconds), the comparison operators,
+ * and wrappers that are ANDed together. For anything else, or if the
+ * EntityManagerFactory is not available, null is returned and the caller
+ * searches the entities as usual.
+ */
+class EntityIdSearch {
+	private static final Logger logger = LoggerFactory.getLogger(EntityIdSearch.class);
+
+	private final EntityManagerFactory entityManagerFactory;
+
+	EntityIdSearch(WebApplicationContext context) {
+		EntityManagerFactory factory = null;
+		try {
+			factory = context.getBean(EntityManagerFactory.class);
+		} catch (BeansException e) {
+			logger.info("No EntityManagerFactory. Ids are searched with the entities. " + e.getMessage());
+		}
+		entityManagerFactory = factory;
+	}
+
+	/**
+	 * Returns the ids of the matching entities from fromIndex to toIndex (all if
+	 * toIndex is 0) in the sort order, or null if the search cannot be done here.
+	 */
+	long[] searchIds(Class<?> entityClass, int fromIndex, int toIndex, List<ParameterWrapper> mapList, String sort) {
+		if (entityManagerFactory == null) {
+			return null;
+		}
+
+		EntityManager entityManager = entityManagerFactory.createEntityManager();
+		try {
+			CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+			CriteriaQuery<Object> query = builder.createQuery(Object.class);
+			Root<?> root = query.from(entityClass);
+			query.select(root.get("id"));
+
+			List<Predicate> predicates = new ArrayList<Predicate>();
+			for (ParameterWrapper param : mapList) {
+				Predicate predicate = toPredicate(builder, root, param);
+				if (predicate == null) {
+					return null;
+				}
+				predicates.add(predicate);
+			}
+			if (!predicates.isEmpty()) {
+				query.where(predicates.toArray(new Predicate[0]));
+			}
+
+			if (sort != null && !sort.trim().isEmpty()) {
+				List<Order> orders = new ArrayList<Order>();
+				for (String sortItem : sort.split(",")) {
+					String[] attributeAndDirection = sortItem.trim().split("\\s+");
+					Path<?> path = getPath(root, attributeAndDirection[0]);
+					if (attributeAndDirection.length > 1 && "DESC".equalsIgnoreCase(attributeAndDirection[1])) {
+						orders.add(builder.desc(path));
+					} else {
+						orders.add(builder.asc(path));
+					}
+				}
+				query.orderBy(orders);
+			}
+
+			TypedQuery<Object> typedQuery = entityManager.createQuery(query);
+			typedQuery.setFirstResult(fromIndex);
+			if (toIndex > fromIndex) {
+				typedQuery.setMaxResults(toIndex - fromIndex);
+			}
+
+			List<Object> results = typedQuery.getResultList();
+			long[] ids = new long[results.size()];
+			for (int i = 0; i < ids.length; i++) {
+				ids[i] = ((Number) results.get(i)).longValue();
+			}
+
+			return ids;
+		} catch (RuntimeException e) {
+			logger.debug("Ids of " + entityClass.getSimpleName() + " are searched with the entities. " + e.getMessage());
+			return null;
+		} finally {
+			entityManager.close();
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Predicate toPredicate(CriteriaBuilder builder, Root<?> root, ParameterWrapper param) {
+		if ("or".equalsIgnoreCase(param.getUpperRelationship())) {
+			return null;
+		}
+
+		List<String> parameters = param.getParameters();
+		List<String> operators = param.getOperators();
+		List<String> values = param.getValues();
+		if (parameters == null || operators == null || values == null || parameters.isEmpty()
+				|| parameters.size() != operators.size() || parameters.size() != values.size()) {
+			return null;
+		}
+
+		List<Predicate> predicates = new ArrayList<Predicate>();
+		for (int i = 0; i < parameters.size(); i++) {
+			Comparable value = toValue(param.getParameterType(), values.get(i));
+			if (value == null) {
+				return null;
+			}
+
+			Path path = getPath(root, parameters.get(i));
+			switch (operators.get(i)) {
+			case "=":
+				predicates.add(builder.equal(path, value));
+				break;
+			case "!=":
+				predicates.add(builder.notEqual(path, value));
+				break;
+			case "<":
+				predicates.add(builder.lessThan(path, value));
+				break;
+			case "<=":
+				predicates.add(builder.lessThanOrEqualTo(path, value));
+				break;
+			case ">":
+				predicates.add(builder.greaterThan(path, value));
+				break;
+			case ">=":
+				predicates.add(builder.greaterThanOrEqualTo(path, value));
+				break;
+			default:
+				return null;
+			}
+		}
+
+		Predicate[] predicateArray = predicates.toArray(new Predicate[0]);
+		return "and".equalsIgnoreCase(param.getRelationship()) ? builder.and(predicateArray)
+				: builder.or(predicateArray);
+	}
+
+	private static Comparable<?> toValue(String type, String value) {
+		if (type == null || value == null) {
+			return null;
+		}
+
+		switch (type) {
+		case "Long":
+			return Long.valueOf(value);
+		case "Integer":
+			return Integer.valueOf(value);
+		case "Short":
+			return Short.valueOf(value);
+		case "String":
+			return value;
+		case "Date":
+			return new Date(Long.parseLong(value));
+		default:
+			return null;
+		}
+	}
+
+	private static Path<?> getPath(Root<?> root, String attribute) {
+		Path<?> path = root;
+		for (String name : attribute.split("\\.")) {
+			path = path.get(name);
+		}
+
+		return path;
+	}
+}
@@ -27,7 +27,7 @@ import edu.gatech.chai.omoponfhir.omopv5.dstu2.provider.PatientResourceProvider;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.provider.PractitionerResourceProvider;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.CodeableConceptUtil;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.DateUtil;
-import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.ExtensionUtil;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.VocabularyRegistry;
 import edu.gatech.chai.omopv5.dba.service.*;
 import edu.gatech.chai.omopv5.model.entity.*;
 import edu.gatech.chai.omopv5.model.entity.Observation;
@@ -80,7 +80,7 @@ public class OmopAllergyIntolerance extends BaseOmopResource<AllergyIntolerance,
 			logger.error("context must be NOT null");
 		}
 		
-		getSize();
+		registerResourceCount();
 	}
 
 	public static OmopAllergyIntolerance getInstance() {
@@ -212,15 +212,14 @@ public class OmopAllergyIntolerance extends BaseOmopResource<AllergyIntolerance,
 			new ParameterWrapper("String", Arrays.asList("observationConcept.domainId"),	Arrays.asList("="), Arrays.asList("Observation"), "or"));
 
 	@Override
-	public Long getSize() {
-		List<ParameterWrapper> paramList = new ArrayList<ParameterWrapper>();
-		// call getSize with empty parameter list. The getSize will add filter
-		// parameter.
-		Long size = getSize(paramList);
-
-		ExtensionUtil.addResourceCount(getMyFhirResourceType(), size);
+	protected Long countAll() {
+		// getSize adds the filter parameter.
+		return getSize(new ArrayList<ParameterWrapper>());
+	}
 
-		return size;
+	@Override
+	protected void addSearchFilters(List<ParameterWrapper> mapList) {
+		mapList.addAll(filterParams);
 	}
 
 	@Override
@@ -292,7 +291,7 @@ public class OmopAllergyIntolerance extends BaseOmopResource<AllergyIntolerance,
 				String omopVocabulary = "None";
 				if (system != null && !system.isEmpty()) {
 					try {
-						omopVocabulary = getFhirOmopVocabularyMap().getOmopVocabularyFromFhirSystemName(system);
+						omopVocabulary = VocabularyRegistry.getOmopVocabularyFromFhirSystemName(system);
 					} catch (FHIRException e) {
 						e.printStackTrace();
 					}
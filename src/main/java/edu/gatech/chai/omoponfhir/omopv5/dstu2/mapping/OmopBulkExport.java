@@ -0,0 +1,344 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package edu.gatech.chai.omoponfhir.omopv5.dstu2.mapping;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.context.ContextLoaderListener;
+import org.springframework.web.context.WebApplicationContext;
+
+import ca.uhn.fhir.model.dstu2.resource.OperationOutcome;
+import ca.uhn.fhir.model.dstu2.valueset.IssueSeverityEnum;
+import ca.uhn.fhir.model.dstu2.valueset.IssueTypeEnum;
+import ca.uhn.fhir.parser.IParser;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.ConfigUtil;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.StaticValues;
+import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
+
+/**
+ * Runs bulk data $export jobs in the background.
+ *
+ * Each resource type is written to its own NDJSON file by its own worker. The
+ * workers read the OMOP tables with keyset paging (id greater than the last id
+ * read), so reading the millionth row costs the same as reading the first one.
+ *
+ * The following servlet init parameters are read: bulkExportDirectory (default
+ * omoponfhir-export in java.io.tmpdir), bulkExportBatchSize (default 1000),
+ * bulkExportThreadPoolSize (default 4) and bulkExportJobExpiration in minutes
+ * (default 1440). Jobs and their files are removed once they expire.
+ */
+public class OmopBulkExport {
+	private static final Logger logger = LoggerFactory.getLogger(OmopBulkExport.class);
+
+	private static OmopBulkExport omopBulkExport = null;
+
+	public enum JobStatus {
+		IN_PROGRESS, COMPLETED, FAILED
+	}
+
+	/**
+	 * Type of the file with the errors of a job, one OperationOutcome per failed
+	 * resource type.
+	 */
+	public static final String ERROR_TYPE = "OperationOutcome";
+
+	public static class ExportJob {
+		private final String id;
+		private final String request;
+		private final Date transactionTime;
+		private final File directory;
+		private final Map<String, AtomicLong> counts = new LinkedHashMap<String, AtomicLong>();
+		private final List<String> errors = Collections.synchronizedList(new ArrayList<String>());
+		private final Set<String> failedTypes = ConcurrentHashMap.newKeySet();
+		private final AtomicInteger remainingTypes;
+		private volatile JobStatus status = JobStatus.IN_PROGRESS;
+		private volatile Date completedTime;
+
+		ExportJob(String id, String request, File directory, List<String> types) {
+			this.id = id;
+			this.request = request;
+			this.transactionTime = new Date();
+			this.directory = directory;
+			for (String type : types) {
+				counts.put(type, new AtomicLong());
+			}
+			this.remainingTypes = new AtomicInteger(types.size());
+		}
+
+		public String getId() {
+			return id;
+		}
+
+		public String getRequest() {
+			return request;
+		}
+
+		public Date getTransactionTime() {
+			return transactionTime;
+		}
+
+		public JobStatus getStatus() {
+			return status;
+		}
+
+		public List<String> getErrors() {
+			synchronized (errors) {
+				return new ArrayList<String>(errors);
+			}
+		}
+
+		/**
+		 * Resource types in the order they were requested, with the number of
+		 * resources written so far.
+		 */
+		public Map<String, Long> getCounts() {
+			Map<String, Long> retv = new LinkedHashMap<String, Long>();
+			for (Map.Entry<String, AtomicLong> entry : counts.entrySet()) {
+				retv.put(entry.getKey(), entry.getValue().get());
+			}
+			return retv;
+		}
+
+		public int getProgress() {
+			int total = counts.size();
+			if (total == 0) {
+				return 100;
+			}
+			return (total - remainingTypes.get()) * 100 / total;
+		}
+
+		/**
+		 * True if the export of the resource type failed. Its file is then not
+		 * served.
+		 */
+		public boolean isFailed(String type) {
+			return failedTypes.contains(type);
+		}
+
+		/**
+		 * The NDJSON file of the resource type, or the errors if the type is
+		 * {@link #ERROR_TYPE}.
+		 */
+		public File getFile(String type) {
+			if (ERROR_TYPE.equals(type)) {
+				return failedTypes.isEmpty() ? null : new File(directory, ERROR_TYPE + ".ndjson");
+			}
+			if (!counts.containsKey(type) || failedTypes.contains(type)) {
+				return null;
+			}
+			return new File(directory, type + ".ndjson");
+		}
+
+		private void typeDone() {
+			if (remainingTypes.decrementAndGet() == 0) {
+				if (!errors.isEmpty()) {
+					writeErrors();
+				}
+				status = errors.isEmpty() ? JobStatus.COMPLETED : JobStatus.FAILED;
+				completedTime = new Date();
+			}
+		}
+
+		private void writeErrors() {
+			IParser parser = StaticValues.myFhirContext.newJsonParser().setPrettyPrint(false);
+			File file = new File(directory, ERROR_TYPE + ".ndjson");
+			try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+				for (String error : getErrors()) {
+					OperationOutcome outcome = new OperationOutcome();
+					outcome.addIssue().setSeverity(IssueSeverityEnum.ERROR).setCode(IssueTypeEnum.EXCEPTION)
+							.setDiagnostics(error);
+					writer.write(parser.encodeResourceToString(outcome));
+					writer.newLine();
+				}
+			} catch (IOException e) {
+				logger.error("Failed to write " + file.getAbsolutePath() + ": " + e.getMessage());
+			}
+		}
+	}
+
+	private final Map<String, IResourceMapping<?, ?>> systemMappers = new LinkedHashMap<String, IResourceMapping<?, ?>>();
+	private final Map<String, IResourceMapping<?, ?>> patientMappers = new LinkedHashMap<String, IResourceMapping<?, ?>>();
+	private final Map<String, ExportJob> jobs = new ConcurrentHashMap<String, ExportJob>();
+
+	private File exportDirectory;
+	private int batchSize = 1000;
+	private long jobExpiration = 24 * 60 * 60 * 1000L;
+	private ExecutorService executor;
+
+	private OmopBulkExport(WebApplicationContext context) {
+		// Patient compartment.
+		patientMappers.put("Patient", OmopPatient.getInstance());
+		patientMappers.put("AllergyIntolerance", OmopAllergyIntolerance.getInstance());
+		patientMappers.put("Condition", OmopCondition.getInstance());
+		patientMappers.put("Device", OmopDevice.getInstance());
+		patientMappers.put("DeviceUseStatement", OmopDeviceUseStatement.getInstance());
+		patientMappers.put("DocumentReference", OmopDocumentReference.getInstance());
+		patientMappers.put("Encounter", OmopEncounter.getInstance());
+		patientMappers.put("MedicationAdministration", OmopMedicationAdministration.getInstance());
+		patientMappers.put("MedicationOrder", OmopMedicationOrder.getInstance());
+		patientMappers.put("MedicationStatement", OmopMedicationStatement.getInstance());
+		patientMappers.put("Observation", OmopObservation.getInstance());
+		patientMappers.put("Procedure", OmopProcedure.getInstance());
+
+		// System level adds the resources that are not about a patient.
+		systemMappers.putAll(patientMappers);
+		systemMappers.put("Medication", OmopMedication.getInstance());
+		systemMappers.put("Organization", OmopOrganization.getInstance());
+		systemMappers.put("Practitioner", OmopPractitioner.getInstance());
+
+		String directory = null;
+		int threads = 4;
+		if (context != null && context.getServletContext() != null) {
+			directory = context.getServletContext().getInitParameter("bulkExportDirectory");
+			batchSize = ConfigUtil.getPositiveInt("bulkExportBatchSize",
+					context.getServletContext().getInitParameter("bulkExportBatchSize"), batchSize);
+			threads = ConfigUtil.getPositiveInt("bulkExportThreadPoolSize",
+					context.getServletContext().getInitParameter("bulkExportThreadPoolSize"), threads);
+			jobExpiration = ConfigUtil.getPositiveInt("bulkExportJobExpiration",
+					context.getServletContext().getInitParameter("bulkExportJobExpiration"), 24 * 60) * 60 * 1000L;
+		}
+		if (directory == null || directory.isEmpty()) {
+			directory = System.getProperty("java.io.tmpdir") + File.separator + "omoponfhir-export";
+		}
+		exportDirectory = new File(directory);
+
+		executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "bulk-export");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		logger.info("Bulk export writes to " + exportDirectory.getAbsolutePath() + " with " + threads + " workers");
+	}
+
+	public static synchronized OmopBulkExport getInstance() {
+		if (omopBulkExport == null) {
+			omopBulkExport = new OmopBulkExport(ContextLoaderListener.getCurrentWebApplicationContext());
+		}
+
+		return omopBulkExport;
+	}
+
+
+	/**
+	 * Resource types that can be exported at the system level, or at the patient
+	 * level if patientOnly is true.
+	 */
+	public List<String> getSupportedTypes(boolean patientOnly) {
+		if (patientOnly) {
+			return new ArrayList<String>(patientMappers.keySet());
+		}
+		return new ArrayList<String>(systemMappers.keySet());
+	}
+
+	/**
+	 * Starts an export job and returns right away. types must be a subset of
+	 * {@link #getSupportedTypes(boolean)}.
+	 */
+	public ExportJob startExport(String request, List<String> types, boolean patientOnly) {
+		removeExpiredJobs();
+
+		Map<String, IResourceMapping<?, ?>> mappers = patientOnly ? patientMappers : systemMappers;
+
+		String jobId = UUID.randomUUID().toString();
+		File jobDirectory = new File(exportDirectory, jobId);
+		if (!jobDirectory.mkdirs()) {
+			logger.error("Failed to create " + jobDirectory.getAbsolutePath());
+			return null;
+		}
+
+		ExportJob job = new ExportJob(jobId, request, jobDirectory, types);
+		jobs.put(jobId, job);
+
+		for (String type : types) {
+			IResourceMapping<?, ?> mapper = mappers.get(type);
+			executor.submit(() -> exportType(job, type, (BaseOmopResource<?, ?, ?>) mapper));
+		}
+
+		return job;
+	}
+
+	public ExportJob getJob(String jobId) {
+		if (jobId == null) {
+			return null;
+		}
+		return jobs.get(jobId);
+	}
+
+	private void exportType(ExportJob job, String type, BaseOmopResource<?, ?, ?> mapper) {
+		File file = job.getFile(type);
+		IParser parser = StaticValues.myFhirContext.newJsonParser().setPrettyPrint(false);
+		AtomicLong count = job.counts.get(type);
+
+		try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+			Long lastId = null;
+			List<IBaseResource> resources = new ArrayList<IBaseResource>();
+			do {
+				resources.clear();
+				lastId = mapper.searchAfterId(lastId, batchSize, new ArrayList<ParameterWrapper>(), resources,
+						new ArrayList<String>());
+				for (IBaseResource resource : resources) {
+					writer.write(parser.encodeResourceToString(resource));
+					writer.newLine();
+				}
+				count.addAndGet(resources.size());
+			} while (lastId != null);
+		} catch (IOException | RuntimeException e) {
+			e.printStackTrace();
+			job.failedTypes.add(type);
+			job.errors.add("Failed to export " + type + ": " + e.getMessage());
+		} finally {
+			logger.info("Bulk export " + job.getId() + " wrote " + count.get() + " " + type + " resources");
+			job.typeDone();
+		}
+	}
+
+	private void removeExpiredJobs() {
+		long now = System.currentTimeMillis();
+		for (ExportJob job : new ArrayList<ExportJob>(jobs.values())) {
+			if (job.completedTime != null && now - job.completedTime.getTime() > jobExpiration) {
+				jobs.remove(job.getId());
+				File[] files = job.directory.listFiles();
+				if (files != null) {
+					for (File file : files) {
+						file.delete();
+					}
+				}
+				job.directory.delete();
+			}
+		}
+	}
+}
@@ -17,6 +17,8 @@ package edu.gatech.chai.omoponfhir.omopv5.dstu2.mapping;
 
 import org.hl7.fhir.exceptions.FHIRException;
 
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.VocabularyRegistry;
+
 /***
  * 
  * @author mc142
@@ -43,80 +45,38 @@ public enum OmopCodeableConceptMapping {
 	UCUM("http://unitsofmeasure.org", "UCUM");
 	
 	
+	/**
+	 * Returns the OMOP vocabulary id of the FHIR URI, or "None". The local
+	 * vocabulary map is consulted too. See {@link VocabularyRegistry}.
+	 */
 	public static String omopVocabularyforFhirUri(String fhirUri) throws FHIRException {
 		if (fhirUri == null || fhirUri.isEmpty()) {
 			throw new FHIRException("FHIR URI cannot be null or empty: '"+fhirUri+"'");
 		}
 
-		if (ATC.getFhirUri().equals(fhirUri)) 
-			return ATC.getOmopVocabulary();
-		if (CPT.getFhirUri().equals(fhirUri))
-			return CPT.getOmopVocabulary();
-		if (HCPCS.getFhirUri().equals(fhirUri))
-			return HCPCS.getOmopVocabulary();
-		if (ICD9CM.getFhirUri().equals(fhirUri))
-			return ICD9CM.getOmopVocabulary();
-		if (ICD9PROC.getFhirUri().equals(fhirUri))
-			return ICD9PROC.getOmopVocabulary();
-		if (ICD10.getFhirUri().equals(fhirUri))
-			return ICD10.getOmopVocabulary();
-		if (ICD10CM.getFhirUri().equals(fhirUri))
-			return ICD10CM.getOmopVocabulary();
-		if (ISBT128.getFhirUri().equals(fhirUri))
-			return ISBT128.getOmopVocabulary();
-		if (LOINC.getFhirUri().equals(fhirUri))
-			return LOINC.getOmopVocabulary();
-		if (NDC.getFhirUri().equals(fhirUri))
-			return NDC.getOmopVocabulary();
-		if (NDFRT.getFhirUri().equals(fhirUri))
-			return NDFRT.getOmopVocabulary();
-		if (RXNORM.getFhirUri().equals(fhirUri))
-			return RXNORM.getOmopVocabulary();
-		if (SCT.getFhirUri().equals(fhirUri))
-			return SCT.getOmopVocabulary();
-		if (UCUM.getFhirUri().equals(fhirUri))
-			return UCUM.getOmopVocabulary();
-		
-		return "None";
-		
+		String omopVocabulary = VocabularyRegistry.getOmopVocabulary(fhirUri);
+		if (omopVocabulary == null) {
+			return "None";
+		}
+
+		return omopVocabulary;
 	}
 
+	/**
+	 * Returns the FHIR URI of the OMOP vocabulary id, or "None". The local
+	 * vocabulary map is consulted too. See {@link VocabularyRegistry}.
+	 */
 	public static String fhirUriforOmopVocabulary(String omopVocabulary) throws FHIRException {
 		if (omopVocabulary == null || omopVocabulary.isEmpty()) {
 			throw new FHIRException("Omop Vocabulary ID cannot be null or empty: '"+omopVocabulary+"'");
 		}
 
-		if (ATC.getOmopVocabulary().equals(omopVocabulary)) 
-			return ATC.getFhirUri();
-		if (CPT.getOmopVocabulary().equals(omopVocabulary))
-			return CPT.getFhirUri();
-		if (HCPCS.getOmopVocabulary().equals(omopVocabulary))
-			return HCPCS.getFhirUri();
-		if (ICD9CM.getOmopVocabulary().equals(omopVocabulary))
-			return ICD9CM.getFhirUri();
-		if (ICD9PROC.getOmopVocabulary().equals(omopVocabulary))
-			return ICD9PROC.getFhirUri();
-		if (ICD10.getOmopVocabulary().equals(omopVocabulary))
-			return ICD10.getFhirUri();
-		if (ICD10CM.getOmopVocabulary().equals(omopVocabulary))
-			return ICD10CM.getFhirUri();
-		if (LOINC.getOmopVocabulary().equals(omopVocabulary))
-			return LOINC.getFhirUri();
-		if (ISBT128.getOmopVocabulary().equals(omopVocabulary))
-			return ISBT128.getFhirUri();
-		if (NDC.getOmopVocabulary().equals(omopVocabulary))
-			return NDC.getFhirUri();
-		if (NDFRT.getOmopVocabulary().equals(omopVocabulary))
-			return NDFRT.getFhirUri();
-		if (RXNORM.getOmopVocabulary().equals(omopVocabulary))
-			return RXNORM.getFhirUri();
-		if (SCT.getOmopVocabulary().equals(omopVocabulary))
-			return SCT.getFhirUri();
-		if (UCUM.getOmopVocabulary().equals(omopVocabulary))
-			return UCUM.getFhirUri();
-		
-		return "None";
-		
+		String fhirUri = VocabularyRegistry.getFhirSystem(omopVocabulary);
+		if (fhirUri == null) {
+			return "None";
+		}
+
+		return fhirUri;
 	}
 
 	String fhirUri;
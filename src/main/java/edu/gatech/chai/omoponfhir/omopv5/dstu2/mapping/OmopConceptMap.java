@@ -144,7 +144,7 @@ public class OmopConceptMap extends BaseOmopResource<ConceptMap, ConceptRelation
 			partParameter.setName("concept");
 			
 			Long targetConceptId = conceptRealationship.getId().getConceptId2();
-			Concept targetConcept = conceptService.findById(targetConceptId);
+			Concept targetConcept = CodeableConceptUtil.getOmopConceptById(conceptService, targetConceptId);
 			
 			logger.debug("$translate: target concept obtained with vocabulary_id="+targetConcept.getVocabularyId());
 			CodingDt targetCoding = CodeableConceptUtil.getCodingFromOmopConcept(targetConcept, getFhirOmopVocabularyMap());
@@ -85,7 +85,7 @@ public class OmopCondition extends BaseOmopResource<Condition, ConditionOccurren
 			logger.error("context must be NOT null");
 		}
 		
-		getSize();
+		registerResourceCount();
 	}
 
 	public static OmopCondition getInstance() {
@@ -575,7 +575,7 @@ public class OmopCondition extends BaseOmopResource<Condition, ConditionOccurren
 //				break;
 //		}
 
-		concept = conceptService.findById(typeConceptId);
+		concept = CodeableConceptUtil.getOmopConceptById(conceptService, typeConceptId);
 		conditionOccurrence.setConditionTypeConcept(concept);
 
 		// set the context
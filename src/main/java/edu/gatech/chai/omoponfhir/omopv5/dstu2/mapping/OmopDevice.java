@@ -60,7 +60,7 @@ public class OmopDevice extends BaseOmopResource<Device, DeviceExposure, DeviceE
 	
 	private void initialize(WebApplicationContext context) {
 //		conceptService = context.getBean(ConceptService.class);
-		getSize();
+		registerResourceCount();
 	}
 
 	public static OmopDevice getInstance() {
@@ -80,7 +80,7 @@ public class OmopDeviceUseStatement extends BaseOmopResource<MyDeviceUseStatemen
 		fPersonService = context.getBean(FPersonService.class);
 		providerService = context.getBean(ProviderService.class);
 		
-		getSize();
+		registerResourceCount();
 	}
 	
 	public static OmopDeviceUseStatement getInstance() {
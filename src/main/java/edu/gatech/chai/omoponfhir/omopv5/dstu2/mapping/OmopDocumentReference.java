@@ -28,7 +28,6 @@ import ca.uhn.fhir.model.dstu2.composite.CodingDt;
 import ca.uhn.fhir.model.dstu2.resource.DocumentReference;
 import ca.uhn.fhir.model.dstu2.resource.DocumentReference.Content;
 import ca.uhn.fhir.model.dstu2.resource.DocumentReference.Context;
-import ca.uhn.fhir.model.dstu2.resource.Encounter;
 import ca.uhn.fhir.model.dstu2.valueset.DocumentReferenceStatusEnum;
 import ca.uhn.fhir.model.primitive.DateTimeDt;
 import ca.uhn.fhir.model.primitive.IdDt;
@@ -98,7 +97,7 @@ public class OmopDocumentReference extends BaseOmopResource<DocumentReference, N
 		providerService = context.getBean(ProviderService.class);
 		visitOccurrenceService = context.getBean(VisitOccurrenceService.class);
 		
-		getSize();
+		registerResourceCount();
 	}
 
 	public static OmopDocumentReference getInstance() {
@@ -309,7 +308,7 @@ public class OmopDocumentReference extends BaseOmopResource<DocumentReference, N
 			if (loincCoding != null) {
 				// We found loinc coding. See if we can convert to Note Type concept.
 				Long typeOmopConceptId = OmopNoteTypeMapping.getOmopConceptIdFor(typeFhirConcept.getId());
-				typeOmopConcept = conceptService.findById(typeOmopConceptId);
+				typeOmopConcept = CodeableConceptUtil.getOmopConceptById(conceptService, typeOmopConceptId);
 			}
 			
 			if (typeOmopConcept == null) {
@@ -433,33 +432,22 @@ public class OmopDocumentReference extends BaseOmopResource<DocumentReference, N
 	}
 	
 	@Override
-	public DocumentReference constructResource(Long fhirId, Note entity, List<String> includes) {
-		DocumentReference documentReference = constructFHIR(fhirId, entity);
-		
-		if (!includes.isEmpty()) {
-			if (includes.contains("DocumentReference:patient") || includes.contains("DocumentReference:subject")) {
-//				if (documentReference.hasSubject()) {
-				if (!documentReference.getSubject().isEmpty()) {
-					Long patientFhirId = documentReference.getSubject().getReferenceElement().getIdPartAsLong();
-					Patient patient = OmopPatient.getInstance().constructFHIR(patientFhirId, entity.getFPerson());
-					documentReference.getSubject().setResource(patient);
-				}
-			}
-			if (includes.contains("DocumentReference:encounter")) {
-//				if (documentReference.hasContext()) {
-				if (documentReference.getContent().isEmpty()) {
-					Context documentContext = documentReference.getContext();
-//					if (documentContext.hasEncounter()) {
-					if (documentContext.getEncounter().isEmpty()) {
-						Long encounterFhirId = documentContext.getEncounter().getReferenceElement().getIdPartAsLong();
-						Encounter encounter = OmopEncounter.getInstance().constructFHIR(encounterFhirId, entity.getVisitOccurrence());
-						documentContext.getEncounter().setResource(encounter);
-					}
-				}
+	protected void planIncludes(DocumentReference documentReference, List<String> includes,
+			IncludePlan includePlan) {
+		if (includes == null || includes.isEmpty()) {
+			return;
+		}
+
+		if (includes.contains("DocumentReference:patient") || includes.contains("DocumentReference:subject")) {
+			includePlan.add(documentReference.getSubject());
+		}
+
+		if (includes.contains("DocumentReference:encounter")) {
+			Context documentContext = documentReference.getContext();
+			if (documentContext != null) {
+				includePlan.add(documentContext.getEncounter());
 			}
 		}
-		
-		return documentReference;
 	}
 
 	@Override
@@ -481,7 +469,7 @@ public class OmopDocumentReference extends BaseOmopResource<DocumentReference, N
 				if (loincConceptId != 0L) {
 					// We found lonic code for this. Find this concept and create FHIR codeable
 					// concept.
-					Concept loincConcept = conceptService.findById(loincConceptId);
+					Concept loincConcept = CodeableConceptUtil.getOmopConceptById(conceptService, loincConceptId);
 					typeCodeableConcept = CodeableConceptUtil.getCodeableConceptFromOmopConcept(loincConcept);
 				}
 			} catch (FHIRException e) {
@@ -83,7 +83,7 @@ public class OmopEncounter extends BaseOmopResource<Encounter, VisitOccurrence,
 		providerService = context.getBean(ProviderService.class);
 		conditionOccurrenceService = context.getBean(ConditionOccurrenceService.class);
 
-		getSize();
+		registerResourceCount();
 	}
 
 	public static OmopEncounter getInstance() {
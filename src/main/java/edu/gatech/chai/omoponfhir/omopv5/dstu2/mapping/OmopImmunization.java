@@ -9,6 +9,7 @@ import java.util.Map;
 import org.hl7.fhir.exceptions.FHIRException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.web.context.ContextLoaderListener;
 import org.springframework.web.context.WebApplicationContext;
 
 import ca.uhn.fhir.model.dstu2.composite.AnnotationDt;
@@ -34,6 +35,7 @@ import edu.gatech.chai.omoponfhir.omopv5.dstu2.provider.PatientResourceProvider;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.provider.PractitionerResourceProvider;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.CodeableConceptUtil;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.DateUtil;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.VocabularyRegistry;
 import edu.gatech.chai.omopv5.dba.service.ConceptService;
 import edu.gatech.chai.omopv5.dba.service.DrugExposureService;
 import edu.gatech.chai.omopv5.dba.service.FImmunizationViewService;
@@ -62,6 +64,8 @@ public class OmopImmunization extends BaseOmopResource<Immunization, FImmunizati
 
 	final static Logger logger = LoggerFactory.getLogger(OmopImmunization.class);
 
+	private static OmopImmunization omopImmunization = new OmopImmunization();
+
 	private VisitOccurrenceService visitOccurrenceService;
 	private DrugExposureService drugExposureService;
 	private ConceptService conceptService;
@@ -114,6 +118,16 @@ public class OmopImmunization extends BaseOmopResource<Immunization, FImmunizati
 		initialize(context);
 	}
 
+	public OmopImmunization() {
+		super(ContextLoaderListener.getCurrentWebApplicationContext(), FImmunizationView.class,
+				FImmunizationViewService.class, ImmunizationResourceProvider.getType());
+		initialize(ContextLoaderListener.getCurrentWebApplicationContext());
+	}
+
+	public static OmopImmunization getInstance() {
+		return omopImmunization;
+	}
+
 	private void initialize(WebApplicationContext context) {
 		visitOccurrenceService = context.getBean(VisitOccurrenceService.class);
 		conceptService = context.getBean(ConceptService.class);
@@ -123,7 +137,7 @@ public class OmopImmunization extends BaseOmopResource<Immunization, FImmunizati
 
 //		String sizeSql = "select count(distinct d) from " + _from + " where " + _where;
 //		getSize(sizeSql, null);
-		getSize();
+		registerResourceCount();
 	}
 
 	@Override
@@ -271,7 +285,7 @@ public class OmopImmunization extends BaseOmopResource<Immunization, FImmunizati
 					// Find OMOP vocabulary_id for this system. If not found,
 					// put empty so that we can search it by code only (if provided).
 					try {
-						omopVocabulary = fhirOmopVocabularyMap.getOmopVocabularyFromFhirSystemName(systemValue);
+						omopVocabulary = VocabularyRegistry.getOmopVocabularyFromFhirSystemName(systemValue);
 					} catch (FHIRException e) {
 						e.printStackTrace();
 						systemValue = "";
@@ -34,7 +34,6 @@ import org.hl7.fhir.exceptions.FHIRException;
 import ca.uhn.fhir.rest.param.TokenParam;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.provider.MedicationResourceProvider;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.CodeableConceptUtil;
-import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.ExtensionUtil;
 import edu.gatech.chai.omopv5.dba.service.ConceptService;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
 import edu.gatech.chai.omopv5.model.entity.Concept;
@@ -57,7 +56,7 @@ public class OmopMedication extends BaseOmopResource<Medication, Concept, Concep
 	}
 	
 	private void initialize(WebApplicationContext context) {
-		getSize();
+		registerResourceCount();
 	}
 
 	
@@ -182,13 +181,14 @@ public class OmopMedication extends BaseOmopResource<Medication, Concept, Concep
 			);
 
 	@Override
-	public Long getSize() {
-		List<ParameterWrapper> paramList = new ArrayList<ParameterWrapper> ();
-		Long size = getSize(paramList);
-		
-		ExtensionUtil.addResourceCount(getMyFhirResourceType(), size);
-		
-		return size;
+	protected Long countAll() {
+		// getSize adds the filter parameter.
+		return getSize(new ArrayList<ParameterWrapper>());
+	}
+
+	@Override
+	protected void addSearchFilters(List<ParameterWrapper> mapList) {
+		mapList.add(filterParam);
 	}
 
 	@Override
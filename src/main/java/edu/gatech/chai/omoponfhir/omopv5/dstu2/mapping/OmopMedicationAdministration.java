@@ -53,7 +53,7 @@ import edu.gatech.chai.omoponfhir.omopv5.dstu2.provider.PatientResourceProvider;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.provider.PractitionerResourceProvider;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.CodeableConceptUtil;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.DateUtil;
-import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.ExtensionUtil;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.UnitConceptResolver;
 import edu.gatech.chai.omopv5.dba.service.ConceptService;
 import edu.gatech.chai.omopv5.dba.service.DrugExposureService;
 import edu.gatech.chai.omopv5.dba.service.FPersonService;
@@ -114,7 +114,7 @@ public class OmopMedicationAdministration extends BaseOmopResource<MedicationAdm
 		conceptService = context.getBean(ConceptService.class);
 		fPersonService = context.getBean(FPersonService.class);
 
-		getSize();
+		registerResourceCount();
 	}
 
 	public static OmopMedicationAdministration getInstance() {
@@ -236,11 +236,11 @@ public class OmopMedicationAdministration extends BaseOmopResource<MedicationAdm
 		String unitSystem = null;
 		if (unitUnit != null && !unitUnit.isEmpty()) {
 			// See if we can convert this unit to concept code.
-			List<Concept> unitConcepts = conceptService.searchByColumnString("concept_name", unitUnit);
-			if (unitConcepts.size() > 0) {
-				String omopUnitVocab = unitConcepts.get(0).getVocabularyId();
-				String omopUnitCode = unitConcepts.get(0).getConceptCode();
-				String omopUnitName = unitConcepts.get(0).getConceptName();
+			Concept unitConcept = UnitConceptResolver.resolve(unitUnit);
+			if (unitConcept != null) {
+				String omopUnitVocab = unitConcept.getVocabularyId();
+				String omopUnitCode = unitConcept.getConceptCode();
+				String omopUnitName = unitConcept.getConceptName();
 				String fhirUnitUri;
 				try {
 					fhirUnitUri = OmopCodeableConceptMapping.fhirUriforOmopVocabulary(omopUnitVocab);
@@ -437,15 +437,14 @@ public class OmopMedicationAdministration extends BaseOmopResource<MedicationAdm
 			new ParameterWrapper("String", Arrays.asList("drugTypeConcept.conceptName"), Arrays.asList("like"), Arrays.asList("%administ%"), "or"));
 
 	@Override
-	public Long getSize() {
-		List<ParameterWrapper> paramList = new ArrayList<ParameterWrapper>();
-		// call getSize with empty parameter list. The getSize will add filter
-		// parameter.
-		Long size = getSize(paramList);
-
-		ExtensionUtil.addResourceCount(getMyFhirResourceType(), size);
+	protected Long countAll() {
+		// getSize adds the filter parameter.
+		return getSize(new ArrayList<ParameterWrapper>());
+	}
 
-		return size;
+	@Override
+	protected void addSearchFilters(List<ParameterWrapper> mapList) {
+		mapList.addAll(filterParams);
 	}
 
 	@Override
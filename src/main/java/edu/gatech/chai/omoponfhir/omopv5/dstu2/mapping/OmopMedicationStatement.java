@@ -56,6 +56,7 @@ import edu.gatech.chai.omoponfhir.omopv5.dstu2.provider.PatientResourceProvider;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.provider.PractitionerResourceProvider;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.CodeableConceptUtil;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.DateUtil;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.UnitConceptResolver;
 import edu.gatech.chai.omopv5.dba.service.ConceptService;
 import edu.gatech.chai.omopv5.dba.service.DrugExposureService;
 import edu.gatech.chai.omopv5.dba.service.FPersonService;
@@ -118,7 +119,7 @@ public class OmopMedicationStatement extends BaseOmopResource<MedicationStatemen
 		providerService = context.getBean(ProviderService.class);
 		fPersonService = context.getBean(FPersonService.class);
 		
-		getSize();
+		registerResourceCount();
 	}
 
 	public static OmopMedicationStatement getInstance() {
@@ -348,9 +349,8 @@ public class OmopMedicationStatement extends BaseOmopResource<MedicationStatemen
 		Concept unitConcept;
 		if (unitUnit != null && !unitUnit.isEmpty()) {
 			// See if we can convert this unit to concept code.
-			List<Concept> unitConcepts = conceptService.searchByColumnString("conceptName", unitUnit);
-			if (unitConcepts.size() > 0) {
-				unitConcept = unitConcepts.get(0);
+			unitConcept = UnitConceptResolver.resolve(unitUnit);
+			if (unitConcept != null) {
 				String omopUnitVocab = unitConcept.getVocabularyId();
 //				String omopUnitCode = unitConcept.getConceptCode();
 //				String omopUnitName = unitConcept.getConceptName();
@@ -0,0 +1,352 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package edu.gatech.chai.omoponfhir.omopv5.dstu2.mapping;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.context.ContextLoaderListener;
+import org.springframework.web.context.WebApplicationContext;
+
+import ca.uhn.fhir.model.dstu2.composite.ResourceReferenceDt;
+import ca.uhn.fhir.model.dstu2.resource.BaseResource;
+import ca.uhn.fhir.model.dstu2.resource.Bundle;
+import ca.uhn.fhir.model.dstu2.resource.Bundle.Entry;
+import ca.uhn.fhir.model.dstu2.resource.MessageHeader;
+import ca.uhn.fhir.model.dstu2.resource.OperationOutcome;
+import ca.uhn.fhir.model.dstu2.valueset.BundleTypeEnum;
+import ca.uhn.fhir.model.dstu2.valueset.IssueSeverityEnum;
+import ca.uhn.fhir.model.dstu2.valueset.IssueTypeEnum;
+import ca.uhn.fhir.model.dstu2.valueset.ResponseTypeEnum;
+import ca.uhn.fhir.model.primitive.InstantDt;
+import ca.uhn.fhir.parser.IParser;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.ConfigUtil;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.StaticValues;
+
+/**
+ * Queue of $process-message requests that are processed asynchronously.
+ *
+ * Each message is saved to a file before $process-message returns, so the
+ * messages not yet processed are picked up again after a restart. The queue is
+ * started with the ServerOperations provider. Workers
+ * process the messages and POST the response Bundle to the response-url of the
+ * message. If a message cannot be processed, a fatal-error response with an
+ * OperationOutcome is POSTed instead. A message that fails or whose response
+ * cannot be delivered is renamed to .failed and kept for inspection. The
+ * workers are stopped with the ServerOperations provider. The messages not yet
+ * processed stay queued for the next start.
+ *
+ * The following servlet init parameters are read: messageQueueDirectory
+ * (default omoponfhir-messages in java.io.tmpdir), messageQueueSize (default
+ * 100 messages), messageWorkerPoolSize (default 2) and messageCallbackRetries
+ * (default 3).
+ */
+public class OmopMessageQueue {
+	private static final Logger logger = LoggerFactory.getLogger(OmopMessageQueue.class);
+
+	private static final String MESSAGE_SUFFIX = ".msg";
+	private static final String FAILED_SUFFIX = ".failed";
+	private static final String FHIR_JSON = "application/json+fhir";
+
+	private static OmopMessageQueue omopMessageQueue = null;
+
+	private final OmopServerOperations serverOperations;
+	private final File queueDirectory;
+	private int queueSize = 100;
+	private int callbackRetries = 3;
+	private final AtomicInteger pending = new AtomicInteger();
+	private final ExecutorService executor;
+	private volatile boolean stopped = false;
+
+	private OmopMessageQueue(WebApplicationContext context) {
+		serverOperations = new OmopServerOperations(context);
+
+		String directory = null;
+		int threads = 2;
+		if (context != null && context.getServletContext() != null) {
+			directory = context.getServletContext().getInitParameter("messageQueueDirectory");
+			queueSize = ConfigUtil.getPositiveInt("messageQueueSize",
+					context.getServletContext().getInitParameter("messageQueueSize"), queueSize);
+			threads = ConfigUtil.getPositiveInt("messageWorkerPoolSize",
+					context.getServletContext().getInitParameter("messageWorkerPoolSize"), threads);
+			callbackRetries = ConfigUtil.getPositiveInt("messageCallbackRetries",
+					context.getServletContext().getInitParameter("messageCallbackRetries"), callbackRetries);
+		}
+		if (directory == null || directory.isEmpty()) {
+			directory = System.getProperty("java.io.tmpdir") + File.separator + "omoponfhir-messages";
+		}
+		queueDirectory = new File(directory);
+		if (!queueDirectory.isDirectory() && !queueDirectory.mkdirs()) {
+			logger.error("Failed to create " + queueDirectory.getAbsolutePath());
+		}
+
+		executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "process-message");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		// Pick up the messages that were queued before the restart.
+		File[] queued = queueDirectory.listFiles((dir, name) -> name.endsWith(MESSAGE_SUFFIX));
+		if (queued != null) {
+			Arrays.sort(queued, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+			for (File file : queued) {
+				pending.incrementAndGet();
+				executor.submit(() -> process(file));
+			}
+			if (queued.length > 0) {
+				logger.info("Resuming " + queued.length + " queued messages");
+			}
+		}
+	}
+
+	public static synchronized OmopMessageQueue getInstance() {
+		if (omopMessageQueue == null) {
+			omopMessageQueue = new OmopMessageQueue(ContextLoaderListener.getCurrentWebApplicationContext());
+		}
+
+		return omopMessageQueue;
+	}
+
+	/**
+	 * Stops the workers if the queue was started. The messages not yet processed
+	 * are picked up by the next start.
+	 */
+	public static synchronized void shutdown() {
+		if (omopMessageQueue != null) {
+			omopMessageQueue.stopped = true;
+			omopMessageQueue.executor.shutdownNow();
+			omopMessageQueue = null;
+		}
+	}
+
+	/**
+	 * True if the response-url is an http or https URL.
+	 */
+	public static boolean isValidResponseUrl(String responseUrl) {
+		if (responseUrl == null) {
+			return false;
+		}
+
+		try {
+			URL url = new URL(responseUrl);
+			String protocol = url.getProtocol();
+			return ("http".equalsIgnoreCase(protocol) || "https".equalsIgnoreCase(protocol))
+					&& url.getHost() != null && !url.getHost().isEmpty();
+		} catch (MalformedURLException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Saves the message and queues it. Returns the id of the queued message, or
+	 * null if the queue is full or the message could not be saved. Throws
+	 * IllegalArgumentException if the response-url is not an http or https URL.
+	 */
+	public String enqueue(Bundle message, String responseUrl) {
+		if (!isValidResponseUrl(responseUrl)) {
+			throw new IllegalArgumentException("response-url must be an http or https URL: " + responseUrl);
+		}
+		if (stopped) {
+			return null;
+		}
+
+		if (pending.incrementAndGet() > queueSize) {
+			pending.decrementAndGet();
+			logger.warn("Message queue is full with " + queueSize + " messages");
+			return null;
+		}
+
+		String id = UUID.randomUUID().toString();
+		File file = new File(queueDirectory, id + MESSAGE_SUFFIX);
+		File tempFile = new File(queueDirectory, id + ".tmp");
+		IParser parser = StaticValues.myFhirContext.newJsonParser();
+		try {
+			// The first line is the response-url. The rest is the message.
+			try (BufferedWriter writer = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8)) {
+				writer.write(responseUrl);
+				writer.newLine();
+				parser.encodeResourceToWriter(message, writer);
+			}
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			e.printStackTrace();
+			tempFile.delete();
+			pending.decrementAndGet();
+			return null;
+		}
+
+		executor.submit(() -> process(file));
+
+		return id;
+	}
+
+	private void process(File file) {
+		String responseUrl = null;
+		MessageHeader messageHeader = null;
+		IParser parser = StaticValues.myFhirContext.newJsonParser();
+		boolean delivered = false;
+		try {
+			Bundle message;
+			try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+				responseUrl = reader.readLine();
+				message = parser.parseResource(Bundle.class, reader);
+			}
+
+			// The message was checked before it was queued. The first entry is the
+			// MessageHeader.
+			List<Entry> entries = message.getEntry();
+			messageHeader = (MessageHeader) entries.get(0).getResource();
+			List<BaseResource> resources = new ArrayList<BaseResource>();
+			for (int i = 1; i < entries.size(); i++) {
+				resources.add((BaseResource) entries.get(i).getResource());
+			}
+
+			Bundle response = serverOperations.processMessage(messageHeader, resources);
+			delivered = deliver(responseUrl, parser.encodeResourceToString(response));
+			if (delivered) {
+				Files.delete(file.toPath());
+			} else if (!stopped) {
+				markFailed(file);
+			}
+		} catch (IOException | RuntimeException e) {
+			e.printStackTrace();
+			if (stopped) {
+				// Left queued for the next start.
+				return;
+			}
+			if (!delivered && isValidResponseUrl(responseUrl)) {
+				deliver(responseUrl, parser.encodeResourceToString(errorResponse(messageHeader, e)));
+			}
+			markFailed(file);
+		} finally {
+			pending.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Response message for a message that could not be processed. The
+	 * MessageHeader has the fatal-error code and refers to an OperationOutcome
+	 * with the cause.
+	 */
+	private Bundle errorResponse(MessageHeader messageHeader, Exception e) {
+		OperationOutcome outcome = new OperationOutcome();
+		outcome.addIssue().setSeverity(IssueSeverityEnum.FATAL).setCode(IssueTypeEnum.EXCEPTION)
+				.setDiagnostics("Failed to process the message: " + e.getMessage());
+		Entry outcomeEntry = new Entry();
+		outcomeEntry.setFullUrl("urn:uuid:" + UUID.randomUUID().toString());
+		outcomeEntry.setResource(outcome);
+
+		MessageHeader.Response response = new MessageHeader.Response();
+		response.setCode(ResponseTypeEnum.FATAL_ERROR);
+		response.setDetails(new ResourceReferenceDt(outcomeEntry.getFullUrl()));
+		if (messageHeader == null) {
+			messageHeader = new MessageHeader();
+			messageHeader.setTimestamp(new InstantDt(new Date()));
+		} else if (messageHeader.getId() != null && !messageHeader.getId().isEmpty()) {
+			response.setIdentifier(messageHeader.getId().getIdPart());
+		}
+		messageHeader.setResponse(response);
+
+		Entry headerEntry = new Entry();
+		headerEntry.setFullUrl("urn:uuid:" + UUID.randomUUID().toString());
+		headerEntry.setResource(messageHeader);
+
+		Bundle retVal = new Bundle();
+		retVal.setType(BundleTypeEnum.MESSAGE);
+		retVal.addEntry(headerEntry);
+		retVal.addEntry(outcomeEntry);
+
+		return retVal;
+	}
+
+	private void markFailed(File file) {
+		String name = file.getName();
+		File failedFile = new File(queueDirectory,
+				name.substring(0, name.length() - MESSAGE_SUFFIX.length()) + FAILED_SUFFIX);
+		if (!file.renameTo(failedFile)) {
+			logger.error("Failed to move " + file.getAbsolutePath() + " to " + failedFile.getName());
+		}
+	}
+
+	/**
+	 * POSTs the response Bundle to the response-url. Retries with a growing delay
+	 * if the callback fails.
+	 */
+	private boolean deliver(String responseUrl, String body) {
+		long delay = 1000;
+		for (int attempt = 1; attempt <= callbackRetries; attempt++) {
+			try {
+				int status = post(responseUrl, body);
+				if (status >= 200 && status < 300) {
+					return true;
+				}
+				logger.warn("Response to " + responseUrl + " returned " + status + " (attempt " + attempt + ")");
+			} catch (IOException e) {
+				logger.warn("Response to " + responseUrl + " failed (attempt " + attempt + "): " + e.getMessage());
+			}
+
+			if (attempt < callbackRetries) {
+				try {
+					Thread.sleep(delay);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return false;
+				}
+				delay *= 2;
+			}
+		}
+
+		logger.error("Giving up the response to " + responseUrl);
+		return false;
+	}
+
+	static int post(String url, String body) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+		try {
+			connection.setRequestMethod("POST");
+			connection.setConnectTimeout(10000);
+			connection.setReadTimeout(30000);
+			connection.setDoOutput(true);
+			connection.setRequestProperty("Content-Type", FHIR_JSON + "; charset=UTF-8");
+			try (OutputStream out = connection.getOutputStream()) {
+				out.write(body.getBytes(StandardCharsets.UTF_8));
+			}
+			return connection.getResponseCode();
+		} finally {
+			connection.disconnect();
+		}
+	}
+}
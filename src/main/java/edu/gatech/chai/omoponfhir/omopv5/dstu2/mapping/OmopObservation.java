@@ -19,10 +19,13 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import ca.uhn.fhir.model.dstu2.composite.CodeableConceptDt;
 import ca.uhn.fhir.model.dstu2.composite.CodingDt;
@@ -59,7 +62,8 @@ import edu.gatech.chai.omoponfhir.omopv5.dstu2.provider.PatientResourceProvider;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.provider.PractitionerResourceProvider;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.CodeableConceptUtil;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.DateUtil;
-import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.ExtensionUtil;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.UnitConceptResolver;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.VocabularyRegistry;
 import edu.gatech.chai.omopv5.dba.service.ConceptService;
 import edu.gatech.chai.omopv5.dba.service.FObservationViewService;
 import edu.gatech.chai.omopv5.dba.service.FactRelationshipService;
@@ -91,6 +95,13 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 	public static final String BP_SYSTOLIC_DIASTOLIC_DISPLAY = "Blood pressure systolic & diastolic";
 
 	public static final String SP_DATEISSUED = "dateissued";
+
+	// fact_relationship values used for Observation.method and Observation.comments
+	private static final Long MEASUREMENT_DOMAIN_CONCEPT_ID = 21L;
+	private static final Long NOTE_DOMAIN_CONCEPT_ID = 26L;
+	private static final Long CONCEPT_DOMAIN_CONCEPT_ID = 58L;
+	private static final Long METHOD_RELATIONSHIP_CONCEPT_ID = 44818800L;
+	private static final Long COMMENT_RELATIONSHIP_CONCEPT_ID = 44818721L;
 	
 	private ConceptService conceptService;
 	private MeasurementService measurementService;
@@ -119,7 +130,7 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 		noteService = context.getBean(NoteService.class);
 		factRelationshipService = context.getBean(FactRelationshipService.class);
 		
-		getSize();
+		registerResourceCount();
 	}
 
 	public Long getDiastolicConcept() {
@@ -130,15 +141,176 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 		return OmopObservation.omopObservation;
 	}
 
+	/**
+	 * Data prefetched for a whole search page so that constructFHIR does not have
+	 * to query the database for each row.
+	 */
+	private static class PageContext {
+		// diastolic rows keyed by person, date and datetime of the matching systolic row.
+		private Map<String, FObservationView> diastolics = new HashMap<String, FObservationView>();
+
+		// method and comment relationships keyed by measurement id, and the texts of
+		// the notes they point to.
+		private Map<Long, List<FactRelationship>> methods = new HashMap<Long, List<FactRelationship>>();
+		private Map<Long, List<FactRelationship>> comments = new HashMap<Long, List<FactRelationship>>();
+		private Map<Long, String> noteTexts = new HashMap<Long, String>();
+
+		FObservationView getDiastolic(FObservationView systolic) {
+			return diastolics.get(bloodPressureKey(systolic));
+		}
+	}
+
+	private static String bloodPressureKey(FObservationView fObservationView) {
+		Long personId = fObservationView.getFPerson() == null ? null : fObservationView.getFPerson().getId();
+		Date date = fObservationView.getObservationDate();
+		Date dateTime = fObservationView.getObservationDateTime();
+
+		return personId + "|" + (date == null ? "" : date.getTime()) + "|"
+				+ (dateTime == null ? "" : dateTime.getTime());
+	}
+
+	private PageContext prefetchPage(List<FObservationView> fObservationViews) {
+		PageContext pageContext = new PageContext();
+
+		// Collect the persons and the dates of the systolic rows. Their diastolic
+		// rows are fetched with one query for the page.
+		Set<String> personIds = new LinkedHashSet<String>();
+		Set<String> dates = new LinkedHashSet<String>();
+		for (FObservationView fObservationView : fObservationViews) {
+			if (fObservationView.getObservationConcept() == null
+					|| OmopObservation.SYSTOLIC_CONCEPT_ID != fObservationView.getObservationConcept().getId()
+					|| fObservationView.getFPerson() == null || fObservationView.getObservationDate() == null) {
+				continue;
+			}
+
+			personIds.add(String.valueOf(fObservationView.getFPerson().getId()));
+			dates.add(String.valueOf(fObservationView.getObservationDate().getTime()));
+		}
+
+		prefetchMethodsAndComments(fObservationViews, pageContext);
+
+		if (personIds.isEmpty()) {
+			return pageContext;
+		}
+
+		List<ParameterWrapper> paramList = new ArrayList<ParameterWrapper>();
+		paramList.add(new ParameterWrapper("Long", Arrays.asList("observationConcept.id"), Arrays.asList("="),
+				Arrays.asList(String.valueOf(OmopObservation.DIASTOLIC_CONCEPT_ID)), "or"));
+		// fPerson.id IN (...) and observationDate IN (...)
+		paramList.add(new ParameterWrapper("Long", Collections.nCopies(personIds.size(), "fPerson.id"),
+				Collections.nCopies(personIds.size(), "="), new ArrayList<String>(personIds), "or"));
+		paramList.add(new ParameterWrapper("Date", Collections.nCopies(dates.size(), "observationDate"),
+				Collections.nCopies(dates.size(), "="), new ArrayList<String>(dates), "or"));
+
+		// A person may have a diastolic row on the date of another person's systolic
+		// row. Such rows have no systolic row with the same key and are never used.
+		List<FObservationView> diastolics = getMyOmopService().searchWithParams(0, 0, paramList, null);
+		for (FObservationView diastolic : diastolics) {
+			pageContext.diastolics.putIfAbsent(bloodPressureKey(diastolic), diastolic);
+		}
+
+		return pageContext;
+	}
+
+	private void prefetchMethodsAndComments(List<FObservationView> fObservationViews, PageContext pageContext) {
+		// Only measurements (positive ids) have method and comments.
+		List<String> measurementIds = new ArrayList<String>();
+		for (FObservationView fObservationView : fObservationViews) {
+			if (fObservationView.getId() > 0) {
+				measurementIds.add(String.valueOf(fObservationView.getId()));
+			}
+		}
+
+		if (measurementIds.isEmpty()) {
+			return;
+		}
+
+		List<ParameterWrapper> paramList = new ArrayList<ParameterWrapper>();
+		paramList.add(new ParameterWrapper("Long", Arrays.asList("domainConceptId1"), Arrays.asList("="),
+				Arrays.asList(String.valueOf(MEASUREMENT_DOMAIN_CONCEPT_ID)), "or"));
+		paramList.add(new ParameterWrapper("Long", Collections.nCopies(measurementIds.size(), "factId1"),
+				Collections.nCopies(measurementIds.size(), "="), measurementIds, "or"));
+		paramList.add(new ParameterWrapper("Long", Arrays.asList("relationshipConcept.id", "relationshipConcept.id"),
+				Arrays.asList("=", "="), Arrays.asList(String.valueOf(METHOD_RELATIONSHIP_CONCEPT_ID),
+						String.valueOf(COMMENT_RELATIONSHIP_CONCEPT_ID)),
+				"or"));
+
+		List<FactRelationship> factRelationships = factRelationshipService.searchWithParams(0, 0, paramList, null);
+
+		Set<String> noteIds = new LinkedHashSet<String>();
+		for (FactRelationship factRelationship : factRelationships) {
+			Map<Long, List<FactRelationship>> target;
+			if (METHOD_RELATIONSHIP_CONCEPT_ID.equals(factRelationship.getRelationshipConcept().getId())) {
+				target = pageContext.methods;
+			} else {
+				target = pageContext.comments;
+			}
+			target.computeIfAbsent(factRelationship.getFactId1(), k -> new ArrayList<FactRelationship>())
+					.add(factRelationship);
+
+			if (NOTE_DOMAIN_CONCEPT_ID.equals(factRelationship.getDomainConceptId2())) {
+				noteIds.add(String.valueOf(factRelationship.getFactId2()));
+			}
+		}
+
+		if (noteIds.isEmpty()) {
+			return;
+		}
+
+		List<ParameterWrapper> noteParamList = new ArrayList<ParameterWrapper>();
+		noteParamList.add(new ParameterWrapper("Long", Collections.nCopies(noteIds.size(), "id"),
+				Collections.nCopies(noteIds.size(), "="), new ArrayList<String>(noteIds), "or"));
+		for (Note note : noteService.searchWithParams(0, 0, noteParamList, null)) {
+			pageContext.noteTexts.put(note.getId(), note.getNoteText());
+		}
+	}
+
+	private void addMethodAndComments(Observation observation, Long measurementId, PageContext pageContext) {
+		List<FactRelationship> methods = pageContext.methods.get(measurementId);
+		if (methods != null) {
+			for (FactRelationship method : methods) {
+				if (NOTE_DOMAIN_CONCEPT_ID.equals(method.getDomainConceptId2())) {
+					CodeableConceptDt methodCodeable = new CodeableConceptDt();
+					methodCodeable.setText(pageContext.noteTexts.get(method.getFactId2()));
+					observation.setMethod(methodCodeable);
+				} else if (CONCEPT_DOMAIN_CONCEPT_ID.equals(method.getDomainConceptId2())) {
+					CodeableConceptDt methodCodeable = CodeableConceptUtil.getCodeableConceptFromOmopConcept(
+							CodeableConceptUtil.getOmopConceptById(conceptService, method.getFactId2()));
+					observation.setMethod(methodCodeable);
+				} else {
+					logger.error("Method couldn't be retrieved. Method class type undefined");
+				}
+			}
+		}
+
+		List<FactRelationship> notes = pageContext.comments.get(measurementId);
+		if (notes != null) {
+			String comments = "";
+			for (FactRelationship note : notes) {
+				String noteText = pageContext.noteTexts.get(note.getFactId2());
+				if (noteText != null) {
+					comments = comments.concat(noteText);
+				}
+			}
+			if (!comments.isEmpty()) {
+				observation.setComments(comments);
+			}
+		}
+	}
+
 	@Override
 	public Observation constructFHIR(Long fhirId, FObservationView fObservationView) {
+		return constructFHIR(fhirId, fObservationView, null);
+	}
+
+	private Observation constructFHIR(Long fhirId, FObservationView fObservationView, PageContext pageContext) {
 		Observation observation = new Observation();
 		observation.setId(new IdDt(fhirId));
 
 		long start = System.currentTimeMillis();
 
 		String omopVocabulary = fObservationView.getObservationConcept().getVocabularyId();
-		String systemUriString = fhirOmopVocabularyMap.getFhirSystemNameFromOmopVocabulary(omopVocabulary);
+		String systemUriString = VocabularyRegistry.getFhirSystemNameFromOmopVocabulary(omopVocabulary);
 		if ("None".equals(systemUriString)) {
 			// If we can't find FHIR Uri or system name, just use Omop Vocabulary Id.
 			systemUriString = omopVocabulary;
@@ -157,7 +329,7 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 			// see if we can get the unit from source column.
 			unitSource = fObservationView.getUnitSourceValue();
 			if (unitSource != null && !unitSource.isEmpty()) {
-				unitConcept = CodeableConceptUtil.getOmopConceptWithOmopVacabIdAndCode(conceptService, OmopCodeableConceptMapping.UCUM.getOmopVocabulary(), unitSource);
+				unitConcept = UnitConceptResolver.resolve(unitSource);
 			}
 		}
 
@@ -166,7 +338,7 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 
 		if (unitConcept != null && unitConcept.getId() != 0L) {
 			String omopUnitVocabularyId = unitConcept.getVocabularyId();
-			unitSystemUri = fhirOmopVocabularyMap.getFhirSystemNameFromOmopVocabulary(omopUnitVocabularyId);
+			unitSystemUri = VocabularyRegistry.getFhirSystemNameFromOmopVocabulary(omopUnitVocabularyId);
 			if ("None".equals(unitSystemUri)) {
 				unitSystemUri = omopUnitVocabularyId;
 			}
@@ -231,11 +403,16 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 			}
 			components.add(comp);
 
-			// Now search for diastolic component.
-			WebApplicationContext myAppCtx = ContextLoaderListener.getCurrentWebApplicationContext();
-			FObservationViewService myService = myAppCtx.getBean(FObservationViewService.class);
-			FObservationView diastolicDb = myService.findDiastolic(DIASTOLIC_CONCEPT_ID,
-					fObservationView.getFPerson().getId(), fObservationView.getObservationDate(), fObservationView.getObservationDateTime());
+			// Now search for diastolic component. If this is a part of search, it's
+			// already been fetched for the whole page.
+			FObservationView diastolicDb;
+			if (pageContext != null) {
+				diastolicDb = pageContext.getDiastolic(fObservationView);
+			} else {
+				diastolicDb = getMyOmopService().findDiastolic(DIASTOLIC_CONCEPT_ID,
+						fObservationView.getFPerson().getId(), fObservationView.getObservationDate(),
+						fObservationView.getObservationDateTime());
+			}
 			if (diastolicDb != null) {
 				comp = new Component();
 				coding = new CodingDt(systemUriString, diastolicDb.getObservationConcept().getConceptCode());
@@ -251,7 +428,7 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 					if (diastolicDb.getUnitConcept() != null && diastolicDb.getUnitConcept().getId() != 0L) {
 						quantity.setUnit(diastolicDb.getUnitConcept().getConceptName());
 						quantity.setCode(diastolicDb.getUnitConcept().getConceptCode());
-						String unitSystem = fhirOmopVocabularyMap.getFhirSystemNameFromOmopVocabulary(
+						String unitSystem = VocabularyRegistry.getFhirSystemNameFromOmopVocabulary(
 								diastolicDb.getUnitConcept().getVocabularyId());
 						if ("None".equals(unitSystem))
 							unitSystem = diastolicDb.getUnitConcept().getVocabularyId();
@@ -260,11 +437,11 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 					} else {
 						String diastolicUnitSource = diastolicDb.getUnitSourceValue();
 						if (diastolicUnitSource != null && !diastolicUnitSource.isEmpty()) {
-							Concept diastolicUnitConcept = CodeableConceptUtil.getOmopConceptWithOmopVacabIdAndCode(conceptService, OmopCodeableConceptMapping.UCUM.getOmopVocabulary(), unitSource);
+							Concept diastolicUnitConcept = UnitConceptResolver.resolve(diastolicUnitSource);
 							if (diastolicUnitConcept != null && diastolicUnitConcept.getId() != 0L) {
 								quantity.setUnit(diastolicUnitConcept.getConceptName());
 								quantity.setCode(diastolicUnitConcept.getConceptCode());
-								String unitSystem = fhirOmopVocabularyMap.getFhirSystemNameFromOmopVocabulary(
+								String unitSystem = VocabularyRegistry.getFhirSystemNameFromOmopVocabulary(
 										diastolicUnitConcept.getVocabularyId());
 								if ("None".equals(unitSystem))
 									unitSystem = diastolicUnitConcept.getVocabularyId();
@@ -309,7 +486,7 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 					&& fObservationView.getValueAsConcept().getId() != 0L) {
 				// vocabulary is a required attribute for concept, then it's
 				// expected to not be null
-				String valueSystem = fhirOmopVocabularyMap.getFhirSystemNameFromOmopVocabulary(
+				String valueSystem = VocabularyRegistry.getFhirSystemNameFromOmopVocabulary(
 						fObservationView.getValueAsConcept().getVocabularyId());
 				if ("None".equals(valueSystem))
 					valueSystem = fObservationView.getValueAsConcept().getVocabularyId();
@@ -451,7 +628,9 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 		long identifierTS = System.currentTimeMillis()-start;
 		System.out.println("identifierTS: at "+Long.toString(identifierTS)+" duration: "+Long.toString(identifierTS-providerTS));
 
-		if (fObservationView.getId() > 0) {
+		if (fObservationView.getId() > 0 && pageContext != null) {
+			addMethodAndComments(observation, fObservationView.getId(), pageContext);
+		} else if (fObservationView.getId() > 0) {
 			List<BaseEntity> methods = factRelationshipService.searchMeasurementUsingMethod(fObservationView.getId());
 			if (methods != null && methods.size() > 0) {
 				for (BaseEntity method : methods) {
@@ -464,7 +643,7 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 					} else if (method instanceof Concept) {
 						Concept concept = (Concept) method;
 						CodeableConceptDt methodCodeable = CodeableConceptUtil
-								.getCodeableConceptFromOmopConcept(conceptService.findById(concept.getId()));
+								.getCodeableConceptFromOmopConcept(CodeableConceptUtil.getOmopConceptById(conceptService, concept.getId()));
 						observation.setMethod(methodCodeable);
 					} else {
 						logger.error("Method couldn't be retrieved. Method class type undefined");
@@ -680,7 +859,7 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 					String unitSystem = ((QuantityDt) systolicValue).getSystem();
 					String unitCode = ((QuantityDt) systolicValue).getCode();
 //					String omopVocabularyId = OmopCodeableConceptMapping.omopVocabularyforFhirUri(unitSystem);
-					String omopVocabularyId = fhirOmopVocabularyMap.getOmopVocabularyFromFhirSystemName(unitSystem);
+					String omopVocabularyId = VocabularyRegistry.getOmopVocabularyFromFhirSystemName(unitSystem);
 					if (omopVocabularyId != null) {
 						Concept unitConcept = CodeableConceptUtil.getOmopConceptWithOmopVacabIdAndCode(conceptService,
 								omopVocabularyId, unitCode);
@@ -717,7 +896,7 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 					String unitSystem = ((QuantityDt) diastolicValue).getSystem();
 					String unitCode = ((QuantityDt) diastolicValue).getCode();
 //					String omopVocabularyId = OmopCodeableConceptMapping.omopVocabularyforFhirUri(unitSystem);
-					String omopVocabularyId = fhirOmopVocabularyMap.getOmopVocabularyFromFhirSystemName(unitSystem);
+					String omopVocabularyId = VocabularyRegistry.getOmopVocabularyFromFhirSystemName(unitSystem);
 					if (omopVocabularyId != null) {
 						Concept unitConcept = CodeableConceptUtil.getOmopConceptWithOmopVacabIdAndCode(conceptService,
 								omopVocabularyId, unitCode);
@@ -1095,7 +1274,7 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 //		}
 //
 //		if (concept == null) {
-//			concept = conceptService.findById(0L);
+//			concept = CodeableConceptUtil.getOmopConceptById(conceptService, 0L);
 //		}
 		String valueSourceString = null;
 		Concept concept = fhirCode2OmopConcept(conceptService, code, valueSourceString);
@@ -1129,7 +1308,7 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 						omopVocabulary = OmopCodeableConceptMapping.UCUM.getOmopVocabulary();
 					} else {
 //						omopVocabulary = OmopCodeableConceptMapping.omopVocabularyforFhirUri(unitSystem);
-						omopVocabulary = fhirOmopVocabularyMap.getOmopVocabularyFromFhirSystemName(unitSystem);
+						omopVocabulary = VocabularyRegistry.getOmopVocabularyFromFhirSystemName(unitSystem);
 					}
 					concept = CodeableConceptUtil.getOmopConceptWithOmopVacabIdAndCode(conceptService, omopVocabulary,
 							unitCode);
@@ -1161,7 +1340,7 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 					}
 
 //					String omopVocabulary = OmopCodeableConceptMapping.omopVocabularyforFhirUri(fhirSystem);
-					String omopVocabulary = fhirOmopVocabularyMap.getOmopVocabularyFromFhirSystemName(fhirSystem);
+					String omopVocabulary = VocabularyRegistry.getOmopVocabularyFromFhirSystemName(fhirSystem);
 					concept = CodeableConceptUtil.getOmopConceptWithOmopVacabIdAndCode(conceptService, omopVocabulary,
 							fhirCode);
 
@@ -1181,11 +1360,11 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 				// Measurement table in OMOPv5 does not have a column for string value.
 				// If the value is what we can recognize as a concept code, we will use it.
 				if ("none detected".equalsIgnoreCase(valueString)) {
-					measurement.setValueAsConcept(conceptService.findById(45878003L));
+					measurement.setValueAsConcept(CodeableConceptUtil.getOmopConceptById(conceptService, 45878003L));
 				} else if ("not detected".equalsIgnoreCase(valueString)) {
-					measurement.setValueAsConcept(conceptService.findById(45880296L));
+					measurement.setValueAsConcept(CodeableConceptUtil.getOmopConceptById(conceptService, 45880296L));
 				} else if ("detected".equalsIgnoreCase(valueString)) {
-					measurement.setValueAsConcept(conceptService.findById(45877985L));
+					measurement.setValueAsConcept(CodeableConceptUtil.getOmopConceptById(conceptService, 45877985L));
 				}
 
 				measurement.setValueSourceValue(valueString);
@@ -1233,7 +1412,7 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 							// If system is empty, then we check UCUM for the unit.
 							omopVocabulary = OmopCodeableConceptMapping.UCUM.getOmopVocabulary();
 						} else {
-							omopVocabulary = fhirOmopVocabularyMap.getOmopVocabularyFromFhirSystemName(low.getSystem());
+							omopVocabulary = VocabularyRegistry.getOmopVocabularyFromFhirSystemName(low.getSystem());
 						}
 						rangeUnitConcept = CodeableConceptUtil.getOmopConceptWithOmopVacabIdAndCode(conceptService,
 								omopVocabulary, low.getCode());
@@ -1381,7 +1560,7 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 				try {
 					if (fhirSystemUri != null && !fhirSystemUri.isEmpty()) {
 //						OmopSystem = OmopCodeableConceptMapping.omopVocabularyforFhirUri(fhirSystemUri);
-						OmopSystem = fhirOmopVocabularyMap.getOmopVocabularyFromFhirSystemName(fhirSystemUri);
+						OmopSystem = VocabularyRegistry.getOmopVocabularyFromFhirSystemName(fhirSystemUri);
 						if ("None".equals(OmopSystem) == false) {
 							// We can at least handle this. Save it
 							// We may find another one we can handle. Let it replace.
@@ -1429,7 +1608,7 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 		}
 
 		if (concept == null) {
-			concept = conceptService.findById(0L);
+			concept = CodeableConceptUtil.getOmopConceptById(conceptService, 0L);
 		}
 
 		observation.setObservationConcept(concept);
@@ -1459,7 +1638,7 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 				} else {
 					try {
 //						omopVocabulary = OmopCodeableConceptMapping.omopVocabularyforFhirUri(unitSystem);
-						omopVocabulary = fhirOmopVocabularyMap.getOmopVocabularyFromFhirSystemName(unitSystem);
+						omopVocabulary = VocabularyRegistry.getOmopVocabularyFromFhirSystemName(unitSystem);
 					} catch (FHIRException e) {
 						e.printStackTrace();
 					}
@@ -1494,7 +1673,7 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 
 				try {
 //					String omopVocabulary = OmopCodeableConceptMapping.omopVocabularyforFhirUri(fhirSystem);
-					String omopVocabulary = fhirOmopVocabularyMap.getOmopVocabularyFromFhirSystemName(fhirSystem);
+					String omopVocabulary = VocabularyRegistry.getOmopVocabularyFromFhirSystemName(fhirSystem);
 					concept = CodeableConceptUtil.getOmopConceptWithOmopVacabIdAndCode(conceptService, omopVocabulary,
 							fhirCode);
 
@@ -1616,81 +1795,41 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 				system = "";
 			}
 
-			List<Concept> conceptForCodes = conceptService.searchByColumnString("conceptCode", code);
-			if (conceptForCodes.size() <= 0) {
-				// we have no matching code. Put no matching code.
-				conceptForCodes.add(conceptService.findById(0L));
+			// Resolve the vocabulary of the system first. Then, look up the code in that
+			// vocabulary only.
+			String omopVocabulary = VocabularyRegistry.getOmopVocabularyFromFhirSystemName(system);
+			Concept conceptForCode = null;
+			if (!"None".equals(omopVocabulary) && !code.isEmpty()) {
+				conceptForCode = CodeableConceptUtil.getOmopConceptWithOmopVacabIdAndCode(conceptService,
+						omopVocabulary, code);
 			}
+			String domain = conceptForCode == null ? "" : conceptForCode.getDomainId();
 
-			for (Concept conceptForCode : conceptForCodes) {
-				String domain = conceptForCode.getDomainId();
-				String systemName = conceptForCode.getVocabularyId();
-				try {
-//					List<Identifier> identifiers = fhirResource.getIdentifier();
-//					String identifier_value = null;
-//					if ((domain.equalsIgnoreCase("measurement")
-//							&& systemName.equalsIgnoreCase(OmopCodeableConceptMapping.omopVocabularyforFhirUri(system)))
-//							|| is_measurement_by_valuetype(fhirResource)) {
-
-					if ((domain.equalsIgnoreCase("measurement") && systemName
-							.equalsIgnoreCase(fhirOmopVocabularyMap.getOmopVocabularyFromFhirSystemName(system)))
-							|| is_measurement_by_valuetype(fhirResource)) {
-
-						// TODO: Omop does not have a place holder to track the source of measurement
-						// data.
-//						for (Identifier identifier : identifiers) {
-//							identifier_value = identifier.getValue();
-//							if (identifier_value != null) {
-//								List<Measurement> results = measurementService.searchByColumnString("sourceValue",
-//										identifier_value);
-//								if (results.size() > 0) {
-//									// We do not CREATE. Instead, we update
-//									// this.
-//									// set the measurement.
-//									omopId = results.get(0).getId();
-//									break;
-//								}
-//							}
-//						}
-
-						measurements = constructOmopMeasurement(omopId, fhirResource, system, code);
-						if (measurements != null && measurements.size() > 0) {
-							retVal.put("type", "Measurement");
-							retVal.put("entity", measurements);
-							return retVal;
-						}
-//					} else if (domain.equalsIgnoreCase("observation") && systemName
-//							.equalsIgnoreCase(OmopCodeableConceptMapping.omopVocabularyforFhirUri(system))) {
-					} else if (domain.equalsIgnoreCase("observation") && systemName
-							.equalsIgnoreCase(fhirOmopVocabularyMap.getOmopVocabularyFromFhirSystemName(system))) {
-
-						// TODO: Omop does not have a place holder to track the source of observation
-						// data.
-//						for (Identifier identifier : identifiers) {
-//							identifier_value = identifier.getValue();
-//							if (identifier_value != null) {
-//								List<edu.gatech.chai.omopv5.jpa.entity.Observation> results = observationService
-//										.searchByColumnString("sourceValue", identifier_value);
-//								if (results.size() > 0) {
-//									// We do not CREATE. Instead, we update
-//									// this.
-//									// set the measurement.
-//									omopId = results.get(0).getId();
-//									break;
-//								}
-//							}
-//						}
-
-						observation = constructOmopObservation(omopId, fhirResource);
-						if (observation != null) {
-							retVal.put("type", "Observation");
-							retVal.put("entity", observation);
-							return retVal;
-						}
+			try {
+				// Quantity values are always measurements, even if we do not know the code.
+				if ("measurement".equalsIgnoreCase(domain) || is_measurement_by_valuetype(fhirResource)) {
+
+					// TODO: Omop does not have a place holder to track the source of measurement
+					// data.
+					measurements = constructOmopMeasurement(omopId, fhirResource, system, code);
+					if (measurements != null && measurements.size() > 0) {
+						retVal.put("type", "Measurement");
+						retVal.put("entity", measurements);
+						return retVal;
+					}
+				} else if ("observation".equalsIgnoreCase(domain)) {
+
+					// TODO: Omop does not have a place holder to track the source of observation
+					// data.
+					observation = constructOmopObservation(omopId, fhirResource);
+					if (observation != null) {
+						retVal.put("type", "Observation");
+						retVal.put("entity", observation);
+						return retVal;
 					}
-				} catch (FHIRException e) {
-					e.printStackTrace();
 				}
+			} catch (FHIRException e) {
+				e.printStackTrace();
 			}
 		}
 
@@ -1756,7 +1895,7 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 				String omopSystem = null;
 				if (fhirSystem != null) {
 //					omopSystem = OmopCodeableConceptMapping.omopVocabularyforFhirUri(fhirSystem);
-					omopSystem = fhirOmopVocabularyMap.getOmopVocabularyFromFhirSystemName(fhirSystem);
+					omopSystem = VocabularyRegistry.getOmopVocabularyFromFhirSystemName(fhirSystem);
 					if (omopSystem != null)
 						concept = CodeableConceptUtil.getOmopConceptWithOmopVacabIdAndCode(conceptService, omopSystem,
 								code);
@@ -2042,19 +2181,20 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 			Arrays.asList("!="), Arrays.asList(String.valueOf(OmopObservation.DIASTOLIC_CONCEPT_ID)), "or");
 
 	@Override
-	public Long getSize() {
-		List<ParameterWrapper> mapList = new ArrayList<ParameterWrapper>();
-		Long size = getSize(mapList);
-		
-		ExtensionUtil.addResourceCount(getMyFhirResourceType(), size);
-
-		return size;
+	protected Long countAll() {
+		// getSize adds the filter parameter.
+		return getSize(new ArrayList<ParameterWrapper>());
 		// mapList.add(exceptionParam);
 		//
 		// return measurementService.getSize() -
 		// measurementService.getSize(mapList) + observationService.getSize();
 	}
 
+	@Override
+	protected void addSearchFilters(List<ParameterWrapper> mapList) {
+		mapList.add(exceptionParam4Search);
+	}
+
 	@Override
 	public Long getSize(List<ParameterWrapper> mapList) {
 		// List<ParameterWrapper> exceptions = new
@@ -2118,10 +2258,12 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 		long gettingObses = System.currentTimeMillis()-start;
 		System.out.println("gettingObses: at "+Long.toString(gettingObses)+" duration: "+Long.toString(gettingObses));
 
+		PageContext pageContext = prefetchPage(fObservationViews);
+
 		for (FObservationView fObservationView : fObservationViews) {
 			Long omopId = fObservationView.getId();
 			Long fhirId = IdMapping.getFHIRfromOMOP(omopId, ObservationResourceProvider.getType());
-			Observation fhirResource = constructResource(fhirId, fObservationView, includes);
+			Observation fhirResource = constructFHIR(fhirId, fObservationView, pageContext);
 			if (fhirResource != null) {
 				listResources.add(fhirResource);
 				// Do the rev_include and add the resource to the list.
@@ -2173,7 +2315,7 @@ public class OmopObservation extends BaseOmopResource<Observation, FObservationV
 				if (system != null && !system.isEmpty()) {
 					try {
 //					omopVocabulary = OmopCodeableConceptMapping.omopVocabularyforFhirUri(system);
-						omopVocabulary = fhirOmopVocabularyMap.getOmopVocabularyFromFhirSystemName(system);
+						omopVocabulary = VocabularyRegistry.getOmopVocabularyFromFhirSystemName(system);
 					} catch (FHIRException e) {
 						e.printStackTrace();
 						break;
@@ -26,7 +26,6 @@ import ca.uhn.fhir.model.dstu2.composite.IdentifierDt;
 import ca.uhn.fhir.model.dstu2.resource.Organization;
 import ca.uhn.fhir.model.dstu2.composite.ResourceReferenceDt;
 
-import org.hl7.fhir.instance.model.api.IIdType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.hl7.fhir.exceptions.FHIRException;
@@ -70,7 +69,7 @@ public class OmopOrganization extends BaseOmopResource<Organization, CareSite, C
 		locationService = context.getBean(LocationService.class);
 		vocabularyService = context.getBean(VocabularyService.class);
 		
-		getSize();
+		registerResourceCount();
 	}
 	
 	public static OmopOrganization getInstance() {
@@ -168,25 +167,14 @@ public class OmopOrganization extends BaseOmopResource<Organization, CareSite, C
 	
 
 	@Override
-	public Organization constructResource(Long fhirId, CareSite entity, List<String> includes) {
-		Organization myOrganization = constructFHIR(fhirId, entity);
-		
-		if (!includes.isEmpty()) {
-			if (includes.contains("Organization:partof")) {
-				ResourceReferenceDt partOfOrganization = myOrganization.getPartOf();
-				if (partOfOrganization != null && partOfOrganization.isEmpty() == false) {
-					IIdType partOfOrgId = partOfOrganization.getReferenceElement();
-					Long partOfOrgFhirId = partOfOrgId.getIdPartAsLong();
-					Long omopId = IdMapping.getOMOPfromFHIR(partOfOrgFhirId, OrganizationResourceProvider.getType());
-					CareSite partOfCareSite = getMyOmopService().findById(omopId);
-					Organization partOfOrgResource = constructFHIR(partOfOrgFhirId, partOfCareSite);
-					
-					partOfOrganization.setResource(partOfOrgResource);
-				}
-			}
+	protected void planIncludes(Organization organization, List<String> includes, IncludePlan includePlan) {
+		if (includes == null || includes.isEmpty()) {
+			return;
 		}
 
-		return myOrganization;
+		if (includes.contains("Organization:partof")) {
+			includePlan.add(organization.getPartOf());
+		}
 	}
 
 	public List<ParameterWrapper> mapParameter(String parameter, Object value, boolean or) {
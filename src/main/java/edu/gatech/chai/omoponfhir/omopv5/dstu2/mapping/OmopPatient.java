@@ -18,16 +18,19 @@ package edu.gatech.chai.omoponfhir.omopv5.dstu2.mapping;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import ca.uhn.fhir.model.dstu2.composite.AddressDt;
 import ca.uhn.fhir.model.dstu2.composite.CodeableConceptDt;
 import ca.uhn.fhir.model.dstu2.composite.CodingDt;
 import ca.uhn.fhir.model.dstu2.composite.ContactPointDt;
 import ca.uhn.fhir.model.dstu2.valueset.*;
-import ca.uhn.fhir.model.dstu2.resource.Encounter;
 import ca.uhn.fhir.model.dstu2.composite.HumanNameDt;
 import ca.uhn.fhir.model.primitive.DateDt;
 import ca.uhn.fhir.model.primitive.IdDt;
@@ -35,12 +38,10 @@ import ca.uhn.fhir.model.dstu2.composite.IdentifierDt;
 import ca.uhn.fhir.model.dstu2.resource.Organization;
 import ca.uhn.fhir.model.dstu2.resource.Patient;
 import ca.uhn.fhir.model.dstu2.resource.Patient.Link;
-import ca.uhn.fhir.model.dstu2.resource.Practitioner;
 import ca.uhn.fhir.model.dstu2.composite.ResourceReferenceDt;
 import ca.uhn.fhir.model.primitive.StringDt;
 
 import org.hl7.fhir.instance.model.api.IBaseResource;
-import org.hl7.fhir.instance.model.api.IIdType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.context.ContextLoaderListener;
@@ -55,11 +56,12 @@ import ca.uhn.fhir.rest.param.TokenParam;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.model.USCorePatient;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.model.USCorePatient.Ethnicity;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.model.USCorePatient.Race;
-import edu.gatech.chai.omoponfhir.omopv5.dstu2.provider.EncounterResourceProvider;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.provider.OrganizationResourceProvider;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.provider.PatientResourceProvider;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.provider.PractitionerResourceProvider;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.ConfigUtil;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.AddressUtil;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.CodeableConceptUtil;
 import edu.gatech.chai.omopv5.dba.service.ConceptService;
 import edu.gatech.chai.omopv5.dba.service.FPersonService;
 import edu.gatech.chai.omopv5.dba.service.LocationService;
@@ -70,7 +72,6 @@ import edu.gatech.chai.omopv5.model.entity.Concept;
 import edu.gatech.chai.omopv5.model.entity.FPerson;
 import edu.gatech.chai.omopv5.model.entity.Location;
 import edu.gatech.chai.omopv5.model.entity.Provider;
-import edu.gatech.chai.omopv5.model.entity.VisitOccurrence;
 
 public class OmopPatient extends BaseOmopResource<USCorePatient, FPerson, FPersonService>
 		implements IResourceMapping<USCorePatient, FPerson> {
@@ -83,6 +84,7 @@ public class OmopPatient extends BaseOmopResource<USCorePatient, FPerson, FPerso
 	private LocationService locationService;
 	private ProviderService providerService;
 	private VisitOccurrenceService visitOccurrenceService;
+	private int revIncludeLimit = 1000;
 
 	// * condition_occurrence : Condition
 	// * death : death on FHIR (need to revisit) TODO
@@ -109,77 +111,45 @@ public class OmopPatient extends BaseOmopResource<USCorePatient, FPerson, FPerso
 		providerService = context.getBean(ProviderService.class);
 		visitOccurrenceService = context.getBean(VisitOccurrenceService.class);
 		conceptService = context.getBean(ConceptService.class);
+
+		if (context.getServletContext() != null) {
+			revIncludeLimit = ConfigUtil.getPositiveInt("revIncludeLimit",
+					context.getServletContext().getInitParameter("revIncludeLimit"), revIncludeLimit);
+		}
 		
-		getSize();
+		registerResourceCount();
 	}
 
+
 	public static OmopPatient getInstance() {
 		return omopPatient;
 	}
 
 	@Override
-	public USCorePatient constructResource(Long fhirId, FPerson entity, List<String> includes) {
-		USCorePatient patient = constructFHIR(fhirId, entity);
-		Long omopId = entity.getId();
-
-		if (!includes.isEmpty()) {
-			if (includes.contains("Patient:general-practitioner")) {
-//				if (patient.hasGeneralPractitioner()) {
-				if (!patient.getCareProvider().isEmpty()) {
-					List<ResourceReferenceDt> generalPractitioners = patient.getCareProvider();
-					for (ResourceReferenceDt generalPractitioner : generalPractitioners) {
-//						if (generalPractitioner.fhirType().equals(PractitionerResourceProvider.getType())) {
-						if (generalPractitioner.getReferenceElement().getResourceType().equals(PractitionerResourceProvider.getType())) {
-							// We map generalPractitioner to Provider, which is
-							// Practitioner.
-							IIdType generalPractitionerId = generalPractitioner.getReferenceElement();
-							Long generalPractFhirId = generalPractitionerId.getIdPartAsLong();
-							Practitioner practitioner = OmopPractitioner.getInstance().constructFHIR(generalPractFhirId,
-									entity.getProvider());
-							generalPractitioner.setResource(practitioner);
-						}
-					}
-				}
-			}
+	protected void planIncludes(USCorePatient patient, List<String> includes, IncludePlan includePlan) {
+		if (includes == null || includes.isEmpty()) {
+			return;
+		}
 
-			if (includes.contains("Patient:organization")) {
-				if (!patient.getManagingOrganization().isEmpty()) {
-					ResourceReferenceDt managingOrganization = patient.getManagingOrganization();
-					IIdType managingOrganizationId = managingOrganization.getReferenceElement();
-					Long manageOrgFhirId = managingOrganizationId.getIdPartAsLong();
-					Organization organization = OmopOrganization.getInstance().constructFHIR(manageOrgFhirId,
-							entity.getCareSite());
-					patient.getManagingOrganization().setResource(organization);
-				}
+		if (includes.contains("Patient:general-practitioner")) {
+			// We map generalPractitioner to Provider, which is Practitioner.
+			for (ResourceReferenceDt generalPractitioner : patient.getCareProvider()) {
+				includePlan.add(generalPractitioner);
 			}
+		}
 
-			// TODO: OMOP table cannot handle link patient....
-			// We just put the code assuming somehow linked was made via person
-			// table.
-			if (includes.contains("Patient:link")) {
-				if (!patient.getLink().isEmpty()) {
-					List<Link> patientLinks = patient.getLink();
-					for (Link patientLink : patientLinks) {
-//						if (patientLink.hasOther()) {
-						if (patientLink.getOther() != null && !patientLink.getOther().isEmpty()) {
-							ResourceReferenceDt patientLinkOther = patientLink.getOther();
-							IIdType patientLinkOtherId = patientLinkOther.getReferenceElement();
-							Patient linkedPatient;
-//							if (patientLinkOther.fhirType().equals(PatientResourceProvider.getType())) {
-							if (patientLinkOther.getReferenceElement().getResourceType().equals(PatientResourceProvider.getType())) {
-								FPerson linkedPerson = getMyOmopService().findById(omopId);
-								linkedPatient = constructFHIR(patientLinkOtherId.getIdPartAsLong(), linkedPerson);
-							} else {
-								FPerson linkedPerson = getMyOmopService().findById(omopId);
-								linkedPatient = constructFHIR(patientLinkOtherId.getIdPartAsLong(), linkedPerson);
-							}
-							patientLink.getOther().setResource(linkedPatient);
-						}
-					}
-				}
+		if (includes.contains("Patient:organization")) {
+			includePlan.add(patient.getManagingOrganization());
+		}
+
+		// TODO: OMOP table cannot handle link patient....
+		// We just put the code assuming somehow linked was made via person
+		// table.
+		if (includes.contains("Patient:link")) {
+			for (Link patientLink : patient.getLink()) {
+				includePlan.add(patientLink.getOther());
 			}
 		}
-		return patient;
 	}
 
 	@Override
@@ -260,7 +230,8 @@ public class OmopPatient extends BaseOmopResource<USCorePatient, FPerson, FPerso
 		if (fPerson.getGenderConcept() != null) {
 			String gName = fPerson.getGenderConcept().getConceptName();
 			if (gName == null || gName.isEmpty()) {
-				Concept genderConcept = conceptService.findById(fPerson.getGenderConcept().getId());
+				Concept genderConcept = CodeableConceptUtil.getOmopConceptById(conceptService,
+						fPerson.getGenderConcept().getId());
 				if (genderConcept != null)
 					gName = genderConcept.getConceptName();
 				else
@@ -506,49 +477,71 @@ public class OmopPatient extends BaseOmopResource<USCorePatient, FPerson, FPerso
 		return fhirRecordId;
 	}
 
-	@Override
-	public void addRevIncludes(Long omopId, List<String> includes, List<IBaseResource> listResources) {
-		List<ParameterWrapper> mapList = new ArrayList<ParameterWrapper>();
-
-		if (includes.contains("Encounter:subject")) {
-			final ParameterWrapper revIncludeparam = new ParameterWrapper("Long", Arrays.asList("fPerson.id"),
-					Arrays.asList("="), Arrays.asList(String.valueOf(omopId)), "or");
-
-			mapList.add(revIncludeparam);
-
-			List<VisitOccurrence> VisitOccurrences = visitOccurrenceService.searchWithParams(0, 0, mapList, null);
-			for (VisitOccurrence visitOccurrence : VisitOccurrences) {
-				Long fhirId = IdMapping.getFHIRfromOMOP(visitOccurrence.getId(), EncounterResourceProvider.getType());
-				Encounter enc = OmopEncounter.getInstance().constructFHIR(fhirId, visitOccurrence);
-				if (enc != null)
-					listResources.add(enc);
-			}
-		}
-		if (includes.contains("Observation:subject")) {
-
-		}
-		if (includes.contains("Device:patient")) {
-
-		}
-		if (includes.contains("Condition:subject")) {
+	/**
+	 * Reverse includes of the Patient, with the DSTU2 search parameter names, and
+	 * the mappers of the resources they include.
+	 */
+	private Map<String, IResourceMapping<?, ?>> getRevIncludeMappers() {
+		Map<String, IResourceMapping<?, ?>> revIncludeMappers = new LinkedHashMap<String, IResourceMapping<?, ?>>();
+		revIncludeMappers.put("Encounter:patient", OmopEncounter.getInstance());
+		revIncludeMappers.put("Observation:subject", OmopObservation.getInstance());
+		revIncludeMappers.put("Device:patient", OmopDevice.getInstance());
+		revIncludeMappers.put("Condition:patient", OmopCondition.getInstance());
+		revIncludeMappers.put("Procedure:subject", OmopProcedure.getInstance());
+		revIncludeMappers.put("MedicationOrder:patient", OmopMedicationOrder.getInstance());
+		revIncludeMappers.put("MedicationAdministration:patient", OmopMedicationAdministration.getInstance());
+		revIncludeMappers.put("MedicationStatement:patient", OmopMedicationStatement.getInstance());
+
+		return revIncludeMappers;
+	}
 
-		}
-		if (includes.contains("Procedure:subject")) {
+	/**
+	 * The reverse includes that {@link #addRevIncludes(List, List, List)} can
+	 * answer.
+	 */
+	public Set<String> getRevIncludes() {
+		return getRevIncludeMappers().keySet();
+	}
 
+	/**
+	 * Reverse includes for all the patients in a page. Each included type is
+	 * searched once with fPerson.id in the page. The number of included resources
+	 * per page is capped by revIncludeLimit.
+	 */
+	@Override
+	public void addRevIncludes(List<Long> omopIds, List<String> includes, List<IBaseResource> listResources) {
+		if (omopIds.isEmpty() || includes.isEmpty()) {
+			return;
 		}
-		if (includes.contains("MedicationRequest:subject")) {
 
+		List<String> personIds = new ArrayList<String>();
+		for (Long omopId : omopIds) {
+			personIds.add(String.valueOf(omopId));
 		}
-		if (includes.contains("MedicationAdministration:subject")) {
+		ParameterWrapper revIncludeParam = new ParameterWrapper("Long",
+				Collections.nCopies(personIds.size(), "fPerson.id"), Collections.nCopies(personIds.size(), "="),
+				personIds, "or");
+
+		int remaining = revIncludeLimit;
+		for (Map.Entry<String, IResourceMapping<?, ?>> revInclude : getRevIncludeMappers().entrySet()) {
+			if (!includes.contains(revInclude.getKey())) {
+				continue;
+			}
 
-		}
-		if (includes.contains("MedicationDispense:subject")) {
+			if (remaining <= 0) {
+				logger.warn("Reached the limit of " + revIncludeLimit + " reverse included resources for a page. "
+						+ revInclude.getKey() + " and the rest are not included.");
+				break;
+			}
 
-		}
-		if (includes.contains("MedicationStatement:subject")) {
+			List<ParameterWrapper> mapList = new ArrayList<ParameterWrapper>();
+			mapList.add(revIncludeParam);
 
+			List<IBaseResource> revIncludes = new ArrayList<IBaseResource>();
+			revInclude.getValue().searchWithParams(0, remaining, mapList, revIncludes, new ArrayList<String>(), null);
+			listResources.addAll(revIncludes);
+			remaining -= revIncludes.size();
 		}
-
 	}
 
 	/**
@@ -1155,7 +1148,40 @@ public class OmopPatient extends BaseOmopResource<USCorePatient, FPerson, FPerso
 		return dateParamWrapper;
 	}
 
-	public void getEverthingfor(List<IBaseResource> resources, Long patientId, Date startDate, Date endDate) {
+	/**
+	 * An OMOP domain that references the patient, with the search parameters
+	 * used by $everything. Each call gets its own copy of the parameter list
+	 * as some mappers add their own parameters to it.
+	 */
+	public static class EverythingDomain {
+		// $everything is paged by offset. So, we need a stable order.
+		private static final String SORT = "id ASC";
+
+		private final String name;
+		private final IResourceMapping<?, ?> mapper;
+		private final List<ParameterWrapper> paramList;
+
+		public EverythingDomain(String name, IResourceMapping<?, ?> mapper, List<ParameterWrapper> paramList) {
+			this.name = name;
+			this.mapper = mapper;
+			this.paramList = paramList;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public Long getSize() {
+			return mapper.getSize(new ArrayList<ParameterWrapper>(paramList));
+		}
+
+		public void search(int fromIndex, int toIndex, List<IBaseResource> resources) {
+			mapper.searchWithParams(fromIndex, toIndex, new ArrayList<ParameterWrapper>(paramList), resources,
+					new ArrayList<String>(), SORT);
+		}
+	}
+
+	public List<EverythingDomain> getEverythingDomains(Long patientId, Date startDate, Date endDate) {
 		// OMOP Tables that references the patient are as follows.
 		// * condition_occurrence : Condition
 		// * death : death on FHIR (need to revisit) TODO
@@ -1175,85 +1201,57 @@ public class OmopPatient extends BaseOmopResource<USCorePatient, FPerson, FPerso
 		paramWrapper.setRelationship("or");
 		paramWrapper.setUpperRelationship("and");
 
-		// Condition Occurrence.
-		List<ParameterWrapper> conditionMapList = new ArrayList<ParameterWrapper>();
-		conditionMapList.add(paramWrapper);
-		ParameterWrapper dateParamWrapper = constructDateParameterWrapper(Arrays.asList("startDate", "endDate"),
-				startDate, endDate);
-		if (dateParamWrapper != null) {
-			conditionMapList.add(dateParamWrapper);
-		}
+		List<EverythingDomain> domains = new ArrayList<EverythingDomain>();
 
-		OmopCondition omopConditionMapper = OmopCondition.getInstance();
-		omopConditionMapper.searchWithParams(0, 0, conditionMapList, resources, new ArrayList<String>(), null);
+		// Condition Occurrence.
+		domains.add(new EverythingDomain("Condition", OmopCondition.getInstance(), constructEverythingParams(
+				paramWrapper, Arrays.asList("startDate", "endDate"), startDate, endDate)));
 
 		// device_exposure : DeviceUseStatement
-		List<ParameterWrapper> deviceMapList = new ArrayList<ParameterWrapper>();
-		deviceMapList.add(paramWrapper);
-		dateParamWrapper = constructDateParameterWrapper(
-				Arrays.asList("deviceExposureStartDate", "deviceExposureEndDate"), startDate, endDate);
-		if (dateParamWrapper != null) {
-			deviceMapList.add(dateParamWrapper);
-		}
-
-		OmopDeviceUseStatement omopDeviceUseStatementMapper = OmopDeviceUseStatement.getInstance();
-		omopDeviceUseStatementMapper.searchWithParams(0, 0, deviceMapList, resources, new ArrayList<String>(), null);
+		domains.add(new EverythingDomain("DeviceUseStatement", OmopDeviceUseStatement.getInstance(),
+				constructEverythingParams(paramWrapper,
+						Arrays.asList("deviceExposureStartDate", "deviceExposureEndDate"), startDate, endDate)));
 
 		// drug_exposure : Medication[x]
-		List<ParameterWrapper> medicationStatementMapList = new ArrayList<ParameterWrapper>();
-		medicationStatementMapList.add(paramWrapper);
-		dateParamWrapper = constructDateParameterWrapper(Arrays.asList("drugExposureStartDate", "drugExposureEndDate"),
-				startDate, endDate);
-		if (dateParamWrapper != null) {
-			medicationStatementMapList.add(dateParamWrapper);
-		}
-
-		OmopMedicationStatement omopMedicationStatementMapper = OmopMedicationStatement.getInstance();
-		omopMedicationStatementMapper.searchWithParams(0, 0, medicationStatementMapList, resources,
-				new ArrayList<String>(), null);
+		domains.add(new EverythingDomain("MedicationStatement", OmopMedicationStatement.getInstance(),
+				constructEverythingParams(paramWrapper,
+						Arrays.asList("drugExposureStartDate", "drugExposureEndDate"), startDate, endDate)));
 
 		// measurement & observation : Observation
-		List<ParameterWrapper> fobservationMapList = new ArrayList<ParameterWrapper>();
-		fobservationMapList.add(paramWrapper);
-		dateParamWrapper = constructDateParameterWrapper(Arrays.asList("date"), startDate, endDate);
-		if (dateParamWrapper != null) {
-			fobservationMapList.add(dateParamWrapper);
-		}
-
-		OmopObservation omopObservationMapper = OmopObservation.getInstance();
-		omopObservationMapper.searchWithParams(0, 0, fobservationMapList, resources, new ArrayList<String>(), null);
+		domains.add(new EverythingDomain("Observation", OmopObservation.getInstance(),
+				constructEverythingParams(paramWrapper, Arrays.asList("date"), startDate, endDate)));
 
 		// note : DocumentReference
-		List<ParameterWrapper> noteMapList = new ArrayList<ParameterWrapper>();
-		noteMapList.add(paramWrapper);
-		if (dateParamWrapper != null) {
-			noteMapList.add(dateParamWrapper);
-		}
-
-		OmopDocumentReference omopDocumentReferenceMapper = OmopDocumentReference.getInstance();
-		omopDocumentReferenceMapper.searchWithParams(0, 0, noteMapList, resources, new ArrayList<String>(), null);
+		domains.add(new EverythingDomain("DocumentReference", OmopDocumentReference.getInstance(),
+				constructEverythingParams(paramWrapper, Arrays.asList("date"), startDate, endDate)));
 
 		// procedure_occurrence : Procecure
-		List<ParameterWrapper> procedureMapList = new ArrayList<ParameterWrapper>();
-		procedureMapList.add(paramWrapper);
-		dateParamWrapper = constructDateParameterWrapper(Arrays.asList("procedureDate"), startDate, endDate);
-		if (dateParamWrapper != null) {
-			procedureMapList.add(dateParamWrapper);
-		}
-
-		OmopProcedure omopProcedureMapper = OmopProcedure.getInstance();
-		omopProcedureMapper.searchWithParams(0, 0, procedureMapList, resources, new ArrayList<String>(), null);
+		domains.add(new EverythingDomain("Procedure", OmopProcedure.getInstance(),
+				constructEverythingParams(paramWrapper, Arrays.asList("procedureDate"), startDate, endDate)));
 
 		// * visit_occurrence: : Encounter
-		List<ParameterWrapper> visitMapList = new ArrayList<ParameterWrapper>();
-		visitMapList.add(paramWrapper);
-		dateParamWrapper = constructDateParameterWrapper(Arrays.asList("startDate", "endDate"), startDate, endDate);
+		domains.add(new EverythingDomain("Encounter", OmopEncounter.getInstance(), constructEverythingParams(
+				paramWrapper, Arrays.asList("startDate", "endDate"), startDate, endDate)));
+
+		return domains;
+	}
+
+	private List<ParameterWrapper> constructEverythingParams(ParameterWrapper patientParamWrapper,
+			List<String> dateKeys, Date startDate, Date endDate) {
+		List<ParameterWrapper> mapList = new ArrayList<ParameterWrapper>();
+		mapList.add(patientParamWrapper);
+		ParameterWrapper dateParamWrapper = constructDateParameterWrapper(dateKeys, startDate, endDate);
 		if (dateParamWrapper != null) {
-			visitMapList.add(dateParamWrapper);
+			mapList.add(dateParamWrapper);
 		}
 
-		OmopEncounter omopEncounterMapper = OmopEncounter.getInstance();
-		omopEncounterMapper.searchWithParams(0, 0, visitMapList, resources, new ArrayList<String>(), null);
+		return mapList;
+	}
+
+	public void getEverthingfor(List<IBaseResource> resources, Long patientId, Date startDate, Date endDate) {
+		for (EverythingDomain domain : getEverythingDomains(patientId, startDate, endDate)) {
+			domain.search(0, 0, resources);
+		}
 	}
 
 	// // Move below to Address
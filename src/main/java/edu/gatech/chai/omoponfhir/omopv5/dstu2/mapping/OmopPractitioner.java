@@ -69,7 +69,7 @@ public class OmopPractitioner extends BaseOmopResource<Practitioner, Provider, P
 		careSiteService = context.getBean(CareSiteService.class);
 		locationService = context.getBean(LocationService.class);
 		
-		getSize();
+		registerResourceCount();
 	}
 
 	public static OmopPractitioner getInstance() {
@@ -24,10 +24,7 @@ import ca.uhn.fhir.model.dstu2.composite.CodeableConceptDt;
 import ca.uhn.fhir.model.dstu2.composite.CodingDt;
 import ca.uhn.fhir.model.dstu2.composite.PeriodDt;
 import ca.uhn.fhir.model.primitive.DateTimeDt;
-import ca.uhn.fhir.model.dstu2.resource.Encounter;
 import ca.uhn.fhir.model.primitive.IdDt;
-import ca.uhn.fhir.model.dstu2.resource.Patient;
-import ca.uhn.fhir.model.dstu2.resource.Practitioner;
 import ca.uhn.fhir.model.dstu2.resource.Procedure;
 import ca.uhn.fhir.model.dstu2.resource.Procedure.Performer;
 import ca.uhn.fhir.model.dstu2.composite.ResourceReferenceDt;
@@ -87,7 +84,7 @@ public class OmopProcedure extends BaseOmopResource<Procedure, ProcedureOccurren
 		visitOccurrenceService = context.getBean(VisitOccurrenceService.class);
 		providerService = context.getBean(ProviderService.class);
 		
-		getSize();
+		registerResourceCount();
 	}
 	
 	public static OmopProcedure getInstance() {
@@ -115,52 +112,26 @@ public class OmopProcedure extends BaseOmopResource<Procedure, ProcedureOccurren
 	}
 
 	@Override
-	public Procedure constructResource(Long fhirId, ProcedureOccurrence entity, List<String> includes) {
-		Procedure procedure = constructFHIR(fhirId,entity); 
-		Long omopId = entity.getId();
-		
-		if (!includes.isEmpty()) {
-			if (includes.contains("Procedure:patient")) {
-//				if (procedure.hasSubject()) {
-				if (!procedure.getSubject().isEmpty()) {
-					Long patientFhirId = procedure.getSubject().getReferenceElement().getIdPartAsLong();
-					Patient patient = OmopPatient.getInstance().constructFHIR(patientFhirId, entity.getFPerson());
-					procedure.getSubject().setResource(patient);
-				}
-			}
-			
-			if (includes.contains("Procedure:performer")) {
-				Boolean tempBool= false;
-				List<Performer> tempList = procedure.getPerformer();
-				for (Performer item : tempList) {
-					if (!item.isEmpty())
-						tempBool = true;
-				}
-//				if (procedure.hasPerformer()) {
-				if (tempBool) {
-					List<Performer> performers = procedure.getPerformer();
-					for (Performer performer: performers) {
-						if (!performer.isEmpty()) {
-							Long practitionerFhirId = performer.getActor().getReferenceElement().getIdPartAsLong();
-							Practitioner practitioner = OmopPractitioner.getInstance().constructFHIR(practitionerFhirId, entity.getProvider());
-							performer.getActor().setResource(practitioner);
-						}
-					}
-				}
-			}
+	protected void planIncludes(Procedure procedure, List<String> includes, IncludePlan includePlan) {
+		if (includes == null || includes.isEmpty()) {
+			return;
+		}
+
+		if (includes.contains("Procedure:patient")) {
+			includePlan.add(procedure.getSubject());
+		}
 
-			if (includes.contains("Procedure:context")) {
-//				if (procedure.hasContext()) {
-				if (procedure.getEncounter().isEmpty()) {
-					Long encounterFhirId = procedure.getEncounter().getReferenceElement().getIdPartAsLong();
-					Encounter encounter = OmopEncounter.getInstance().constructFHIR(encounterFhirId, entity.getVisitOccurrence());
-					procedure.getEncounter().setResource(encounter);
+		if (includes.contains("Procedure:performer")) {
+			for (Performer performer : procedure.getPerformer()) {
+				if (!performer.isEmpty()) {
+					includePlan.add(performer.getActor());
 				}
 			}
+		}
 
+		if (includes.contains("Procedure:context")) {
+			includePlan.add(procedure.getEncounter());
 		}
-		
-		return procedure;
 	}
 
 	@Override
@@ -21,13 +21,20 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+import ca.uhn.fhir.model.dstu2.resource.Bundle;
+import ca.uhn.fhir.model.dstu2.resource.MessageHeader;
+import ca.uhn.fhir.model.dstu2.resource.MessageHeader.Response;
+import ca.uhn.fhir.model.dstu2.resource.OperationOutcome;
 import ca.uhn.fhir.model.dstu2.resource.Patient;
 import ca.uhn.fhir.model.primitive.IdDt;
 import ca.uhn.fhir.model.dstu2.resource.Observation;
+import ca.uhn.fhir.model.dstu2.composite.CodeableConceptDt;
 import ca.uhn.fhir.model.dstu2.composite.ResourceReferenceDt;
 import ca.uhn.fhir.model.dstu2.resource.BaseResource;
 import ca.uhn.fhir.model.dstu2.resource.Bundle.Entry;
 import ca.uhn.fhir.model.dstu2.resource.Bundle.EntryResponse;
+import ca.uhn.fhir.model.dstu2.valueset.IssueSeverityEnum;
+import ca.uhn.fhir.model.dstu2.valueset.ResponseTypeEnum;
 import org.hl7.fhir.instance.model.api.IIdType;
 import org.springframework.web.context.ContextLoaderListener;
 import org.springframework.web.context.WebApplicationContext;
@@ -119,10 +126,62 @@ public class OmopServerOperations {
 		return entryBundle;
 	}
 
+	/**
+	 * Processes the resources of a message and returns the response message
+	 * Bundle. The first entry of the response is the MessageHeader with its
+	 * response set.
+	 */
+	public Bundle processMessage(MessageHeader messageHeader, List<BaseResource> resources) {
+		Bundle retVal = new Bundle();
+		Response messageHeaderResponse = new Response();
+		messageHeaderResponse.setId(messageHeader.getId());
+
+		List<Entry> resultEntries = null;
+		try {
+			resultEntries = createEntries(resources);
+			messageHeaderResponse.setCode(ResponseTypeEnum.OK);
+		} catch (FHIRException e) {
+			e.printStackTrace();
+			messageHeaderResponse.setCode(ResponseTypeEnum.OK);
+			OperationOutcome outcome = new OperationOutcome();
+			CodeableConceptDt detailCode = new CodeableConceptDt();
+			detailCode.setText(e.getMessage());
+			outcome.addIssue().setSeverity(IssueSeverityEnum.ERROR).setDetails(detailCode);
+//			messageHeaderResponse.setDetailsTarget(outcome);
+//	We don't have this in DSTU2
+		}
+
+		messageHeader.setResponse(messageHeaderResponse);
+		Entry responseMessageEntry = new Entry();
+		UUID uuid = UUID.randomUUID();
+		responseMessageEntry.setFullUrl("urn:uuid:" + uuid.toString());
+		responseMessageEntry.setResource(messageHeader);
+
+		if (resultEntries == null) resultEntries = new ArrayList<Entry>();
+
+		resultEntries.add(0, responseMessageEntry);
+		retVal.setEntry(resultEntries);
+
+		return retVal;
+	}
+
 	public List<Entry> createEntries(List<BaseResource> resources) throws FHIRException {
+		try {
+			return writeEntries(resources);
+		} finally {
+			omopTransaction.resourcesChanged(resources);
+		}
+	}
+
+	private List<Entry> writeEntries(List<BaseResource> resources) throws FHIRException {
 		List<Entry> responseEntries = new ArrayList<Entry>();
 		Map<String, Long> patientMap = new HashMap<String, Long>();
 
+		// Large messages (lab feeds) are written in bulk.
+		if (omopTransaction.useBulkWrite(resources)) {
+			return omopTransaction.createInBulk(resources, patientMap);
+		}
+
 		// do patient first.
 		for (BaseResource resource : resources) {
 			if (resource instanceof Patient) {
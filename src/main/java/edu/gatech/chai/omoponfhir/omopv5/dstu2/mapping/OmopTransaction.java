@@ -16,29 +16,48 @@
 package edu.gatech.chai.omoponfhir.omopv5.dstu2.mapping;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
+import ca.uhn.fhir.model.dstu2.resource.AllergyIntolerance;
 import ca.uhn.fhir.model.dstu2.resource.BaseResource;
+import ca.uhn.fhir.model.dstu2.resource.Condition;
+import ca.uhn.fhir.model.dstu2.resource.DeviceUseStatement;
+import ca.uhn.fhir.model.dstu2.resource.DocumentReference;
+import ca.uhn.fhir.model.dstu2.resource.Encounter;
+import ca.uhn.fhir.model.dstu2.resource.Immunization;
+import ca.uhn.fhir.model.dstu2.resource.MedicationAdministration;
+import ca.uhn.fhir.model.dstu2.resource.MedicationOrder;
+import ca.uhn.fhir.model.dstu2.resource.MedicationStatement;
 import ca.uhn.fhir.model.dstu2.resource.Patient;
-import ca.uhn.fhir.model.primitive.StringDt;
+import ca.uhn.fhir.model.dstu2.resource.Procedure;
 import ca.uhn.fhir.model.dstu2.resource.Bundle.Entry;
 import ca.uhn.fhir.model.dstu2.resource.Bundle.EntryResponse;
 import ca.uhn.fhir.model.dstu2.valueset.HTTPVerbEnum;
 import ca.uhn.fhir.model.primitive.IdDt;
 import ca.uhn.fhir.model.dstu2.resource.Observation;
 import ca.uhn.fhir.model.dstu2.composite.ResourceReferenceDt;
+import ca.uhn.fhir.util.FhirTerser;
 
 import org.hl7.fhir.instance.model.api.IIdType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.web.context.ContextLoaderListener;
 import org.springframework.web.context.WebApplicationContext;
 import org.hl7.fhir.exceptions.FHIRException;
 
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.model.USCorePatient;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.provider.ObservationResourceProvider;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.provider.PatientResourceProvider;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.ConfigUtil;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.ExtensionUtil;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.StaticValues;
 import edu.gatech.chai.omopv5.dba.service.FPersonService;
 import edu.gatech.chai.omopv5.dba.service.MeasurementService;
 import edu.gatech.chai.omopv5.dba.service.ObservationService;
@@ -49,6 +68,7 @@ import edu.gatech.chai.omopv5.model.entity.FPerson;
 import edu.gatech.chai.omopv5.model.entity.Measurement;
 
 public class OmopTransaction {
+	private static final Logger logger = LoggerFactory.getLogger(OmopTransaction.class);
 
 	private static OmopTransaction omopTransaction = new OmopTransaction();
 	private TransactionService myService;
@@ -56,6 +76,7 @@ public class OmopTransaction {
 	private ObservationService observationService;
 	private MeasurementService measurementService;
 	private WebApplicationContext myContext;
+	private int bulkWriteMinEntries = 0;
 
 	public OmopTransaction(WebApplicationContext context) {
 		this.myContext = context;
@@ -72,12 +93,37 @@ public class OmopTransaction {
 		fPersonService = context.getBean(FPersonService.class);
 		observationService = context.getBean(ObservationService.class);
 		measurementService = context.getBean(MeasurementService.class);
+
+		// POST entries of a bundle are written in bulk if there are at least this
+		// many of them. 0 turns off the bulk write.
+		if (context.getServletContext() != null) {
+			bulkWriteMinEntries = ConfigUtil.getNonNegativeInt("bulkWriteMinEntries",
+					context.getServletContext().getInitParameter("bulkWriteMinEntries"), bulkWriteMinEntries);
+		}
 	}
 
 	public static OmopTransaction getInstance() {
 		return omopTransaction;
 	}
 
+	/**
+	 * The bulk write is used for large lists that have only Patients and
+	 * Observations, as it does not handle the other resources.
+	 */
+	public boolean useBulkWrite(List<BaseResource> resources) {
+		if (bulkWriteMinEntries <= 0 || resources == null || resources.size() < bulkWriteMinEntries) {
+			return false;
+		}
+
+		for (BaseResource resource : resources) {
+			if (!(resource instanceof Patient) && !(resource instanceof Observation)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
 	private void addBaseEntity(Map<String, List<BaseEntity>> entityToCreate, String key, BaseEntity entity) {
 		if (key == null)
 			key = "";
@@ -132,6 +178,10 @@ public class OmopTransaction {
 	}
 
 	public void addResponseEntry(List<Entry> responseEntries, String status, String location) {
+		responseEntries.add(createResponseEntry(status, location));
+	}
+
+	private Entry createResponseEntry(String status, String location) {
 		Entry entryBundle = new Entry();
 		UUID uuid = UUID.randomUUID();
 		entryBundle.setFullUrl("urn:uuid:" + uuid.toString());
@@ -140,10 +190,21 @@ public class OmopTransaction {
 		if (location != null)
 			responseBundle.setLocation(location);
 		entryBundle.setResponse(responseBundle);
-		responseEntries.add(entryBundle);
+
+		return entryBundle;
 	}
 
+	@SuppressWarnings("unchecked")
 	public List<Entry> executeRequests(Map<HTTPVerbEnum, Object> entries) throws FHIRException {
+		try {
+			return writeRequests(entries);
+		} finally {
+			resourcesChanged((List<BaseResource>) entries.get(HTTPVerbEnum.POST));
+			resourcesChanged((List<BaseResource>) entries.get(HTTPVerbEnum.PUT));
+		}
+	}
+
+	private List<Entry> writeRequests(Map<HTTPVerbEnum, Object> entries) throws FHIRException {
 		List<Entry> responseEntries = new ArrayList<Entry>();
 
 		List<BaseResource> postList = (List<BaseResource>) entries.get(HTTPVerbEnum.POST);
@@ -152,6 +213,11 @@ public class OmopTransaction {
 
 		Map<String, Long> patientMap = new HashMap<String, Long>();
 
+		if (useBulkWrite(postList)) {
+			responseEntries.addAll(createInBulk(postList, patientMap));
+			postList = new ArrayList<BaseResource>();
+		}
+
 		// do patient first.
 		for (BaseResource resource : postList) {
 //			if (resource.getResourceType() == ResourceTypeEnum.PATIENT) {
@@ -229,100 +295,441 @@ public class OmopTransaction {
 	}
 
 	/**
-	 * 
-	 * @param entries
-	 * @return
-	 * @throws FHIRException
-	 * 
-	 *                       Transaction type of Transaction operation is atomic. If
-	 *                       one fails, all should be dropped. Thus, we can't
-	 *                       process one entry at a time. We should do this in one
-	 *                       JPA transaction so that if one failed, all can be
-	 *                       rolled back.
+	 * Creates POSTed Patients and Observations in bulk. All entries are mapped to
+	 * OMOP entities first. Then the persons are written in one transaction, and
+	 * the measurements and observations of all entries in another one. The
+	 * subject of each Observation is looked up once per bundle.
+	 *
+	 * Unlike toDbase, the Observations are not checked against the existing rows,
+	 * so this is meant for feeds of new data. Observations with a method or
+	 * comments still go through toDbase as they need fact relationships.
+	 *
+	 * patientMap gets the original id of each created Patient mapped to its new
+	 * FHIR id. Returns one response entry for each Patient and Observation, in
+	 * the order of the list.
 	 */
-	public List<Entry> executeTransaction(Map<HTTPVerbEnum, Object> entries) throws FHIRException {
+	public List<Entry> createInBulk(List<BaseResource> resources, Map<String, Long> patientMap)
+			throws FHIRException {
+		try {
+			return writeInBulk(resources, patientMap);
+		} finally {
+			resourcesChanged(resources);
+		}
+	}
+
+	private List<Entry> writeInBulk(List<BaseResource> resources, Map<String, Long> patientMap)
+			throws FHIRException {
+		// Response entries by the index of their resource.
+		Entry[] responseOfEntries = new Entry[resources.size()];
+
+		// Map all the patients and write them at once.
+		Map<String, List<BaseEntity>> personsToCreate = new LinkedHashMap<String, List<BaseEntity>>();
+		List<String> originalIds = new ArrayList<String>();
+		List<FPerson> fPersons = new ArrayList<FPerson>();
+		List<Integer> personIndexes = new ArrayList<Integer>();
+		for (int index = 0; index < resources.size(); index++) {
+			BaseResource resource = resources.get(index);
+			if (resource instanceof Patient) {
+				String originalId = resource.getId().getValue();
+				FPerson fPerson = OmopPatient.getInstance().constructOmop(null,
+						ExtensionUtil.usCorePatientFromResource(resource));
+				addBaseEntity(personsToCreate, originalId + "^FPerson", fPerson);
+				originalIds.add(originalId);
+				fPersons.add(fPerson);
+				personIndexes.add(index);
+			}
+		}
+
+		if (!personsToCreate.isEmpty()) {
+			if (myService.writeTransaction(personsToCreate) < 0) {
+				throw new FHIRException("Failed to write " + fPersons.size() + " patients");
+			}
+
+			for (int i = 0; i < fPersons.size(); i++) {
+				Long fhirId = IdMapping.getFHIRfromOMOP(fPersons.get(i).getIdAsLong(),
+						PatientResourceProvider.getType());
+				patientMap.put(originalIds.get(i), fhirId);
+				responseOfEntries[personIndexes.get(i)] = createResponseEntry("201 Created", "Patient/" + fhirId);
+			}
+		}
+
+		// Map all the observations. The entities of each Observation are kept in
+		// the entry order to respond with their ids after the write.
+		Map<String, List<BaseEntity>> factsToCreate = new LinkedHashMap<String, List<BaseEntity>>();
+		Map<String, IdDt> subjectMap = new HashMap<String, IdDt>();
+		List<Object> factsOfEntries = new ArrayList<Object>();
+		List<Integer> factIndexes = new ArrayList<Integer>();
+		for (int index = 0; index < resources.size(); index++) {
+			BaseResource resource = resources.get(index);
+			if (!(resource instanceof Observation)) {
+				continue;
+			}
+			factIndexes.add(index);
+
+			Observation observation = (Observation) resource;
+			ResourceReferenceDt subject = observation.getSubject();
+			String subjectKey = subject == null || subject.isEmpty() ? null : subject.getReference().getValue();
+			IdDt refIdType;
+			if (subjectKey != null && patientMap.containsKey(subjectKey)) {
+				refIdType = new IdDt("Patient", patientMap.get(subjectKey));
+			} else if (subjectKey != null && subjectMap.containsKey(subjectKey)) {
+				refIdType = subjectMap.get(subjectKey);
+			} else {
+				refIdType = linkToPatient(subject, patientMap);
+				if (subjectKey != null) {
+					subjectMap.put(subjectKey, refIdType);
+				}
+			}
+			if (refIdType == null) {
+				factsOfEntries.add(null);
+				continue;
+			}
+			observation.setSubject(new ResourceReferenceDt(refIdType));
+
+			if (!observation.getMethod().isEmpty()
+					|| (observation.getComments() != null && !observation.getComments().isEmpty())) {
+				factsOfEntries.add(observation);
+				continue;
+			}
+
+			Map<String, Object> obsEntityMap = OmopObservation.getInstance().constructOmopMeasurementObservation(null,
+					observation);
+			if (obsEntityMap == null || obsEntityMap.isEmpty()) {
+				factsOfEntries.add(null);
+			} else if (((String) obsEntityMap.get("type")).equalsIgnoreCase("Measurement")) {
+				@SuppressWarnings("unchecked")
+				List<Measurement> measurements = (List<Measurement>) obsEntityMap.get("entity");
+				for (Measurement measurement : measurements) {
+					addBaseEntity(factsToCreate, refIdType.getValue() + "^Measurement", measurement);
+				}
+				factsOfEntries.add(measurements);
+			} else {
+				edu.gatech.chai.omopv5.model.entity.Observation omopObservation = (edu.gatech.chai.omopv5.model.entity.Observation) obsEntityMap
+						.get("entity");
+				addBaseEntity(factsToCreate, refIdType.getValue() + "^Observation", omopObservation);
+				factsOfEntries.add(omopObservation);
+			}
+		}
+
+		if (!factsToCreate.isEmpty() && myService.writeTransaction(factsToCreate) < 0) {
+			throw new FHIRException("Failed to write the observations");
+		}
+		logger.debug("Bulk wrote " + fPersons.size() + " patients and " + factsOfEntries.size() + " observations");
+
+		for (int i = 0; i < factsOfEntries.size(); i++) {
+			Object facts = factsOfEntries.get(i);
+			Long fhirId = null;
+			if (facts instanceof Observation) {
+				fhirId = OmopObservation.getInstance().toDbase((Observation) facts, null);
+			} else if (facts instanceof List) {
+				fhirId = getObservationFhirId((List<?>) facts);
+			} else if (facts != null) {
+				fhirId = getObservationFhirId(Collections.singletonList(facts));
+			}
+
+			if (fhirId == null) {
+				responseOfEntries[factIndexes.get(i)] = createResponseEntry("400 Bad Request", null);
+			} else {
+				responseOfEntries[factIndexes.get(i)] = createResponseEntry("201 Created", "Observation/" + fhirId);
+			}
+		}
+
 		List<Entry> responseEntries = new ArrayList<Entry>();
-		Map<String, List<BaseEntity>> entityToCreate = new HashMap<String, List<BaseEntity>>();
+		for (Entry responseEntry : responseOfEntries) {
+			if (responseEntry != null) {
+				responseEntries.add(responseEntry);
+			}
+		}
 
-		/*
-		 * POST Transaction.
-		 */
+		return responseEntries;
+	}
+
+	/**
+	 * Transaction type of Transaction operation is atomic. If one entry fails,
+	 * all should be dropped.
+	 *
+	 * All POSTed entries are mapped with the constructOmop of their mapper and
+	 * written through TransactionService. The OMOP mappers need the database ids
+	 * of the persons and visits that the resources refer to. So, the entries are
+	 * written in three levels: Patients, then Encounters, then the rest.
+	 * References to the entries of earlier levels (urn:uuid or the entry id) are
+	 * rewritten to the created ids before the next level is mapped. If a level
+	 * fails, the persons and visits written by the earlier levels are removed.
+	 *
+	 * Returns a response entry for each POSTed entry, in the bundle order.
+	 */
+	public List<Entry> executeTransaction(Map<HTTPVerbEnum, Object> entries) throws FHIRException {
 		@SuppressWarnings("unchecked")
 		List<BaseResource> postList = (List<BaseResource>) entries.get(HTTPVerbEnum.POST);
-		String keyString;
-		for (BaseResource resource : postList) {
+		if (postList == null || postList.isEmpty()) {
+			return new ArrayList<Entry>();
+		}
+
+		List<Integer> patientEntries = new ArrayList<Integer>();
+		List<Integer> encounterEntries = new ArrayList<Integer>();
+		List<Integer> otherEntries = new ArrayList<Integer>();
+		for (int i = 0; i < postList.size(); i++) {
+			BaseResource resource = postList.get(i);
 			if (resource instanceof Patient) {
-				FPerson fPerson = OmopPatient.getInstance().constructOmop(null,
-						ExtensionUtil.usCorePatientFromResource(resource));
-				keyString = resource.getId() + "^FPerson";
-				addBaseEntity(entityToCreate, keyString, fPerson);
-				System.out.println("key:" + keyString + ", fPerson");
+				patientEntries.add(i);
+			} else if (resource instanceof Encounter) {
+				encounterEntries.add(i);
+			} else if (isTransactionSupported(resource)) {
+				otherEntries.add(i);
+			} else {
+				throw new FHIRException(resource.getResourceName() + " is not supported in a transaction");
 			}
+		}
 
-			else if (resource instanceof Observation) {
-				Observation observation = (Observation) resource;
-				Map<String, Object> obsEntityMap = OmopObservation.getInstance()
-						.constructOmopMeasurementObservation(null, observation);
-				if (obsEntityMap != null && !obsEntityMap.isEmpty()) {
-					if (((String) obsEntityMap.get("type")).equalsIgnoreCase("Measurement")) {
-						keyString = observation.getSubject().getReference() + "^Measurement";
-						List<Measurement> measurements = (List<Measurement>) obsEntityMap.get("entity");
-						for (Measurement measurement : measurements) {
-							addBaseEntity(entityToCreate, keyString, measurement);
-						}
-					} else {
-						keyString = observation.getSubject().getReference() + "^Observation";
-						edu.gatech.chai.omopv5.model.entity.Observation omopObservation = (edu.gatech.chai.omopv5.model.entity.Observation) obsEntityMap
-								.get("entity");
-						addBaseEntity(entityToCreate, keyString, omopObservation);
-					}
-				} else {
-					return null;
+		Map<String, IdDt> createdIds = new HashMap<String, IdDt>();
+		List<List<BaseEntity>> entitiesOfEntries = new ArrayList<List<BaseEntity>>(
+				Collections.<List<BaseEntity>>nCopies(postList.size(), null));
+		try {
+			writeTransactionLevel(postList, patientEntries, entitiesOfEntries, createdIds);
+			writeTransactionLevel(postList, encounterEntries, entitiesOfEntries, createdIds);
+			writeTransactionLevel(postList, otherEntries, entitiesOfEntries, createdIds);
+		} catch (FHIRException e) {
+			removeWrittenLevels(patientEntries, encounterEntries, entitiesOfEntries);
+			throw e;
+		} catch (RuntimeException e) {
+			removeWrittenLevels(patientEntries, encounterEntries, entitiesOfEntries);
+			throw e;
+		} finally {
+			resourcesChanged(postList);
+		}
+
+		List<Entry> responseEntries = new ArrayList<Entry>();
+		for (int i = 0; i < postList.size(); i++) {
+			IdDt createdId = getCreatedId(postList.get(i), entitiesOfEntries.get(i));
+			addResponseEntry(responseEntries, "201 Created", createdId.getValue());
+		}
+
+		return responseEntries;
+	}
+
+	/**
+	 * Removes the persons and visits of the levels that were written before a
+	 * later level of the transaction failed.
+	 */
+	private void removeWrittenLevels(List<Integer> patientEntries, List<Integer> encounterEntries,
+			List<List<BaseEntity>> entitiesOfEntries) {
+		logger.error("Transaction failed. Removing the patients and encounters already written.");
+		for (Integer i : encounterEntries) {
+			removeEntities(OmopEncounter.getInstance(), entitiesOfEntries.get(i));
+		}
+		for (Integer i : patientEntries) {
+			removeEntities(OmopPatient.getInstance(), entitiesOfEntries.get(i));
+		}
+	}
+
+	/**
+	 * Drops the cached searches of the resource types in the list. Call this after
+	 * the resources are written, even if the write failed midway.
+	 */
+	public void resourcesChanged(List<BaseResource> resources) {
+		if (resources == null) {
+			return;
+		}
+
+		Set<BaseOmopResource<?, ?, ?>> mappers = new HashSet<BaseOmopResource<?, ?, ?>>();
+		for (BaseResource resource : resources) {
+			BaseOmopResource<?, ?, ?> mapper = getMapper(resource);
+			if (mapper != null && mappers.add(mapper)) {
+				mapper.resourcesChanged();
+			}
+		}
+	}
+
+	private BaseOmopResource<?, ?, ?> getMapper(BaseResource resource) {
+		if (resource instanceof Patient) {
+			return OmopPatient.getInstance();
+		} else if (resource instanceof Encounter) {
+			return OmopEncounter.getInstance();
+		} else if (resource instanceof Observation) {
+			return OmopObservation.getInstance();
+		} else if (resource instanceof Condition) {
+			return OmopCondition.getInstance();
+		} else if (resource instanceof Procedure) {
+			return OmopProcedure.getInstance();
+		} else if (resource instanceof MedicationStatement) {
+			return OmopMedicationStatement.getInstance();
+		} else if (resource instanceof MedicationOrder) {
+			return OmopMedicationOrder.getInstance();
+		} else if (resource instanceof MedicationAdministration) {
+			return OmopMedicationAdministration.getInstance();
+		} else if (resource instanceof Immunization) {
+			return OmopImmunization.getInstance();
+		} else if (resource instanceof AllergyIntolerance) {
+			return OmopAllergyIntolerance.getInstance();
+		} else if (resource instanceof DocumentReference) {
+			return OmopDocumentReference.getInstance();
+		} else if (resource instanceof DeviceUseStatement) {
+			return OmopDeviceUseStatement.getInstance();
+		}
+
+		return null;
+	}
+
+	private boolean isTransactionSupported(BaseResource resource) {
+		return resource instanceof Observation || resource instanceof Condition || resource instanceof Procedure
+				|| resource instanceof MedicationStatement || resource instanceof MedicationOrder
+				|| resource instanceof MedicationAdministration || resource instanceof Immunization
+				|| resource instanceof AllergyIntolerance || resource instanceof DocumentReference
+				|| resource instanceof DeviceUseStatement;
+	}
+
+	/**
+	 * Maps the entries of a level and writes them in one TransactionService call.
+	 * The FHIR ids of the created entries are added to createdIds. The entities
+	 * are set in entitiesOfEntries only after the level is written.
+	 */
+	private void writeTransactionLevel(List<BaseResource> postList, List<Integer> levelEntries,
+			List<List<BaseEntity>> entitiesOfEntries, Map<String, IdDt> createdIds) throws FHIRException {
+		if (levelEntries.isEmpty()) {
+			return;
+		}
+
+		FhirTerser terser = StaticValues.myFhirContext.newTerser();
+		Map<String, List<BaseEntity>> entityToCreate = new LinkedHashMap<String, List<BaseEntity>>();
+		Map<Integer, List<BaseEntity>> levelEntities = new HashMap<Integer, List<BaseEntity>>();
+		for (Integer i : levelEntries) {
+			BaseResource resource = postList.get(i);
+
+			// Point the references to the entries created by the earlier levels.
+			for (ResourceReferenceDt reference : terser.getAllPopulatedChildElementsOfType(resource,
+					ResourceReferenceDt.class)) {
+				IdDt createdId = createdIds.get(reference.getReference().getValue());
+				if (createdId != null) {
+					reference.setReference(createdId);
 				}
 			}
+
+			List<BaseEntity> entities = constructTransactionEntities(resource);
+			if (entities == null || entities.isEmpty()) {
+				throw new FHIRException("Failed to map " + resource.getResourceName() + " entry "
+						+ (resource.getId().isEmpty() ? i : resource.getId().getValue()));
+			}
+			for (BaseEntity entity : entities) {
+				addBaseEntity(entityToCreate, i + "^" + entity.getClass().getSimpleName(), entity);
+			}
+			levelEntities.put(i, entities);
+		}
+
+		if (myService.writeTransaction(entityToCreate) < 0) {
+			throw new FHIRException("Failed to write the transaction");
 		}
 
-		List<Entry> retVal = new ArrayList<Entry>();
-		if (entityToCreate.size() > 0) {
-			int performStatus = myService.writeTransaction(entityToCreate);
-			if (performStatus < 0) {
-				// This is an error.
-				// TODO: respond accordingly
-				return retVal;
+		for (Integer i : levelEntries) {
+			BaseResource resource = postList.get(i);
+			entitiesOfEntries.set(i, levelEntities.get(i));
+			IdDt createdId = getCreatedId(resource, entitiesOfEntries.get(i));
+			if (resource.getId() != null && !resource.getId().isEmpty()) {
+				createdIds.put(resource.getId().getValue(), createdId);
+				if (resource.getId().hasIdPart()) {
+					createdIds.put(resource.getResourceName() + "/" + resource.getId().getIdPart(), createdId);
+				}
 			}
-			for (String myKeyString : entityToCreate.keySet()) {
-				List<BaseEntity> entities = entityToCreate.get(myKeyString);
-				String[] myKeyInfo = myKeyString.split("\\^");
-				if (myKeyInfo.length != 2) {
-					return null;
+		}
+	}
+
+	private List<BaseEntity> constructTransactionEntities(BaseResource resource) {
+		List<BaseEntity> entities = new ArrayList<BaseEntity>();
+		BaseEntity entity = null;
+		if (resource instanceof Patient) {
+			entity = OmopPatient.getInstance().constructOmop(null, ExtensionUtil.usCorePatientFromResource(resource));
+		} else if (resource instanceof Encounter) {
+			entity = OmopEncounter.getInstance().constructOmop(null, (Encounter) resource);
+		} else if (resource instanceof Condition) {
+			entity = OmopCondition.getInstance().constructOmop(null, (Condition) resource);
+		} else if (resource instanceof Procedure) {
+			entity = OmopProcedure.getInstance().constructOmop(null, (Procedure) resource);
+		} else if (resource instanceof MedicationStatement) {
+			entity = OmopMedicationStatement.getInstance().constructOmop(null, (MedicationStatement) resource);
+		} else if (resource instanceof MedicationOrder) {
+			entity = OmopMedicationOrder.getInstance().constructOmop(null, (MedicationOrder) resource);
+		} else if (resource instanceof MedicationAdministration) {
+			entity = OmopMedicationAdministration.getInstance().constructOmop(null,
+					(MedicationAdministration) resource);
+		} else if (resource instanceof Immunization) {
+			entity = OmopImmunization.getInstance().constructDrugExposure(null, (Immunization) resource);
+		} else if (resource instanceof AllergyIntolerance) {
+			entity = OmopAllergyIntolerance.getInstance().constructOmop(null, (AllergyIntolerance) resource);
+		} else if (resource instanceof DocumentReference) {
+			entity = OmopDocumentReference.getInstance().constructOmop(null, (DocumentReference) resource);
+		} else if (resource instanceof DeviceUseStatement) {
+			entity = OmopDeviceUseStatement.getInstance().constructOmop(null,
+					ExtensionUtil.myDeviceUseStatementFromResource(resource));
+		} else if (resource instanceof Observation) {
+			Map<String, Object> obsEntityMap = OmopObservation.getInstance().constructOmopMeasurementObservation(null,
+					(Observation) resource);
+			if (obsEntityMap == null || obsEntityMap.isEmpty()) {
+				return null;
+			}
+			if (((String) obsEntityMap.get("type")).equalsIgnoreCase("Measurement")) {
+				@SuppressWarnings("unchecked")
+				List<Measurement> measurements = (List<Measurement>) obsEntityMap.get("entity");
+				entities.addAll(measurements);
+			} else {
+				entity = (BaseEntity) obsEntityMap.get("entity");
+			}
+		}
+
+		if (entity != null) {
+			entities.add(entity);
+		}
+
+		return entities;
+	}
+
+	private IdDt getCreatedId(BaseResource resource, List<BaseEntity> entities) {
+		if (resource instanceof Observation) {
+			return new IdDt(ObservationResourceProvider.getType(), getObservationFhirId(entities));
+		}
+
+		String resourceName = resource.getResourceName();
+		return new IdDt(resourceName, IdMapping.getFHIRfromOMOP(entities.get(0).getIdAsLong(), resourceName));
+	}
+
+	/**
+	 * FHIR Observation id of the measurements or the observation created for an
+	 * Observation. Systolic is the id of a blood pressure. Observation table rows
+	 * have negative ids in the Observation view.
+	 */
+	private Long getObservationFhirId(List<?> entities) {
+		Long omopId = null;
+		for (Object entity : entities) {
+			if (entity instanceof Measurement) {
+				Measurement measurement = (Measurement) entity;
+				if (omopId == null
+						|| measurement.getMeasurementConcept().getId() == OmopObservation.SYSTOLIC_CONCEPT_ID) {
+					omopId = measurement.getIdAsLong();
 				}
-				System.out.println("About to check response from JPA transaction");
-				String entityName = myKeyInfo[1];
-				for (BaseEntity entity : entities) {
-					Entry bundleEntryComponent = new Entry();
-					BaseResource fhirResource;
-					if (entityName.equals("FPerson")) {
-						// This is Person table.
-						// Constructing FHIR to respond.
-						System.out.println("Created FPerson ID: " + entity.getIdAsLong());
-						fhirResource = OmopPatient.getInstance().constructFHIR(
-								IdMapping.getFHIRfromOMOP(entity.getIdAsLong(), PatientResourceProvider.getType()),
-								(FPerson) entity);
-						bundleEntryComponent.setResource(fhirResource);
-						// It was success full, so we return 201 Created.
-//						EntryResponse responseComponent = new EntryResponse(new StringDt("201 Created"));
-						EntryResponse responseComponent = new EntryResponse();
-						responseComponent.setStatus(new StringDt("201 Created"));
-						responseComponent.setLocation(PatientResourceProvider.getType() + "/" + fhirResource.getId());
-						bundleEntryComponent.setResponse(responseComponent);
-						retVal.add(bundleEntryComponent);
-					} else if (entityName.equals("Measurement")) {
-
-					}
+			} else if (entity instanceof edu.gatech.chai.omopv5.model.entity.Observation) {
+				omopId = -((edu.gatech.chai.omopv5.model.entity.Observation) entity).getIdAsLong();
+			}
+		}
+
+		if (omopId == null) {
+			return null;
+		}
+
+		return IdMapping.getFHIRfromOMOP(omopId, ObservationResourceProvider.getType());
+	}
+
+	private void removeEntities(BaseOmopResource<?, ?, ?> mapper, List<BaseEntity> entities) {
+		if (entities == null) {
+			return;
+		}
+
+		for (BaseEntity entity : entities) {
+			if (entity.getIdAsLong() != null) {
+				try {
+					mapper.removeDbase(entity.getIdAsLong());
+				} catch (RuntimeException e) {
+					e.printStackTrace();
 				}
 			}
 		}
-		return retVal;
 	}
 
 	public List<ParameterWrapper> mapParameter(String parameter, Object value) {
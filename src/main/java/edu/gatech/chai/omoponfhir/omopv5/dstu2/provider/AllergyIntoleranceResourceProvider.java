@@ -18,6 +18,7 @@ package edu.gatech.chai.omoponfhir.omopv5.dstu2.provider;
 import java.util.ArrayList;
 import java.util.List;
 
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.SearchResultCache;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
 import ca.uhn.fhir.model.dstu2.resource.AllergyIntolerance;
 import ca.uhn.fhir.model.dstu2.resource.Patient;
@@ -85,13 +86,15 @@ public class AllergyIntoleranceResourceProvider implements IResourceProvider {
 	}
 
 	private Integer getTotalSize(List<ParameterWrapper> paramList) {
-		final Long totalSize;
-		if (paramList.size() == 0) {
-			totalSize = getMyMapper().getSize();
-		} else {
-			totalSize = getMyMapper().getSize(paramList);
-		}
-		
+		String searchKey = SearchResultCache.createKey(getType(), paramList);
+		final Long totalSize = SearchResultCache.getInstance().getCount(searchKey, () -> {
+			if (paramList.size() == 0) {
+				return getMyMapper().getSize();
+			} else {
+				return getMyMapper().getSize(new ArrayList<ParameterWrapper>(paramList));
+			}
+		});
+
 		return totalSize.intValue();
 	}
 	
@@ -105,6 +108,7 @@ public class AllergyIntoleranceResourceProvider implements IResourceProvider {
 		Long id = null;
 		try {
 			id = myMapper.toDbase(allergyIntolerance, null);
+			myMapper.resourcesChanged();
 		} catch (FHIRException e) {
 			e.printStackTrace();
 		}
@@ -262,6 +266,7 @@ public class AllergyIntoleranceResourceProvider implements IResourceProvider {
 		Long fhirId = null;
 		try {
 			fhirId = myMapper.toDbase(theAllergyIntolerance, theId);
+			myMapper.resourcesChanged();
 		} catch (FHIRException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
@@ -290,11 +295,7 @@ public class AllergyIntoleranceResourceProvider implements IResourceProvider {
 			// _Include
 			List<String> includes = new ArrayList<String>();
 
-			if (paramList.size() == 0) {
-				myMapper.searchWithoutParams(fromIndex, toIndex, retv, includes, null);
-			} else {
-				myMapper.searchWithParams(fromIndex, toIndex, paramList, retv, includes, null);
-			}
+			searchPage(myMapper, fromIndex, toIndex, retv, includes, null);
 
 			return retv;
 		}
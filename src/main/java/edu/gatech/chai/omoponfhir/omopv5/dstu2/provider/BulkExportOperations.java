@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package edu.gatech.chai.omoponfhir.omopv5.dstu2.provider;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import ca.uhn.fhir.model.primitive.InstantDt;
+import ca.uhn.fhir.model.primitive.StringDt;
+import ca.uhn.fhir.rest.annotation.Operation;
+import ca.uhn.fhir.rest.annotation.OperationParam;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.mapping.OmopBulkExport;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.mapping.OmopBulkExport.ExportJob;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.mapping.OmopBulkExport.JobStatus;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.ThrowFHIRExceptions;
+
+/**
+ * Bulk data export (NDJSON). $export starts a job and returns 202 with the
+ * status URL in Content-Location. $export-poll-status returns 202 while the job
+ * runs and the output manifest when it is done. The resource types that
+ * failed are left out of the output and reported in the error array of the
+ * manifest. The NDJSON files are served by $export-file. Patient level export
+ * is in {@link PatientResourceProvider}.
+ */
+public class BulkExportOperations {
+	public static final String NDJSON = "application/fhir+ndjson";
+
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Operation(name = "$export", idempotent = true, manualResponse = true)
+	public void exportOperation(RequestDetails theRequestDetails, HttpServletResponse theServletResponse,
+			@OperationParam(name = "_outputFormat") StringDt theOutputFormat,
+			@OperationParam(name = "_type") StringDt theType, @OperationParam(name = "_since") InstantDt theSince)
+			throws IOException {
+		kickOff(theRequestDetails, theServletResponse, theOutputFormat, theType, theSince, false);
+	}
+
+	@Operation(name = "$export-poll-status", idempotent = true, manualResponse = true)
+	public void exportPollStatusOperation(RequestDetails theRequestDetails, HttpServletResponse theServletResponse,
+			@OperationParam(name = "_jobId") StringDt theJobId) throws IOException {
+		ExportJob job = getJob(theJobId);
+
+		if (job.getStatus() == JobStatus.IN_PROGRESS) {
+			theServletResponse.setStatus(HttpServletResponse.SC_ACCEPTED);
+			theServletResponse.setHeader("X-Progress", job.getProgress() + "% of resource types done");
+			theServletResponse.setHeader("Retry-After", "10");
+			theServletResponse.getOutputStream().close();
+			return;
+		}
+
+		String fileUrl = theRequestDetails.getFhirServerBase() + "/$export-file?_jobId=" + job.getId() + "&_type=";
+		ObjectNode manifest = objectMapper.createObjectNode();
+		manifest.put("transactionTime", new InstantDt(job.getTransactionTime()).getValueAsString());
+		manifest.put("request", job.getRequest());
+		manifest.put("requiresAccessToken", false);
+
+		ArrayNode output = manifest.putArray("output");
+		for (Map.Entry<String, Long> count : job.getCounts().entrySet()) {
+			if (job.isFailed(count.getKey())) {
+				continue;
+			}
+			ObjectNode file = output.addObject();
+			file.put("type", count.getKey());
+			file.put("url", fileUrl + count.getKey());
+			file.put("count", count.getValue());
+		}
+
+		ArrayNode error = manifest.putArray("error");
+		if (job.getStatus() == JobStatus.FAILED) {
+			ObjectNode file = error.addObject();
+			file.put("type", OmopBulkExport.ERROR_TYPE);
+			file.put("url", fileUrl + OmopBulkExport.ERROR_TYPE);
+		}
+
+		theServletResponse.setStatus(HttpServletResponse.SC_OK);
+		theServletResponse.setContentType("application/json");
+		theServletResponse.setCharacterEncoding("UTF-8");
+		objectMapper.writeValue(theServletResponse.getWriter(), manifest);
+	}
+
+	@Operation(name = "$export-file", idempotent = true, manualResponse = true)
+	public void exportFileOperation(HttpServletResponse theServletResponse,
+			@OperationParam(name = "_jobId") StringDt theJobId, @OperationParam(name = "_type") StringDt theType)
+			throws IOException {
+		ExportJob job = getJob(theJobId);
+		if (job.getStatus() == JobStatus.IN_PROGRESS) {
+			ThrowFHIRExceptions.unprocessableEntityException("Export " + job.getId() + " is not completed");
+		}
+
+		File file = theType == null ? null : job.getFile(theType.getValue());
+		if (file == null || !file.exists()) {
+			ThrowFHIRExceptions.unprocessableEntityException("Export " + job.getId() + " has no such file");
+		}
+
+		theServletResponse.setStatus(HttpServletResponse.SC_OK);
+		theServletResponse.setContentType(NDJSON);
+		theServletResponse.setContentLengthLong(file.length());
+		try (OutputStream out = theServletResponse.getOutputStream()) {
+			Files.copy(file.toPath(), out);
+		}
+	}
+
+	/**
+	 * Starts an export job. Used by both the system level and the Patient level
+	 * $export.
+	 */
+	static void kickOff(RequestDetails theRequestDetails, HttpServletResponse theServletResponse,
+			StringDt theOutputFormat, StringDt theType, InstantDt theSince, boolean patientOnly) throws IOException {
+		if (theOutputFormat != null && !theOutputFormat.isEmpty()) {
+			String format = theOutputFormat.getValue();
+			if (!NDJSON.equals(format) && !"application/ndjson".equals(format) && !"ndjson".equals(format)) {
+				ThrowFHIRExceptions.unprocessableEntityException("Only " + NDJSON + " _outputFormat is supported");
+			}
+		}
+
+		if (theSince != null && !theSince.isEmpty()) {
+			// OMOP does not keep the last updated time of the rows.
+			ThrowFHIRExceptions.unprocessableEntityException("_since is not supported");
+		}
+
+		OmopBulkExport bulkExport = OmopBulkExport.getInstance();
+		List<String> supportedTypes = bulkExport.getSupportedTypes(patientOnly);
+		List<String> types = new ArrayList<String>();
+		if (theType == null || theType.isEmpty()) {
+			types.addAll(supportedTypes);
+		} else {
+			for (String type : theType.getValue().split(",")) {
+				type = type.trim();
+				if (type.isEmpty() || types.contains(type)) {
+					continue;
+				}
+				if (!supportedTypes.contains(type)) {
+					ThrowFHIRExceptions.unprocessableEntityException(type + " cannot be exported");
+				}
+				types.add(type);
+			}
+		}
+
+		ExportJob job = bulkExport.startExport(theRequestDetails.getCompleteUrl(), types, patientOnly);
+		if (job == null) {
+			ThrowFHIRExceptions.internalErrorException("Failed to start the export");
+		}
+
+		theServletResponse.setStatus(HttpServletResponse.SC_ACCEPTED);
+		theServletResponse.setHeader("Content-Location",
+				theRequestDetails.getFhirServerBase() + "/$export-poll-status?_jobId=" + job.getId());
+		theServletResponse.getOutputStream().close();
+	}
+
+	private static ExportJob getJob(StringDt theJobId) {
+		String jobId = theJobId == null ? null : theJobId.getValue();
+		ExportJob job = OmopBulkExport.getInstance().getJob(jobId);
+		if (job == null) {
+			throw new ResourceNotFoundException("Export job " + jobId + " does not exist");
+		}
+
+		return job;
+	}
+}
@@ -18,6 +18,7 @@ package edu.gatech.chai.omoponfhir.omopv5.dstu2.provider;
 import java.util.ArrayList;
 import java.util.List;
 
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.SearchResultCache;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
 
 import ca.uhn.fhir.model.dstu2.resource.Condition;
@@ -89,13 +90,15 @@ public class ConditionResourceProvider implements IResourceProvider {
 	}
 
 	private Integer getTotalSize(List<ParameterWrapper> paramList) {
-		final Long totalSize;
-		if (paramList.size() == 0) {
-			totalSize = getMyMapper().getSize();
-		} else {
-			totalSize = getMyMapper().getSize(paramList);
-		}
-		
+		String searchKey = SearchResultCache.createKey(getType(), paramList);
+		final Long totalSize = SearchResultCache.getInstance().getCount(searchKey, () -> {
+			if (paramList.size() == 0) {
+				return getMyMapper().getSize();
+			} else {
+				return getMyMapper().getSize(new ArrayList<ParameterWrapper>(paramList));
+			}
+		});
+
 		return totalSize.intValue();
 	}
 	
@@ -109,6 +112,7 @@ public class ConditionResourceProvider implements IResourceProvider {
 		Long id = null;
 		try {
 			id = myMapper.toDbase(condition, null);
+			myMapper.resourcesChanged();
 		} catch (FHIRException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
@@ -251,6 +255,7 @@ public class ConditionResourceProvider implements IResourceProvider {
 		Long fhirId = null;
 		try {
 			fhirId = myMapper.toDbase(theCondition, theId);
+			myMapper.resourcesChanged();
 		} catch (FHIRException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
@@ -279,11 +284,7 @@ public class ConditionResourceProvider implements IResourceProvider {
 			// _Include
 			List<String> includes = new ArrayList<String>();
 
-			if (paramList.size() == 0) {
-				myMapper.searchWithoutParams(fromIndex, toIndex, retv, includes, null);
-			} else {
-				myMapper.searchWithParams(fromIndex, toIndex, paramList, retv, includes, null);
-			}
+			searchPage(myMapper, fromIndex, toIndex, retv, includes, null);
 
 			return retv;
 		}
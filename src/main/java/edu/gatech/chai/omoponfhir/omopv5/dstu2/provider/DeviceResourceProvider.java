@@ -44,6 +44,7 @@ import ca.uhn.fhir.rest.server.IResourceProvider;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.mapping.OmopDevice;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.model.MyDevice;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.SearchResultCache;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
 
 public class DeviceResourceProvider implements IResourceProvider {
@@ -80,13 +81,15 @@ public class DeviceResourceProvider implements IResourceProvider {
     }
 
 	private Integer getTotalSize(List<ParameterWrapper> paramList) {
-		final Long totalSize;
-		if (paramList.size() == 0) {
-			totalSize = getMyMapper().getSize();
-		} else {
-			totalSize = getMyMapper().getSize(paramList);
-		}
-		
+		String searchKey = SearchResultCache.createKey(getType(), paramList);
+		final Long totalSize = SearchResultCache.getInstance().getCount(searchKey, () -> {
+			if (paramList.size() == 0) {
+				return getMyMapper().getSize();
+			} else {
+				return getMyMapper().getSize(new ArrayList<ParameterWrapper>(paramList));
+			}
+		});
+
 		return totalSize.intValue();
 	}
 
@@ -191,6 +194,7 @@ public class DeviceResourceProvider implements IResourceProvider {
 		Long fhirId = null;
 		try {
 			fhirId = getMyMapper().toDbase(theDevice, theId);
+			getMyMapper().resourcesChanged();
 		} catch (FHIRException e) {
 			e.printStackTrace();
 		}
@@ -223,11 +227,7 @@ public class DeviceResourceProvider implements IResourceProvider {
 			// _Include
 			List<String> includes = new ArrayList<String>();
 
-			if (paramList.size() == 0) {
-				getMyMapper().searchWithoutParams(theFromIndex, theToIndex, retv, includes, null);
-			} else {
-				getMyMapper().searchWithParams(theFromIndex, theToIndex, paramList, retv, includes, null);
-			}
+			searchPage(getMyMapper(), theFromIndex, theToIndex, retv, includes, null);
 
 			return retv;
 		}
@@ -53,6 +53,7 @@ import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import ca.uhn.fhir.rest.server.exceptions.UnprocessableEntityException;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.mapping.OmopDeviceUseStatement;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.model.MyDeviceUseStatement;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.SearchResultCache;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
 
 public class DeviceUseStatementResourceProvider implements IResourceProvider {
@@ -89,13 +90,15 @@ public class DeviceUseStatementResourceProvider implements IResourceProvider {
     }
 	
 	private Integer getTotalSize(List<ParameterWrapper> paramList) {
-		final Long totalSize;
-		if (paramList.size() == 0) {
-			totalSize = getMyMapper().getSize();
-		} else {
-			totalSize = getMyMapper().getSize(paramList);
-		}
-		
+		String searchKey = SearchResultCache.createKey(getType(), paramList);
+		final Long totalSize = SearchResultCache.getInstance().getCount(searchKey, () -> {
+			if (paramList.size() == 0) {
+				return getMyMapper().getSize();
+			} else {
+				return getMyMapper().getSize(new ArrayList<ParameterWrapper>(paramList));
+			}
+		});
+
 		return totalSize.intValue();
 	}
 	
@@ -130,6 +133,7 @@ public class DeviceUseStatementResourceProvider implements IResourceProvider {
 		Long id=null;
 		try {
 			id = getMyMapper().toDbase(theDeviceUseStatement, null);
+			getMyMapper().resourcesChanged();
 		} catch (FHIRException e) {
 			e.printStackTrace();
 		}		
@@ -213,6 +217,7 @@ public class DeviceUseStatementResourceProvider implements IResourceProvider {
 		Long fhirId = null;
 		try {
 			fhirId = getMyMapper().toDbase(theDeviceUseStatement, theId);
+			getMyMapper().resourcesChanged();
 		} catch (FHIRException e) {
 			e.printStackTrace();
 		}
@@ -259,11 +264,7 @@ public class DeviceUseStatementResourceProvider implements IResourceProvider {
 				includes.add("DeviceUseStatement:device");
 			}
 
-			if (paramList.size() == 0) {
-				getMyMapper().searchWithoutParams(theFromIndex, theToIndex, retv, includes, null);
-			} else {
-				getMyMapper().searchWithParams(theFromIndex, theToIndex, paramList, retv, includes, null);
-			}
+			searchPage(getMyMapper(), theFromIndex, theToIndex, retv, includes, null);
 
 			return retv;
 		}
@@ -26,6 +26,7 @@ import ca.uhn.fhir.model.primitive.IdDt;
 //import org.hl7.fhir.dstu3.model.Patient;
 import ca.uhn.fhir.model.dstu2.resource.Patient;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.mapping.OmopDocumentReference;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.SearchResultCache;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.ThrowFHIRExceptions;
 
 import org.hl7.fhir.instance.model.api.IBaseResource;
@@ -93,13 +94,15 @@ public class DocumentReferenceResourceProvider implements IResourceProvider {
 	}
 	
 	private Integer getTotalSize(List<ParameterWrapper> paramList) {
-		final Long totalSize;
-		if (paramList.size() == 0) {
-			totalSize = getMyMapper().getSize();
-		} else {
-			totalSize = getMyMapper().getSize(paramList);
-		}
-		
+		String searchKey = SearchResultCache.createKey(getType(), paramList);
+		final Long totalSize = SearchResultCache.getInstance().getCount(searchKey, () -> {
+			if (paramList.size() == 0) {
+				return getMyMapper().getSize();
+			} else {
+				return getMyMapper().getSize(new ArrayList<ParameterWrapper>(paramList));
+			}
+		});
+
 		return totalSize.intValue();
 	}
 
@@ -110,6 +113,7 @@ public class DocumentReferenceResourceProvider implements IResourceProvider {
 		Long id = null;
 		try {
 			id = getMyMapper().toDbase(theDocumentReference, null);
+			getMyMapper().resourcesChanged();
 		} catch (FHIRException e) {
 			e.printStackTrace();
 			ThrowFHIRExceptions.unprocessableEntityException(e.getMessage());
@@ -142,6 +146,7 @@ public class DocumentReferenceResourceProvider implements IResourceProvider {
 		Long fhirId = null;
 		try {
 			fhirId = getMyMapper().toDbase(theDocumentReference, theId);
+			getMyMapper().resourcesChanged();
 		} catch (FHIRException e) {
 			e.printStackTrace();
 		}
@@ -280,11 +285,7 @@ public class DocumentReferenceResourceProvider implements IResourceProvider {
 				includes.add("DocumentReference:subject");
 			}
 
-			if (paramList.size() == 0) {
-				getMyMapper().searchWithoutParams(fromIndex, toIndex, retv, includes, null);
-			} else {
-				getMyMapper().searchWithParams(fromIndex, toIndex, paramList, retv, includes, null);
-			}
+			searchPage(getMyMapper(), fromIndex, toIndex, retv, includes, null);
 
 			return retv;
 		}
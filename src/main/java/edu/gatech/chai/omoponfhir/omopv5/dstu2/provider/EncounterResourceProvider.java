@@ -47,6 +47,7 @@ import ca.uhn.fhir.rest.param.TokenParam;
 import ca.uhn.fhir.rest.param.DateRangeParam;
 import ca.uhn.fhir.rest.server.IResourceProvider;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.SearchResultCache;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
 
 public class EncounterResourceProvider implements IResourceProvider {
@@ -83,12 +84,14 @@ public class EncounterResourceProvider implements IResourceProvider {
 	}
 
 	private Integer getTotalSize(List<ParameterWrapper> paramList) {
-		final Long totalSize;
-		if (paramList.size() == 0) {
-			totalSize = getMyMapper().getSize();
-		} else {
-			totalSize = getMyMapper().getSize(paramList);
-		}
+		String searchKey = SearchResultCache.createKey(getType(), paramList);
+		final Long totalSize = SearchResultCache.getInstance().getCount(searchKey, () -> {
+			if (paramList.size() == 0) {
+				return getMyMapper().getSize();
+			} else {
+				return getMyMapper().getSize(new ArrayList<ParameterWrapper>(paramList));
+			}
+		});
 
 		return totalSize.intValue();
 	}
@@ -104,6 +107,7 @@ public class EncounterResourceProvider implements IResourceProvider {
 		Long id = null;
 		try {
 			id = getMyMapper().toDbase(theEncounter, null);
+			getMyMapper().resourcesChanged();
 		} catch (FHIRException e) {
 			e.printStackTrace();
 		}
@@ -230,6 +234,7 @@ public class EncounterResourceProvider implements IResourceProvider {
 		Long fhirId = null;
 		try {
 			fhirId = getMyMapper().toDbase(theEncounter, theId);
+			getMyMapper().resourcesChanged();
 		} catch (FHIRException e) {
 			e.printStackTrace();
 		}
@@ -308,11 +313,7 @@ public class EncounterResourceProvider implements IResourceProvider {
 				includes.add("Encounter:subject");
 			}
 
-			if (paramList.size() == 0) {
-				myMapper.searchWithoutParams(fromIndex, toIndex, retv, includes, null);
-			} else {
-				myMapper.searchWithParams(fromIndex, toIndex, paramList, retv, includes, null);
-			}
+			searchPage(myMapper, fromIndex, toIndex, retv, includes, null);
 
 			return retv;
 		}
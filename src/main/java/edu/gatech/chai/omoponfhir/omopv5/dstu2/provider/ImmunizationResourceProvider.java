@@ -37,6 +37,7 @@ import ca.uhn.fhir.rest.server.IResourceProvider;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import ca.uhn.fhir.rest.server.exceptions.UnprocessableEntityException;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.mapping.OmopImmunization;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.SearchResultCache;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.StaticValues;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
 
@@ -75,13 +76,15 @@ public class ImmunizationResourceProvider implements IResourceProvider {
 	}
 
 	private Integer getTotalSize(List<ParameterWrapper> paramList) {
-		final Long totalSize;
-		if (paramList.size() == 0) {
-			totalSize = getMyMapper().getSize();
-		} else {
-			totalSize = getMyMapper().getSize(paramList);
-		}
-		
+		String searchKey = SearchResultCache.createKey(getType(), paramList);
+		final Long totalSize = SearchResultCache.getInstance().getCount(searchKey, () -> {
+			if (paramList.size() == 0) {
+				return getMyMapper().getSize();
+			} else {
+				return getMyMapper().getSize(new ArrayList<ParameterWrapper>(paramList));
+			}
+		});
+
 		return totalSize.intValue();
 	}
 
@@ -101,6 +104,7 @@ public class ImmunizationResourceProvider implements IResourceProvider {
 		Long id=null;
 		try {
 			id = myMapper.toDbase(theImmunization, null);
+			myMapper.resourcesChanged();
 		} catch (FHIRException e) {
 			e.printStackTrace();
 		}
@@ -131,6 +135,7 @@ public class ImmunizationResourceProvider implements IResourceProvider {
 		Long fhirId=null;
 		try {
 			fhirId = myMapper.toDbase(theImmunization, theId);
+			myMapper.resourcesChanged();
 		} catch (FHIRException e) {
 			e.printStackTrace();
 		}
@@ -293,11 +298,7 @@ public class ImmunizationResourceProvider implements IResourceProvider {
 			// _Include
 			List<String> includes = new ArrayList<String>();
 
-			if (paramList.size() == 0) {
-				myMapper.searchWithoutParams(fromIndex, toIndex, retv, includes, null);
-			} else {
-				myMapper.searchWithParams(fromIndex, toIndex, paramList, retv, includes, null);
-			}
+			searchPage(myMapper, fromIndex, toIndex, retv, includes, null);
 
 			return retv;
 //
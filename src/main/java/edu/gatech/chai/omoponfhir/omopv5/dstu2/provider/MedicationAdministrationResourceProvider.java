@@ -50,6 +50,7 @@ import ca.uhn.fhir.rest.server.IResourceProvider;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import ca.uhn.fhir.rest.server.exceptions.UnprocessableEntityException;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.mapping.OmopMedicationAdministration;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.SearchResultCache;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
 
 public class MedicationAdministrationResourceProvider implements IResourceProvider {
@@ -80,13 +81,15 @@ public class MedicationAdministrationResourceProvider implements IResourceProvid
     }
 
 	private Integer getTotalSize(List<ParameterWrapper> paramList) {
-		final Long totalSize;
-		if (paramList.size() == 0) {
-			totalSize = getMyMapper().getSize();
-		} else {
-			totalSize = getMyMapper().getSize(paramList);
-		}
-		
+		String searchKey = SearchResultCache.createKey(getType(), paramList);
+		final Long totalSize = SearchResultCache.getInstance().getCount(searchKey, () -> {
+			if (paramList.size() == 0) {
+				return getMyMapper().getSize();
+			} else {
+				return getMyMapper().getSize(new ArrayList<ParameterWrapper>(paramList));
+			}
+		});
+
 		return totalSize.intValue();
 	}
 
@@ -106,6 +109,7 @@ public class MedicationAdministrationResourceProvider implements IResourceProvid
 		Long id=null;
 		try {
 			id = myMapper.toDbase(theMedicationRequest, null);
+			myMapper.resourcesChanged();
 		} catch (FHIRException e) {
 			e.printStackTrace();
 		}
@@ -135,6 +139,7 @@ public class MedicationAdministrationResourceProvider implements IResourceProvid
 		Long fhirId=null;
 		try {
 			fhirId = myMapper.toDbase(theMedicationRequest, theId);
+			myMapper.resourcesChanged();
 		} catch (FHIRException e) {
 			e.printStackTrace();
 		}
@@ -266,11 +271,7 @@ public class MedicationAdministrationResourceProvider implements IResourceProvid
 			// _Include
 			List<String> includes = new ArrayList<String>();
 
-			if (paramList.size() == 0) {
-				myMapper.searchWithoutParams(fromIndex, toIndex, retv, includes, null);
-			} else {
-				myMapper.searchWithParams(fromIndex, toIndex, paramList, retv, includes, null);
-			}
+			searchPage(myMapper, fromIndex, toIndex, retv, includes, null);
 
 			return retv;
 		}		
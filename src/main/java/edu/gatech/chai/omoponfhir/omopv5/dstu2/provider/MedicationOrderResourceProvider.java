@@ -25,6 +25,7 @@ import ca.uhn.fhir.model.dstu2.resource.MedicationOrder;
 import ca.uhn.fhir.model.dstu2.resource.OperationOutcome;
 import ca.uhn.fhir.model.dstu2.valueset.IssueSeverityEnum;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.mapping.OmopMedicationOrder;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.SearchResultCache;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.StaticValues;
 
 import org.hl7.fhir.instance.model.api.IBaseResource;
@@ -80,13 +81,15 @@ public class MedicationOrderResourceProvider implements IResourceProvider {
     }
 
 	private Integer getTotalSize(List<ParameterWrapper> paramList) {
-		final Long totalSize;
-		if (paramList.size() == 0) {
-			totalSize = getMyMapper().getSize();
-		} else {
-			totalSize = getMyMapper().getSize(paramList);
-		}
-		
+		String searchKey = SearchResultCache.createKey(getType(), paramList);
+		final Long totalSize = SearchResultCache.getInstance().getCount(searchKey, () -> {
+			if (paramList.size() == 0) {
+				return getMyMapper().getSize();
+			} else {
+				return getMyMapper().getSize(new ArrayList<ParameterWrapper>(paramList));
+			}
+		});
+
 		return totalSize.intValue();
 	}
 
@@ -106,6 +109,7 @@ public class MedicationOrderResourceProvider implements IResourceProvider {
 		Long id=null;
 		try {
 			id = myMapper.toDbase(theMedicationRequest, null);
+			myMapper.resourcesChanged();
 		} catch (FHIRException e) {
 			e.printStackTrace();
 		}
@@ -135,6 +139,7 @@ public class MedicationOrderResourceProvider implements IResourceProvider {
 		Long fhirId=null;
 		try {
 			fhirId = myMapper.toDbase(theMedicationRequest, theId);
+			myMapper.resourcesChanged();
 		} catch (FHIRException e) {
 			e.printStackTrace();
 		}
@@ -262,11 +267,7 @@ public class MedicationOrderResourceProvider implements IResourceProvider {
 			// _Include
 			List<String> includes = new ArrayList<String>();
 
-			if (paramList.size() == 0) {
-				myMapper.searchWithoutParams(fromIndex, toIndex, retv, includes, null);
-			} else {
-				myMapper.searchWithParams(fromIndex, toIndex, paramList, retv, includes, null);
-			}
+			searchPage(myMapper, fromIndex, toIndex, retv, includes, null);
 
 			return retv;
 		}		
@@ -27,6 +27,7 @@ import ca.uhn.fhir.model.dstu2.resource.Patient;
 import ca.uhn.fhir.model.dstu2.composite.ResourceReferenceDt;
 import ca.uhn.fhir.model.dstu2.valueset.IssueSeverityEnum;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.mapping.OmopObservation;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.SearchResultCache;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.StaticValues;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.ThrowFHIRExceptions;
 
@@ -94,13 +95,15 @@ public class ObservationResourceProvider implements IResourceProvider {
 	}
 	
 	private Integer getTotalSize(List<ParameterWrapper> paramList) {
-		final Long totalSize;
-		if (paramList.size() == 0) {
-			totalSize = getMyMapper().getSize();
-		} else {
-			totalSize = getMyMapper().getSize(paramList);
-		}
-		
+		String searchKey = SearchResultCache.createKey(getType(), paramList);
+		final Long totalSize = SearchResultCache.getInstance().getCount(searchKey, () -> {
+			if (paramList.size() == 0) {
+				return getMyMapper().getSize();
+			} else {
+				return getMyMapper().getSize(new ArrayList<ParameterWrapper>(paramList));
+			}
+		});
+
 		return totalSize.intValue();
 	}
 
@@ -116,6 +119,7 @@ public class ObservationResourceProvider implements IResourceProvider {
 		Long id = null;
 		try {
 			id = getMyMapper().toDbase(theObservation, null);
+			getMyMapper().resourcesChanged();
 		} catch (FHIRException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
@@ -281,6 +285,7 @@ public class ObservationResourceProvider implements IResourceProvider {
 		Long fhirId=null;
 		try {
 			fhirId = getMyMapper().toDbase(theObservation, theId);
+			getMyMapper().resourcesChanged();
 		} catch (FHIRException e) {
 			e.printStackTrace();
 		}
@@ -376,11 +381,7 @@ public class ObservationResourceProvider implements IResourceProvider {
 				includes.add("Observation:subject");
 			}
 
-			if (paramList.size() == 0) {
-				getMyMapper().searchWithoutParams(fromIndex, toIndex, retv, includes, orderParams);
-			} else {
-				getMyMapper().searchWithParams(fromIndex, toIndex, paramList, retv, includes, orderParams);
-			}
+			searchPage(getMyMapper(), fromIndex, toIndex, retv, includes, orderParams);
 
 			return retv;
 		}
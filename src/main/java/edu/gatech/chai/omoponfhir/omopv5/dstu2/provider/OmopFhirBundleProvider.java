@@ -15,18 +15,47 @@
  *******************************************************************************/
 package edu.gatech.chai.omoponfhir.omopv5.dstu2.provider;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 //import org.hl7.fhir.dstu3.model.InstantType;
 import ca.uhn.fhir.model.primitive.InstantDt;
+import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IPrimitiveType;
+import org.springframework.web.context.ContextLoaderListener;
+import org.springframework.web.context.WebApplicationContext;
 
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.mapping.BaseOmopResource;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.mapping.IResourceMapping;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.ExpiringLruCache;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.SearchResultCache;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
 
 public abstract class OmopFhirBundleProvider implements IBundleProvider {
+	private static final String KEYSET_SORT = "id ASC";
+	private static final int SEARCH_STATE_CACHE_SIZE = 1000;
+	private static final long SEARCH_STATE_TTL = 60 * 60 * 1000L;
+
+	// Keyset paging state of the recent searches, keyed by search uuid.
+	private static final ExpiringLruCache<String, SearchState> searchStates = new ExpiringLruCache<String, SearchState>(
+			SEARCH_STATE_CACHE_SIZE, SEARCH_STATE_TTL, 0);
+	private static Boolean keysetPaging = null;
+
+	/**
+	 * The OMOP id of the last resource of each page read so far, keyed by the
+	 * index the next page starts at.
+	 */
+	static class SearchState {
+		final Map<Integer, Long> lastIds = new ConcurrentHashMap<Integer, Long>();
+	}
+
+	String uuid;
+	String searchKey;
 	InstantDt searchTime;
 	List<ParameterWrapper> paramList;
 	Map<String, String> parameterSet;
@@ -36,11 +65,13 @@ public abstract class OmopFhirBundleProvider implements IBundleProvider {
 	String searchSql;
 
 	public OmopFhirBundleProvider (List<ParameterWrapper> paramList) {
+		this.uuid = UUID.randomUUID().toString();
 		this.searchTime = InstantDt.withCurrentTime();
 		this.paramList = paramList;
 	}
 	
 	public OmopFhirBundleProvider (Map<String, String> parameterSet, String searchSql) {
+		this.uuid = UUID.randomUUID().toString();
 		this.searchTime = InstantDt.withCurrentTime();
 		this.searchSql = searchSql;
 		this.parameterSet = parameterSet;
@@ -61,8 +92,7 @@ public abstract class OmopFhirBundleProvider implements IBundleProvider {
 
 	@Override
 	public String getUuid() {
-		// TODO Auto-generated method stub
-		return null;
+		return this.uuid;
 	}
 
 	@Override
@@ -82,5 +112,100 @@ public abstract class OmopFhirBundleProvider implements IBundleProvider {
 	public void setOrderParams(String orderParams) {
 		this.orderParams = orderParams;
 	}
-	
+
+	/**
+	 * Keyset paging is used when the servlet init parameter pagingMode is set to
+	 * keyset. Otherwise, pages are read by offset.
+	 */
+	public static boolean isKeysetPaging() {
+		if (keysetPaging == null) {
+			String pagingMode = null;
+			WebApplicationContext context = ContextLoaderListener.getCurrentWebApplicationContext();
+			if (context != null && context.getServletContext() != null) {
+				pagingMode = context.getServletContext().getInitParameter("pagingMode");
+			}
+			keysetPaging = "keyset".equalsIgnoreCase(pagingMode);
+		}
+
+		return keysetPaging;
+	}
+
+	/**
+	 * Reads a page of this search with the mapper.
+	 * 
+	 * If the search result cache has the ids of this search, the page is read by
+	 * its ids. Otherwise, the ids of all matches are cached when the search is
+	 * paged past the first page, as long as there are not too many. Unsorted
+	 * searches are read and cached in id order, so that the pages read from the
+	 * database and from the cached ids agree.
+	 * 
+	 * In keyset paging mode, a page that starts where an earlier page of this
+	 * search ended is read by id greater than the last id of that page. So, page N
+	 * costs the same as page 1. Other pages are read by offset in the same id
+	 * order.
+	 */
+	protected void searchPage(IResourceMapping<?, ?> mapper, int fromIndex, int toIndex, List<IBaseResource> retv,
+			List<String> includes, String sort) {
+		if (searchKey == null && mapper instanceof BaseOmopResource) {
+			searchKey = SearchResultCache.createKey(((BaseOmopResource<?, ?, ?>) mapper).getMyFhirResourceType(),
+					paramList);
+		}
+
+		boolean cacheable = mapper instanceof BaseOmopResource && SearchResultCache.getInstance().isEnabled();
+		if (cacheable && (sort == null || sort.isEmpty())) {
+			sort = KEYSET_SORT;
+		}
+		if (cacheable && searchCachedIds((BaseOmopResource<?, ?, ?>) mapper, fromIndex, toIndex, retv, includes, sort)) {
+			return;
+		}
+
+		boolean keyset = isKeysetPaging() && mapper instanceof BaseOmopResource
+				&& (sort == null || KEYSET_SORT.equalsIgnoreCase(sort));
+		if (!keyset) {
+			if (paramList.size() == 0) {
+				mapper.searchWithoutParams(fromIndex, toIndex, retv, includes, sort);
+			} else {
+				mapper.searchWithParams(fromIndex, toIndex, new ArrayList<ParameterWrapper>(paramList), retv,
+						includes, sort);
+			}
+			return;
+		}
+
+		SearchState searchState = searchStates.get(uuid, key -> new SearchState());
+		Long lastId = searchState.lastIds.get(fromIndex);
+		if (fromIndex == 0 || lastId != null) {
+			lastId = ((BaseOmopResource<?, ?, ?>) mapper).searchAfterId(lastId, toIndex - fromIndex,
+					new ArrayList<ParameterWrapper>(paramList), retv, includes);
+			if (lastId != null) {
+				searchState.lastIds.put(toIndex, lastId);
+			}
+		} else if (paramList.size() == 0) {
+			mapper.searchWithoutParams(fromIndex, toIndex, retv, includes, KEYSET_SORT);
+		} else {
+			mapper.searchWithParams(fromIndex, toIndex, new ArrayList<ParameterWrapper>(paramList), retv, includes,
+					KEYSET_SORT);
+		}
+	}
+
+	private boolean searchCachedIds(BaseOmopResource<?, ?, ?> mapper, int fromIndex, int toIndex,
+			List<IBaseResource> retv, List<String> includes, String sort) {
+		SearchResultCache searchResultCache = SearchResultCache.getInstance();
+		long[] ids = searchResultCache.getIds(searchKey, sort);
+		if (ids == null) {
+			// The first page is read as usual as most searches are never paged.
+			if (fromIndex == 0 || totalSize == null || totalSize > searchResultCache.getMaxIdsPerSearch()) {
+				return false;
+			}
+			ids = mapper.searchIds(0, totalSize, new ArrayList<ParameterWrapper>(paramList), sort);
+			searchResultCache.putIds(searchKey, sort, ids);
+		}
+
+		List<Long> pageIds = new ArrayList<Long>();
+		for (int i = fromIndex; i < toIndex && i < ids.length; i++) {
+			pageIds.add(ids[i]);
+		}
+		mapper.searchByIds(pageIds, retv, includes);
+
+		return true;
+	}
 }
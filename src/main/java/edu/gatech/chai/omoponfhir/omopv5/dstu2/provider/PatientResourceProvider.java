@@ -15,17 +15,26 @@
  *******************************************************************************/
 package edu.gatech.chai.omoponfhir.omopv5.dstu2.provider;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import ca.uhn.fhir.model.dstu2.composite.CodeableConceptDt;
 import ca.uhn.fhir.model.primitive.DateDt;
 import ca.uhn.fhir.model.primitive.IdDt;
+import ca.uhn.fhir.model.primitive.InstantDt;
+import ca.uhn.fhir.model.primitive.StringDt;
 import ca.uhn.fhir.model.dstu2.resource.OperationOutcome;
 import ca.uhn.fhir.model.dstu2.valueset.IssueSeverityEnum;
 import ca.uhn.fhir.model.dstu2.resource.Organization;
+import javax.servlet.http.HttpServletResponse;
+
 import org.springframework.web.context.ContextLoaderListener;
 import org.springframework.web.context.WebApplicationContext;
 import ca.uhn.fhir.model.dstu2.resource.Patient;
@@ -39,6 +48,7 @@ import ca.uhn.fhir.model.api.Include;
 import ca.uhn.fhir.model.valueset.BundleTypeEnum;
 import ca.uhn.fhir.rest.annotation.Create;
 import ca.uhn.fhir.rest.annotation.Delete;
+import ca.uhn.fhir.rest.annotation.Destroy;
 import ca.uhn.fhir.rest.annotation.IdParam;
 import ca.uhn.fhir.rest.annotation.IncludeParam;
 import ca.uhn.fhir.rest.annotation.Operation;
@@ -61,7 +71,10 @@ import ca.uhn.fhir.rest.server.IResourceProvider;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import ca.uhn.fhir.rest.server.exceptions.UnprocessableEntityException;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.mapping.OmopPatient;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.mapping.OmopPatient.EverythingDomain;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.model.USCorePatient;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.ConfigUtil;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.SearchResultCache;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.ThrowFHIRExceptions;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
 
@@ -76,6 +89,7 @@ public class PatientResourceProvider implements IResourceProvider {
 	private String myDbType;
 	private OmopPatient myMapper;
 	private int preferredPageSize = 30;
+	private ExecutorService everythingExecutor;
 
 	public PatientResourceProvider() {
 		myAppCtx = ContextLoaderListener.getCurrentWebApplicationContext();
@@ -93,6 +107,26 @@ public class PatientResourceProvider implements IResourceProvider {
 				preferredPageSize = pageSize;
 			}
 		}
+
+		// $everything searches the patient's domains in parallel. Bound the number
+		// of threads so that a few $everything requests cannot use up the
+		// database connections.
+		int everythingThreads = ConfigUtil.getPositiveInt("everythingThreadPoolSize",
+				myAppCtx.getServletContext().getInitParameter("everythingThreadPoolSize"), 4);
+		everythingExecutor = Executors.newFixedThreadPool(everythingThreads, runnable -> {
+			Thread thread = new Thread(runnable, "patient-everything");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+
+	/**
+	 * Stops the $everything threads when the server is shut down.
+	 */
+	@Destroy
+	public void destroy() {
+		everythingExecutor.shutdownNow();
 	}
 
 	/**
@@ -113,12 +147,14 @@ public class PatientResourceProvider implements IResourceProvider {
 	}
 
 	private Integer getTotalSize(List<ParameterWrapper> paramList) {
-		final Long totalSize;
-		if (paramList.size() == 0) {
-			totalSize = getMyMapper().getSize();
-		} else {
-			totalSize = getMyMapper().getSize(paramList);
-		}
+		String searchKey = SearchResultCache.createKey(getType(), paramList);
+		final Long totalSize = SearchResultCache.getInstance().getCount(searchKey, () -> {
+			if (paramList.size() == 0) {
+				return getMyMapper().getSize();
+			} else {
+				return getMyMapper().getSize(new ArrayList<ParameterWrapper>(paramList));
+			}
+		});
 
 		return totalSize.intValue();
 	}
@@ -134,6 +170,7 @@ public class PatientResourceProvider implements IResourceProvider {
 		Long id = null;
 		try {
 			id = getMyMapper().toDbase(thePatient, null);
+			getMyMapper().resourcesChanged();
 		} catch (FHIRException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
@@ -206,8 +243,10 @@ public class PatientResourceProvider implements IResourceProvider {
 			@IncludeParam(allow = { "Patient:general-practitioner", "Patient:organization",
 					"Patient:link" }) final Set<Include> theIncludes,
 
-			@IncludeParam(allow = { "Encounter:subject",
-					"Observation:subject" }, reverse = true) final Set<Include> theReverseIncludes) {
+			@IncludeParam(allow = { "Encounter:patient", "Observation:subject", "Device:patient",
+					"Condition:patient", "Procedure:subject", "MedicationOrder:patient",
+					"MedicationAdministration:patient", "MedicationStatement:patient",
+					"*" }, reverse = true) final Set<Include> theReverseIncludes) {
 		
 		/*
 		 * Create parameter map, which will be used later to construct predicate. The
@@ -332,6 +371,7 @@ public class PatientResourceProvider implements IResourceProvider {
 		Long fhirId = null;
 		try {
 			fhirId = getMyMapper().toDbase(thePatient, theId);
+			getMyMapper().resourcesChanged();
 		} catch (FHIRException e) {
 			e.printStackTrace();
 		}
@@ -359,44 +399,29 @@ public class PatientResourceProvider implements IResourceProvider {
 		Date endDate = null;
 		if (theEnd != null) endDate = theEnd.getValue();
 
-//		final IdType patientId = thePatientId;
-//		final String baseUrl = theRequestDetails.getFhirServerBase();
-		
-		List<IBaseResource> resources = new ArrayList<IBaseResource>();
-		resources.add(getMyMapper().toFHIR(thePatientId));
-
-		getMyMapper().getEverthingfor(resources, thePatientId.getIdPartAsLong(), startDate, endDate);
-		
-		final List<IBaseResource> retv = resources;
-		final Integer totalsize = retv.size();
-		final Integer pageSize = totalsize; // Some clients do not support pagination. preferredPageSize;
-		
-		return new IBundleProvider() {
-			@Override
-			public IPrimitiveType<Date> getPublished() {
-				return null;
-			}
+		USCorePatient patient = getMyMapper().toFHIR(thePatientId);
+		if (patient == null) {
+			throw new ResourceNotFoundException(thePatientId);
+		}
 
-			@Override
-			public List<IBaseResource> getResources(int theFromIndex, int theToIndex) {
-				return retv.subList(theFromIndex, theToIndex);
-			}
+		List<EverythingDomain> domains = getMyMapper().getEverythingDomains(thePatientId.getIdPartAsLong(), startDate,
+				endDate);
 
-			@Override
-			public String getUuid() {
-				return null;
-			}
+		EverythingBundleProvider myBundleProvider = new EverythingBundleProvider(patient, domains);
+		myBundleProvider.setPreferredPageSize(preferredPageSize);
 
-			@Override
-			public Integer preferredPageSize() {
-				return pageSize;
-			}
+		return myBundleProvider;
+	}
 
-			@Override
-			public Integer size() {
-				return totalsize;
-			}
-		};
+	/**
+	 * Bulk data $export of all patients. See {@link BulkExportOperations}.
+	 */
+	@Operation(name = "$export", idempotent = true, manualResponse = true)
+	public void patientExportOperation(RequestDetails theRequestDetails, HttpServletResponse theServletResponse,
+			@OperationParam(name = "_outputFormat") StringDt theOutputFormat,
+			@OperationParam(name = "_type") StringDt theType, @OperationParam(name = "_since") InstantDt theSince)
+			throws IOException {
+		BulkExportOperations.kickOff(theRequestDetails, theServletResponse, theOutputFormat, theType, theSince, true);
 	}
 
 	/**
@@ -458,57 +483,132 @@ public class PatientResourceProvider implements IResourceProvider {
 				includes.add("Patient:link");
 			}
 
-			if (theReverseIncludes.contains(new Include("*"))) {
-				// This is to include all the reverse includes...
-				includes.add("Encounter:subject");
-				includes.add("Observation:subject");
-				includes.add("Device:patient");
-				includes.add("Condition:subject");
-				includes.add("Procedure:subject");
-				includes.add("MedicationRequest:subject");
-				includes.add("MedicationAdministration:subject");
-				includes.add("MedicationDispense:subject");
-				includes.add("MedicationStatement:subject");
-			} else {
-				if (theReverseIncludes.contains(new Include("Encounter:subject"))) {
-					includes.add("Encounter:subject");
-				}
-				if (theReverseIncludes.contains(new Include("Observation:subject"))) {
-					includes.add("Observation:subject");
-				}
-				if (theReverseIncludes.contains(new Include("Device:patient"))) {
-					includes.add("Device:patient");
-				}
-				if (theReverseIncludes.contains(new Include("Condition:subject"))) {
-					includes.add("Condition:subject");
-				}
-				if (theReverseIncludes.contains(new Include("Procedure:subject"))) {
-					includes.add("Procedure:subject");
-				}
-				if (theReverseIncludes.contains(new Include("MedicationRequest:subject"))) {
-					includes.add("MedicationRequest:subject");
-				}
-				if (theReverseIncludes.contains(new Include("MedicationAdministration:subject"))) {
-					includes.add("MedicationAdministration:subject");
-				}
-				if (theReverseIncludes.contains(new Include("MedicationDispense:subject"))) {
-					includes.add("MedicationDispense:subject");
-				}
-				if (theReverseIncludes.contains(new Include("MedicationStatement:subject"))) {
-					includes.add("MedicationStatement:subject");
+			// Only the reverse includes that the mapper can answer. * is all of them.
+			boolean allRevIncludes = theReverseIncludes.contains(new Include("*"));
+			for (String revInclude : getMyMapper().getRevIncludes()) {
+				if (allRevIncludes || theReverseIncludes.contains(new Include(revInclude))) {
+					includes.add(revInclude);
 				}
 			}
 
 			System.out.println("SORT!!!!!! "+orderParams);
-			if (paramList.size() == 0) {
-				getMyMapper().searchWithoutParams(fromIndex, toIndex, retv, includes, orderParams);
-			} else {
-				getMyMapper().searchWithParams(fromIndex, toIndex, paramList, retv, includes, orderParams);
+			searchPage(getMyMapper(), fromIndex, toIndex, retv, includes, orderParams);
+
+			return retv;
+		}
+
+	}
+
+	/**
+	 * Pages $everything lazily. The patient comes first and then each domain in
+	 * order. A page is mapped to the offsets within the domains it covers, and
+	 * those domains are searched in parallel. Only the requested page is ever
+	 * held in memory.
+	 */
+	class EverythingBundleProvider implements IBundleProvider {
+		InstantDt searchTime;
+		USCorePatient patient;
+		List<EverythingDomain> domains;
+		int[] domainSizes;
+		Integer preferredPageSize;
+		Integer totalSize;
+
+		public EverythingBundleProvider(USCorePatient patient, List<EverythingDomain> domains) {
+			this.searchTime = InstantDt.withCurrentTime();
+			this.patient = patient;
+			this.domains = domains;
+
+			List<Future<Long>> sizeFutures = new ArrayList<Future<Long>>();
+			for (EverythingDomain domain : domains) {
+				sizeFutures.add(everythingExecutor.submit(() -> domain.getSize()));
+			}
+
+			domainSizes = new int[domains.size()];
+			int size = 1;
+			for (int i = 0; i < domains.size(); i++) {
+				Long domainSize = waitFor(domains.get(i), sizeFutures.get(i));
+				domainSizes[i] = domainSize == null ? 0 : domainSize.intValue();
+				size += domainSizes[i];
+			}
+			totalSize = size;
+		}
+
+		public void setPreferredPageSize(Integer preferredPageSize) {
+			this.preferredPageSize = preferredPageSize;
+		}
+
+		@Override
+		public IPrimitiveType<Date> getPublished() {
+			return searchTime;
+		}
+
+		@Override
+		public List<IBaseResource> getResources(int fromIndex, int toIndex) {
+			List<IBaseResource> retv = new ArrayList<IBaseResource>();
+
+			// Index 0 is the patient.
+			if (fromIndex == 0 && toIndex > 0) {
+				retv.add(patient);
+			}
+
+			List<Future<List<IBaseResource>>> pageFutures = new ArrayList<Future<List<IBaseResource>>>();
+			List<EverythingDomain> pageDomains = new ArrayList<EverythingDomain>();
+			int domainStart = 1;
+			for (int i = 0; i < domains.size(); i++) {
+				int domainEnd = domainStart + domainSizes[i];
+				final int from = Math.max(fromIndex, domainStart) - domainStart;
+				final int to = Math.min(toIndex, domainEnd) - domainStart;
+				if (from < to) {
+					final EverythingDomain domain = domains.get(i);
+					pageDomains.add(domain);
+					pageFutures.add(everythingExecutor.submit(() -> {
+						List<IBaseResource> resources = new ArrayList<IBaseResource>();
+						domain.search(from, to, resources);
+						return resources;
+					}));
+				}
+				domainStart = domainEnd;
+			}
+
+			for (int i = 0; i < pageFutures.size(); i++) {
+				List<IBaseResource> resources = waitFor(pageDomains.get(i), pageFutures.get(i));
+				if (resources != null) {
+					retv.addAll(resources);
+				}
 			}
 
 			return retv;
 		}
 
+		private <T> T waitFor(EverythingDomain domain, Future<T> future) {
+			try {
+				return future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				ThrowFHIRExceptions.internalErrorException("Interrupted while searching " + domain.getName());
+			} catch (ExecutionException e) {
+				e.printStackTrace();
+				ThrowFHIRExceptions.internalErrorException(
+						"Failed to search " + domain.getName() + ": " + e.getCause().getMessage());
+			}
+
+			return null;
+		}
+
+		@Override
+		public String getUuid() {
+			return null;
+		}
+
+		@Override
+		public Integer preferredPageSize() {
+			return preferredPageSize;
+		}
+
+		@Override
+		public Integer size() {
+			return totalSize;
+		}
 	}
 
-}
\ No newline at end of file
+}
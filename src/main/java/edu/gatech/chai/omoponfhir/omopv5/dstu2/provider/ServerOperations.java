@@ -15,30 +15,30 @@
  *******************************************************************************/
 package edu.gatech.chai.omoponfhir.omopv5.dstu2.provider;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
+
+import javax.servlet.http.HttpServletResponse;
 
 import ca.uhn.fhir.model.primitive.BooleanDt;
 import ca.uhn.fhir.model.dstu2.resource.Bundle;
-import ca.uhn.fhir.model.dstu2.composite.CodeableConceptDt;
 import ca.uhn.fhir.model.dstu2.composite.CodingDt;
 import ca.uhn.fhir.model.dstu2.valueset.MessageEventEnum;
 import ca.uhn.fhir.model.dstu2.resource.MessageHeader;
-import ca.uhn.fhir.model.dstu2.resource.OperationOutcome;
-import ca.uhn.fhir.model.dstu2.resource.MessageHeader.Response;
-import ca.uhn.fhir.model.dstu2.valueset.ResponseTypeEnum;
-import ca.uhn.fhir.model.dstu2.valueset.IssueSeverityEnum;
 import ca.uhn.fhir.model.dstu2.resource.Bundle.Entry;
 import ca.uhn.fhir.model.dstu2.valueset.BundleTypeEnum;
 import ca.uhn.fhir.model.dstu2.resource.BaseResource;
 import ca.uhn.fhir.model.dstu2.valueset.ResourceTypeEnum;
 import ca.uhn.fhir.model.primitive.UriDt;
+import ca.uhn.fhir.rest.annotation.Destroy;
 import ca.uhn.fhir.rest.annotation.Operation;
 import ca.uhn.fhir.rest.annotation.OperationParam;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.server.RestfulServerUtils;
+import ca.uhn.fhir.rest.server.exceptions.UnclassifiedServerFailureException;
 
-import org.hl7.fhir.exceptions.FHIRException;
-
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.mapping.OmopMessageQueue;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.mapping.OmopServerOperations;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.CodeableConceptUtil;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities.ThrowFHIRExceptions;
@@ -48,15 +48,32 @@ public class ServerOperations {
 	
 	public ServerOperations() {
 		myMapper = new OmopServerOperations();
+
+		// Start the message queue now so that the messages saved before a restart
+		// are processed without waiting for the next asynchronous message.
+		OmopMessageQueue.getInstance();
+	}
+
+	/**
+	 * Stops the message queue workers when the server is shut down.
+	 */
+	@Destroy
+	public void destroy() {
+		OmopMessageQueue.shutdown();
 	}
 	
-	@Operation(name="$process-message")
-	public Bundle processMessageOperation(
+	/**
+	 * $process-message. With async=true the message is queued and 202 is returned
+	 * right away. The response message is then POSTed to the response-url.
+	 */
+	@Operation(name="$process-message", manualResponse = true)
+	public void processMessageOperation(
+			RequestDetails theRequestDetails,
+			HttpServletResponse theServletResponse,
 			@OperationParam(name="content") Bundle theContent,
 			@OperationParam(name="async") BooleanDt theAsync,
 			@OperationParam(name="response-url") UriDt theUri
-			) {
-		Bundle retVal = new Bundle();
+			) throws IOException {
 		MessageHeader messageHeader = null;
 		List<BaseResource> resources = new ArrayList<BaseResource>();
 		
@@ -89,35 +106,35 @@ public class ServerOperations {
 			ThrowFHIRExceptions.unprocessableEntityException(
 					"The bundle must be a MESSAGE type");
 		}
-		Response messageHeaderResponse = new Response();
-		messageHeaderResponse.setId(messageHeader.getId());
+		if (messageHeader == null) {
+			ThrowFHIRExceptions.unprocessableEntityException(
+					"The first entry of the message must be MessageHeader");
+		}
 
-		List<Entry> resultEntries = null;
-		try {
-			resultEntries = myMapper.createEntries(resources);
-			messageHeaderResponse.setCode(ResponseTypeEnum.OK);
-		} catch (FHIRException e) {
-			e.printStackTrace();
-			messageHeaderResponse.setCode(ResponseTypeEnum.OK);
-			OperationOutcome outcome = new OperationOutcome();
-			CodeableConceptDt detailCode = new CodeableConceptDt();
-			detailCode.setText(e.getMessage());
-			outcome.addIssue().setSeverity(IssueSeverityEnum.ERROR).setDetails(detailCode);
-//			messageHeaderResponse.setDetailsTarget(outcome);
-//	We don't have this in DSTU2
+		if (theAsync != null && Boolean.TRUE.equals(theAsync.getValue())) {
+			if (theUri == null || theUri.isEmpty()) {
+				ThrowFHIRExceptions.unprocessableEntityException(
+						"response-url is required for the asynchronous $process-message");
+			}
+			if (!OmopMessageQueue.isValidResponseUrl(theUri.getValueAsString())) {
+				ThrowFHIRExceptions.unprocessableEntityException("response-url must be an http or https URL");
+			}
+
+			String messageId = OmopMessageQueue.getInstance().enqueue(theContent, theUri.getValueAsString());
+			if (messageId == null) {
+				throw new UnclassifiedServerFailureException(HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+						"The message queue is full. Try again later.");
+			}
+
+			theServletResponse.setStatus(HttpServletResponse.SC_ACCEPTED);
+			theServletResponse.setHeader("X-Message-Id", messageId);
+			theServletResponse.getOutputStream().close();
+			return;
 		}
-		
-		messageHeader.setResponse(messageHeaderResponse);
-		Entry responseMessageEntry = new Entry();
-		UUID uuid = UUID.randomUUID();
-		responseMessageEntry.setFullUrl("urn:uuid:"+uuid.toString());
-		responseMessageEntry.setResource(messageHeader);
-		
-		if (resultEntries == null) resultEntries = new ArrayList<Entry>();
-		
-		resultEntries.add(0, responseMessageEntry);
-		retVal.setEntry(resultEntries);
-		
-		return retVal;
+
+		Bundle retVal = myMapper.processMessage(messageHeader, resources);
+		RestfulServerUtils.streamResponseAsResource(theRequestDetails.getServer(), retVal,
+				RestfulServerUtils.determineSummaryMode(theRequestDetails), HttpServletResponse.SC_OK, false,
+				theRequestDetails.isRespondGzip(), theRequestDetails);
 	}
 }
@@ -124,9 +124,9 @@ public class SystemTransactionProvider {
 		for (int i = 1; i < sizeOfEntries; i++) {
 			entry = entries.get(i);
 			if (verb != null || (entry.getRequest() != null && !entry.getRequest().isEmpty())) {
-				if (verb == HTTPVerbEnum.POST || entry.getRequest().getMethod() == HTTPVerbEnum.POST.toString()) {
+				if (verb == HTTPVerbEnum.POST || HTTPVerbEnum.POST.getCode().equals(entry.getRequest().getMethod())) {
 					postList.add((BaseResource)entry.getResource());
-				} else if (verb == HTTPVerbEnum.PUT || entry.getRequest().getMethod() == HTTPVerbEnum.PUT.toString()) {
+				} else if (verb == HTTPVerbEnum.PUT || HTTPVerbEnum.PUT.getCode().equals(entry.getRequest().getMethod())) {
 					// This is to update. Get URL
 					String urlString = entry.getRequest().getUrl();
 					IdDt idType = new IdDt(urlString);
@@ -163,7 +163,8 @@ public class SystemTransactionProvider {
 
 		try {
 			BaseResource resource;
-			switch (theBundle.getType()) {
+			String bundleType = theBundle.getType() == null ? "" : theBundle.getType().toUpperCase();
+			switch (bundleType) {
 			case "DOCUMENT":
 				// https://www.hl7.org/fhir/documents.html#bundle
 				// Ignore the fact that the bundle is a document and process all of the
@@ -223,41 +224,7 @@ public class SystemTransactionProvider {
 //							.unprocessableEntityException("First entry in Bundle document type should be Composition");
 //				}
 			case "TRANSACTION":
-				System.out.println("We are at the transaction");
-				for (Entry nextEntry : theBundle.getEntry()) {
-					resource = (BaseResource) nextEntry.getResource();
-					EntryRequest request = nextEntry.getRequest();
-
-					// We require a transaction to have a request so that we can
-					// handle the transaction. Without it, we have nothing to
-					// do.
-					if (request == null)
-						continue;
-
-					if (!request.isEmpty()) {
-						// First check the Resource to see if we can support
-						// this. resourceName =
-						// resource.getResourceType().toString();
-
-						// Now we have a request that we support. Add this into
-						// the entry to process.
-//						HTTPVerbEnum method = request.getMethod();
-						String method = request.getMethod();
-						if (method == HTTPVerbEnum.POST.toString()) {
-							postList.add(resource);
-						} else if (method == HTTPVerbEnum.PUT.toString()) {
-							putList.add(resource);
-						} else if (method == HTTPVerbEnum.DELETE.toString()) {
-							deleteList.add(request.getUrl());
-						} else if (method == HTTPVerbEnum.GET.toString()) {
-							// TODO: getList.add(new ParameterWrapper());
-							// create parameter here.
-						} else {
-							continue;
-						}
-					}
-				}
-
+				addTransactionEntries(theBundle.getEntry(), postList, putList, deleteList);
 				break;
 			case "MESSAGE":
 //				entry = theBundle.getEntryFirstRep();
@@ -285,7 +252,17 @@ public class SystemTransactionProvider {
 						+ theBundle.getType().toString() + ". We support DOCUMENT, TRANSACTION, and MESSAGE");
 			}
 
-			List<Entry> responseTransaction = myMapper.executeRequests(transactionEntries);
+			List<Entry> responseTransaction;
+			if (isAtomicTransaction(theBundle, postList, putList, deleteList)) {
+				// All or nothing. A failed entry fails the whole bundle.
+				try {
+					responseTransaction = myMapper.executeTransaction(transactionEntries);
+				} catch (FHIRException e) {
+					throw ThrowFHIRExceptions.unprocessableEntityException(e.getMessage());
+				}
+			} else {
+				responseTransaction = myMapper.executeRequests(transactionEntries);
+			}
 			if (responseTransaction != null && responseTransaction.size() > 0) {
 				retVal.setEntry(responseTransaction);
 				retVal.setType(BundleTypeEnum.TRANSACTION_RESPONSE);
@@ -302,6 +279,46 @@ public class SystemTransactionProvider {
 		return retVal;
 	}
 
+	/**
+	 * Sorts the entries of a transaction bundle by their request method. Entries
+	 * without a request are skipped.
+	 */
+	static void addTransactionEntries(List<Entry> entries, List<BaseResource> postList, List<BaseResource> putList,
+			List<String> deleteList) {
+		for (Entry nextEntry : entries) {
+			BaseResource resource = (BaseResource) nextEntry.getResource();
+			EntryRequest request = nextEntry.getRequest();
+
+			// We require a transaction to have a request so that we can
+			// handle the transaction. Without it, we have nothing to
+			// do.
+			if (request == null || request.isEmpty())
+				continue;
+
+			String method = request.getMethod();
+			if (HTTPVerbEnum.POST.getCode().equals(method)) {
+				postList.add(resource);
+			} else if (HTTPVerbEnum.PUT.getCode().equals(method)) {
+				putList.add(resource);
+			} else if (HTTPVerbEnum.DELETE.getCode().equals(method)) {
+				deleteList.add(request.getUrl());
+			} else if (HTTPVerbEnum.GET.getCode().equals(method)) {
+				// TODO: getList.add(new ParameterWrapper());
+				// create parameter here.
+			}
+		}
+	}
+
+	/**
+	 * A transaction bundle that only creates resources is written all or
+	 * nothing.
+	 */
+	static boolean isAtomicTransaction(Bundle theBundle, List<BaseResource> postList, List<BaseResource> putList,
+			List<String> deleteList) {
+		return BundleTypeEnum.TRANSACTION.getCode().equals(theBundle.getType()) && !postList.isEmpty()
+				&& putList.isEmpty() && deleteList.isEmpty();
+	}
+
 	// TODO: Add more validation code here.
 	private void validateResource(MyBundle theBundle) {
 	}
@@ -25,12 +25,28 @@ import org.hl7.fhir.exceptions.FHIRException;
 
 import ca.uhn.fhir.model.dstu2.composite.CodingDt;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.mapping.OmopCodeableConceptMapping;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.mapping.OmopConceptMapping;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.mapping.OmopNoteTypeMapping;
 import edu.gatech.chai.omoponfhir.local.dao.FhirOmopVocabularyMapImpl;
 import edu.gatech.chai.omopv5.dba.service.ConceptService;
 import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
 import edu.gatech.chai.omopv5.model.entity.Concept;
 
 public class CodeableConceptUtil {
+	private static final int CONCEPT_CACHE_SIZE = 20000;
+	private static final long CONCEPT_CACHE_TTL = 60L * 60L * 1000L;
+	private static final long CONCEPT_CACHE_NEGATIVE_TTL = 5L * 60L * 1000L;
+
+	// (vocabulary id, concept code) to concept. Misses are also cached, but for a
+	// shorter time so that concepts added later (eg. local code mappings) show up.
+	private static final ExpiringLruCache<String, Concept> conceptCodeCache = new ExpiringLruCache<String, Concept>(
+			CONCEPT_CACHE_SIZE, CONCEPT_CACHE_TTL, CONCEPT_CACHE_NEGATIVE_TTL);
+
+	// concept id to concept. Shared by all the mappers.
+	private static final ExpiringLruCache<Long, Concept> conceptIdCache = new ExpiringLruCache<Long, Concept>(
+			CONCEPT_CACHE_SIZE, CONCEPT_CACHE_TTL, CONCEPT_CACHE_NEGATIVE_TTL);
+	private static volatile boolean wellKnownConceptsLoaded = false;
+
 	public static void addCodingFromOmopConcept(CodeableConceptDt codeableConcept, Concept concept) throws FHIRException {
 		String fhirUri = OmopCodeableConceptMapping.fhirUriforOmopVocabulary(concept.getVocabularyId());
 
@@ -43,7 +59,7 @@ public class CodeableConceptUtil {
 	}
 	
 	public static CodingDt getCodingFromOmopConcept(Concept concept, FhirOmopVocabularyMapImpl fhirOmopVocabularyMap) throws FHIRException {
-		String fhirUri = fhirOmopVocabularyMap.getFhirSystemNameFromOmopVocabulary(concept.getVocabularyId());
+		String fhirUri = VocabularyRegistry.getFhirSystemNameFromOmopVocabulary(concept.getVocabularyId());
 
 		CodingDt coding = new CodingDt();
 		coding.setSystem(fhirUri);
@@ -69,7 +85,12 @@ public class CodeableConceptUtil {
 	
 	public static Concept getOmopConceptWithOmopVacabIdAndCode(ConceptService conceptService, String omopVocabularyId, String code) {
 		if (omopVocabularyId == null) return null;
-		
+
+		return conceptCodeCache.get(omopVocabularyId + "|" + code,
+				key -> searchOmopConceptWithOmopVacabIdAndCode(conceptService, omopVocabularyId, code));
+	}
+
+	private static Concept searchOmopConceptWithOmopVacabIdAndCode(ConceptService conceptService, String omopVocabularyId, String code) {
 		ParameterWrapper param = new ParameterWrapper(
 				"String",
 				Arrays.asList("vocabularyId", "conceptCode"),
@@ -89,7 +110,56 @@ public class CodeableConceptUtil {
 		// We should have only one entry... so... 
 		return conceptIds.get(0);
 	}
-	
+
+	public static ExpiringLruCache<String, Concept> getConceptCodeCache() {
+		return conceptCodeCache;
+	}
+
+	public static Concept getOmopConceptById(ConceptService conceptService, Long conceptId) {
+		if (conceptId == null) return null;
+
+		return conceptIdCache.get(conceptId, key -> conceptService.findById(key));
+	}
+
+	public static ExpiringLruCache<Long, Concept> getConceptIdCache() {
+		return conceptIdCache;
+	}
+
+	/**
+	 * Loads the concepts that the mappers look up by id over and over again, such
+	 * as 'No matching concept', gender, note type and measurement value concepts.
+	 * Only the first call does the work.
+	 */
+	public static void preloadWellKnownConcepts(ConceptService conceptService) {
+		if (wellKnownConceptsLoaded) return;
+
+		synchronized (conceptIdCache) {
+			if (wellKnownConceptsLoaded) return;
+
+			List<Long> conceptIds = new ArrayList<Long>();
+			conceptIds.add(0L);
+
+			// Measurement value concepts: None detected, Not detected, Detected
+			conceptIds.addAll(Arrays.asList(45878003L, 45880296L, 45877985L));
+
+			conceptIds.add(OmopConceptMapping.MALE.getOmopConceptId());
+			conceptIds.add(OmopConceptMapping.FEMALE.getOmopConceptId());
+			conceptIds.add(OmopConceptMapping.UNKNOWN.getOmopConceptId());
+			conceptIds.add(OmopConceptMapping.ADMIN_OTHER.getOmopConceptId());
+
+			for (OmopNoteTypeMapping noteType : OmopNoteTypeMapping.values()) {
+				conceptIds.add(noteType.getOmopOmopTypeConceptId());
+				conceptIds.add(noteType.getOmopLoincTypeConceptId());
+			}
+
+			for (Long conceptId : conceptIds) {
+				getOmopConceptById(conceptService, conceptId);
+			}
+
+			wellKnownConceptsLoaded = true;
+		}
+	}
+
 	public static Concept getOmopConceptWithFhirConcept(ConceptService conceptService, CodingDt fhirCoding) throws FHIRException {
 		String system = fhirCoding.getSystem();
 		String code = fhirCoding.getCode();
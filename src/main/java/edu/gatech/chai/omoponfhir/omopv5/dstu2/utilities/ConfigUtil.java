@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Parses the numbers in the servlet init parameters and environment variables.
+ * A missing or blank value gives the default. So does a value that is not a
+ * number or is out of range, with a warning.
+ */
+public class ConfigUtil {
+	private static final Logger logger = LoggerFactory.getLogger(ConfigUtil.class);
+
+	/**
+	 * Returns the value of the parameter if it is a number greater than 0.
+	 */
+	public static int getPositiveInt(String name, String value, int defaultValue) {
+		return getInt(name, value, 1, defaultValue);
+	}
+
+	/**
+	 * Returns the value of the parameter if it is a number greater than or equal
+	 * to 0.
+	 */
+	public static int getNonNegativeInt(String name, String value, int defaultValue) {
+		return getInt(name, value, 0, defaultValue);
+	}
+
+	private static int getInt(String name, String value, int minValue, int defaultValue) {
+		if (value == null || value.trim().isEmpty()) {
+			return defaultValue;
+		}
+
+		try {
+			int intValue = Integer.parseInt(value.trim());
+			if (intValue >= minValue) {
+				return intValue;
+			}
+		} catch (NumberFormatException e) {
+			// Warned below.
+		}
+
+		logger.warn(name + " must be a number of at least " + minValue + ". But, it is set to " + value
+				+ ". " + defaultValue + " is used.");
+		return defaultValue;
+	}
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Thread-safe, size-bounded LRU cache with per-entry expiration.
+ *
+ * A null value returned by the loader is cached as a miss (negative entry) with
+ * its own, usually shorter, time to live. A ttl of 0 or less means entries
+ * never expire.
+ */
+public class ExpiringLruCache<K, V> {
+	private final int maxSize;
+	private final long ttlMillis;
+	private final long negativeTtlMillis;
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final LinkedHashMap<K, Entry<V>> entries;
+
+	private static class Entry<V> {
+		final V value;
+		final long expiresAt;
+
+		Entry(V value, long ttlMillis) {
+			this.value = value;
+			this.expiresAt = ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE;
+		}
+
+		boolean isExpired(long now) {
+			return now >= expiresAt;
+		}
+	}
+
+	public ExpiringLruCache(final int maxSize, long ttlMillis, long negativeTtlMillis) {
+		this.maxSize = maxSize;
+		this.ttlMillis = ttlMillis;
+		this.negativeTtlMillis = negativeTtlMillis;
+		this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+				return size() > ExpiringLruCache.this.maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached value for the key. If the key is not cached or expired,
+	 * the loader is called and its result, including null, is cached.
+	 */
+	public V get(K key, Function<K, V> loader) {
+		long now = System.currentTimeMillis();
+		synchronized (entries) {
+			Entry<V> entry = entries.get(key);
+			if (entry != null) {
+				if (!entry.isExpired(now)) {
+					hitCount.incrementAndGet();
+					return entry.value;
+				}
+				entries.remove(key);
+			}
+		}
+
+		missCount.incrementAndGet();
+
+		// Load outside of the lock. Two threads may load the same key at the
+		// same time. The last one wins, which is fine for read-only lookups.
+		V value = loader.apply(key);
+		put(key, value);
+
+		return value;
+	}
+
+	public void put(K key, V value) {
+		Entry<V> entry = new Entry<V>(value, value == null ? negativeTtlMillis : ttlMillis);
+		synchronized (entries) {
+			entries.put(key, entry);
+		}
+	}
+
+	public boolean containsKey(K key) {
+		synchronized (entries) {
+			Entry<V> entry = entries.get(key);
+			return entry != null && !entry.isExpired(System.currentTimeMillis());
+		}
+	}
+
+	public void invalidate(K key) {
+		synchronized (entries) {
+			entries.remove(key);
+		}
+	}
+
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	@Override
+	public String toString() {
+		return "size=" + size() + "/" + maxSize + ", hits=" + hitCount.get() + ", misses=" + missCount.get();
+	}
+}
@@ -1,42 +1,126 @@
 package edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities;
 
+import ca.uhn.fhir.model.dstu2.composite.CodingDt;
 import ca.uhn.fhir.model.dstu2.resource.BaseResource;
+import ca.uhn.fhir.model.dstu2.resource.DeviceUseStatement;
+import ca.uhn.fhir.model.dstu2.resource.Patient;
 
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
-import ca.uhn.fhir.context.FhirContext;
-import ca.uhn.fhir.parser.IParser;
+import org.hl7.fhir.instance.model.api.IBase;
+
+import ca.uhn.fhir.context.BaseRuntimeChildDefinition;
+import ca.uhn.fhir.context.RuntimeResourceDefinition;
+import ca.uhn.fhir.model.api.ExtensionDt;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.model.MyDeviceUseStatement;
 import edu.gatech.chai.omoponfhir.omopv5.dstu2.model.USCorePatient;
 
 public class ExtensionUtil {
 
-	public static Map<String, Long>  resourceCounts = new HashMap<String, Long>();
+	public static final String US_CORE_RACE_URL = "http://hl7.org/fhir/us/core/StructureDefinition/us-core-race";
+	public static final String US_CORE_ETHNICITY_URL = "http://hl7.org/fhir/us/core/StructureDefinition/us-core-ethnicity";
 
+	/**
+	 * Converts a Patient to USCorePatient without encoding and parsing it. The
+	 * elements are moved, not copied, so the USCorePatient shares them with the
+	 * source Patient. The us-core race and ethnicity extensions are moved to their
+	 * USCorePatient fields.
+	 */
 	public static USCorePatient usCorePatientFromResource(BaseResource resource) {
-		IParser p = StaticValues.myFhirContext.newJsonParser();
-		String patientJSON = p.encodeResourceToString(resource);
+		if (resource instanceof USCorePatient) {
+			return (USCorePatient) resource;
+		}
+
+		USCorePatient patient = new USCorePatient();
+		moveElements(resource, patient, Patient.class);
+
+		for (ExtensionDt extension : resource.getUndeclaredExtensions()) {
+			if (US_CORE_RACE_URL.equals(extension.getUrl())) {
+				addOmbCategories(extension, patient.getRace().getCategory());
+			} else if (US_CORE_ETHNICITY_URL.equals(extension.getUrl())) {
+				addOmbCategories(extension, patient.getEthnicity().getCategory());
+			} else {
+				patient.addUndeclaredExtension(extension);
+			}
+		}
+		for (ExtensionDt extension : resource.getUndeclaredModifierExtensions()) {
+			patient.addUndeclaredExtension(extension);
+		}
+
+		return patient;
+	}
+
+	/**
+	 * Converts a DeviceUseStatement to MyDeviceUseStatement the same way as
+	 * {@link #usCorePatientFromResource(BaseResource)}.
+	 */
+	public static MyDeviceUseStatement myDeviceUseStatementFromResource(BaseResource resource) {
+		if (resource instanceof MyDeviceUseStatement) {
+			return (MyDeviceUseStatement) resource;
+		}
+
+		MyDeviceUseStatement deviceUseStatement = new MyDeviceUseStatement();
+		moveElements(resource, deviceUseStatement, DeviceUseStatement.class);
+		for (ExtensionDt extension : resource.getUndeclaredExtensions()) {
+			deviceUseStatement.addUndeclaredExtension(extension);
+		}
+		for (ExtensionDt extension : resource.getUndeclaredModifierExtensions()) {
+			deviceUseStatement.addUndeclaredExtension(extension);
+		}
 
-		return p.parseResource(USCorePatient.class, patientJSON);
+		return deviceUseStatement;
+	}
+
+	/**
+	 * Moves the id, meta and the elements of the resource type, except the
+	 * undeclared extensions, from source to target.
+	 */
+	private static void moveElements(BaseResource source, BaseResource target,
+			Class<? extends BaseResource> resourceType) {
+		target.setId(source.getId());
+		target.setResourceMetadata(source.getResourceMetadata());
+
+		RuntimeResourceDefinition definition = StaticValues.myFhirContext.getResourceDefinition(resourceType);
+		for (BaseRuntimeChildDefinition child : definition.getChildren()) {
+			if ("extension".equals(child.getElementName()) || "modifierExtension".equals(child.getElementName())) {
+				continue;
+			}
+
+			List<IBase> values = child.getAccessor().getValues(source);
+			for (IBase value : values) {
+				child.getMutator().addValue(target, value);
+			}
+		}
+	}
+
+	private static void addOmbCategories(ExtensionDt extension, List<CodingDt> categories) {
+		for (ExtensionDt category : extension.getUndeclaredExtensionsByUrl("ombCategory")) {
+			if (category.getValue() instanceof CodingDt) {
+				categories.add((CodingDt) category.getValue());
+			}
+		}
 	}
 	
+	/**
+	 * Counts of all resources of each type. See {@link ResourceCountRegistry}.
+	 */
 	public static Map<String, Long> getResourceCounts () {
-		return ExtensionUtil.resourceCounts;
+		return ResourceCountRegistry.getInstance().getCounts();
 	}
 	
 	public static void setResourceCounts (Map<String, Long> resourceCounts) {
-		ExtensionUtil.resourceCounts = resourceCounts;
+		for (Map.Entry<String, Long> entry : resourceCounts.entrySet()) {
+			addResourceCount(entry.getKey(), entry.getValue());
+		}
 	}
 	
 	public static void addResourceCount (String resourceName, Long count) {
-		Map<String, Long> counts = ExtensionUtil.getResourceCounts();
-		
-		counts.put(resourceName, count);
+		ResourceCountRegistry.getInstance().setCount(resourceName, count);
 	}
 	
 	public static Long getResourceCount (String resourceName) {
-		Map<String, Long> counts = ExtensionUtil.getResourceCounts();
-		Long count = counts.get(resourceName);
+		Long count = ResourceCountRegistry.getInstance().getCount(resourceName);
 		
 		if (count == null) return 0L;
 		
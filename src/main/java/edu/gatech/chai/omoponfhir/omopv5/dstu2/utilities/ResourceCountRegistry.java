@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.context.ContextLoaderListener;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Total number of resources of each type. The counts are used by the searches
+ * without parameters, _summary=count and the CapabilityStatement.
+ *
+ * Each mapper registers the function that counts all of its resources. The
+ * counts are taken in the background when a mapper registers and then every
+ * resourceCountRefresh seconds (default 600). When resources of a type are
+ * written, the type is counted again in the background. Until that count is
+ * done, the last count is returned. Writes that come while a count is queued
+ * share it. Setting resourceCountRefresh to 0 disables the registry, and the
+ * resources are counted on every request.
+ */
+public class ResourceCountRegistry {
+	private static final Logger logger = LoggerFactory.getLogger(ResourceCountRegistry.class);
+
+	private static ResourceCountRegistry resourceCountRegistry = null;
+
+	private final long refreshMillis;
+	private final Map<String, Long> counts = new ConcurrentHashMap<String, Long>();
+	private final Map<String, Supplier<Long>> counters = new ConcurrentHashMap<String, Supplier<Long>>();
+	// Each count of a type gets the next sequence number. A count is kept only if
+	// it started after the count that is kept now.
+	private final Map<String, AtomicLong> sequences = new ConcurrentHashMap<String, AtomicLong>();
+	private final Map<String, Long> countSequences = new ConcurrentHashMap<String, Long>();
+	// Types with a background count queued that has not started yet.
+	private final Set<String> queued = ConcurrentHashMap.newKeySet();
+	private ScheduledExecutorService executor = null;
+
+	private ResourceCountRegistry() {
+		int refresh = 600;
+
+		WebApplicationContext context = ContextLoaderListener.getCurrentWebApplicationContext();
+		if (context != null && context.getServletContext() != null) {
+			refresh = ConfigUtil.getNonNegativeInt("resourceCountRefresh",
+					context.getServletContext().getInitParameter("resourceCountRefresh"), refresh);
+		}
+
+		refreshMillis = refresh * 1000L;
+		if (refreshMillis > 0) {
+			executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "resource-count-refresh");
+				thread.setDaemon(true);
+				return thread;
+			});
+			executor.scheduleWithFixedDelay(this::refreshAll, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	public static synchronized ResourceCountRegistry getInstance() {
+		if (resourceCountRegistry == null) {
+			resourceCountRegistry = new ResourceCountRegistry();
+		}
+
+		return resourceCountRegistry;
+	}
+
+	public boolean isEnabled() {
+		return executor != null;
+	}
+
+	/**
+	 * Registers the function that counts all resources of the type and counts
+	 * them in the background.
+	 */
+	public void register(String resourceType, Supplier<Long> counter) {
+		counters.put(resourceType, counter);
+		refresh(resourceType);
+	}
+
+	/**
+	 * Counts the resources of the type again in the background, if the type is
+	 * registered.
+	 */
+	public void refresh(String resourceType) {
+		if (isEnabled() && counters.containsKey(resourceType) && queued.add(resourceType)) {
+			executor.execute(() -> {
+				queued.remove(resourceType);
+				count(resourceType);
+			});
+		}
+	}
+
+	/**
+	 * Counts the resource type again in the background. The last count is
+	 * returned until then. Call this after the resources of the type are created,
+	 * updated or removed.
+	 */
+	public void invalidate(String resourceType) {
+		refresh(resourceType);
+	}
+
+	/**
+	 * Returns the count of the resource type. Only if it has never been counted,
+	 * it is counted now with the counter.
+	 */
+	public Long getCount(String resourceType, Supplier<Long> counter) {
+		Long count = isEnabled() ? counts.get(resourceType) : null;
+		if (count == null) {
+			count = count(resourceType, counter);
+		}
+
+		return count;
+	}
+
+	/**
+	 * Returns the count of the resource type, or null if it has not been counted.
+	 */
+	public Long getCount(String resourceType) {
+		return counts.get(resourceType);
+	}
+
+	public void setCount(String resourceType, Long count) {
+		if (resourceType != null && count != null) {
+			counts.put(resourceType, count);
+		}
+	}
+
+	/**
+	 * Read-only view of the counts, keyed by resource type.
+	 */
+	public Map<String, Long> getCounts() {
+		return Collections.unmodifiableMap(counts);
+	}
+
+	private void refreshAll() {
+		for (String resourceType : counters.keySet()) {
+			count(resourceType);
+		}
+	}
+
+	private void count(String resourceType) {
+		Supplier<Long> counter = counters.get(resourceType);
+		if (counter == null) {
+			return;
+		}
+
+		try {
+			long start = System.currentTimeMillis();
+			count(resourceType, counter);
+			logger.debug(resourceType + " counted in " + (System.currentTimeMillis() - start) + "ms");
+		} catch (RuntimeException e) {
+			logger.error("Failed to count " + resourceType + ". " + e.getMessage());
+		}
+	}
+
+	private Long count(String resourceType, Supplier<Long> counter) {
+		AtomicLong sequence = sequences.computeIfAbsent(resourceType, key -> new AtomicLong());
+		long countSequence = sequence.incrementAndGet();
+		Long count = counter.get();
+		synchronized (sequence) {
+			Long keptSequence = countSequences.get(resourceType);
+			if (count != null && (keptSequence == null || keptSequence < countSequence)) {
+				setCount(resourceType, count);
+				countSequences.put(resourceType, countSequence);
+			}
+		}
+
+		return count;
+	}
+}
@@ -0,0 +1,227 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.web.context.ContextLoaderListener;
+import org.springframework.web.context.WebApplicationContext;
+
+import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
+
+/**
+ * Server side cache of search results. For each search (resource type and
+ * parameters) it keeps the total count and, once a search is paged, the ordered
+ * OMOP ids of all matches. Later pages are then read by id instead of running
+ * the full WHERE clause again.
+ *
+ * Entries expire after searchCacheTtl seconds (default 300, 0 disables the
+ * cache). The id lists are bounded by searchCacheMemory in megabytes (default
+ * 64). The least recently used searches are evicted first. Searches with more
+ * than searchCacheMaxIds matches (default 10000) do not get their ids cached.
+ */
+public class SearchResultCache {
+	private static SearchResultCache searchResultCache = null;
+
+	private final long ttlMillis;
+	private final long memoryBudget;
+	private final int maxIdsPerSearch;
+
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+	private long usedMemory = 0;
+
+	private static class Entry {
+		final long expiresAt;
+		Long count;
+		String sort;
+		long[] ids;
+
+		Entry(long ttlMillis) {
+			this.expiresAt = System.currentTimeMillis() + ttlMillis;
+		}
+
+		long memory() {
+			return ids == null ? 0 : ids.length * 8L;
+		}
+	}
+
+	private SearchResultCache() {
+		int ttl = 300;
+		int memory = 64;
+		int maxIds = 10000;
+
+		WebApplicationContext context = ContextLoaderListener.getCurrentWebApplicationContext();
+		if (context != null && context.getServletContext() != null) {
+			ttl = getIntParameter(context, "searchCacheTtl", ttl);
+			memory = getIntParameter(context, "searchCacheMemory", memory);
+			maxIds = getIntParameter(context, "searchCacheMaxIds", maxIds);
+		}
+
+		ttlMillis = ttl * 1000L;
+		memoryBudget = memory * 1024L * 1024L;
+		maxIdsPerSearch = maxIds;
+	}
+
+	public static synchronized SearchResultCache getInstance() {
+		if (searchResultCache == null) {
+			searchResultCache = new SearchResultCache();
+		}
+
+		return searchResultCache;
+	}
+
+	private static int getIntParameter(WebApplicationContext context, String name, int defaultValue) {
+		return ConfigUtil.getNonNegativeInt(name, context.getServletContext().getInitParameter(name), defaultValue);
+	}
+
+	public boolean isEnabled() {
+		return ttlMillis > 0;
+	}
+
+	public int getMaxIdsPerSearch() {
+		return maxIdsPerSearch;
+	}
+
+	/**
+	 * Key of a search. Two searches with the same resource type and parameters
+	 * in the same order share the key.
+	 */
+	public static String createKey(String resourceType, List<ParameterWrapper> paramList) {
+		StringBuilder key = new StringBuilder(resourceType);
+		for (ParameterWrapper param : paramList) {
+			key.append("|").append(param.getUpperRelationship()).append(":").append(param.getParameterType())
+					.append(":").append(param.getParameters()).append(param.getOperators()).append(param.getValues())
+					.append(":").append(param.getRelationship());
+		}
+
+		return key.toString();
+	}
+
+	/**
+	 * Returns the cached count of the search, or counts it with the loader.
+	 */
+	public Long getCount(String key, Supplier<Long> loader) {
+		if (!isEnabled()) {
+			return loader.get();
+		}
+
+		synchronized (this) {
+			Entry entry = getEntry(key);
+			if (entry != null && entry.count != null) {
+				return entry.count;
+			}
+		}
+
+		Long count = loader.get();
+		synchronized (this) {
+			Entry entry = getEntry(key);
+			if (entry == null) {
+				entry = new Entry(ttlMillis);
+				entries.put(key, entry);
+			}
+			entry.count = count;
+		}
+
+		return count;
+	}
+
+	/**
+	 * Returns the cached ids of the search in the given sort order, or null.
+	 */
+	public synchronized long[] getIds(String key, String sort) {
+		if (!isEnabled()) {
+			return null;
+		}
+
+		Entry entry = getEntry(key);
+		if (entry == null || entry.ids == null || !sameSort(sort, entry.sort)) {
+			return null;
+		}
+
+		return entry.ids;
+	}
+
+	public synchronized void putIds(String key, String sort, long[] ids) {
+		long memory = ids.length * 8L;
+		if (!isEnabled() || memory > memoryBudget) {
+			return;
+		}
+
+		Entry entry = getEntry(key);
+		if (entry == null) {
+			entry = new Entry(ttlMillis);
+			entries.put(key, entry);
+		}
+		usedMemory -= entry.memory();
+		entry.sort = sort;
+		entry.ids = ids;
+		usedMemory += memory;
+
+		// Evict the least recently used searches until we are within the budget.
+		Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+		while (usedMemory > memoryBudget && iterator.hasNext()) {
+			Map.Entry<String, Entry> eldest = iterator.next();
+			if (eldest.getValue() == entry) {
+				continue;
+			}
+			usedMemory -= eldest.getValue().memory();
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * Removes the cached searches of the resource type. Call this when the
+	 * resources of the type are created, updated or deleted.
+	 */
+	public synchronized void invalidate(String resourceType) {
+		Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<String, Entry> entry = iterator.next();
+			if (entry.getKey().equals(resourceType) || entry.getKey().startsWith(resourceType + "|")) {
+				usedMemory -= entry.getValue().memory();
+				iterator.remove();
+			}
+		}
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+		usedMemory = 0;
+	}
+
+	private Entry getEntry(String key) {
+		Entry entry = entries.get(key);
+		if (entry != null && System.currentTimeMillis() >= entry.expiresAt) {
+			usedMemory -= entry.memory();
+			entries.remove(key);
+			return null;
+		}
+
+		return entry;
+	}
+
+	private static boolean sameSort(String sort1, String sort2) {
+		if (sort1 == null || sort1.isEmpty()) {
+			return sort2 == null || sort2.isEmpty();
+		}
+
+		return sort1.equalsIgnoreCase(sort2);
+	}
+}
@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.mapping.OmopCodeableConceptMapping;
+import edu.gatech.chai.omopv5.dba.service.ConceptService;
+import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
+import edu.gatech.chai.omopv5.model.entity.Concept;
+
+/**
+ * Resolves unit strings, such as dose_unit_source_value and unit_source_value,
+ * to UCUM concepts.
+ *
+ * All the UCUM concepts are loaded once into an in-memory index. A unit string
+ * is first matched to the UCUM codes as is. Then, it is normalized (lower case,
+ * no spaces, no plural 's') and matched to the codes, the concept names and
+ * some common synonyms.
+ */
+public class UnitConceptResolver {
+	private static final Logger logger = LoggerFactory.getLogger(UnitConceptResolver.class);
+
+	// Common ways to write the units that are not UCUM codes or concept names.
+	private static final String[][] SYNONYMS = {
+			{ "mcg", "ug" }, { "microgram", "ug" }, { "µg", "ug" },
+			{ "cc", "mL" }, { "ml", "mL" }, { "milliliter", "mL" }, { "millilitre", "mL" },
+			{ "l", "L" }, { "liter", "L" }, { "litre", "L" },
+			{ "gm", "g" }, { "gram", "g" }, { "kilogram", "kg" }, { "milligram", "mg" },
+			{ "iu", "[iU]" }, { "internationalunit", "[iU]" },
+			{ "hr", "h" }, { "hour", "h" }, { "minute", "min" }, { "day", "d" }, { "week", "wk" },
+			{ "percent", "%" }, { "lb", "[lb_av]" }, { "pound", "[lb_av]" }, { "inch", "[in_i]" },
+			{ "degf", "[degF]" }, { "degc", "Cel" }, { "celsius", "Cel" }, { "bpm", "/min" },
+			{ "beats/min", "/min" }, { "breaths/min", "/min" }, { "mmhg", "mm[Hg]" } };
+
+	// Time to wait before the UCUM concepts are loaded again after a failure.
+	private static final long MIN_RETRY_MILLIS = 30000L;
+	private static final long MAX_RETRY_MILLIS = 600000L;
+
+	private static volatile Index index = null;
+	private static ConceptService conceptService = null;
+	private static long retryMillis = MIN_RETRY_MILLIS;
+	private static volatile long nextAttempt = 0L;
+
+	private static class Index {
+		final Map<String, Concept> byCode;
+		final Map<String, Concept> byNormalizedName;
+
+		Index(Map<String, Concept> byCode, Map<String, Concept> byNormalizedName) {
+			this.byCode = Collections.unmodifiableMap(byCode);
+			this.byNormalizedName = Collections.unmodifiableMap(byNormalizedName);
+		}
+	}
+
+	/**
+	 * Loads the UCUM concepts. Only the first successful call does the work. If
+	 * the load fails, {@link #resolve(String)} tries again later with the same
+	 * service, waiting twice as long after each failure (up to 10 minutes).
+	 */
+	public static void load(ConceptService conceptService) {
+		if (index != null) return;
+
+		synchronized (UnitConceptResolver.class) {
+			if (index != null || System.currentTimeMillis() < nextAttempt) return;
+
+			UnitConceptResolver.conceptService = conceptService;
+			tryLoad();
+		}
+	}
+
+	private static void retryLoad() {
+		if (System.currentTimeMillis() < nextAttempt) return;
+
+		synchronized (UnitConceptResolver.class) {
+			if (conceptService == null || System.currentTimeMillis() < nextAttempt) return;
+
+			logger.info("Loading the UCUM concepts again");
+			tryLoad();
+		}
+	}
+
+	private static void tryLoad() {
+		if (index != null) return;
+
+		List<ParameterWrapper> params = new ArrayList<ParameterWrapper>();
+		params.add(new ParameterWrapper("String", Arrays.asList("vocabularyId"), Arrays.asList("="),
+				Arrays.asList(OmopCodeableConceptMapping.UCUM.getOmopVocabulary()), "or"));
+
+		List<Concept> concepts;
+		try {
+			concepts = conceptService.searchWithParams(0, 0, params, null);
+		} catch (RuntimeException e) {
+			nextAttempt = System.currentTimeMillis() + retryMillis;
+			logger.error("Failed to load the UCUM concepts. Trying again in " + (retryMillis / 1000) + "s. "
+					+ e.getMessage());
+			retryMillis = Math.min(retryMillis * 2, MAX_RETRY_MILLIS);
+			return;
+		}
+
+		load(concepts);
+		conceptService = null;
+	}
+
+	/**
+	 * Builds the index from the UCUM concepts.
+	 */
+	static synchronized void load(List<Concept> concepts) {
+		Map<String, Concept> byCode = new HashMap<String, Concept>();
+		Map<String, Concept> byNormalizedName = new HashMap<String, Concept>();
+		for (Concept concept : concepts) {
+			if (concept.getConceptCode() != null) {
+				byCode.putIfAbsent(concept.getConceptCode(), concept);
+			}
+		}
+
+		// Codes win over names when they normalize to the same string.
+		for (Concept concept : concepts) {
+			if (concept.getConceptCode() != null) {
+				byNormalizedName.putIfAbsent(normalize(concept.getConceptCode()), concept);
+			}
+		}
+		for (Concept concept : concepts) {
+			if (concept.getConceptName() != null) {
+				byNormalizedName.putIfAbsent(normalize(concept.getConceptName()), concept);
+			}
+		}
+		for (String[] synonym : SYNONYMS) {
+			Concept concept = byCode.get(synonym[1]);
+			if (concept != null) {
+				byNormalizedName.putIfAbsent(normalize(synonym[0]), concept);
+			}
+		}
+
+		index = new Index(byCode, byNormalizedName);
+		logger.info(byCode.size() + " UCUM units are loaded");
+	}
+
+	/**
+	 * Returns the UCUM concept of the unit string, or null if there is none or the
+	 * UCUM concepts are not loaded.
+	 */
+	public static Concept resolve(String unit) {
+		if (index == null) {
+			retryLoad();
+		}
+
+		Index currentIndex = index;
+		if (currentIndex == null || unit == null || unit.trim().isEmpty()) {
+			return null;
+		}
+
+		Concept concept = currentIndex.byCode.get(unit.trim());
+		if (concept != null) {
+			return concept;
+		}
+
+		return currentIndex.byNormalizedName.get(normalize(unit));
+	}
+
+	static String normalize(String unit) {
+		String normalized = unit.toLowerCase(Locale.ROOT).replaceAll("\\s+", "");
+		// Plural 's' only. The 's' of a unit such as m/s or mL/s is kept.
+		if (normalized.length() > 2 && normalized.endsWith("s")
+				&& Character.isLetter(normalized.charAt(normalized.length() - 2))) {
+			normalized = normalized.substring(0, normalized.length() - 1);
+		}
+
+		return normalized;
+	}
+}
@@ -1,5 +1,8 @@
 package edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.hl7.fhir.exceptions.FHIRException;
 
 public enum V3ActCode {
@@ -5151,2197 +5154,20 @@ public enum V3ActCode {
      * added to help the parsers
      */
     NULL;
+    private static final Map<String, V3ActCode> BY_CODE = new HashMap<String, V3ActCode>();
+    static {
+        for (V3ActCode value : values()) {
+            if (value != NULL)
+                BY_CODE.put(value.toCode(), value);
+        }
+    }
+
     public static V3ActCode fromCode(String codeString) throws FHIRException {
         if (codeString == null || "".equals(codeString))
             return null;
-        if ("_ActAccountCode".equals(codeString))
-            return _ACTACCOUNTCODE;
-        if ("ACCTRECEIVABLE".equals(codeString))
-            return ACCTRECEIVABLE;
-        if ("CASH".equals(codeString))
-            return CASH;
-        if ("CC".equals(codeString))
-            return CC;
-        if ("AE".equals(codeString))
-            return AE;
-        if ("DN".equals(codeString))
-            return DN;
-        if ("DV".equals(codeString))
-            return DV;
-        if ("MC".equals(codeString))
-            return MC;
-        if ("V".equals(codeString))
-            return V;
-        if ("PBILLACCT".equals(codeString))
-            return PBILLACCT;
-        if ("_ActAdjudicationCode".equals(codeString))
-            return _ACTADJUDICATIONCODE;
-        if ("_ActAdjudicationGroupCode".equals(codeString))
-            return _ACTADJUDICATIONGROUPCODE;
-        if ("CONT".equals(codeString))
-            return CONT;
-        if ("DAY".equals(codeString))
-            return DAY;
-        if ("LOC".equals(codeString))
-            return LOC;
-        if ("MONTH".equals(codeString))
-            return MONTH;
-        if ("PERIOD".equals(codeString))
-            return PERIOD;
-        if ("PROV".equals(codeString))
-            return PROV;
-        if ("WEEK".equals(codeString))
-            return WEEK;
-        if ("YEAR".equals(codeString))
-            return YEAR;
-        if ("AA".equals(codeString))
-            return AA;
-        if ("ANF".equals(codeString))
-            return ANF;
-        if ("AR".equals(codeString))
-            return AR;
-        if ("AS".equals(codeString))
-            return AS;
-        if ("_ActAdjudicationResultActionCode".equals(codeString))
-            return _ACTADJUDICATIONRESULTACTIONCODE;
-        if ("DISPLAY".equals(codeString))
-            return DISPLAY;
-        if ("FORM".equals(codeString))
-            return FORM;
-        if ("_ActBillableModifierCode".equals(codeString))
-            return _ACTBILLABLEMODIFIERCODE;
-        if ("CPTM".equals(codeString))
-            return CPTM;
-        if ("HCPCSA".equals(codeString))
-            return HCPCSA;
-        if ("_ActBillingArrangementCode".equals(codeString))
-            return _ACTBILLINGARRANGEMENTCODE;
-        if ("BLK".equals(codeString))
-            return BLK;
-        if ("CAP".equals(codeString))
-            return CAP;
-        if ("CONTF".equals(codeString))
-            return CONTF;
-        if ("FINBILL".equals(codeString))
-            return FINBILL;
-        if ("ROST".equals(codeString))
-            return ROST;
-        if ("SESS".equals(codeString))
-            return SESS;
-        if ("FFS".equals(codeString))
-            return FFS;
-        if ("FFPS".equals(codeString))
-            return FFPS;
-        if ("FFCS".equals(codeString))
-            return FFCS;
-        if ("TFS".equals(codeString))
-            return TFS;
-        if ("_ActBoundedROICode".equals(codeString))
-            return _ACTBOUNDEDROICODE;
-        if ("ROIFS".equals(codeString))
-            return ROIFS;
-        if ("ROIPS".equals(codeString))
-            return ROIPS;
-        if ("_ActCareProvisionCode".equals(codeString))
-            return _ACTCAREPROVISIONCODE;
-        if ("_ActCredentialedCareCode".equals(codeString))
-            return _ACTCREDENTIALEDCARECODE;
-        if ("_ActCredentialedCareProvisionPersonCode".equals(codeString))
-            return _ACTCREDENTIALEDCAREPROVISIONPERSONCODE;
-        if ("CACC".equals(codeString))
-            return CACC;
-        if ("CAIC".equals(codeString))
-            return CAIC;
-        if ("CAMC".equals(codeString))
-            return CAMC;
-        if ("CANC".equals(codeString))
-            return CANC;
-        if ("CAPC".equals(codeString))
-            return CAPC;
-        if ("CBGC".equals(codeString))
-            return CBGC;
-        if ("CCCC".equals(codeString))
-            return CCCC;
-        if ("CCGC".equals(codeString))
-            return CCGC;
-        if ("CCPC".equals(codeString))
-            return CCPC;
-        if ("CCSC".equals(codeString))
-            return CCSC;
-        if ("CDEC".equals(codeString))
-            return CDEC;
-        if ("CDRC".equals(codeString))
-            return CDRC;
-        if ("CEMC".equals(codeString))
-            return CEMC;
-        if ("CFPC".equals(codeString))
-            return CFPC;
-        if ("CIMC".equals(codeString))
-            return CIMC;
-        if ("CMGC".equals(codeString))
-            return CMGC;
-        if ("CNEC".equals(codeString))
-            return CNEC;
-        if ("CNMC".equals(codeString))
-            return CNMC;
-        if ("CNQC".equals(codeString))
-            return CNQC;
-        if ("CNSC".equals(codeString))
-            return CNSC;
-        if ("COGC".equals(codeString))
-            return COGC;
-        if ("COMC".equals(codeString))
-            return COMC;
-        if ("COPC".equals(codeString))
-            return COPC;
-        if ("COSC".equals(codeString))
-            return COSC;
-        if ("COTC".equals(codeString))
-            return COTC;
-        if ("CPEC".equals(codeString))
-            return CPEC;
-        if ("CPGC".equals(codeString))
-            return CPGC;
-        if ("CPHC".equals(codeString))
-            return CPHC;
-        if ("CPRC".equals(codeString))
-            return CPRC;
-        if ("CPSC".equals(codeString))
-            return CPSC;
-        if ("CPYC".equals(codeString))
-            return CPYC;
-        if ("CROC".equals(codeString))
-            return CROC;
-        if ("CRPC".equals(codeString))
-            return CRPC;
-        if ("CSUC".equals(codeString))
-            return CSUC;
-        if ("CTSC".equals(codeString))
-            return CTSC;
-        if ("CURC".equals(codeString))
-            return CURC;
-        if ("CVSC".equals(codeString))
-            return CVSC;
-        if ("LGPC".equals(codeString))
-            return LGPC;
-        if ("_ActCredentialedCareProvisionProgramCode".equals(codeString))
-            return _ACTCREDENTIALEDCAREPROVISIONPROGRAMCODE;
-        if ("AALC".equals(codeString))
-            return AALC;
-        if ("AAMC".equals(codeString))
-            return AAMC;
-        if ("ABHC".equals(codeString))
-            return ABHC;
-        if ("ACAC".equals(codeString))
-            return ACAC;
-        if ("ACHC".equals(codeString))
-            return ACHC;
-        if ("AHOC".equals(codeString))
-            return AHOC;
-        if ("ALTC".equals(codeString))
-            return ALTC;
-        if ("AOSC".equals(codeString))
-            return AOSC;
-        if ("CACS".equals(codeString))
-            return CACS;
-        if ("CAMI".equals(codeString))
-            return CAMI;
-        if ("CAST".equals(codeString))
-            return CAST;
-        if ("CBAR".equals(codeString))
-            return CBAR;
-        if ("CCAD".equals(codeString))
-            return CCAD;
-        if ("CCAR".equals(codeString))
-            return CCAR;
-        if ("CDEP".equals(codeString))
-            return CDEP;
-        if ("CDGD".equals(codeString))
-            return CDGD;
-        if ("CDIA".equals(codeString))
-            return CDIA;
-        if ("CEPI".equals(codeString))
-            return CEPI;
-        if ("CFEL".equals(codeString))
-            return CFEL;
-        if ("CHFC".equals(codeString))
-            return CHFC;
-        if ("CHRO".equals(codeString))
-            return CHRO;
-        if ("CHYP".equals(codeString))
-            return CHYP;
-        if ("CMIH".equals(codeString))
-            return CMIH;
-        if ("CMSC".equals(codeString))
-            return CMSC;
-        if ("COJR".equals(codeString))
-            return COJR;
-        if ("CONC".equals(codeString))
-            return CONC;
-        if ("COPD".equals(codeString))
-            return COPD;
-        if ("CORT".equals(codeString))
-            return CORT;
-        if ("CPAD".equals(codeString))
-            return CPAD;
-        if ("CPND".equals(codeString))
-            return CPND;
-        if ("CPST".equals(codeString))
-            return CPST;
-        if ("CSDM".equals(codeString))
-            return CSDM;
-        if ("CSIC".equals(codeString))
-            return CSIC;
-        if ("CSLD".equals(codeString))
-            return CSLD;
-        if ("CSPT".equals(codeString))
-            return CSPT;
-        if ("CTBU".equals(codeString))
-            return CTBU;
-        if ("CVDC".equals(codeString))
-            return CVDC;
-        if ("CWMA".equals(codeString))
-            return CWMA;
-        if ("CWOH".equals(codeString))
-            return CWOH;
-        if ("_ActEncounterCode".equals(codeString))
-            return _ACTENCOUNTERCODE;
-        if ("AMB".equals(codeString))
-            return AMB;
-        if ("EMER".equals(codeString))
-            return EMER;
-        if ("FLD".equals(codeString))
-            return FLD;
-        if ("HH".equals(codeString))
-            return HH;
-        if ("IMP".equals(codeString))
-            return IMP;
-        if ("ACUTE".equals(codeString))
-            return ACUTE;
-        if ("NONAC".equals(codeString))
-            return NONAC;
-        if ("PRENC".equals(codeString))
-            return PRENC;
-        if ("SS".equals(codeString))
-            return SS;
-        if ("VR".equals(codeString))
-            return VR;
-        if ("_ActMedicalServiceCode".equals(codeString))
-            return _ACTMEDICALSERVICECODE;
-        if ("ALC".equals(codeString))
-            return ALC;
-        if ("CARD".equals(codeString))
-            return CARD;
-        if ("CHR".equals(codeString))
-            return CHR;
-        if ("DNTL".equals(codeString))
-            return DNTL;
-        if ("DRGRHB".equals(codeString))
-            return DRGRHB;
-        if ("GENRL".equals(codeString))
-            return GENRL;
-        if ("MED".equals(codeString))
-            return MED;
-        if ("OBS".equals(codeString))
-            return OBS;
-        if ("ONC".equals(codeString))
-            return ONC;
-        if ("PALL".equals(codeString))
-            return PALL;
-        if ("PED".equals(codeString))
-            return PED;
-        if ("PHAR".equals(codeString))
-            return PHAR;
-        if ("PHYRHB".equals(codeString))
-            return PHYRHB;
-        if ("PSYCH".equals(codeString))
-            return PSYCH;
-        if ("SURG".equals(codeString))
-            return SURG;
-        if ("_ActClaimAttachmentCategoryCode".equals(codeString))
-            return _ACTCLAIMATTACHMENTCATEGORYCODE;
-        if ("AUTOATTCH".equals(codeString))
-            return AUTOATTCH;
-        if ("DOCUMENT".equals(codeString))
-            return DOCUMENT;
-        if ("HEALTHREC".equals(codeString))
-            return HEALTHREC;
-        if ("IMG".equals(codeString))
-            return IMG;
-        if ("LABRESULTS".equals(codeString))
-            return LABRESULTS;
-        if ("MODEL".equals(codeString))
-            return MODEL;
-        if ("WIATTCH".equals(codeString))
-            return WIATTCH;
-        if ("XRAY".equals(codeString))
-            return XRAY;
-        if ("_ActConsentType".equals(codeString))
-            return _ACTCONSENTTYPE;
-        if ("ICOL".equals(codeString))
-            return ICOL;
-        if ("IDSCL".equals(codeString))
-            return IDSCL;
-        if ("INFA".equals(codeString))
-            return INFA;
-        if ("INFAO".equals(codeString))
-            return INFAO;
-        if ("INFASO".equals(codeString))
-            return INFASO;
-        if ("IRDSCL".equals(codeString))
-            return IRDSCL;
-        if ("RESEARCH".equals(codeString))
-            return RESEARCH;
-        if ("RSDID".equals(codeString))
-            return RSDID;
-        if ("RSREID".equals(codeString))
-            return RSREID;
-        if ("_ActContainerRegistrationCode".equals(codeString))
-            return _ACTCONTAINERREGISTRATIONCODE;
-        if ("ID".equals(codeString))
-            return ID;
-        if ("IP".equals(codeString))
-            return IP;
-        if ("L".equals(codeString))
-            return L;
-        if ("M".equals(codeString))
-            return M;
-        if ("O".equals(codeString))
-            return O;
-        if ("R".equals(codeString))
-            return R;
-        if ("X".equals(codeString))
-            return X;
-        if ("_ActControlVariable".equals(codeString))
-            return _ACTCONTROLVARIABLE;
-        if ("AUTO".equals(codeString))
-            return AUTO;
-        if ("ENDC".equals(codeString))
-            return ENDC;
-        if ("REFLEX".equals(codeString))
-            return REFLEX;
-        if ("_ActCoverageConfirmationCode".equals(codeString))
-            return _ACTCOVERAGECONFIRMATIONCODE;
-        if ("_ActCoverageAuthorizationConfirmationCode".equals(codeString))
-            return _ACTCOVERAGEAUTHORIZATIONCONFIRMATIONCODE;
-        if ("AUTH".equals(codeString))
-            return AUTH;
-        if ("NAUTH".equals(codeString))
-            return NAUTH;
-        if ("_ActCoverageEligibilityConfirmationCode".equals(codeString))
-            return _ACTCOVERAGEELIGIBILITYCONFIRMATIONCODE;
-        if ("ELG".equals(codeString))
-            return ELG;
-        if ("NELG".equals(codeString))
-            return NELG;
-        if ("_ActCoverageLimitCode".equals(codeString))
-            return _ACTCOVERAGELIMITCODE;
-        if ("_ActCoverageQuantityLimitCode".equals(codeString))
-            return _ACTCOVERAGEQUANTITYLIMITCODE;
-        if ("COVPRD".equals(codeString))
-            return COVPRD;
-        if ("LFEMX".equals(codeString))
-            return LFEMX;
-        if ("NETAMT".equals(codeString))
-            return NETAMT;
-        if ("PRDMX".equals(codeString))
-            return PRDMX;
-        if ("UNITPRICE".equals(codeString))
-            return UNITPRICE;
-        if ("UNITQTY".equals(codeString))
-            return UNITQTY;
-        if ("COVMX".equals(codeString))
-            return COVMX;
-        if ("_ActCoveredPartyLimitCode".equals(codeString))
-            return _ACTCOVEREDPARTYLIMITCODE;
-        if ("_ActCoverageTypeCode".equals(codeString))
-            return _ACTCOVERAGETYPECODE;
-        if ("_ActInsurancePolicyCode".equals(codeString))
-            return _ACTINSURANCEPOLICYCODE;
-        if ("EHCPOL".equals(codeString))
-            return EHCPOL;
-        if ("HSAPOL".equals(codeString))
-            return HSAPOL;
-        if ("AUTOPOL".equals(codeString))
-            return AUTOPOL;
-        if ("COL".equals(codeString))
-            return COL;
-        if ("UNINSMOT".equals(codeString))
-            return UNINSMOT;
-        if ("PUBLICPOL".equals(codeString))
-            return PUBLICPOL;
-        if ("DENTPRG".equals(codeString))
-            return DENTPRG;
-        if ("DISEASEPRG".equals(codeString))
-            return DISEASEPRG;
-        if ("CANPRG".equals(codeString))
-            return CANPRG;
-        if ("ENDRENAL".equals(codeString))
-            return ENDRENAL;
-        if ("HIVAIDS".equals(codeString))
-            return HIVAIDS;
-        if ("MANDPOL".equals(codeString))
-            return MANDPOL;
-        if ("MENTPRG".equals(codeString))
-            return MENTPRG;
-        if ("SAFNET".equals(codeString))
-            return SAFNET;
-        if ("SUBPRG".equals(codeString))
-            return SUBPRG;
-        if ("SUBSIDIZ".equals(codeString))
-            return SUBSIDIZ;
-        if ("SUBSIDMC".equals(codeString))
-            return SUBSIDMC;
-        if ("SUBSUPP".equals(codeString))
-            return SUBSUPP;
-        if ("WCBPOL".equals(codeString))
-            return WCBPOL;
-        if ("_ActInsuranceTypeCode".equals(codeString))
-            return _ACTINSURANCETYPECODE;
-        if ("_ActHealthInsuranceTypeCode".equals(codeString))
-            return _ACTHEALTHINSURANCETYPECODE;
-        if ("DENTAL".equals(codeString))
-            return DENTAL;
-        if ("DISEASE".equals(codeString))
-            return DISEASE;
-        if ("DRUGPOL".equals(codeString))
-            return DRUGPOL;
-        if ("HIP".equals(codeString))
-            return HIP;
-        if ("LTC".equals(codeString))
-            return LTC;
-        if ("MCPOL".equals(codeString))
-            return MCPOL;
-        if ("POS".equals(codeString))
-            return POS;
-        if ("HMO".equals(codeString))
-            return HMO;
-        if ("PPO".equals(codeString))
-            return PPO;
-        if ("MENTPOL".equals(codeString))
-            return MENTPOL;
-        if ("SUBPOL".equals(codeString))
-            return SUBPOL;
-        if ("VISPOL".equals(codeString))
-            return VISPOL;
-        if ("DIS".equals(codeString))
-            return DIS;
-        if ("EWB".equals(codeString))
-            return EWB;
-        if ("FLEXP".equals(codeString))
-            return FLEXP;
-        if ("LIFE".equals(codeString))
-            return LIFE;
-        if ("ANNU".equals(codeString))
-            return ANNU;
-        if ("TLIFE".equals(codeString))
-            return TLIFE;
-        if ("ULIFE".equals(codeString))
-            return ULIFE;
-        if ("PNC".equals(codeString))
-            return PNC;
-        if ("REI".equals(codeString))
-            return REI;
-        if ("SURPL".equals(codeString))
-            return SURPL;
-        if ("UMBRL".equals(codeString))
-            return UMBRL;
-        if ("_ActProgramTypeCode".equals(codeString))
-            return _ACTPROGRAMTYPECODE;
-        if ("CHAR".equals(codeString))
-            return CHAR;
-        if ("CRIME".equals(codeString))
-            return CRIME;
-        if ("EAP".equals(codeString))
-            return EAP;
-        if ("GOVEMP".equals(codeString))
-            return GOVEMP;
-        if ("HIRISK".equals(codeString))
-            return HIRISK;
-        if ("IND".equals(codeString))
-            return IND;
-        if ("MILITARY".equals(codeString))
-            return MILITARY;
-        if ("RETIRE".equals(codeString))
-            return RETIRE;
-        if ("SOCIAL".equals(codeString))
-            return SOCIAL;
-        if ("VET".equals(codeString))
-            return VET;
-        if ("_ActDetectedIssueManagementCode".equals(codeString))
-            return _ACTDETECTEDISSUEMANAGEMENTCODE;
-        if ("_ActAdministrativeDetectedIssueManagementCode".equals(codeString))
-            return _ACTADMINISTRATIVEDETECTEDISSUEMANAGEMENTCODE;
-        if ("_AuthorizationIssueManagementCode".equals(codeString))
-            return _AUTHORIZATIONISSUEMANAGEMENTCODE;
-        if ("EMAUTH".equals(codeString))
-            return EMAUTH;
-        if ("21".equals(codeString))
-            return _21;
-        if ("1".equals(codeString))
-            return _1;
-        if ("19".equals(codeString))
-            return _19;
-        if ("2".equals(codeString))
-            return _2;
-        if ("22".equals(codeString))
-            return _22;
-        if ("23".equals(codeString))
-            return _23;
-        if ("3".equals(codeString))
-            return _3;
-        if ("4".equals(codeString))
-            return _4;
-        if ("5".equals(codeString))
-            return _5;
-        if ("6".equals(codeString))
-            return _6;
-        if ("7".equals(codeString))
-            return _7;
-        if ("14".equals(codeString))
-            return _14;
-        if ("15".equals(codeString))
-            return _15;
-        if ("16".equals(codeString))
-            return _16;
-        if ("17".equals(codeString))
-            return _17;
-        if ("18".equals(codeString))
-            return _18;
-        if ("20".equals(codeString))
-            return _20;
-        if ("8".equals(codeString))
-            return _8;
-        if ("10".equals(codeString))
-            return _10;
-        if ("11".equals(codeString))
-            return _11;
-        if ("12".equals(codeString))
-            return _12;
-        if ("13".equals(codeString))
-            return _13;
-        if ("9".equals(codeString))
-            return _9;
-        if ("_ActExposureCode".equals(codeString))
-            return _ACTEXPOSURECODE;
-        if ("CHLDCARE".equals(codeString))
-            return CHLDCARE;
-        if ("CONVEYNC".equals(codeString))
-            return CONVEYNC;
-        if ("HLTHCARE".equals(codeString))
-            return HLTHCARE;
-        if ("HOMECARE".equals(codeString))
-            return HOMECARE;
-        if ("HOSPPTNT".equals(codeString))
-            return HOSPPTNT;
-        if ("HOSPVSTR".equals(codeString))
-            return HOSPVSTR;
-        if ("HOUSEHLD".equals(codeString))
-            return HOUSEHLD;
-        if ("INMATE".equals(codeString))
-            return INMATE;
-        if ("INTIMATE".equals(codeString))
-            return INTIMATE;
-        if ("LTRMCARE".equals(codeString))
-            return LTRMCARE;
-        if ("PLACE".equals(codeString))
-            return PLACE;
-        if ("PTNTCARE".equals(codeString))
-            return PTNTCARE;
-        if ("SCHOOL2".equals(codeString))
-            return SCHOOL2;
-        if ("SOCIAL2".equals(codeString))
-            return SOCIAL2;
-        if ("SUBSTNCE".equals(codeString))
-            return SUBSTNCE;
-        if ("TRAVINT".equals(codeString))
-            return TRAVINT;
-        if ("WORK2".equals(codeString))
-            return WORK2;
-        if ("_ActFinancialTransactionCode".equals(codeString))
-            return _ACTFINANCIALTRANSACTIONCODE;
-        if ("CHRG".equals(codeString))
-            return CHRG;
-        if ("REV".equals(codeString))
-            return REV;
-        if ("_ActIncidentCode".equals(codeString))
-            return _ACTINCIDENTCODE;
-        if ("MVA".equals(codeString))
-            return MVA;
-        if ("SCHOOL".equals(codeString))
-            return SCHOOL;
-        if ("SPT".equals(codeString))
-            return SPT;
-        if ("WPA".equals(codeString))
-            return WPA;
-        if ("_ActInformationAccessCode".equals(codeString))
-            return _ACTINFORMATIONACCESSCODE;
-        if ("ACADR".equals(codeString))
-            return ACADR;
-        if ("ACALL".equals(codeString))
-            return ACALL;
-        if ("ACALLG".equals(codeString))
-            return ACALLG;
-        if ("ACCONS".equals(codeString))
-            return ACCONS;
-        if ("ACDEMO".equals(codeString))
-            return ACDEMO;
-        if ("ACDI".equals(codeString))
-            return ACDI;
-        if ("ACIMMUN".equals(codeString))
-            return ACIMMUN;
-        if ("ACLAB".equals(codeString))
-            return ACLAB;
-        if ("ACMED".equals(codeString))
-            return ACMED;
-        if ("ACMEDC".equals(codeString))
-            return ACMEDC;
-        if ("ACMEN".equals(codeString))
-            return ACMEN;
-        if ("ACOBS".equals(codeString))
-            return ACOBS;
-        if ("ACPOLPRG".equals(codeString))
-            return ACPOLPRG;
-        if ("ACPROV".equals(codeString))
-            return ACPROV;
-        if ("ACPSERV".equals(codeString))
-            return ACPSERV;
-        if ("ACSUBSTAB".equals(codeString))
-            return ACSUBSTAB;
-        if ("_ActInformationAccessContextCode".equals(codeString))
-            return _ACTINFORMATIONACCESSCONTEXTCODE;
-        if ("INFAUT".equals(codeString))
-            return INFAUT;
-        if ("INFCON".equals(codeString))
-            return INFCON;
-        if ("INFCRT".equals(codeString))
-            return INFCRT;
-        if ("INFDNG".equals(codeString))
-            return INFDNG;
-        if ("INFEMER".equals(codeString))
-            return INFEMER;
-        if ("INFPWR".equals(codeString))
-            return INFPWR;
-        if ("INFREG".equals(codeString))
-            return INFREG;
-        if ("_ActInformationCategoryCode".equals(codeString))
-            return _ACTINFORMATIONCATEGORYCODE;
-        if ("ALLCAT".equals(codeString))
-            return ALLCAT;
-        if ("ALLGCAT".equals(codeString))
-            return ALLGCAT;
-        if ("ARCAT".equals(codeString))
-            return ARCAT;
-        if ("COBSCAT".equals(codeString))
-            return COBSCAT;
-        if ("DEMOCAT".equals(codeString))
-            return DEMOCAT;
-        if ("DICAT".equals(codeString))
-            return DICAT;
-        if ("IMMUCAT".equals(codeString))
-            return IMMUCAT;
-        if ("LABCAT".equals(codeString))
-            return LABCAT;
-        if ("MEDCCAT".equals(codeString))
-            return MEDCCAT;
-        if ("MENCAT".equals(codeString))
-            return MENCAT;
-        if ("PSVCCAT".equals(codeString))
-            return PSVCCAT;
-        if ("RXCAT".equals(codeString))
-            return RXCAT;
-        if ("_ActInvoiceElementCode".equals(codeString))
-            return _ACTINVOICEELEMENTCODE;
-        if ("_ActInvoiceAdjudicationPaymentCode".equals(codeString))
-            return _ACTINVOICEADJUDICATIONPAYMENTCODE;
-        if ("_ActInvoiceAdjudicationPaymentGroupCode".equals(codeString))
-            return _ACTINVOICEADJUDICATIONPAYMENTGROUPCODE;
-        if ("ALEC".equals(codeString))
-            return ALEC;
-        if ("BONUS".equals(codeString))
-            return BONUS;
-        if ("CFWD".equals(codeString))
-            return CFWD;
-        if ("EDU".equals(codeString))
-            return EDU;
-        if ("EPYMT".equals(codeString))
-            return EPYMT;
-        if ("GARN".equals(codeString))
-            return GARN;
-        if ("INVOICE".equals(codeString))
-            return INVOICE;
-        if ("PINV".equals(codeString))
-            return PINV;
-        if ("PPRD".equals(codeString))
-            return PPRD;
-        if ("PROA".equals(codeString))
-            return PROA;
-        if ("RECOV".equals(codeString))
-            return RECOV;
-        if ("RETRO".equals(codeString))
-            return RETRO;
-        if ("TRAN".equals(codeString))
-            return TRAN;
-        if ("_ActInvoiceAdjudicationPaymentSummaryCode".equals(codeString))
-            return _ACTINVOICEADJUDICATIONPAYMENTSUMMARYCODE;
-        if ("INVTYPE".equals(codeString))
-            return INVTYPE;
-        if ("PAYEE".equals(codeString))
-            return PAYEE;
-        if ("PAYOR".equals(codeString))
-            return PAYOR;
-        if ("SENDAPP".equals(codeString))
-            return SENDAPP;
-        if ("_ActInvoiceDetailCode".equals(codeString))
-            return _ACTINVOICEDETAILCODE;
-        if ("_ActInvoiceDetailClinicalProductCode".equals(codeString))
-            return _ACTINVOICEDETAILCLINICALPRODUCTCODE;
-        if ("UNSPSC".equals(codeString))
-            return UNSPSC;
-        if ("_ActInvoiceDetailDrugProductCode".equals(codeString))
-            return _ACTINVOICEDETAILDRUGPRODUCTCODE;
-        if ("GTIN".equals(codeString))
-            return GTIN;
-        if ("UPC".equals(codeString))
-            return UPC;
-        if ("_ActInvoiceDetailGenericCode".equals(codeString))
-            return _ACTINVOICEDETAILGENERICCODE;
-        if ("_ActInvoiceDetailGenericAdjudicatorCode".equals(codeString))
-            return _ACTINVOICEDETAILGENERICADJUDICATORCODE;
-        if ("COIN".equals(codeString))
-            return COIN;
-        if ("COPAYMENT".equals(codeString))
-            return COPAYMENT;
-        if ("DEDUCTIBLE".equals(codeString))
-            return DEDUCTIBLE;
-        if ("PAY".equals(codeString))
-            return PAY;
-        if ("SPEND".equals(codeString))
-            return SPEND;
-        if ("COINS".equals(codeString))
-            return COINS;
-        if ("_ActInvoiceDetailGenericModifierCode".equals(codeString))
-            return _ACTINVOICEDETAILGENERICMODIFIERCODE;
-        if ("AFTHRS".equals(codeString))
-            return AFTHRS;
-        if ("ISOL".equals(codeString))
-            return ISOL;
-        if ("OOO".equals(codeString))
-            return OOO;
-        if ("_ActInvoiceDetailGenericProviderCode".equals(codeString))
-            return _ACTINVOICEDETAILGENERICPROVIDERCODE;
-        if ("CANCAPT".equals(codeString))
-            return CANCAPT;
-        if ("DSC".equals(codeString))
-            return DSC;
-        if ("ESA".equals(codeString))
-            return ESA;
-        if ("FFSTOP".equals(codeString))
-            return FFSTOP;
-        if ("FNLFEE".equals(codeString))
-            return FNLFEE;
-        if ("FRSTFEE".equals(codeString))
-            return FRSTFEE;
-        if ("MARKUP".equals(codeString))
-            return MARKUP;
-        if ("MISSAPT".equals(codeString))
-            return MISSAPT;
-        if ("PERFEE".equals(codeString))
-            return PERFEE;
-        if ("PERMBNS".equals(codeString))
-            return PERMBNS;
-        if ("RESTOCK".equals(codeString))
-            return RESTOCK;
-        if ("TRAVEL".equals(codeString))
-            return TRAVEL;
-        if ("URGENT".equals(codeString))
-            return URGENT;
-        if ("_ActInvoiceDetailTaxCode".equals(codeString))
-            return _ACTINVOICEDETAILTAXCODE;
-        if ("FST".equals(codeString))
-            return FST;
-        if ("HST".equals(codeString))
-            return HST;
-        if ("PST".equals(codeString))
-            return PST;
-        if ("_ActInvoiceDetailPreferredAccommodationCode".equals(codeString))
-            return _ACTINVOICEDETAILPREFERREDACCOMMODATIONCODE;
-        if ("_ActEncounterAccommodationCode".equals(codeString))
-            return _ACTENCOUNTERACCOMMODATIONCODE;
-        if ("_HL7AccommodationCode".equals(codeString))
-            return _HL7ACCOMMODATIONCODE;
-        if ("I".equals(codeString))
-            return I;
-        if ("P".equals(codeString))
-            return P;
-        if ("S".equals(codeString))
-            return S;
-        if ("SP".equals(codeString))
-            return SP;
-        if ("W".equals(codeString))
-            return W;
-        if ("_ActInvoiceDetailClinicalServiceCode".equals(codeString))
-            return _ACTINVOICEDETAILCLINICALSERVICECODE;
-        if ("_ActInvoiceGroupCode".equals(codeString))
-            return _ACTINVOICEGROUPCODE;
-        if ("_ActInvoiceInterGroupCode".equals(codeString))
-            return _ACTINVOICEINTERGROUPCODE;
-        if ("CPNDDRGING".equals(codeString))
-            return CPNDDRGING;
-        if ("CPNDINDING".equals(codeString))
-            return CPNDINDING;
-        if ("CPNDSUPING".equals(codeString))
-            return CPNDSUPING;
-        if ("DRUGING".equals(codeString))
-            return DRUGING;
-        if ("FRAMEING".equals(codeString))
-            return FRAMEING;
-        if ("LENSING".equals(codeString))
-            return LENSING;
-        if ("PRDING".equals(codeString))
-            return PRDING;
-        if ("_ActInvoiceRootGroupCode".equals(codeString))
-            return _ACTINVOICEROOTGROUPCODE;
-        if ("CPINV".equals(codeString))
-            return CPINV;
-        if ("CSINV".equals(codeString))
-            return CSINV;
-        if ("CSPINV".equals(codeString))
-            return CSPINV;
-        if ("FININV".equals(codeString))
-            return FININV;
-        if ("OHSINV".equals(codeString))
-            return OHSINV;
-        if ("PAINV".equals(codeString))
-            return PAINV;
-        if ("RXCINV".equals(codeString))
-            return RXCINV;
-        if ("RXDINV".equals(codeString))
-            return RXDINV;
-        if ("SBFINV".equals(codeString))
-            return SBFINV;
-        if ("VRXINV".equals(codeString))
-            return VRXINV;
-        if ("_ActInvoiceElementSummaryCode".equals(codeString))
-            return _ACTINVOICEELEMENTSUMMARYCODE;
-        if ("_InvoiceElementAdjudicated".equals(codeString))
-            return _INVOICEELEMENTADJUDICATED;
-        if ("ADNFPPELAT".equals(codeString))
-            return ADNFPPELAT;
-        if ("ADNFPPELCT".equals(codeString))
-            return ADNFPPELCT;
-        if ("ADNFPPMNAT".equals(codeString))
-            return ADNFPPMNAT;
-        if ("ADNFPPMNCT".equals(codeString))
-            return ADNFPPMNCT;
-        if ("ADNFSPELAT".equals(codeString))
-            return ADNFSPELAT;
-        if ("ADNFSPELCT".equals(codeString))
-            return ADNFSPELCT;
-        if ("ADNFSPMNAT".equals(codeString))
-            return ADNFSPMNAT;
-        if ("ADNFSPMNCT".equals(codeString))
-            return ADNFSPMNCT;
-        if ("ADNPPPELAT".equals(codeString))
-            return ADNPPPELAT;
-        if ("ADNPPPELCT".equals(codeString))
-            return ADNPPPELCT;
-        if ("ADNPPPMNAT".equals(codeString))
-            return ADNPPPMNAT;
-        if ("ADNPPPMNCT".equals(codeString))
-            return ADNPPPMNCT;
-        if ("ADNPSPELAT".equals(codeString))
-            return ADNPSPELAT;
-        if ("ADNPSPELCT".equals(codeString))
-            return ADNPSPELCT;
-        if ("ADNPSPMNAT".equals(codeString))
-            return ADNPSPMNAT;
-        if ("ADNPSPMNCT".equals(codeString))
-            return ADNPSPMNCT;
-        if ("ADPPPPELAT".equals(codeString))
-            return ADPPPPELAT;
-        if ("ADPPPPELCT".equals(codeString))
-            return ADPPPPELCT;
-        if ("ADPPPPMNAT".equals(codeString))
-            return ADPPPPMNAT;
-        if ("ADPPPPMNCT".equals(codeString))
-            return ADPPPPMNCT;
-        if ("ADPPSPELAT".equals(codeString))
-            return ADPPSPELAT;
-        if ("ADPPSPELCT".equals(codeString))
-            return ADPPSPELCT;
-        if ("ADPPSPMNAT".equals(codeString))
-            return ADPPSPMNAT;
-        if ("ADPPSPMNCT".equals(codeString))
-            return ADPPSPMNCT;
-        if ("ADRFPPELAT".equals(codeString))
-            return ADRFPPELAT;
-        if ("ADRFPPELCT".equals(codeString))
-            return ADRFPPELCT;
-        if ("ADRFPPMNAT".equals(codeString))
-            return ADRFPPMNAT;
-        if ("ADRFPPMNCT".equals(codeString))
-            return ADRFPPMNCT;
-        if ("ADRFSPELAT".equals(codeString))
-            return ADRFSPELAT;
-        if ("ADRFSPELCT".equals(codeString))
-            return ADRFSPELCT;
-        if ("ADRFSPMNAT".equals(codeString))
-            return ADRFSPMNAT;
-        if ("ADRFSPMNCT".equals(codeString))
-            return ADRFSPMNCT;
-        if ("_InvoiceElementPaid".equals(codeString))
-            return _INVOICEELEMENTPAID;
-        if ("PDNFPPELAT".equals(codeString))
-            return PDNFPPELAT;
-        if ("PDNFPPELCT".equals(codeString))
-            return PDNFPPELCT;
-        if ("PDNFPPMNAT".equals(codeString))
-            return PDNFPPMNAT;
-        if ("PDNFPPMNCT".equals(codeString))
-            return PDNFPPMNCT;
-        if ("PDNFSPELAT".equals(codeString))
-            return PDNFSPELAT;
-        if ("PDNFSPELCT".equals(codeString))
-            return PDNFSPELCT;
-        if ("PDNFSPMNAT".equals(codeString))
-            return PDNFSPMNAT;
-        if ("PDNFSPMNCT".equals(codeString))
-            return PDNFSPMNCT;
-        if ("PDNPPPELAT".equals(codeString))
-            return PDNPPPELAT;
-        if ("PDNPPPELCT".equals(codeString))
-            return PDNPPPELCT;
-        if ("PDNPPPMNAT".equals(codeString))
-            return PDNPPPMNAT;
-        if ("PDNPPPMNCT".equals(codeString))
-            return PDNPPPMNCT;
-        if ("PDNPSPELAT".equals(codeString))
-            return PDNPSPELAT;
-        if ("PDNPSPELCT".equals(codeString))
-            return PDNPSPELCT;
-        if ("PDNPSPMNAT".equals(codeString))
-            return PDNPSPMNAT;
-        if ("PDNPSPMNCT".equals(codeString))
-            return PDNPSPMNCT;
-        if ("PDPPPPELAT".equals(codeString))
-            return PDPPPPELAT;
-        if ("PDPPPPELCT".equals(codeString))
-            return PDPPPPELCT;
-        if ("PDPPPPMNAT".equals(codeString))
-            return PDPPPPMNAT;
-        if ("PDPPPPMNCT".equals(codeString))
-            return PDPPPPMNCT;
-        if ("PDPPSPELAT".equals(codeString))
-            return PDPPSPELAT;
-        if ("PDPPSPELCT".equals(codeString))
-            return PDPPSPELCT;
-        if ("PDPPSPMNAT".equals(codeString))
-            return PDPPSPMNAT;
-        if ("PDPPSPMNCT".equals(codeString))
-            return PDPPSPMNCT;
-        if ("_InvoiceElementSubmitted".equals(codeString))
-            return _INVOICEELEMENTSUBMITTED;
-        if ("SBBLELAT".equals(codeString))
-            return SBBLELAT;
-        if ("SBBLELCT".equals(codeString))
-            return SBBLELCT;
-        if ("SBNFELAT".equals(codeString))
-            return SBNFELAT;
-        if ("SBNFELCT".equals(codeString))
-            return SBNFELCT;
-        if ("SBPDELAT".equals(codeString))
-            return SBPDELAT;
-        if ("SBPDELCT".equals(codeString))
-            return SBPDELCT;
-        if ("_ActInvoiceOverrideCode".equals(codeString))
-            return _ACTINVOICEOVERRIDECODE;
-        if ("COVGE".equals(codeString))
-            return COVGE;
-        if ("EFORM".equals(codeString))
-            return EFORM;
-        if ("FAX".equals(codeString))
-            return FAX;
-        if ("GFTH".equals(codeString))
-            return GFTH;
-        if ("LATE".equals(codeString))
-            return LATE;
-        if ("MANUAL".equals(codeString))
-            return MANUAL;
-        if ("OOJ".equals(codeString))
-            return OOJ;
-        if ("ORTHO".equals(codeString))
-            return ORTHO;
-        if ("PAPER".equals(codeString))
-            return PAPER;
-        if ("PIE".equals(codeString))
-            return PIE;
-        if ("PYRDELAY".equals(codeString))
-            return PYRDELAY;
-        if ("REFNR".equals(codeString))
-            return REFNR;
-        if ("REPSERV".equals(codeString))
-            return REPSERV;
-        if ("UNRELAT".equals(codeString))
-            return UNRELAT;
-        if ("VERBAUTH".equals(codeString))
-            return VERBAUTH;
-        if ("_ActListCode".equals(codeString))
-            return _ACTLISTCODE;
-        if ("_ActObservationList".equals(codeString))
-            return _ACTOBSERVATIONLIST;
-        if ("CARELIST".equals(codeString))
-            return CARELIST;
-        if ("CONDLIST".equals(codeString))
-            return CONDLIST;
-        if ("INTOLIST".equals(codeString))
-            return INTOLIST;
-        if ("PROBLIST".equals(codeString))
-            return PROBLIST;
-        if ("RISKLIST".equals(codeString))
-            return RISKLIST;
-        if ("GOALLIST".equals(codeString))
-            return GOALLIST;
-        if ("_ActTherapyDurationWorkingListCode".equals(codeString))
-            return _ACTTHERAPYDURATIONWORKINGLISTCODE;
-        if ("_ActMedicationTherapyDurationWorkingListCode".equals(codeString))
-            return _ACTMEDICATIONTHERAPYDURATIONWORKINGLISTCODE;
-        if ("ACU".equals(codeString))
-            return ACU;
-        if ("CHRON".equals(codeString))
-            return CHRON;
-        if ("ONET".equals(codeString))
-            return ONET;
-        if ("PRN".equals(codeString))
-            return PRN;
-        if ("MEDLIST".equals(codeString))
-            return MEDLIST;
-        if ("CURMEDLIST".equals(codeString))
-            return CURMEDLIST;
-        if ("DISCMEDLIST".equals(codeString))
-            return DISCMEDLIST;
-        if ("HISTMEDLIST".equals(codeString))
-            return HISTMEDLIST;
-        if ("_ActMonitoringProtocolCode".equals(codeString))
-            return _ACTMONITORINGPROTOCOLCODE;
-        if ("CTLSUB".equals(codeString))
-            return CTLSUB;
-        if ("INV".equals(codeString))
-            return INV;
-        if ("LU".equals(codeString))
-            return LU;
-        if ("OTC".equals(codeString))
-            return OTC;
-        if ("RX".equals(codeString))
-            return RX;
-        if ("SA".equals(codeString))
-            return SA;
-        if ("SAC".equals(codeString))
-            return SAC;
-        if ("_ActNonObservationIndicationCode".equals(codeString))
-            return _ACTNONOBSERVATIONINDICATIONCODE;
-        if ("IND01".equals(codeString))
-            return IND01;
-        if ("IND02".equals(codeString))
-            return IND02;
-        if ("IND03".equals(codeString))
-            return IND03;
-        if ("IND04".equals(codeString))
-            return IND04;
-        if ("IND05".equals(codeString))
-            return IND05;
-        if ("_ActObservationVerificationType".equals(codeString))
-            return _ACTOBSERVATIONVERIFICATIONTYPE;
-        if ("VFPAPER".equals(codeString))
-            return VFPAPER;
-        if ("_ActPaymentCode".equals(codeString))
-            return _ACTPAYMENTCODE;
-        if ("ACH".equals(codeString))
-            return ACH;
-        if ("CHK".equals(codeString))
-            return CHK;
-        if ("DDP".equals(codeString))
-            return DDP;
-        if ("NON".equals(codeString))
-            return NON;
-        if ("_ActPharmacySupplyType".equals(codeString))
-            return _ACTPHARMACYSUPPLYTYPE;
-        if ("DF".equals(codeString))
-            return DF;
-        if ("EM".equals(codeString))
-            return EM;
-        if ("SO".equals(codeString))
-            return SO;
-        if ("FF".equals(codeString))
-            return FF;
-        if ("FFC".equals(codeString))
-            return FFC;
-        if ("FFP".equals(codeString))
-            return FFP;
-        if ("FFSS".equals(codeString))
-            return FFSS;
-        if ("TF".equals(codeString))
-            return TF;
-        if ("FS".equals(codeString))
-            return FS;
-        if ("MS".equals(codeString))
-            return MS;
-        if ("RF".equals(codeString))
-            return RF;
-        if ("UD".equals(codeString))
-            return UD;
-        if ("RFC".equals(codeString))
-            return RFC;
-        if ("RFCS".equals(codeString))
-            return RFCS;
-        if ("RFF".equals(codeString))
-            return RFF;
-        if ("RFFS".equals(codeString))
-            return RFFS;
-        if ("RFP".equals(codeString))
-            return RFP;
-        if ("RFPS".equals(codeString))
-            return RFPS;
-        if ("RFS".equals(codeString))
-            return RFS;
-        if ("TB".equals(codeString))
-            return TB;
-        if ("TBS".equals(codeString))
-            return TBS;
-        if ("UDE".equals(codeString))
-            return UDE;
-        if ("_ActPolicyType".equals(codeString))
-            return _ACTPOLICYTYPE;
-        if ("_ActPrivacyPolicy".equals(codeString))
-            return _ACTPRIVACYPOLICY;
-        if ("_ActConsentDirective".equals(codeString))
-            return _ACTCONSENTDIRECTIVE;
-        if ("EMRGONLY".equals(codeString))
-            return EMRGONLY;
-        if ("GRANTORCHOICE".equals(codeString))
-            return GRANTORCHOICE;
-        if ("IMPLIED".equals(codeString))
-            return IMPLIED;
-        if ("IMPLIEDD".equals(codeString))
-            return IMPLIEDD;
-        if ("NOCONSENT".equals(codeString))
-            return NOCONSENT;
-        if ("NOPP".equals(codeString))
-            return NOPP;
-        if ("OPTIN".equals(codeString))
-            return OPTIN;
-        if ("OPTINR".equals(codeString))
-            return OPTINR;
-        if ("OPTOUT".equals(codeString))
-            return OPTOUT;
-        if ("OPTOUTE".equals(codeString))
-            return OPTOUTE;
-        if ("_ActPrivacyLaw".equals(codeString))
-            return _ACTPRIVACYLAW;
-        if ("_ActUSPrivacyLaw".equals(codeString))
-            return _ACTUSPRIVACYLAW;
-        if ("42CFRPart2".equals(codeString))
-            return _42CFRPART2;
-        if ("CommonRule".equals(codeString))
-            return COMMONRULE;
-        if ("HIPAANOPP".equals(codeString))
-            return HIPAANOPP;
-        if ("HIPAAPsyNotes".equals(codeString))
-            return HIPAAPSYNOTES;
-        if ("HIPAASelfPay".equals(codeString))
-            return HIPAASELFPAY;
-        if ("Title38Section7332".equals(codeString))
-            return TITLE38SECTION7332;
-        if ("_InformationSensitivityPolicy".equals(codeString))
-            return _INFORMATIONSENSITIVITYPOLICY;
-        if ("_ActInformationSensitivityPolicy".equals(codeString))
-            return _ACTINFORMATIONSENSITIVITYPOLICY;
-        if ("ETH".equals(codeString))
-            return ETH;
-        if ("GDIS".equals(codeString))
-            return GDIS;
-        if ("HIV".equals(codeString))
-            return HIV;
-        if ("PSY".equals(codeString))
-            return PSY;
-        if ("SCA".equals(codeString))
-            return SCA;
-        if ("SOC".equals(codeString))
-            return SOC;
-        if ("SDV".equals(codeString))
-            return SDV;
-        if ("SEX".equals(codeString))
-            return SEX;
-        if ("STD".equals(codeString))
-            return STD;
-        if ("TBOO".equals(codeString))
-            return TBOO;
-        if ("SICKLE".equals(codeString))
-            return SICKLE;
-        if ("_EntitySensitivityPolicyType".equals(codeString))
-            return _ENTITYSENSITIVITYPOLICYTYPE;
-        if ("DEMO".equals(codeString))
-            return DEMO;
-        if ("DOB".equals(codeString))
-            return DOB;
-        if ("GENDER".equals(codeString))
-            return GENDER;
-        if ("LIVARG".equals(codeString))
-            return LIVARG;
-        if ("MARST".equals(codeString))
-            return MARST;
-        if ("RACE".equals(codeString))
-            return RACE;
-        if ("REL".equals(codeString))
-            return REL;
-        if ("_RoleInformationSensitivityPolicy".equals(codeString))
-            return _ROLEINFORMATIONSENSITIVITYPOLICY;
-        if ("B".equals(codeString))
-            return B;
-        if ("EMPL".equals(codeString))
-            return EMPL;
-        if ("LOCIS".equals(codeString))
-            return LOCIS;
-        if ("SSP".equals(codeString))
-            return SSP;
-        if ("ADOL".equals(codeString))
-            return ADOL;
-        if ("CEL".equals(codeString))
-            return CEL;
-        if ("DIA".equals(codeString))
-            return DIA;
-        if ("DRGIS".equals(codeString))
-            return DRGIS;
-        if ("EMP".equals(codeString))
-            return EMP;
-        if ("PDS".equals(codeString))
-            return PDS;
-        if ("PRS".equals(codeString))
-            return PRS;
-        if ("COMPT".equals(codeString))
-            return COMPT;
-        if ("HRCOMPT".equals(codeString))
-            return HRCOMPT;
-        if ("RESCOMPT".equals(codeString))
-            return RESCOMPT;
-        if ("RMGTCOMPT".equals(codeString))
-            return RMGTCOMPT;
-        if ("ActTrustPolicyType".equals(codeString))
-            return ACTTRUSTPOLICYTYPE;
-        if ("TRSTACCRD".equals(codeString))
-            return TRSTACCRD;
-        if ("TRSTAGRE".equals(codeString))
-            return TRSTAGRE;
-        if ("TRSTASSUR".equals(codeString))
-            return TRSTASSUR;
-        if ("TRSTCERT".equals(codeString))
-            return TRSTCERT;
-        if ("TRSTFWK".equals(codeString))
-            return TRSTFWK;
-        if ("TRSTMEC".equals(codeString))
-            return TRSTMEC;
-        if ("COVPOL".equals(codeString))
-            return COVPOL;
-        if ("SecurityPolicy".equals(codeString))
-            return SECURITYPOLICY;
-        if ("ObligationPolicy".equals(codeString))
-            return OBLIGATIONPOLICY;
-        if ("ANONY".equals(codeString))
-            return ANONY;
-        if ("AOD".equals(codeString))
-            return AOD;
-        if ("AUDIT".equals(codeString))
-            return AUDIT;
-        if ("AUDTR".equals(codeString))
-            return AUDTR;
-        if ("CPLYCC".equals(codeString))
-            return CPLYCC;
-        if ("CPLYCD".equals(codeString))
-            return CPLYCD;
-        if ("CPLYJPP".equals(codeString))
-            return CPLYJPP;
-        if ("CPLYOPP".equals(codeString))
-            return CPLYOPP;
-        if ("CPLYOSP".equals(codeString))
-            return CPLYOSP;
-        if ("CPLYPOL".equals(codeString))
-            return CPLYPOL;
-        if ("DECLASSIFYLABEL".equals(codeString))
-            return DECLASSIFYLABEL;
-        if ("DEID".equals(codeString))
-            return DEID;
-        if ("DELAU".equals(codeString))
-            return DELAU;
-        if ("DOWNGRDLABEL".equals(codeString))
-            return DOWNGRDLABEL;
-        if ("DRIVLABEL".equals(codeString))
-            return DRIVLABEL;
-        if ("ENCRYPT".equals(codeString))
-            return ENCRYPT;
-        if ("ENCRYPTR".equals(codeString))
-            return ENCRYPTR;
-        if ("ENCRYPTT".equals(codeString))
-            return ENCRYPTT;
-        if ("ENCRYPTU".equals(codeString))
-            return ENCRYPTU;
-        if ("HUAPRV".equals(codeString))
-            return HUAPRV;
-        if ("LABEL".equals(codeString))
-            return LABEL;
-        if ("MASK".equals(codeString))
-            return MASK;
-        if ("MINEC".equals(codeString))
-            return MINEC;
-        if ("PERSISTLABEL".equals(codeString))
-            return PERSISTLABEL;
-        if ("PRIVMARK".equals(codeString))
-            return PRIVMARK;
-        if ("PSEUD".equals(codeString))
-            return PSEUD;
-        if ("REDACT".equals(codeString))
-            return REDACT;
-        if ("UPGRDLABEL".equals(codeString))
-            return UPGRDLABEL;
-        if ("RefrainPolicy".equals(codeString))
-            return REFRAINPOLICY;
-        if ("NOAUTH".equals(codeString))
-            return NOAUTH;
-        if ("NOCOLLECT".equals(codeString))
-            return NOCOLLECT;
-        if ("NODSCLCD".equals(codeString))
-            return NODSCLCD;
-        if ("NODSCLCDS".equals(codeString))
-            return NODSCLCDS;
-        if ("NOINTEGRATE".equals(codeString))
-            return NOINTEGRATE;
-        if ("NOLIST".equals(codeString))
-            return NOLIST;
-        if ("NOMOU".equals(codeString))
-            return NOMOU;
-        if ("NOORGPOL".equals(codeString))
-            return NOORGPOL;
-        if ("NOPAT".equals(codeString))
-            return NOPAT;
-        if ("NOPERSISTP".equals(codeString))
-            return NOPERSISTP;
-        if ("NORDSCLCD".equals(codeString))
-            return NORDSCLCD;
-        if ("NORDSCLCDS".equals(codeString))
-            return NORDSCLCDS;
-        if ("NORDSCLW".equals(codeString))
-            return NORDSCLW;
-        if ("NORELINK".equals(codeString))
-            return NORELINK;
-        if ("NOREUSE".equals(codeString))
-            return NOREUSE;
-        if ("NOVIP".equals(codeString))
-            return NOVIP;
-        if ("ORCON".equals(codeString))
-            return ORCON;
-        if ("_ActProductAcquisitionCode".equals(codeString))
-            return _ACTPRODUCTACQUISITIONCODE;
-        if ("LOAN".equals(codeString))
-            return LOAN;
-        if ("RENT".equals(codeString))
-            return RENT;
-        if ("TRANSFER".equals(codeString))
-            return TRANSFER;
-        if ("SALE".equals(codeString))
-            return SALE;
-        if ("_ActSpecimenTransportCode".equals(codeString))
-            return _ACTSPECIMENTRANSPORTCODE;
-        if ("SREC".equals(codeString))
-            return SREC;
-        if ("SSTOR".equals(codeString))
-            return SSTOR;
-        if ("STRAN".equals(codeString))
-            return STRAN;
-        if ("_ActSpecimenTreatmentCode".equals(codeString))
-            return _ACTSPECIMENTREATMENTCODE;
-        if ("ACID".equals(codeString))
-            return ACID;
-        if ("ALK".equals(codeString))
-            return ALK;
-        if ("DEFB".equals(codeString))
-            return DEFB;
-        if ("FILT".equals(codeString))
-            return FILT;
-        if ("LDLP".equals(codeString))
-            return LDLP;
-        if ("NEUT".equals(codeString))
-            return NEUT;
-        if ("RECA".equals(codeString))
-            return RECA;
-        if ("UFIL".equals(codeString))
-            return UFIL;
-        if ("_ActSubstanceAdministrationCode".equals(codeString))
-            return _ACTSUBSTANCEADMINISTRATIONCODE;
-        if ("DRUG".equals(codeString))
-            return DRUG;
-        if ("FD".equals(codeString))
-            return FD;
-        if ("IMMUNIZ".equals(codeString))
-            return IMMUNIZ;
-        if ("BOOSTER".equals(codeString))
-            return BOOSTER;
-        if ("INITIMMUNIZ".equals(codeString))
-            return INITIMMUNIZ;
-        if ("_ActTaskCode".equals(codeString))
-            return _ACTTASKCODE;
-        if ("OE".equals(codeString))
-            return OE;
-        if ("LABOE".equals(codeString))
-            return LABOE;
-        if ("MEDOE".equals(codeString))
-            return MEDOE;
-        if ("PATDOC".equals(codeString))
-            return PATDOC;
-        if ("ALLERLREV".equals(codeString))
-            return ALLERLREV;
-        if ("CLINNOTEE".equals(codeString))
-            return CLINNOTEE;
-        if ("DIAGLISTE".equals(codeString))
-            return DIAGLISTE;
-        if ("DISCHINSTE".equals(codeString))
-            return DISCHINSTE;
-        if ("DISCHSUME".equals(codeString))
-            return DISCHSUME;
-        if ("PATEDUE".equals(codeString))
-            return PATEDUE;
-        if ("PATREPE".equals(codeString))
-            return PATREPE;
-        if ("PROBLISTE".equals(codeString))
-            return PROBLISTE;
-        if ("RADREPE".equals(codeString))
-            return RADREPE;
-        if ("IMMLREV".equals(codeString))
-            return IMMLREV;
-        if ("REMLREV".equals(codeString))
-            return REMLREV;
-        if ("WELLREMLREV".equals(codeString))
-            return WELLREMLREV;
-        if ("PATINFO".equals(codeString))
-            return PATINFO;
-        if ("ALLERLE".equals(codeString))
-            return ALLERLE;
-        if ("CDSREV".equals(codeString))
-            return CDSREV;
-        if ("CLINNOTEREV".equals(codeString))
-            return CLINNOTEREV;
-        if ("DISCHSUMREV".equals(codeString))
-            return DISCHSUMREV;
-        if ("DIAGLISTREV".equals(codeString))
-            return DIAGLISTREV;
-        if ("IMMLE".equals(codeString))
-            return IMMLE;
-        if ("LABRREV".equals(codeString))
-            return LABRREV;
-        if ("MICRORREV".equals(codeString))
-            return MICRORREV;
-        if ("MICROORGRREV".equals(codeString))
-            return MICROORGRREV;
-        if ("MICROSENSRREV".equals(codeString))
-            return MICROSENSRREV;
-        if ("MLREV".equals(codeString))
-            return MLREV;
-        if ("MARWLREV".equals(codeString))
-            return MARWLREV;
-        if ("OREV".equals(codeString))
-            return OREV;
-        if ("PATREPREV".equals(codeString))
-            return PATREPREV;
-        if ("PROBLISTREV".equals(codeString))
-            return PROBLISTREV;
-        if ("RADREPREV".equals(codeString))
-            return RADREPREV;
-        if ("REMLE".equals(codeString))
-            return REMLE;
-        if ("WELLREMLE".equals(codeString))
-            return WELLREMLE;
-        if ("RISKASSESS".equals(codeString))
-            return RISKASSESS;
-        if ("FALLRISK".equals(codeString))
-            return FALLRISK;
-        if ("_ActTransportationModeCode".equals(codeString))
-            return _ACTTRANSPORTATIONMODECODE;
-        if ("_ActPatientTransportationModeCode".equals(codeString))
-            return _ACTPATIENTTRANSPORTATIONMODECODE;
-        if ("AFOOT".equals(codeString))
-            return AFOOT;
-        if ("AMBT".equals(codeString))
-            return AMBT;
-        if ("AMBAIR".equals(codeString))
-            return AMBAIR;
-        if ("AMBGRND".equals(codeString))
-            return AMBGRND;
-        if ("AMBHELO".equals(codeString))
-            return AMBHELO;
-        if ("LAWENF".equals(codeString))
-            return LAWENF;
-        if ("PRVTRN".equals(codeString))
-            return PRVTRN;
-        if ("PUBTRN".equals(codeString))
-            return PUBTRN;
-        if ("_ObservationType".equals(codeString))
-            return _OBSERVATIONTYPE;
-        if ("_ActSpecObsCode".equals(codeString))
-            return _ACTSPECOBSCODE;
-        if ("ARTBLD".equals(codeString))
-            return ARTBLD;
-        if ("DILUTION".equals(codeString))
-            return DILUTION;
-        if ("AUTO-HIGH".equals(codeString))
-            return AUTOHIGH;
-        if ("AUTO-LOW".equals(codeString))
-            return AUTOLOW;
-        if ("PRE".equals(codeString))
-            return PRE;
-        if ("RERUN".equals(codeString))
-            return RERUN;
-        if ("EVNFCTS".equals(codeString))
-            return EVNFCTS;
-        if ("INTFR".equals(codeString))
-            return INTFR;
-        if ("FIBRIN".equals(codeString))
-            return FIBRIN;
-        if ("HEMOLYSIS".equals(codeString))
-            return HEMOLYSIS;
-        if ("ICTERUS".equals(codeString))
-            return ICTERUS;
-        if ("LIPEMIA".equals(codeString))
-            return LIPEMIA;
-        if ("VOLUME".equals(codeString))
-            return VOLUME;
-        if ("AVAILABLE".equals(codeString))
-            return AVAILABLE;
-        if ("CONSUMPTION".equals(codeString))
-            return CONSUMPTION;
-        if ("CURRENT".equals(codeString))
-            return CURRENT;
-        if ("INITIAL".equals(codeString))
-            return INITIAL;
-        if ("_AnnotationType".equals(codeString))
-            return _ANNOTATIONTYPE;
-        if ("_ActPatientAnnotationType".equals(codeString))
-            return _ACTPATIENTANNOTATIONTYPE;
-        if ("ANNDI".equals(codeString))
-            return ANNDI;
-        if ("ANNGEN".equals(codeString))
-            return ANNGEN;
-        if ("ANNIMM".equals(codeString))
-            return ANNIMM;
-        if ("ANNLAB".equals(codeString))
-            return ANNLAB;
-        if ("ANNMED".equals(codeString))
-            return ANNMED;
-        if ("_GeneticObservationType".equals(codeString))
-            return _GENETICOBSERVATIONTYPE;
-        if ("GENE".equals(codeString))
-            return GENE;
-        if ("_ImmunizationObservationType".equals(codeString))
-            return _IMMUNIZATIONOBSERVATIONTYPE;
-        if ("OBSANTC".equals(codeString))
-            return OBSANTC;
-        if ("OBSANTV".equals(codeString))
-            return OBSANTV;
-        if ("_IndividualCaseSafetyReportType".equals(codeString))
-            return _INDIVIDUALCASESAFETYREPORTTYPE;
-        if ("PAT_ADV_EVNT".equals(codeString))
-            return PATADVEVNT;
-        if ("VAC_PROBLEM".equals(codeString))
-            return VACPROBLEM;
-        if ("_LOINCObservationActContextAgeType".equals(codeString))
-            return _LOINCOBSERVATIONACTCONTEXTAGETYPE;
-        if ("21611-9".equals(codeString))
-            return _216119;
-        if ("21612-7".equals(codeString))
-            return _216127;
-        if ("29553-5".equals(codeString))
-            return _295535;
-        if ("30525-0".equals(codeString))
-            return _305250;
-        if ("30972-4".equals(codeString))
-            return _309724;
-        if ("_MedicationObservationType".equals(codeString))
-            return _MEDICATIONOBSERVATIONTYPE;
-        if ("REP_HALF_LIFE".equals(codeString))
-            return REPHALFLIFE;
-        if ("SPLCOATING".equals(codeString))
-            return SPLCOATING;
-        if ("SPLCOLOR".equals(codeString))
-            return SPLCOLOR;
-        if ("SPLIMAGE".equals(codeString))
-            return SPLIMAGE;
-        if ("SPLIMPRINT".equals(codeString))
-            return SPLIMPRINT;
-        if ("SPLSCORING".equals(codeString))
-            return SPLSCORING;
-        if ("SPLSHAPE".equals(codeString))
-            return SPLSHAPE;
-        if ("SPLSIZE".equals(codeString))
-            return SPLSIZE;
-        if ("SPLSYMBOL".equals(codeString))
-            return SPLSYMBOL;
-        if ("_ObservationIssueTriggerCodedObservationType".equals(codeString))
-            return _OBSERVATIONISSUETRIGGERCODEDOBSERVATIONTYPE;
-        if ("_CaseTransmissionMode".equals(codeString))
-            return _CASETRANSMISSIONMODE;
-        if ("AIRTRNS".equals(codeString))
-            return AIRTRNS;
-        if ("ANANTRNS".equals(codeString))
-            return ANANTRNS;
-        if ("ANHUMTRNS".equals(codeString))
-            return ANHUMTRNS;
-        if ("BDYFLDTRNS".equals(codeString))
-            return BDYFLDTRNS;
-        if ("BLDTRNS".equals(codeString))
-            return BLDTRNS;
-        if ("DERMTRNS".equals(codeString))
-            return DERMTRNS;
-        if ("ENVTRNS".equals(codeString))
-            return ENVTRNS;
-        if ("FECTRNS".equals(codeString))
-            return FECTRNS;
-        if ("FOMTRNS".equals(codeString))
-            return FOMTRNS;
-        if ("FOODTRNS".equals(codeString))
-            return FOODTRNS;
-        if ("HUMHUMTRNS".equals(codeString))
-            return HUMHUMTRNS;
-        if ("INDTRNS".equals(codeString))
-            return INDTRNS;
-        if ("LACTTRNS".equals(codeString))
-            return LACTTRNS;
-        if ("NOSTRNS".equals(codeString))
-            return NOSTRNS;
-        if ("PARTRNS".equals(codeString))
-            return PARTRNS;
-        if ("PLACTRNS".equals(codeString))
-            return PLACTRNS;
-        if ("SEXTRNS".equals(codeString))
-            return SEXTRNS;
-        if ("TRNSFTRNS".equals(codeString))
-            return TRNSFTRNS;
-        if ("VECTRNS".equals(codeString))
-            return VECTRNS;
-        if ("WATTRNS".equals(codeString))
-            return WATTRNS;
-        if ("_ObservationQualityMeasureAttribute".equals(codeString))
-            return _OBSERVATIONQUALITYMEASUREATTRIBUTE;
-        if ("AGGREGATE".equals(codeString))
-            return AGGREGATE;
-        if ("CMPMSRMTH".equals(codeString))
-            return CMPMSRMTH;
-        if ("CMPMSRSCRWGHT".equals(codeString))
-            return CMPMSRSCRWGHT;
-        if ("COPY".equals(codeString))
-            return COPY;
-        if ("CRS".equals(codeString))
-            return CRS;
-        if ("DEF".equals(codeString))
-            return DEF;
-        if ("DISC".equals(codeString))
-            return DISC;
-        if ("FINALDT".equals(codeString))
-            return FINALDT;
-        if ("GUIDE".equals(codeString))
-            return GUIDE;
-        if ("IDUR".equals(codeString))
-            return IDUR;
-        if ("ITMCNT".equals(codeString))
-            return ITMCNT;
-        if ("KEY".equals(codeString))
-            return KEY;
-        if ("MEDT".equals(codeString))
-            return MEDT;
-        if ("MSD".equals(codeString))
-            return MSD;
-        if ("MSRADJ".equals(codeString))
-            return MSRADJ;
-        if ("MSRAGG".equals(codeString))
-            return MSRAGG;
-        if ("MSRIMPROV".equals(codeString))
-            return MSRIMPROV;
-        if ("MSRJUR".equals(codeString))
-            return MSRJUR;
-        if ("MSRRPTR".equals(codeString))
-            return MSRRPTR;
-        if ("MSRRPTTIME".equals(codeString))
-            return MSRRPTTIME;
-        if ("MSRSCORE".equals(codeString))
-            return MSRSCORE;
-        if ("MSRSET".equals(codeString))
-            return MSRSET;
-        if ("MSRTOPIC".equals(codeString))
-            return MSRTOPIC;
-        if ("MSRTP".equals(codeString))
-            return MSRTP;
-        if ("MSRTYPE".equals(codeString))
-            return MSRTYPE;
-        if ("RAT".equals(codeString))
-            return RAT;
-        if ("REF".equals(codeString))
-            return REF;
-        if ("SDE".equals(codeString))
-            return SDE;
-        if ("STRAT".equals(codeString))
-            return STRAT;
-        if ("TRANF".equals(codeString))
-            return TRANF;
-        if ("USE".equals(codeString))
-            return USE;
-        if ("_ObservationSequenceType".equals(codeString))
-            return _OBSERVATIONSEQUENCETYPE;
-        if ("TIME_ABSOLUTE".equals(codeString))
-            return TIMEABSOLUTE;
-        if ("TIME_RELATIVE".equals(codeString))
-            return TIMERELATIVE;
-        if ("_ObservationSeriesType".equals(codeString))
-            return _OBSERVATIONSERIESTYPE;
-        if ("_ECGObservationSeriesType".equals(codeString))
-            return _ECGOBSERVATIONSERIESTYPE;
-        if ("REPRESENTATIVE_BEAT".equals(codeString))
-            return REPRESENTATIVEBEAT;
-        if ("RHYTHM".equals(codeString))
-            return RHYTHM;
-        if ("_PatientImmunizationRelatedObservationType".equals(codeString))
-            return _PATIENTIMMUNIZATIONRELATEDOBSERVATIONTYPE;
-        if ("CLSSRM".equals(codeString))
-            return CLSSRM;
-        if ("GRADE".equals(codeString))
-            return GRADE;
-        if ("SCHL".equals(codeString))
-            return SCHL;
-        if ("SCHLDIV".equals(codeString))
-            return SCHLDIV;
-        if ("TEACHER".equals(codeString))
-            return TEACHER;
-        if ("_PopulationInclusionObservationType".equals(codeString))
-            return _POPULATIONINCLUSIONOBSERVATIONTYPE;
-        if ("DENEX".equals(codeString))
-            return DENEX;
-        if ("DENEXCEP".equals(codeString))
-            return DENEXCEP;
-        if ("DENOM".equals(codeString))
-            return DENOM;
-        if ("IPOP".equals(codeString))
-            return IPOP;
-        if ("IPPOP".equals(codeString))
-            return IPPOP;
-        if ("MSRPOPL".equals(codeString))
-            return MSRPOPL;
-        if ("MSRPOPLEX".equals(codeString))
-            return MSRPOPLEX;
-        if ("NUMER".equals(codeString))
-            return NUMER;
-        if ("NUMEX".equals(codeString))
-            return NUMEX;
-        if ("_PreferenceObservationType".equals(codeString))
-            return _PREFERENCEOBSERVATIONTYPE;
-        if ("PREFSTRENGTH".equals(codeString))
-            return PREFSTRENGTH;
-        if ("ADVERSE_REACTION".equals(codeString))
-            return ADVERSEREACTION;
-        if ("ASSERTION".equals(codeString))
-            return ASSERTION;
-        if ("CASESER".equals(codeString))
-            return CASESER;
-        if ("CDIO".equals(codeString))
-            return CDIO;
-        if ("CRIT".equals(codeString))
-            return CRIT;
-        if ("CTMO".equals(codeString))
-            return CTMO;
-        if ("DX".equals(codeString))
-            return DX;
-        if ("ADMDX".equals(codeString))
-            return ADMDX;
-        if ("DISDX".equals(codeString))
-            return DISDX;
-        if ("INTDX".equals(codeString))
-            return INTDX;
-        if ("NOI".equals(codeString))
-            return NOI;
-        if ("GISTIER".equals(codeString))
-            return GISTIER;
-        if ("HHOBS".equals(codeString))
-            return HHOBS;
-        if ("ISSUE".equals(codeString))
-            return ISSUE;
-        if ("_ActAdministrativeDetectedIssueCode".equals(codeString))
-            return _ACTADMINISTRATIVEDETECTEDISSUECODE;
-        if ("_ActAdministrativeAuthorizationDetectedIssueCode".equals(codeString))
-            return _ACTADMINISTRATIVEAUTHORIZATIONDETECTEDISSUECODE;
-        if ("NAT".equals(codeString))
-            return NAT;
-        if ("SUPPRESSED".equals(codeString))
-            return SUPPRESSED;
-        if ("VALIDAT".equals(codeString))
-            return VALIDAT;
-        if ("KEY204".equals(codeString))
-            return KEY204;
-        if ("KEY205".equals(codeString))
-            return KEY205;
-        if ("COMPLY".equals(codeString))
-            return COMPLY;
-        if ("DUPTHPY".equals(codeString))
-            return DUPTHPY;
-        if ("DUPTHPCLS".equals(codeString))
-            return DUPTHPCLS;
-        if ("DUPTHPGEN".equals(codeString))
-            return DUPTHPGEN;
-        if ("ABUSE".equals(codeString))
-            return ABUSE;
-        if ("FRAUD".equals(codeString))
-            return FRAUD;
-        if ("PLYDOC".equals(codeString))
-            return PLYDOC;
-        if ("PLYPHRM".equals(codeString))
-            return PLYPHRM;
-        if ("DOSE".equals(codeString))
-            return DOSE;
-        if ("DOSECOND".equals(codeString))
-            return DOSECOND;
-        if ("DOSEDUR".equals(codeString))
-            return DOSEDUR;
-        if ("DOSEDURH".equals(codeString))
-            return DOSEDURH;
-        if ("DOSEDURHIND".equals(codeString))
-            return DOSEDURHIND;
-        if ("DOSEDURL".equals(codeString))
-            return DOSEDURL;
-        if ("DOSEDURLIND".equals(codeString))
-            return DOSEDURLIND;
-        if ("DOSEH".equals(codeString))
-            return DOSEH;
-        if ("DOSEHINDA".equals(codeString))
-            return DOSEHINDA;
-        if ("DOSEHIND".equals(codeString))
-            return DOSEHIND;
-        if ("DOSEHINDSA".equals(codeString))
-            return DOSEHINDSA;
-        if ("DOSEHINDW".equals(codeString))
-            return DOSEHINDW;
-        if ("DOSEIVL".equals(codeString))
-            return DOSEIVL;
-        if ("DOSEIVLIND".equals(codeString))
-            return DOSEIVLIND;
-        if ("DOSEL".equals(codeString))
-            return DOSEL;
-        if ("DOSELINDA".equals(codeString))
-            return DOSELINDA;
-        if ("DOSELIND".equals(codeString))
-            return DOSELIND;
-        if ("DOSELINDSA".equals(codeString))
-            return DOSELINDSA;
-        if ("DOSELINDW".equals(codeString))
-            return DOSELINDW;
-        if ("MDOSE".equals(codeString))
-            return MDOSE;
-        if ("OBSA".equals(codeString))
-            return OBSA;
-        if ("AGE".equals(codeString))
-            return AGE;
-        if ("ADALRT".equals(codeString))
-            return ADALRT;
-        if ("GEALRT".equals(codeString))
-            return GEALRT;
-        if ("PEALRT".equals(codeString))
-            return PEALRT;
-        if ("COND".equals(codeString))
-            return COND;
-        if ("HGHT".equals(codeString))
-            return HGHT;
-        if ("LACT".equals(codeString))
-            return LACT;
-        if ("PREG".equals(codeString))
-            return PREG;
-        if ("WGHT".equals(codeString))
-            return WGHT;
-        if ("CREACT".equals(codeString))
-            return CREACT;
-        if ("GEN".equals(codeString))
-            return GEN;
-        if ("GEND".equals(codeString))
-            return GEND;
-        if ("LAB".equals(codeString))
-            return LAB;
-        if ("REACT".equals(codeString))
-            return REACT;
-        if ("ALGY".equals(codeString))
-            return ALGY;
-        if ("INT".equals(codeString))
-            return INT;
-        if ("RREACT".equals(codeString))
-            return RREACT;
-        if ("RALG".equals(codeString))
-            return RALG;
-        if ("RAR".equals(codeString))
-            return RAR;
-        if ("RINT".equals(codeString))
-            return RINT;
-        if ("BUS".equals(codeString))
-            return BUS;
-        if ("CODE_INVAL".equals(codeString))
-            return CODEINVAL;
-        if ("CODE_DEPREC".equals(codeString))
-            return CODEDEPREC;
-        if ("FORMAT".equals(codeString))
-            return FORMAT;
-        if ("ILLEGAL".equals(codeString))
-            return ILLEGAL;
-        if ("LEN_RANGE".equals(codeString))
-            return LENRANGE;
-        if ("LEN_LONG".equals(codeString))
-            return LENLONG;
-        if ("LEN_SHORT".equals(codeString))
-            return LENSHORT;
-        if ("MISSCOND".equals(codeString))
-            return MISSCOND;
-        if ("MISSMAND".equals(codeString))
-            return MISSMAND;
-        if ("NODUPS".equals(codeString))
-            return NODUPS;
-        if ("NOPERSIST".equals(codeString))
-            return NOPERSIST;
-        if ("REP_RANGE".equals(codeString))
-            return REPRANGE;
-        if ("MAXOCCURS".equals(codeString))
-            return MAXOCCURS;
-        if ("MINOCCURS".equals(codeString))
-            return MINOCCURS;
-        if ("_ActAdministrativeRuleDetectedIssueCode".equals(codeString))
-            return _ACTADMINISTRATIVERULEDETECTEDISSUECODE;
-        if ("KEY206".equals(codeString))
-            return KEY206;
-        if ("OBSOLETE".equals(codeString))
-            return OBSOLETE;
-        if ("_ActSuppliedItemDetectedIssueCode".equals(codeString))
-            return _ACTSUPPLIEDITEMDETECTEDISSUECODE;
-        if ("_AdministrationDetectedIssueCode".equals(codeString))
-            return _ADMINISTRATIONDETECTEDISSUECODE;
-        if ("_AppropriatenessDetectedIssueCode".equals(codeString))
-            return _APPROPRIATENESSDETECTEDISSUECODE;
-        if ("_InteractionDetectedIssueCode".equals(codeString))
-            return _INTERACTIONDETECTEDISSUECODE;
-        if ("FOOD".equals(codeString))
-            return FOOD;
-        if ("TPROD".equals(codeString))
-            return TPROD;
-        if ("DRG".equals(codeString))
-            return DRG;
-        if ("NHP".equals(codeString))
-            return NHP;
-        if ("NONRX".equals(codeString))
-            return NONRX;
-        if ("PREVINEF".equals(codeString))
-            return PREVINEF;
-        if ("DACT".equals(codeString))
-            return DACT;
-        if ("TIME".equals(codeString))
-            return TIME;
-        if ("ALRTENDLATE".equals(codeString))
-            return ALRTENDLATE;
-        if ("ALRTSTRTLATE".equals(codeString))
-            return ALRTSTRTLATE;
-        if ("_TimingDetectedIssueCode".equals(codeString))
-            return _TIMINGDETECTEDISSUECODE;
-        if ("ENDLATE".equals(codeString))
-            return ENDLATE;
-        if ("STRTLATE".equals(codeString))
-            return STRTLATE;
-        if ("_SupplyDetectedIssueCode".equals(codeString))
-            return _SUPPLYDETECTEDISSUECODE;
-        if ("ALLDONE".equals(codeString))
-            return ALLDONE;
-        if ("FULFIL".equals(codeString))
-            return FULFIL;
-        if ("NOTACTN".equals(codeString))
-            return NOTACTN;
-        if ("NOTEQUIV".equals(codeString))
-            return NOTEQUIV;
-        if ("NOTEQUIVGEN".equals(codeString))
-            return NOTEQUIVGEN;
-        if ("NOTEQUIVTHER".equals(codeString))
-            return NOTEQUIVTHER;
-        if ("TIMING".equals(codeString))
-            return TIMING;
-        if ("INTERVAL".equals(codeString))
-            return INTERVAL;
-        if ("MINFREQ".equals(codeString))
-            return MINFREQ;
-        if ("HELD".equals(codeString))
-            return HELD;
-        if ("TOOLATE".equals(codeString))
-            return TOOLATE;
-        if ("TOOSOON".equals(codeString))
-            return TOOSOON;
-        if ("HISTORIC".equals(codeString))
-            return HISTORIC;
-        if ("PATPREF".equals(codeString))
-            return PATPREF;
-        if ("PATPREFALT".equals(codeString))
-            return PATPREFALT;
-        if ("KSUBJ".equals(codeString))
-            return KSUBJ;
-        if ("KSUBT".equals(codeString))
-            return KSUBT;
-        if ("OINT".equals(codeString))
-            return OINT;
-        if ("ALG".equals(codeString))
-            return ALG;
-        if ("DALG".equals(codeString))
-            return DALG;
-        if ("EALG".equals(codeString))
-            return EALG;
-        if ("FALG".equals(codeString))
-            return FALG;
-        if ("DINT".equals(codeString))
-            return DINT;
-        if ("DNAINT".equals(codeString))
-            return DNAINT;
-        if ("EINT".equals(codeString))
-            return EINT;
-        if ("ENAINT".equals(codeString))
-            return ENAINT;
-        if ("FINT".equals(codeString))
-            return FINT;
-        if ("FNAINT".equals(codeString))
-            return FNAINT;
-        if ("NAINT".equals(codeString))
-            return NAINT;
-        if ("SEV".equals(codeString))
-            return SEV;
-        if ("_FDALabelData".equals(codeString))
-            return _FDALABELDATA;
-        if ("FDACOATING".equals(codeString))
-            return FDACOATING;
-        if ("FDACOLOR".equals(codeString))
-            return FDACOLOR;
-        if ("FDAIMPRINTCD".equals(codeString))
-            return FDAIMPRINTCD;
-        if ("FDALOGO".equals(codeString))
-            return FDALOGO;
-        if ("FDASCORING".equals(codeString))
-            return FDASCORING;
-        if ("FDASHAPE".equals(codeString))
-            return FDASHAPE;
-        if ("FDASIZE".equals(codeString))
-            return FDASIZE;
-        if ("_ROIOverlayShape".equals(codeString))
-            return _ROIOVERLAYSHAPE;
-        if ("CIRCLE".equals(codeString))
-            return CIRCLE;
-        if ("ELLIPSE".equals(codeString))
-            return ELLIPSE;
-        if ("POINT".equals(codeString))
-            return POINT;
-        if ("POLY".equals(codeString))
-            return POLY;
-        if ("C".equals(codeString))
-            return C;
-        if ("DIET".equals(codeString))
-            return DIET;
-        if ("BR".equals(codeString))
-            return BR;
-        if ("DM".equals(codeString))
-            return DM;
-        if ("FAST".equals(codeString))
-            return FAST;
-        if ("FORMULA".equals(codeString))
-            return FORMULA;
-        if ("GF".equals(codeString))
-            return GF;
-        if ("LF".equals(codeString))
-            return LF;
-        if ("LP".equals(codeString))
-            return LP;
-        if ("LQ".equals(codeString))
-            return LQ;
-        if ("LS".equals(codeString))
-            return LS;
-        if ("N".equals(codeString))
-            return N;
-        if ("NF".equals(codeString))
-            return NF;
-        if ("PAF".equals(codeString))
-            return PAF;
-        if ("PAR".equals(codeString))
-            return PAR;
-        if ("RD".equals(codeString))
-            return RD;
-        if ("SCH".equals(codeString))
-            return SCH;
-        if ("SUPPLEMENT".equals(codeString))
-            return SUPPLEMENT;
-        if ("T".equals(codeString))
-            return T;
-        if ("VLI".equals(codeString))
-            return VLI;
-        if ("DRUGPRG".equals(codeString))
-            return DRUGPRG;
-        if ("F".equals(codeString))
-            return F;
-        if ("PRLMN".equals(codeString))
-            return PRLMN;
-        if ("SECOBS".equals(codeString))
-            return SECOBS;
-        if ("SECCATOBS".equals(codeString))
-            return SECCATOBS;
-        if ("SECCLASSOBS".equals(codeString))
-            return SECCLASSOBS;
-        if ("SECCONOBS".equals(codeString))
-            return SECCONOBS;
-        if ("SECINTOBS".equals(codeString))
-            return SECINTOBS;
-        if ("SECALTINTOBS".equals(codeString))
-            return SECALTINTOBS;
-        if ("SECDATINTOBS".equals(codeString))
-            return SECDATINTOBS;
-        if ("SECINTCONOBS".equals(codeString))
-            return SECINTCONOBS;
-        if ("SECINTPRVOBS".equals(codeString))
-            return SECINTPRVOBS;
-        if ("SECINTPRVABOBS".equals(codeString))
-            return SECINTPRVABOBS;
-        if ("SECINTPRVRBOBS".equals(codeString))
-            return SECINTPRVRBOBS;
-        if ("SECINTSTOBS".equals(codeString))
-            return SECINTSTOBS;
-        if ("SECTRSTOBS".equals(codeString))
-            return SECTRSTOBS;
-        if ("TRSTACCRDOBS".equals(codeString))
-            return TRSTACCRDOBS;
-        if ("TRSTAGREOBS".equals(codeString))
-            return TRSTAGREOBS;
-        if ("TRSTCERTOBS".equals(codeString))
-            return TRSTCERTOBS;
-        if ("TRSTFWKOBS".equals(codeString))
-            return TRSTFWKOBS;
-        if ("TRSTLOAOBS".equals(codeString))
-            return TRSTLOAOBS;
-        if ("TRSTMECOBS".equals(codeString))
-            return TRSTMECOBS;
-        if ("SUBSIDFFS".equals(codeString))
-            return SUBSIDFFS;
-        if ("WRKCOMP".equals(codeString))
-            return WRKCOMP;
-        if ("_ActProcedureCode".equals(codeString))
-            return _ACTPROCEDURECODE;
-        if ("_ActBillableServiceCode".equals(codeString))
-            return _ACTBILLABLESERVICECODE;
-        if ("_HL7DefinedActCodes".equals(codeString))
-            return _HL7DEFINEDACTCODES;
-        if ("COPAY".equals(codeString))
-            return COPAY;
-        if ("DEDUCT".equals(codeString))
-            return DEDUCT;
-        if ("DOSEIND".equals(codeString))
-            return DOSEIND;
-        if ("PRA".equals(codeString))
-            return PRA;
-        if ("STORE".equals(codeString))
-            return STORE;
+        V3ActCode value = BY_CODE.get(codeString);
+        if (value != null)
+            return value;
         throw new FHIRException("Unknown V3ActCode code '"+codeString+"'");
     }
     public String toCode() {
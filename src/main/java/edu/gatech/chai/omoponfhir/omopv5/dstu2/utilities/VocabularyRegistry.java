@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.gatech.chai.omoponfhir.local.dao.FhirOmopVocabularyMapImpl;
+import edu.gatech.chai.omoponfhir.local.model.FhirOmopVocabularyMapEntry;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.mapping.OmopCodeableConceptMapping;
+
+/**
+ * In-memory registry of the OMOP vocabulary and FHIR code system pairs. It
+ * merges the FhirOmopVocabularyMap table of the local mapping database with the
+ * built-in {@link OmopCodeableConceptMapping} entries, so both are answered by
+ * one hash lookup.
+ *
+ * When a vocabulary or a system appears more than once, the FHIR URLs of the
+ * table win, then the built-in URIs, then the other system names of the table.
+ * The registry is loaded on the first lookup and reloaded after the table is
+ * modified through {@link FhirOmopVocabularyMapImpl}. If the table cannot be
+ * read, the lookups are answered from the last loaded registry, or from the
+ * built-in entries only, until the table is read again. The wait between two
+ * reads doubles after each failure, from 30 seconds up to 10 minutes. A
+ * modification of the table ends the wait.
+ */
+public class VocabularyRegistry {
+	private static final Logger logger = LoggerFactory.getLogger(VocabularyRegistry.class);
+
+	// Time to wait before the table is read again after a failure.
+	private static final long MIN_RETRY_MILLIS = 30000L;
+	private static final long MAX_RETRY_MILLIS = 600000L;
+
+	private static volatile VocabularyRegistry registry = null;
+	private static long retryMillis = MIN_RETRY_MILLIS;
+	private static volatile long nextAttempt = 0L;
+
+	private final Map<String, String> omopVocabularyToFhirSystem;
+	private final Map<String, String> fhirSystemToOmopVocabulary;
+	// Modification version of the table when this registry was built.
+	private final long version;
+	// False if the table could not be read.
+	private final boolean loaded;
+
+	private VocabularyRegistry(VocabularyRegistry previous, long version) {
+		this.omopVocabularyToFhirSystem = previous.omopVocabularyToFhirSystem;
+		this.fhirSystemToOmopVocabulary = previous.fhirSystemToOmopVocabulary;
+		this.version = version;
+		this.loaded = false;
+	}
+
+	private VocabularyRegistry(List<FhirOmopVocabularyMapEntry> entries, long version, boolean loaded) {
+		Map<String, String> omop2Fhir = new HashMap<String, String>();
+		Map<String, String> fhir2Omop = new HashMap<String, String>();
+
+		for (FhirOmopVocabularyMapEntry entry : entries) {
+			String omopVocabulary = entry.getOmopConceptCodeName();
+			String fhirUrlSystem = entry.getFhirUrlSystemName();
+			if (omopVocabulary != null && fhirUrlSystem != null) {
+				omop2Fhir.putIfAbsent(omopVocabulary, fhirUrlSystem);
+				fhir2Omop.putIfAbsent(fhirUrlSystem.trim(), omopVocabulary);
+			}
+		}
+
+		for (OmopCodeableConceptMapping mapping : OmopCodeableConceptMapping.values()) {
+			omop2Fhir.putIfAbsent(mapping.getOmopVocabulary(), mapping.getFhirUri());
+			fhir2Omop.putIfAbsent(mapping.getFhirUri(), mapping.getOmopVocabulary());
+		}
+
+		for (FhirOmopVocabularyMapEntry entry : entries) {
+			String omopVocabulary = entry.getOmopConceptCodeName();
+			String otherSystem = entry.getOtherSystemName();
+			if (omopVocabulary != null && otherSystem != null) {
+				omop2Fhir.putIfAbsent(omopVocabulary, otherSystem);
+				fhir2Omop.putIfAbsent(otherSystem.trim(), omopVocabulary);
+			}
+		}
+
+		omopVocabularyToFhirSystem = Collections.unmodifiableMap(omop2Fhir);
+		fhirSystemToOmopVocabulary = Collections.unmodifiableMap(fhir2Omop);
+		this.version = version;
+		this.loaded = loaded;
+		logger.debug("Vocabulary registry loaded with " + omop2Fhir.size() + " vocabularies");
+	}
+
+	private static boolean isCurrent(VocabularyRegistry current, long version) {
+		if (current == null || current.version != version) {
+			return false;
+		}
+		return current.loaded || System.currentTimeMillis() < nextAttempt;
+	}
+
+	private static VocabularyRegistry getRegistry() {
+		// Read before the table, so that a modification made during the load is
+		// picked up by the next lookup.
+		long version = FhirOmopVocabularyMapImpl.getVersion();
+		VocabularyRegistry current = registry;
+		if (isCurrent(current, version)) {
+			return current;
+		}
+
+		synchronized (VocabularyRegistry.class) {
+			current = registry;
+			if (isCurrent(current, version)) {
+				return current;
+			}
+
+			try {
+				current = new VocabularyRegistry(new FhirOmopVocabularyMapImpl().load(), version, true);
+				retryMillis = MIN_RETRY_MILLIS;
+			} catch (SQLException e) {
+				nextAttempt = System.currentTimeMillis() + retryMillis;
+				logger.error("Failed to load the vocabulary map. Trying again in " + (retryMillis / 1000) + "s. "
+						+ e.getMessage());
+				retryMillis = Math.min(retryMillis * 2, MAX_RETRY_MILLIS);
+				if (current == null) {
+					current = new VocabularyRegistry(Collections.<FhirOmopVocabularyMapEntry>emptyList(), version, false);
+				} else {
+					current = new VocabularyRegistry(current, version);
+				}
+			}
+			registry = current;
+		}
+
+		return current;
+	}
+
+	/**
+	 * Returns the OMOP vocabulary id of the FHIR system, or null if unknown.
+	 */
+	public static String getOmopVocabulary(String fhirSystem) {
+		if (fhirSystem == null) {
+			return null;
+		}
+
+		return getRegistry().fhirSystemToOmopVocabulary.get(fhirSystem.trim());
+	}
+
+	/**
+	 * Returns the FHIR system of the OMOP vocabulary id, or null if unknown.
+	 */
+	public static String getFhirSystem(String omopVocabulary) {
+		if (omopVocabulary == null) {
+			return null;
+		}
+
+		return getRegistry().omopVocabularyToFhirSystem.get(omopVocabulary);
+	}
+
+	/**
+	 * Same as {@link #getOmopVocabulary(String)}, but returns "None" if unknown
+	 * like {@link FhirOmopVocabularyMapImpl}.
+	 */
+	public static String getOmopVocabularyFromFhirSystemName(String fhirSystem) {
+		String omopVocabulary = getOmopVocabulary(fhirSystem);
+		return omopVocabulary == null ? "None" : omopVocabulary;
+	}
+
+	/**
+	 * Same as {@link #getFhirSystem(String)}, but returns "None" if unknown like
+	 * {@link FhirOmopVocabularyMapImpl}.
+	 */
+	public static String getFhirSystemNameFromOmopVocabulary(String omopVocabulary) {
+		String fhirSystem = getFhirSystem(omopVocabulary);
+		return fhirSystem == null ? "None" : fhirSystem;
+	}
+}
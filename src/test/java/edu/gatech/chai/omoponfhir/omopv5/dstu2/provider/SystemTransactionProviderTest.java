@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package edu.gatech.chai.omoponfhir.omopv5.dstu2.provider;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.model.dstu2.resource.BaseResource;
+import edu.gatech.chai.omoponfhir.omopv5.dstu2.model.MyBundle;
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for the handling of transaction bundles in
+ * {@link SystemTransactionProvider}. The bundles are parsed as they are posted.
+ */
+public class SystemTransactionProviderTest extends TestCase {
+
+	private static final FhirContext ctx = FhirContext.forDstu2();
+
+	private final List<BaseResource> postList = new ArrayList<BaseResource>();
+	private final List<BaseResource> putList = new ArrayList<BaseResource>();
+	private final List<String> deleteList = new ArrayList<String>();
+
+	private static MyBundle parse(String json) {
+		return ctx.newJsonParser().parseResource(MyBundle.class, json);
+	}
+
+	private void addEntries(MyBundle bundle) {
+		SystemTransactionProvider.addTransactionEntries(bundle.getEntry(), postList, putList, deleteList);
+	}
+
+	public void testPostOnlyTransactionIsAtomic() {
+		MyBundle bundle = parse("{\"resourceType\":\"Bundle\",\"type\":\"transaction\",\"entry\":["
+				+ "{\"fullUrl\":\"urn:uuid:1\",\"resource\":{\"resourceType\":\"Patient\",\"name\":[{\"family\":[\"Doe\"]}]},"
+				+ "\"request\":{\"method\":\"POST\",\"url\":\"Patient\"}},"
+				+ "{\"resource\":{\"resourceType\":\"Observation\",\"status\":\"final\","
+				+ "\"subject\":{\"reference\":\"urn:uuid:1\"}},"
+				+ "\"request\":{\"method\":\"POST\",\"url\":\"Observation\"}}]}");
+
+		addEntries(bundle);
+
+		assertEquals(2, postList.size());
+		assertEquals("Patient", postList.get(0).getResourceName());
+		assertEquals("Observation", postList.get(1).getResourceName());
+		assertTrue(SystemTransactionProvider.isAtomicTransaction(bundle, postList, putList, deleteList));
+	}
+
+	public void testTransactionWithUpdateIsNotAtomic() {
+		MyBundle bundle = parse("{\"resourceType\":\"Bundle\",\"type\":\"transaction\",\"entry\":["
+				+ "{\"resource\":{\"resourceType\":\"Patient\"},\"request\":{\"method\":\"POST\",\"url\":\"Patient\"}},"
+				+ "{\"resource\":{\"resourceType\":\"Patient\",\"id\":\"2\"},"
+				+ "\"request\":{\"method\":\"PUT\",\"url\":\"Patient/2\"}},"
+				+ "{\"request\":{\"method\":\"DELETE\",\"url\":\"Patient/3\"}}]}");
+
+		addEntries(bundle);
+
+		assertEquals(1, postList.size());
+		assertEquals(1, putList.size());
+		assertEquals(1, deleteList.size());
+		assertEquals("Patient/3", deleteList.get(0));
+		assertFalse(SystemTransactionProvider.isAtomicTransaction(bundle, postList, putList, deleteList));
+	}
+
+	public void testBatchIsNotAtomic() {
+		MyBundle bundle = parse("{\"resourceType\":\"Bundle\",\"type\":\"batch\",\"entry\":["
+				+ "{\"resource\":{\"resourceType\":\"Patient\"},\"request\":{\"method\":\"POST\",\"url\":\"Patient\"}}]}");
+
+		addEntries(bundle);
+
+		assertEquals(1, postList.size());
+		assertFalse(SystemTransactionProvider.isAtomicTransaction(bundle, postList, putList, deleteList));
+	}
+
+	public void testEntryWithoutRequestIsSkipped() {
+		MyBundle bundle = parse("{\"resourceType\":\"Bundle\",\"type\":\"transaction\",\"entry\":["
+				+ "{\"resource\":{\"resourceType\":\"Patient\"}}]}");
+
+		addEntries(bundle);
+
+		assertTrue(postList.isEmpty());
+		assertFalse(SystemTransactionProvider.isAtomicTransaction(bundle, postList, putList, deleteList));
+	}
+}
@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for {@link ConfigUtil}.
+ */
+public class ConfigUtilTest extends TestCase {
+
+	public void testBlankValueGivesDefault() {
+		assertEquals(5, ConfigUtil.getPositiveInt("p", null, 5));
+		assertEquals(5, ConfigUtil.getPositiveInt("p", "  ", 5));
+	}
+
+	public void testParsesTrimmedValue() {
+		assertEquals(12, ConfigUtil.getPositiveInt("p", " 12 ", 5));
+		assertEquals(0, ConfigUtil.getNonNegativeInt("p", "0", 5));
+	}
+
+	public void testOutOfRangeGivesDefault() {
+		assertEquals(5, ConfigUtil.getPositiveInt("p", "0", 5));
+		assertEquals(5, ConfigUtil.getNonNegativeInt("p", "-1", 5));
+	}
+
+	public void testNotANumberGivesDefault() {
+		assertEquals(5, ConfigUtil.getPositiveInt("p", "ten", 5));
+	}
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for {@link ExpiringLruCache}.
+ */
+public class ExpiringLruCacheTest extends TestCase {
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private Function<String, String> loader(final String value) {
+		return key -> {
+			loads.incrementAndGet();
+			return value;
+		};
+	}
+
+	public void testCachesLoadedValue() {
+		ExpiringLruCache<String, String> cache = new ExpiringLruCache<String, String>(10, 0, 0);
+
+		assertEquals("a", cache.get("k", loader("a")));
+		assertEquals("a", cache.get("k", loader("b")));
+		assertEquals(1, loads.get());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	public void testEntryExpiresAfterTtl() throws InterruptedException {
+		ExpiringLruCache<String, String> cache = new ExpiringLruCache<String, String>(10, 50, 0);
+
+		cache.get("k", loader("a"));
+		assertTrue(cache.containsKey("k"));
+
+		Thread.sleep(100);
+		assertFalse(cache.containsKey("k"));
+		assertEquals("b", cache.get("k", loader("b")));
+		assertEquals(2, loads.get());
+	}
+
+	public void testZeroTtlNeverExpires() throws InterruptedException {
+		ExpiringLruCache<String, String> cache = new ExpiringLruCache<String, String>(10, 0, 0);
+
+		cache.get("k", loader("a"));
+		Thread.sleep(50);
+		assertTrue(cache.containsKey("k"));
+	}
+
+	public void testNullIsCachedWithNegativeTtl() throws InterruptedException {
+		ExpiringLruCache<String, String> cache = new ExpiringLruCache<String, String>(10, 0, 50);
+
+		assertNull(cache.get("k", loader(null)));
+		assertNull(cache.get("k", loader("a")));
+		assertEquals(1, loads.get());
+
+		Thread.sleep(100);
+		assertEquals("a", cache.get("k", loader("a")));
+		assertEquals(2, loads.get());
+
+		// A value found afterwards is kept with the regular ttl, which never expires.
+		Thread.sleep(100);
+		assertTrue(cache.containsKey("k"));
+	}
+
+	public void testLeastRecentlyUsedIsEvicted() {
+		ExpiringLruCache<String, String> cache = new ExpiringLruCache<String, String>(2, 0, 0);
+
+		cache.put("a", "1");
+		cache.put("b", "2");
+		cache.get("a", loader("x"));
+		cache.put("c", "3");
+
+		assertEquals(2, cache.size());
+		assertTrue(cache.containsKey("a"));
+		assertFalse(cache.containsKey("b"));
+		assertTrue(cache.containsKey("c"));
+	}
+
+	public void testInvalidate() {
+		ExpiringLruCache<String, String> cache = new ExpiringLruCache<String, String>(10, 0, 0);
+
+		cache.put("a", "1");
+		cache.put("b", "2");
+		cache.invalidate("a");
+		assertFalse(cache.containsKey("a"));
+		assertTrue(cache.containsKey("b"));
+
+		cache.clear();
+		assertEquals(0, cache.size());
+	}
+}
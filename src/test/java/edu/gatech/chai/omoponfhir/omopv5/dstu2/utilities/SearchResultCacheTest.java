@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.gatech.chai.omopv5.dba.service.ParameterWrapper;
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for {@link SearchResultCache}. Without a web application context,
+ * the cache uses its defaults and is enabled.
+ */
+public class SearchResultCacheTest extends TestCase {
+
+	private SearchResultCache cache;
+
+	@Override
+	protected void setUp() {
+		cache = SearchResultCache.getInstance();
+		cache.clear();
+	}
+
+	private static List<ParameterWrapper> params(String parameter, String value) {
+		List<ParameterWrapper> paramList = new ArrayList<ParameterWrapper>();
+		paramList.add(new ParameterWrapper("String", Arrays.asList(parameter), Arrays.asList("="),
+				Arrays.asList(value), "or"));
+		return paramList;
+	}
+
+	public void testSameSearchSharesKey() {
+		assertEquals(SearchResultCache.createKey("Patient", params("familyName", "Doe")),
+				SearchResultCache.createKey("Patient", params("familyName", "Doe")));
+		assertEquals("Patient", SearchResultCache.createKey("Patient", new ArrayList<ParameterWrapper>()));
+	}
+
+	public void testDifferentSearchesHaveDifferentKeys() {
+		String key = SearchResultCache.createKey("Patient", params("familyName", "Doe"));
+
+		assertFalse(key.equals(SearchResultCache.createKey("Patient", params("familyName", "Roe"))));
+		assertFalse(key.equals(SearchResultCache.createKey("Patient", params("givenName1", "Doe"))));
+		assertFalse(key.equals(SearchResultCache.createKey("Practitioner", params("familyName", "Doe"))));
+	}
+
+	public void testCountIsLoadedOnce() {
+		String key = SearchResultCache.createKey("Patient", params("familyName", "Doe"));
+		final int[] loads = { 0 };
+
+		assertEquals(Long.valueOf(3L), cache.getCount(key, () -> { loads[0]++; return 3L; }));
+		assertEquals(Long.valueOf(3L), cache.getCount(key, () -> { loads[0]++; return 4L; }));
+		assertEquals(1, loads[0]);
+	}
+
+	public void testIdsAreKeptPerSort() {
+		String key = SearchResultCache.createKey("Patient", params("familyName", "Doe"));
+		long[] ids = { 1L, 2L, 3L };
+
+		cache.putIds(key, "id ASC", ids);
+		assertTrue(Arrays.equals(ids, cache.getIds(key, "id asc")));
+		assertNull(cache.getIds(key, "id DESC"));
+		assertNull(cache.getIds(key, null));
+	}
+
+	public void testInvalidateRemovesOnlyThatType() {
+		String patientKey = SearchResultCache.createKey("Patient", params("familyName", "Doe"));
+		String allPatientsKey = SearchResultCache.createKey("Patient", new ArrayList<ParameterWrapper>());
+		String patientLikeKey = SearchResultCache.createKey("PatientX", params("familyName", "Doe"));
+		String practitionerKey = SearchResultCache.createKey("Practitioner", params("familyName", "Doe"));
+		for (String key : Arrays.asList(patientKey, allPatientsKey, patientLikeKey, practitionerKey)) {
+			cache.putIds(key, "id ASC", new long[] { 1L });
+		}
+
+		cache.invalidate("Patient");
+
+		assertNull(cache.getIds(patientKey, "id ASC"));
+		assertNull(cache.getIds(allPatientsKey, "id ASC"));
+		assertNotNull(cache.getIds(patientLikeKey, "id ASC"));
+		assertNotNull(cache.getIds(practitionerKey, "id ASC"));
+	}
+}
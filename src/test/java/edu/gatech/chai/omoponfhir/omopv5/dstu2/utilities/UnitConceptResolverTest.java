@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Georgia Tech Research Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package edu.gatech.chai.omoponfhir.omopv5.dstu2.utilities;
+
+import java.util.Arrays;
+
+import edu.gatech.chai.omopv5.model.entity.Concept;
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for {@link UnitConceptResolver}.
+ */
+public class UnitConceptResolverTest extends TestCase {
+
+	private static final Concept MICROGRAM = concept(8576L, "ug", "microgram");
+	private static final Concept MILLILITER = concept(8587L, "mL", "milliliter");
+	private static final Concept MG_PER_DL = concept(8840L, "mg/dL", "milligram per deciliter");
+	private static final Concept MILLISECOND = concept(9593L, "ms", "millisecond");
+	private static final Concept METER_PER_SECOND = concept(8917L, "m/s", "meter per second");
+
+	private static Concept concept(Long id, String code, String name) {
+		Concept concept = new Concept(id);
+		concept.setConceptCode(code);
+		concept.setConceptName(name);
+		return concept;
+	}
+
+	@Override
+	protected void setUp() {
+		UnitConceptResolver.load(Arrays.asList(MICROGRAM, MILLILITER, MG_PER_DL, MILLISECOND, METER_PER_SECOND));
+	}
+
+	public void testNormalize() {
+		assertEquals("mg/dl", UnitConceptResolver.normalize("mg / dL"));
+		assertEquals("milligram", UnitConceptResolver.normalize("Milligrams"));
+		assertEquals("ms", UnitConceptResolver.normalize("ms"));
+		assertEquals("m/s", UnitConceptResolver.normalize("m/s"));
+	}
+
+	public void testResolvesCode() {
+		assertSame(MG_PER_DL, UnitConceptResolver.resolve("mg/dL"));
+		assertSame(MG_PER_DL, UnitConceptResolver.resolve(" mg/dL "));
+		assertSame(MG_PER_DL, UnitConceptResolver.resolve("MG/DL"));
+	}
+
+	public void testResolvesName() {
+		assertSame(MG_PER_DL, UnitConceptResolver.resolve("Milligram per deciliter"));
+		assertSame(MICROGRAM, UnitConceptResolver.resolve("micrograms"));
+	}
+
+	public void testResolvesSynonym() {
+		assertSame(MICROGRAM, UnitConceptResolver.resolve("mcg"));
+		assertSame(MICROGRAM, UnitConceptResolver.resolve("µg"));
+		assertSame(MILLILITER, UnitConceptResolver.resolve("cc"));
+		assertSame(MILLILITER, UnitConceptResolver.resolve("ML"));
+	}
+
+	public void testCodeWinsOverTrailingS() {
+		// "ms" is too short to lose its 's', so it is not read as meters.
+		assertSame(MILLISECOND, UnitConceptResolver.resolve("ms"));
+		assertSame(METER_PER_SECOND, UnitConceptResolver.resolve("m/s"));
+		assertSame(METER_PER_SECOND, UnitConceptResolver.resolve("M/S"));
+	}
+
+	public void testUnknownUnit() {
+		assertNull(UnitConceptResolver.resolve("furlong"));
+		assertNull(UnitConceptResolver.resolve(""));
+		assertNull(UnitConceptResolver.resolve(null));
+	}
+
+	public void testSynonymWithoutConceptIsIgnored() {
+		// No "h" concept is loaded, so "hour" stays unresolved.
+		assertNull(UnitConceptResolver.resolve("hour"));
+	}
+}